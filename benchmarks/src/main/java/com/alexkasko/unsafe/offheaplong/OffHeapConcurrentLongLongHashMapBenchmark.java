@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Get-heavy and put-heavy throughput of {@link OffHeapConcurrentLongLongHashMap} compared
+ * with {@link ConcurrentHashMap} of boxed longs and with {@link OffHeapLongLongHashMap}
+ * guarded by a single lock. Map is prefilled with {@code 2^20} keys, benchmark threads
+ * read or overwrite random keys from the same key range, so map size doesn't change.
+ *
+ * <p>Run {@link #main(String[])} to measure with 1, 2, 4, 8 and 16 threads, or run JMH directly
+ * specifying number of threads with {@code -t} option. Scaling is visible only if the number
+ * of available CPU cores is not less than the number of threads.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OffHeapConcurrentLongLongHashMapBenchmark {
+    private static final int KEYS_SHIFT = 20;
+    private static final long KEYS_MASK = (1L << KEYS_SHIFT) - 1;
+
+    @Param({"OffHeapConcurrentLongLongHashMap", "ConcurrentHashMap", "SynchronizedOffHeapLongLongHashMap"})
+    public String map;
+
+    private BenchmarkMap bm;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        long size = 1L << KEYS_SHIFT;
+        if ("OffHeapConcurrentLongLongHashMap".equals(map)) {
+            bm = new ConcurrentOffHeapMap(new OffHeapConcurrentLongLongHashMap(size, 16));
+        } else if ("ConcurrentHashMap".equals(map)) {
+            bm = new HeapMap(new ConcurrentHashMap<Long, Long>((int) size * 2, 0.75f, 16));
+        } else if ("SynchronizedOffHeapLongLongHashMap".equals(map)) {
+            bm = new SynchronizedOffHeapMap(new OffHeapLongLongHashMap(size));
+        } else {
+            throw new IllegalArgumentException("Illegal map: [" + map + "]");
+        }
+        for (long i = 0; i < size; i++) {
+            bm.put(i, i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bm.free();
+    }
+
+    /**
+     * Per thread random keys generator
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        private long state;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            state = System.nanoTime() | 1;
+        }
+
+        // xorshift
+        long next() {
+            long x = state;
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            state = x;
+            return x & KEYS_MASK;
+        }
+    }
+
+    @Benchmark
+    public long get(Keys keys) {
+        return bm.get(keys.next());
+    }
+
+    @Benchmark
+    public long put(Keys keys) {
+        long key = keys.next();
+        return bm.put(key, key);
+    }
+
+    /**
+     * Runs benchmark with 1, 2, 4, 8 and 16 threads
+     *
+     * @param args not used
+     * @throws RunnerException on benchmark error
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 2, 4, 8, 16}) {
+            Options opts = new OptionsBuilder()
+                    .include(OffHeapConcurrentLongLongHashMapBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(opts).run();
+        }
+    }
+
+    private interface BenchmarkMap {
+        long get(long key);
+
+        long put(long key, long value);
+
+        void free();
+    }
+
+    private static class ConcurrentOffHeapMap implements BenchmarkMap {
+        private final OffHeapConcurrentLongLongHashMap map;
+
+        private ConcurrentOffHeapMap(OffHeapConcurrentLongLongHashMap map) {
+            this.map = map;
+        }
+
+        @Override
+        public long get(long key) {
+            return map.get(key);
+        }
+
+        @Override
+        public long put(long key, long value) {
+            return map.put(key, value);
+        }
+
+        @Override
+        public void free() {
+            map.free();
+        }
+    }
+
+    private static class HeapMap implements BenchmarkMap {
+        private final ConcurrentHashMap<Long, Long> map;
+
+        private HeapMap(ConcurrentHashMap<Long, Long> map) {
+            this.map = map;
+        }
+
+        @Override
+        public long get(long key) {
+            Long res = map.get(key);
+            return null != res ? res : 0;
+        }
+
+        @Override
+        public long put(long key, long value) {
+            Long res = map.put(key, value);
+            return null != res ? res : 0;
+        }
+
+        @Override
+        public void free() {
+            map.clear();
+        }
+    }
+
+    private static class SynchronizedOffHeapMap implements BenchmarkMap {
+        private final OffHeapLongLongHashMap map;
+
+        private SynchronizedOffHeapMap(OffHeapLongLongHashMap map) {
+            this.map = map;
+        }
+
+        @Override
+        public synchronized long get(long key) {
+            return map.get(key);
+        }
+
+        @Override
+        public synchronized long put(long key, long value) {
+            return map.put(key, value);
+        }
+
+        @Override
+        public void free() {
+            map.free();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapqueue;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many producers - one consumer throughput of {@link OffHeapMpmcRingBuffer} compared
+ * with bounded {@code java.util.concurrent} queues of the same capacity. Ring buffer copies 16-byte records into off-heap
+ * memory and back, on-heap queues pass references to preallocated records.
+ * Primary score counts all calls including failed offers (queue is full) and failed polls
+ * (queue is empty), successful operations are reported as {@code queue:offered}
+ * and {@code queue:polled} counters, the latter is the transfer throughput to compare.
+ *
+ * <p>Run {@link #main(String[])} to measure with 1, 2, 4, 8 and 16 producers, or run JMH directly
+ * specifying number of producers and consumers with {@code -tg} option, e.g. {@code -tg 4,1}.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OffHeapMpmcRingBufferBenchmark {
+    private static final int CAPACITY = 1 << 16;
+    private static final int RECORD_LENGTH = 16;
+
+    @Param({"OffHeapMpmcRingBuffer", "ArrayBlockingQueue", "LinkedBlockingQueue"})
+    public String queue;
+
+    private BenchmarkQueue bq;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("OffHeapMpmcRingBuffer".equals(queue)) {
+            bq = new RingBufferQueue(new OffHeapMpmcRingBuffer(CAPACITY, RECORD_LENGTH));
+        } else if ("ArrayBlockingQueue".equals(queue)) {
+            bq = new HeapQueue(new ArrayBlockingQueue<byte[]>(CAPACITY));
+        } else if ("LinkedBlockingQueue".equals(queue)) {
+            bq = new HeapQueue(new LinkedBlockingQueue<byte[]>(CAPACITY));
+        } else {
+            throw new IllegalArgumentException("Illegal queue: [" + queue + "]");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bq.free();
+    }
+
+    /**
+     * Per thread record buffer and operation counters
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long offered;
+        public long polled;
+        byte[] record = new byte[RECORD_LENGTH];
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            offered = 0;
+            polled = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public boolean offer(Counters counters) {
+        boolean res = bq.offer(counters.record);
+        if (res) counters.offered += 1;
+        return res;
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public boolean poll(Counters counters) {
+        boolean res = bq.poll(counters.record);
+        if (res) counters.polled += 1;
+        return res;
+    }
+
+    /**
+     * Runs benchmark with 1, 2, 4, 8 and 16 producers and single consumer
+     *
+     * @param args not used
+     * @throws RunnerException on benchmark error
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int producers : new int[]{1, 2, 4, 8, 16}) {
+            Options opts = new OptionsBuilder()
+                    .include(OffHeapMpmcRingBufferBenchmark.class.getSimpleName())
+                    .threadGroups(producers, 1)
+                    .build();
+            new Runner(opts).run();
+        }
+    }
+
+    private interface BenchmarkQueue {
+        boolean offer(byte[] record);
+
+        boolean poll(byte[] record);
+
+        void free();
+    }
+
+    private static class RingBufferQueue implements BenchmarkQueue {
+        private final OffHeapMpmcRingBuffer rb;
+
+        private RingBufferQueue(OffHeapMpmcRingBuffer rb) {
+            this.rb = rb;
+        }
+
+        @Override
+        public boolean offer(byte[] record) {
+            return rb.offer(record);
+        }
+
+        @Override
+        public boolean poll(byte[] record) {
+            return rb.poll(record);
+        }
+
+        @Override
+        public void free() {
+            rb.free();
+        }
+    }
+
+    private static class HeapQueue implements BenchmarkQueue {
+        private final Queue<byte[]> queue;
+
+        private HeapQueue(Queue<byte[]> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean offer(byte[] record) {
+            return queue.offer(record);
+        }
+
+        @Override
+        public boolean poll(byte[] record) {
+            return null != queue.poll();
+        }
+
+        @Override
+        public void free() {
+            queue.clear();
+        }
+    }
+}
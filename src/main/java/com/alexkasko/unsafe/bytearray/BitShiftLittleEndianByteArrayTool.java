@@ -179,6 +179,154 @@ class BitShiftLittleEndianByteArrayTool extends ByteArrayTool {
         data[offset + 7] = (byte) (value >>> 56);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShortBE(byte[] data, int offset) {
+        return (short) ((data[offset + 0] & 0xff) << 8 |
+                        (data[offset + 1] & 0xff) << 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putShortBE(byte[] data, int offset, short value) {
+        data[offset + 0] = (byte) (value >>> 8);
+        data[offset + 1] = (byte) (value >>> 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIntBE(byte[] data, int offset) {
+        return (data[offset + 0] & 0xff) << 24 |
+               (data[offset + 1] & 0xff) << 16 |
+               (data[offset + 2] & 0xff) << 8 |
+               (data[offset + 3] & 0xff) << 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putIntBE(byte[] data, int offset, int value) {
+        data[offset + 0] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) (value >>> 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongBE(byte[] data, int offset) {
+        return (data[offset + 0] & 0xffL) << 56 |
+               (data[offset + 1] & 0xffL) << 48 |
+               (data[offset + 2] & 0xffL) << 40 |
+               (data[offset + 3] & 0xffL) << 32 |
+               (data[offset + 4] & 0xffL) << 24 |
+               (data[offset + 5] & 0xffL) << 16 |
+               (data[offset + 6] & 0xffL) << 8 |
+               (data[offset + 7] & 0xffL) << 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putLongBE(byte[] data, int offset, long value) {
+        data[offset + 0] = (byte) (value >>> 56);
+        data[offset + 1] = (byte) (value >>> 48);
+        data[offset + 2] = (byte) (value >>> 40);
+        data[offset + 3] = (byte) (value >>> 32);
+        data[offset + 4] = (byte) (value >>> 24);
+        data[offset + 5] = (byte) (value >>> 16);
+        data[offset + 6] = (byte) (value >>> 8);
+        data[offset + 7] = (byte) (value >>> 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseShorts(byte[] data, int offset, int count) {
+        for (int i = offset, end = offset + count * 2; i < end; i += 2) {
+            swap(data, i, i + 1);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseInts(byte[] data, int offset, int count) {
+        for (int i = offset, end = offset + count * 4; i < end; i += 4) {
+            swap(data, i, i + 3);
+            swap(data, i + 1, i + 2);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseLongs(byte[] data, int offset, int count) {
+        for (int i = offset, end = offset + count * 8; i < end; i += 8) {
+            swap(data, i, i + 7);
+            swap(data, i + 1, i + 6);
+            swap(data, i + 2, i + 5);
+            swap(data, i + 3, i + 4);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int mismatch(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int putVarLong(byte[] data, int offset, long value) {
+        int pos = offset;
+        while (0 != (value & ~0x7fL)) {
+            data[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos - offset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readVarLong(byte[] data, VarIntCursor cursor) {
+        int start = (int) cursor.position();
+        int pos = start;
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 63) throw new IllegalArgumentException("Malformed varint, position: [" + start + "]");
+            byte b = data[pos++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) break;
+        }
+        int len = pos - start;
+        cursor.advance(value, len);
+        return len;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -186,4 +334,10 @@ class BitShiftLittleEndianByteArrayTool extends ByteArrayTool {
     public void copy(byte[] input, int inputIndex, byte[] output, int outputIndex, int length) {
         arraycopy(input, inputIndex, output, outputIndex, length);
     }
+
+    private static void swap(byte[] data, int i, int j) {
+        byte b = data[i];
+        data[i] = data[j];
+        data[j] = b;
+    }
 }
@@ -22,11 +22,19 @@ package com.alexkasko.unsafe.bytearray;
  * without boundary checks invalid input will crash (segfault) JVM.
  * Fallback implementation uses standard byte array access and bit shifting.
  * Unsafe implementation uses native endianness (LE on most platforms). Fallback implementation uses Little Endian byte order.
+ * Methods with {@code BE} suffix always use Big Endian byte order.
+ * Variable-length methods use LEB128 encoding (7 bits per byte, least significant group first),
+ * {@code ZigZag} methods additionally map signed values to unsigned ones so small negative values stay short.
  *
  * @author alexkasko
  * Date: 12/11/12
  */
 public abstract class ByteArrayTool {
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
 
     /**
      * Instantiates unsafe tool, if proper {@code sun.misc.Unsafe} implementation is available.
@@ -204,6 +212,360 @@ public abstract class ByteArrayTool {
      */
     public abstract void putLong(byte[] data, int offset, long value);
 
+    /**
+     * Gets two bytes stored in big endian byte order as short
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @return short value
+     */
+    public abstract short getShortBE(byte[] data, int offset);
+
+    /**
+     * Puts short as two bytes in big endian byte order
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param value short value
+     */
+    public abstract void putShortBE(byte[] data, int offset, short value);
+
+    /**
+     * Gets four bytes stored in big endian byte order as int
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @return int value
+     */
+    public abstract int getIntBE(byte[] data, int offset);
+
+    /**
+     * Puts int as four bytes in big endian byte order
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param value int value
+     */
+    public abstract void putIntBE(byte[] data, int offset, int value);
+
+    /**
+     * Gets eight bytes stored in big endian byte order as long
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @return long value
+     */
+    public abstract long getLongBE(byte[] data, int offset);
+
+    /**
+     * Puts long as eight bytes in big endian byte order
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param value long value
+     */
+    public abstract void putLongBE(byte[] data, int offset, long value);
+
+    /**
+     * Reverses byte order of each of {@code count} consecutive two-byte values in place,
+     * may be used to convert data between little endian and big endian formats
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param count number of two-byte values to convert
+     */
+    public abstract void reverseShorts(byte[] data, int offset, int count);
+
+    /**
+     * Reverses byte order of each of {@code count} consecutive four-byte values in place,
+     * may be used to convert data between little endian and big endian formats
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param count number of four-byte values to convert
+     */
+    public abstract void reverseInts(byte[] data, int offset, int count);
+
+    /**
+     * Reverses byte order of each of {@code count} consecutive eight-byte values in place,
+     * may be used to convert data between little endian and big endian formats
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param count number of eight-byte values to convert
+     */
+    public abstract void reverseLongs(byte[] data, int offset, int count);
+
+    /**
+     * Finds the first byte that differs between two byte ranges
+     *
+     * @param a first byte array
+     * @param aOffset first byte array offset
+     * @param b second byte array
+     * @param bOffset second byte array offset
+     * @param length number of bytes to compare
+     * @return position of the first mismatching byte relative to range start, {@code -1} if ranges are equal
+     */
+    public abstract int mismatch(byte[] a, int aOffset, byte[] b, int bOffset, int length);
+
+    /**
+     * Checks whether two byte ranges have the same contents
+     *
+     * @param a first byte array
+     * @param aOffset first byte array offset
+     * @param b second byte array
+     * @param bOffset second byte array offset
+     * @param length number of bytes to compare
+     * @return whether ranges are equal
+     */
+    public boolean equals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        return mismatch(a, aOffset, b, bOffset, length) < 0;
+    }
+
+    /**
+     * Compares two byte ranges lexicographically treating bytes as unsigned
+     *
+     * @param a first byte array
+     * @param aOffset first byte array offset
+     * @param b second byte array
+     * @param bOffset second byte array offset
+     * @param length number of bytes to compare
+     * @return a negative integer, zero, or a positive integer as the first range
+     *         is less than, equal to, or greater than the second
+     */
+    public int compareUnsigned(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int pos = mismatch(a, aOffset, b, bOffset, length);
+        if (pos < 0) return 0;
+        return getUnsignedByte(a, aOffset + pos) - getUnsignedByte(b, bOffset + pos);
+    }
+
+    /**
+     * Computes xxHash64 of the byte range with zero seed
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param length number of bytes to hash
+     * @return hash value
+     */
+    public long hash64(byte[] data, int offset, int length) {
+        return hash64(data, offset, length, 0);
+    }
+
+    /**
+     * Computes xxHash64 of the byte range reading eight bytes at once, unsafe implementation
+     * reads words in native byte order, so hash values match reference xxHash64 implementation
+     * on little endian platforms
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param length number of bytes to hash
+     * @param seed hash seed
+     * @return hash value
+     */
+    public long hash64(byte[] data, int offset, int length, long seed) {
+        int pos = offset;
+        int end = offset + length;
+        long h;
+        if (length >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            for (int limit = end - 32; pos <= limit; pos += 32) {
+                v1 = xxRound(v1, getLong(data, pos));
+                v2 = xxRound(v2, getLong(data, pos + 8));
+                v3 = xxRound(v3, getLong(data, pos + 16));
+                v4 = xxRound(v4, getLong(data, pos + 24));
+            }
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = xxMergeRound(h, v1);
+            h = xxMergeRound(h, v2);
+            h = xxMergeRound(h, v3);
+            h = xxMergeRound(h, v4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        h += length;
+        for (; pos <= end - 8; pos += 8) {
+            h ^= xxRound(0, getLong(data, pos));
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+        }
+        if (pos <= end - 4) {
+            h ^= (getInt(data, pos) & 0xffffffffL) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+            pos += 4;
+        }
+        for (; pos < end; pos++) {
+            h ^= getUnsignedByte(data, pos) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+        }
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * Writes long value into byte array using LEB128 variable-length encoding,
+     * from one to ten bytes will be written
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param value long value
+     * @return number of bytes written
+     */
+    public abstract int putVarLong(byte[] data, int offset, long value);
+
+    /**
+     * Reads LEB128 encoded long value from cursor position, stores it into cursor
+     * and advances cursor position
+     *
+     * @param data byte array
+     * @param cursor reading position, will be updated with decoded value
+     * @return number of bytes consumed
+     * @throws IllegalArgumentException on value longer than ten bytes
+     */
+    public abstract int readVarLong(byte[] data, VarIntCursor cursor);
+
+    /**
+     * Writes long value into byte array using ZigZag transformation and LEB128 variable-length encoding
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param value long value
+     * @return number of bytes written
+     */
+    public int putZigZagLong(byte[] data, int offset, long value) {
+        return putVarLong(data, offset, zigZagEncode(value));
+    }
+
+    /**
+     * Reads ZigZag and LEB128 encoded long value from cursor position, stores it into cursor
+     * and advances cursor position
+     *
+     * @param data byte array
+     * @param cursor reading position, will be updated with decoded value
+     * @return number of bytes consumed
+     * @throws IllegalArgumentException on value longer than ten bytes
+     */
+    public int readZigZagLong(byte[] data, VarIntCursor cursor) {
+        int len = readVarLong(data, cursor);
+        cursor.setValue(zigZagDecode(cursor.value()));
+        return len;
+    }
+
+    /**
+     * Writes {@code count} long values into byte array one after another using LEB128 variable-length encoding
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param values source values
+     * @param valuesPos position in source values
+     * @param count number of values to write
+     * @return number of bytes written
+     */
+    public int putVarLongs(byte[] data, int offset, long[] values, int valuesPos, int count) {
+        int pos = offset;
+        for (int i = valuesPos, end = valuesPos + count; i < end; i++) {
+            pos += putVarLong(data, pos, values[i]);
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Reads {@code count} LEB128 encoded long values starting from cursor position,
+     * cursor will contain last decoded value
+     *
+     * @param data byte array
+     * @param cursor reading position
+     * @param values destination values
+     * @param valuesPos position in destination values
+     * @param count number of values to read
+     * @return number of bytes consumed
+     * @throws IllegalArgumentException on value longer than ten bytes
+     */
+    public int readVarLongs(byte[] data, VarIntCursor cursor, long[] values, int valuesPos, int count) {
+        int len = 0;
+        for (int i = valuesPos, end = valuesPos + count; i < end; i++) {
+            len += readVarLong(data, cursor);
+            values[i] = cursor.value();
+        }
+        return len;
+    }
+
+    /**
+     * Writes {@code count} long values into byte array one after another using ZigZag transformation
+     * and LEB128 variable-length encoding
+     *
+     * @param data byte array
+     * @param offset byte array offset
+     * @param values source values
+     * @param valuesPos position in source values
+     * @param count number of values to write
+     * @return number of bytes written
+     */
+    public int putZigZagLongs(byte[] data, int offset, long[] values, int valuesPos, int count) {
+        int pos = offset;
+        for (int i = valuesPos, end = valuesPos + count; i < end; i++) {
+            pos += putVarLong(data, pos, zigZagEncode(values[i]));
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Reads {@code count} ZigZag and LEB128 encoded long values starting from cursor position,
+     * cursor will contain last decoded value
+     *
+     * @param data byte array
+     * @param cursor reading position
+     * @param values destination values
+     * @param valuesPos position in destination values
+     * @param count number of values to read
+     * @return number of bytes consumed
+     * @throws IllegalArgumentException on value longer than ten bytes
+     */
+    public int readZigZagLongs(byte[] data, VarIntCursor cursor, long[] values, int valuesPos, int count) {
+        int len = 0;
+        for (int i = valuesPos, end = valuesPos + count; i < end; i++) {
+            len += readZigZagLong(data, cursor);
+            values[i] = cursor.value();
+        }
+        return len;
+    }
+
+    /**
+     * Returns number of bytes required to store specified value using LEB128 variable-length encoding
+     *
+     * @param value long value
+     * @return number of bytes from one to ten
+     */
+    public static int varLongLength(long value) {
+        return (70 - Long.numberOfLeadingZeros(value | 1)) / 7;
+    }
+
+    /**
+     * Maps signed value to unsigned one so values with small absolute value
+     * (both positive and negative) have small encoded length
+     *
+     * @param value signed value
+     * @return ZigZag encoded value
+     */
+    public static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverses {@link #zigZagEncode(long)} transformation
+     *
+     * @param value ZigZag encoded value
+     * @return signed value
+     */
+    public static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
     /**
      * Copies part of one array into another. Unsafe implementation has less
      * bounds checks (if assertions are disabled in runtime) then {@link System#arraycopy(Object, int, Object, int, int)}
@@ -216,4 +578,15 @@ public abstract class ByteArrayTool {
      * @param length length to copy
      */
     public abstract void copy(byte[] src, int srcPos, byte[] dest, int destPos, int length);
+
+    private static long xxRound(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long xxMergeRound(long acc, long val) {
+        acc ^= xxRound(0, val);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
 }
@@ -19,6 +19,7 @@ package com.alexkasko.unsafe.bytearray;
 import sun.misc.Unsafe;
 
 import java.lang.reflect.Field;
+import java.nio.ByteOrder;
 
 /**
  * Implementation of {@link ByteArrayTool} using {@code sun.misc.Unsafe}.
@@ -32,6 +33,7 @@ class UnsafeByteArrayTool extends ByteArrayTool {
 
     private static final Unsafe UNSAFE;
     private static final long BYTE_ARRAY_OFFSET;
+    private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
 
     static {
         try {
@@ -202,6 +204,187 @@ class UnsafeByteArrayTool extends ByteArrayTool {
         UNSAFE.putLong(data, BYTE_ARRAY_OFFSET + offset, value);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShortBE(byte[] data, int offset) {
+        assert offset >= 0 : offset;
+        assert offset <= data.length - 2 : offset;
+        short value = UNSAFE.getShort(data, BYTE_ARRAY_OFFSET + offset);
+        return BIG_ENDIAN ? value : Short.reverseBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putShortBE(byte[] data, int offset, short value) {
+        assert offset >= 0 : offset;
+        assert offset <= data.length - 2 : offset;
+        UNSAFE.putShort(data, BYTE_ARRAY_OFFSET + offset, BIG_ENDIAN ? value : Short.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIntBE(byte[] data, int offset) {
+        assert offset >= 0 : offset;
+        assert offset <= data.length - 4 : offset;
+        int value = UNSAFE.getInt(data, BYTE_ARRAY_OFFSET + offset);
+        return BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putIntBE(byte[] data, int offset, int value) {
+        assert offset >= 0 : offset;
+        assert offset <= data.length - 4 : offset;
+        UNSAFE.putInt(data, BYTE_ARRAY_OFFSET + offset, BIG_ENDIAN ? value : Integer.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongBE(byte[] data, int offset) {
+        assert offset >= 0 : offset;
+        assert offset <= data.length - 8 : offset;
+        long value = UNSAFE.getLong(data, BYTE_ARRAY_OFFSET + offset);
+        return BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putLongBE(byte[] data, int offset, long value) {
+        assert offset >= 0 : offset;
+        assert offset <= data.length - 8 : offset;
+        UNSAFE.putLong(data, BYTE_ARRAY_OFFSET + offset, BIG_ENDIAN ? value : Long.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseShorts(byte[] data, int offset, int count) {
+        assert offset >= 0 : offset;
+        assert count >= 0 : count;
+        assert offset <= data.length - count * 2 : offset;
+        long end = BYTE_ARRAY_OFFSET + offset + count * 2L;
+        for (long addr = BYTE_ARRAY_OFFSET + offset; addr < end; addr += 2) {
+            UNSAFE.putShort(data, addr, Short.reverseBytes(UNSAFE.getShort(data, addr)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseInts(byte[] data, int offset, int count) {
+        assert offset >= 0 : offset;
+        assert count >= 0 : count;
+        assert offset <= data.length - count * 4 : offset;
+        long end = BYTE_ARRAY_OFFSET + offset + count * 4L;
+        for (long addr = BYTE_ARRAY_OFFSET + offset; addr < end; addr += 4) {
+            UNSAFE.putInt(data, addr, Integer.reverseBytes(UNSAFE.getInt(data, addr)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseLongs(byte[] data, int offset, int count) {
+        assert offset >= 0 : offset;
+        assert count >= 0 : count;
+        assert offset <= data.length - count * 8 : offset;
+        long end = BYTE_ARRAY_OFFSET + offset + count * 8L;
+        for (long addr = BYTE_ARRAY_OFFSET + offset; addr < end; addr += 8) {
+            UNSAFE.putLong(data, addr, Long.reverseBytes(UNSAFE.getLong(data, addr)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int mismatch(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        assert aOffset >= 0 : aOffset;
+        assert aOffset <= a.length - length : aOffset;
+        assert bOffset >= 0 : bOffset;
+        assert bOffset <= b.length - length : bOffset;
+        long aAddr = BYTE_ARRAY_OFFSET + aOffset;
+        long bAddr = BYTE_ARRAY_OFFSET + bOffset;
+        int i = 0;
+        for (; i <= length - 8; i += 8) {
+            long diff = UNSAFE.getLong(a, aAddr + i) ^ UNSAFE.getLong(b, bAddr + i);
+            if (0 != diff) {
+                return i + ((BIG_ENDIAN ? Long.numberOfLeadingZeros(diff) : Long.numberOfTrailingZeros(diff)) >>> 3);
+            }
+        }
+        for (; i < length; i++) {
+            if (UNSAFE.getByte(a, aAddr + i) != UNSAFE.getByte(b, bAddr + i)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int putVarLong(byte[] data, int offset, long value) {
+        assert offset >= 0 : offset;
+        assert offset <= data.length - varLongLength(value) : offset;
+        long addr = BYTE_ARRAY_OFFSET + offset;
+        long start = addr;
+        while (0 != (value & ~0x7fL)) {
+            UNSAFE.putByte(data, addr++, (byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        UNSAFE.putByte(data, addr++, (byte) value);
+        return (int) (addr - start);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readVarLong(byte[] data, VarIntCursor cursor) {
+        long pos = cursor.position();
+        assert pos >= 0 : pos;
+        assert pos < data.length : pos;
+        // read eight bytes at once and find terminal byte using bit mask,
+        // fall back to byte loop for long values and near the end of array
+        if (pos <= data.length - 8) {
+            long word = UNSAFE.getLong(data, BYTE_ARRAY_OFFSET + pos);
+            if (BIG_ENDIAN) word = Long.reverseBytes(word);
+            long stops = ~word & 0x8080808080808080L;
+            if (0 != stops) {
+                int len = (Long.numberOfTrailingZeros(stops) + 1) >>> 3;
+                cursor.advance(compactVarLong(word & (-1L >>> (64 - (len << 3)))), len);
+                return len;
+            }
+        }
+        long value = 0;
+        long addr = BYTE_ARRAY_OFFSET + pos;
+        long start = addr;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 63) throw new IllegalArgumentException("Malformed varint, position: [" + pos + "]");
+            assert addr - BYTE_ARRAY_OFFSET < data.length : pos;
+            byte b = UNSAFE.getByte(data, addr++);
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) break;
+        }
+        int len = (int) (addr - start);
+        cursor.advance(value, len);
+        return len;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -213,4 +396,16 @@ class UnsafeByteArrayTool extends ByteArrayTool {
         assert destPos <= dest.length - length : destPos;
         UNSAFE.copyMemory(src, BYTE_ARRAY_OFFSET + srcPos, dest, BYTE_ARRAY_OFFSET + destPos, length);
     }
+
+    // gathers 7-bit groups of little endian word with continuation bits, unused bytes must be zeroed
+    private static long compactVarLong(long word) {
+        return (word & 0x7fL) |
+                ((word & 0x7f00L) >>> 1) |
+                ((word & 0x7f0000L) >>> 2) |
+                ((word & 0x7f000000L) >>> 3) |
+                ((word & 0x7f00000000L) >>> 4) |
+                ((word & 0x7f0000000000L) >>> 5) |
+                ((word & 0x7f000000000000L) >>> 6) |
+                ((word & 0x7f00000000000000L) >>> 7);
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.bytearray;
+
+/**
+ * Reading position for variable-length (LEB128) encoded values stored in byte arrays
+ * or in {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * Was made mutable to prevent new object instantiation for each read: read methods
+ * decode the value at current position, store it into this cursor and advance the position.
+ * NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ * @see ByteArrayTool#readVarLong(byte[], VarIntCursor)
+ * @see com.alexkasko.unsafe.offheap.OffHeapMemory#readVarLong(VarIntCursor)
+ */
+public class VarIntCursor {
+    private long position;
+    private long value;
+
+    /**
+     * Constructor, cursor will start at position {@code 0}
+     */
+    public VarIntCursor() {
+        this(0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param position start position
+     */
+    public VarIntCursor(long position) {
+        this.position = position;
+    }
+
+    /**
+     * Position of the next value to read
+     *
+     * @return position of the next value to read
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Moves cursor to specified position
+     *
+     * @param position new position
+     */
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    /**
+     * Last decoded value
+     *
+     * @return last decoded value
+     */
+    public long value() {
+        return value;
+    }
+
+    /**
+     * Replaces last decoded value, used by read implementations
+     *
+     * @param value decoded value
+     */
+    public void setValue(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Stores decoded value and advances position, used by read implementations
+     *
+     * @param value decoded value
+     * @param length number of bytes consumed
+     */
+    public void advance(long value, int length) {
+        this.value = value;
+        this.position += length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("VarIntCursor");
+        sb.append("{position=").append(position);
+        sb.append(", value=").append(value);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -26,7 +26,16 @@
  *
  * <h2>Operations</h2>
  * <p>All operations with {@link sun.misc.Unsafe} are done using platform endianness (little endian on most platform),
- * bitshift backend always uses little endian byte order.
+ * bitshift backend always uses little endian byte order. Methods with {@code BE} suffix read and write values
+ * in big endian byte order on both backends, {@code reverse*} methods convert regions of values between byte orders in place.
+ *
+ * <p>Long values may be stored using LEB128 variable-length encoding ({@code VarLong} methods), optionally combined
+ * with ZigZag transformation for signed values ({@code ZigZagLong} methods). Reads are done through mutable
+ * {@link com.alexkasko.unsafe.bytearray.VarIntCursor} to avoid allocations, unsafe backend decodes
+ * short values reading eight bytes at once.
+ *
+ * <p>Byte ranges may be compared ({@code mismatch}, {@code equals}, {@code compareUnsigned}) and hashed
+ * using xxHash64 ({@code hash64}) without copying, unsafe backend processes eight bytes at once.
  *
  * <h2>Boundary checks</h2>
  * <p>With {@link sun.misc.Unsafe} backend all operations have boundary checks using
@@ -16,6 +16,8 @@
 
 package com.alexkasko.unsafe.offheap;
 
+import com.alexkasko.unsafe.bytearray.VarIntCursor;
+
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -37,10 +39,18 @@ class DirectOffHeapMemory extends OffHeapMemory {
     private final AtomicBoolean disposed = new AtomicBoolean(false);
 
     DirectOffHeapMemory(long bytes) {
-        if(bytes > Integer.MAX_VALUE) throw new IllegalArgumentException(
-                "Long-sized allocations are not supported by [" + getClass().getName() + "]");
-        this.length = bytes;
-        this.bb = ByteBuffer.allocateDirect((int) bytes).order(LITTLE_ENDIAN);
+        this(allocateDirect(bytes));
+    }
+
+    /**
+     * Constructor wrapping existing direct buffer, e.g. {@link java.nio.MappedByteBuffer}.
+     * Buffer will be cleaned (unmapped) on {@link #free()}.
+     *
+     * @param bb direct buffer
+     */
+    DirectOffHeapMemory(ByteBuffer bb) {
+        this.length = bb.capacity();
+        this.bb = bb.order(LITTLE_ENDIAN);
         // http://stackoverflow.com/a/8191493/314015
         try {
             setupOpenJdkCleaner();
@@ -55,10 +65,18 @@ class DirectOffHeapMemory extends OffHeapMemory {
         }
     }
 
+    private static ByteBuffer allocateDirect(long bytes) {
+        if(bytes > Integer.MAX_VALUE) throw new IllegalArgumentException(
+                "Long-sized allocations are not supported by [" + DirectOffHeapMemory.class.getName() + "]");
+        return ByteBuffer.allocateDirect((int) bytes);
+    }
+
     private void setupOpenJdkCleaner() throws Exception {
         Method cleanerMethod = bb.getClass().getMethod("cleaner");
         cleanerMethod.setAccessible(true);
         this.cleaner = cleanerMethod.invoke(bb);
+        // empty mapped buffers have no cleaner
+        if (null == cleaner) return;
         this.clean = cleaner.getClass().getMethod("clean");
         this.clean.setAccessible(true);
     }
@@ -90,7 +108,7 @@ class DirectOffHeapMemory extends OffHeapMemory {
      */
     @Override
     public void free() {
-        if(!disposed.compareAndSet(false, true)) return;
+        if(!disposed.compareAndSet(false, true) || null == clean) return;
         try {
             clean.invoke(cleaner);
         } catch (Throwable e) {
@@ -238,6 +256,18 @@ class DirectOffHeapMemory extends OffHeapMemory {
         return bb.getLong((int) offset);
     }
 
+    /**
+     * Memory address is not exposed by this implementation, offset is returned as is
+     *
+     * @param offset memory area offset
+     * @param alignment alignment in bytes, ignored
+     * @return specified offset
+     */
+    @Override
+    public long alignOffset(long offset, int alignment) {
+        return offset;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -246,6 +276,137 @@ class DirectOffHeapMemory extends OffHeapMemory {
         bb.putLong((int) offset, value);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShortBE(long offset) {
+        return Short.reverseBytes(bb.getShort((int) offset));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putShortBE(long offset, short value) {
+        bb.putShort((int) offset, Short.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIntBE(long offset) {
+        return Integer.reverseBytes(bb.getInt((int) offset));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putIntBE(long offset, int value) {
+        bb.putInt((int) offset, Integer.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongBE(long offset) {
+        return Long.reverseBytes(bb.getLong((int) offset));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putLongBE(long offset, long value) {
+        bb.putLong((int) offset, Long.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseShorts(long offset, long count) {
+        for (int i = (int) offset, end = (int) (offset + count * 2); i < end; i += 2) {
+            bb.putShort(i, Short.reverseBytes(bb.getShort(i)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseInts(long offset, long count) {
+        for (int i = (int) offset, end = (int) (offset + count * 4); i < end; i += 4) {
+            bb.putInt(i, Integer.reverseBytes(bb.getInt(i)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseLongs(long offset, long count) {
+        for (int i = (int) offset, end = (int) (offset + count * 8); i < end; i += 8) {
+            bb.putLong(i, Long.reverseBytes(bb.getLong(i)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long mismatch(long offset, OffHeapMemory other, long otherOffset, long bytes) {
+        ByteBuffer obb = ((DirectOffHeapMemory) other).bb;
+        int off = (int) offset;
+        int ooff = (int) otherOffset;
+        int len = (int) bytes;
+        int i = 0;
+        for (; i <= len - 8; i += 8) {
+            long diff = bb.getLong(off + i) ^ obb.getLong(ooff + i);
+            if (0 != diff) return i + (Long.numberOfTrailingZeros(diff) >>> 3);
+        }
+        for (; i < len; i++) {
+            if (bb.get(off + i) != obb.get(ooff + i)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int putVarLong(long offset, long value) {
+        int pos = (int) offset;
+        while (0 != (value & ~0x7fL)) {
+            bb.put(pos++, (byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        bb.put(pos++, (byte) value);
+        return pos - (int) offset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readVarLong(VarIntCursor cursor) {
+        int start = (int) cursor.position();
+        int pos = start;
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 63) throw new IllegalArgumentException("Malformed varint, position: [" + start + "]");
+            byte b = bb.get(pos++);
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) break;
+        }
+        int len = pos - start;
+        cursor.advance(value, len);
+        return len;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -17,8 +17,13 @@
 package com.alexkasko.unsafe.offheap;
 
 import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import com.alexkasko.unsafe.bytearray.VarIntCursor;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.channels.FileChannel;
 
 /**
  * <p>Allocates an area of off-heap memory that is not a subject to GC.
@@ -32,6 +37,8 @@ import java.lang.reflect.InvocationTargetException;
  * Note: only unsafe implementation ({@link #allocateMemoryUnsafe(long)}) may use memory areas longer than {@code Integer.MAX_VALUE}
  *
  * <p>Unsafe implementation uses native endianness (LE on most platforms). Fallback implementation uses Little Endian byte order.
+ * Methods with {@code BE} suffix always use Big Endian byte order.
+ * Variable-length methods use LEB128 encoding, see {@link ByteArrayTool#varLongLength(long)}.
  *
  * <p>Provides methods to access allocated memory. More complex data structures (off-heap quasi-objects) may be
  * constructed wrapping this class, see {@link com.alexkasko.unsafe.offheaplong.OffHeapLongArray}.
@@ -43,6 +50,12 @@ import java.lang.reflect.InvocationTargetException;
  * Date: 1/14/13
  */
 public abstract class OffHeapMemory {
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
     /**
      * Allocates memory using {@code sun.misc.Unsafe} if it's proper implementation is available.
      * Allocates using {@link java.nio.ByteBuffer#allocateDirect(int)} otherwise.
@@ -104,6 +117,48 @@ public abstract class OffHeapMemory {
         return new OnHeapMemory(bt, bytes);
     }
 
+    /**
+     * Maps region of the file into memory using {@link java.nio.channels.FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long)}.
+     * File placed on {@code /dev/shm} (or any other file) mapped by several processes shares the same physical memory pages.
+     * Read-write mapping extends the file if necessary, changes are written back to the file.
+     * Read-only mapping throws {@link java.nio.ReadOnlyBufferException} on any write.
+     * Memory is unmapped on {@link #free()}, file itself is not deleted. Uses Little Endian byte order.
+     *
+     * @param file file to map
+     * @param position region start position in file
+     * @param bytes region length, must not exceed {@code Integer.MAX_VALUE}
+     * @param readOnly whether to map region read-only
+     * @return {@code OffHeapMemory} instance
+     * @throws IOException on file open or map error
+     */
+    public static OffHeapMemory mapFile(File file, long position, long bytes, boolean readOnly) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, readOnly ? "r" : "rw");
+        try {
+            // mapping stays valid after channel is closed
+            return mapFile(raf.getChannel(), position, bytes, readOnly);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Maps region of the file opened as the specified channel into memory,
+     * see {@link #mapFile(java.io.File, long, long, boolean)}. Channel may be closed after mapping.
+     *
+     * @param channel file channel, must be opened for writing for read-write mapping
+     * @param position region start position in file
+     * @param bytes region length, must not exceed {@code Integer.MAX_VALUE}
+     * @param readOnly whether to map region read-only
+     * @return {@code OffHeapMemory} instance
+     * @throws IOException on map error
+     */
+    public static OffHeapMemory mapFile(FileChannel channel, long position, long bytes, boolean readOnly) throws IOException {
+        if (bytes > Integer.MAX_VALUE) throw new IllegalArgumentException(
+                "Long-sized mappings are not supported, bytes: [" + bytes + "]");
+        FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        return new DirectOffHeapMemory(channel.map(mode, position, bytes));
+    }
+
     /**
      * Whether current implementation uses {@code sun.misc.Unsafe}
      *
@@ -273,6 +328,321 @@ public abstract class OffHeapMemory {
      */
     public abstract void putLong(long offset, long value);
 
+    /**
+     * Returns the smallest offset not less than specified one, absolute address of which
+     * is a multiple of specified alignment. Implementations that don't expose memory address
+     * return specified offset as is.
+     *
+     * @param offset memory area offset
+     * @param alignment alignment in bytes, must be a power of two
+     * @return aligned offset
+     */
+    public abstract long alignOffset(long offset, int alignment);
+
+    /**
+     * Gets two bytes stored in big endian byte order from memory area as short
+     *
+     * @param offset memory area offset
+     * @return short value
+     */
+    public abstract short getShortBE(long offset);
+
+    /**
+     * Puts short into memory area as two bytes in big endian byte order
+     *
+     * @param offset memory area offset
+     * @param value short value
+     */
+    public abstract void putShortBE(long offset, short value);
+
+    /**
+     * Gets four bytes stored in big endian byte order from memory area as int
+     *
+     * @param offset memory area offset
+     * @return int value
+     */
+    public abstract int getIntBE(long offset);
+
+    /**
+     * Puts int into memory area as four bytes in big endian byte order
+     *
+     * @param offset memory area offset
+     * @param value int value
+     */
+    public abstract void putIntBE(long offset, int value);
+
+    /**
+     * Gets eight bytes stored in big endian byte order from memory area as long
+     *
+     * @param offset memory area offset
+     * @return long value
+     */
+    public abstract long getLongBE(long offset);
+
+    /**
+     * Puts long into memory area as eight bytes in big endian byte order
+     *
+     * @param offset memory area offset
+     * @param value long value
+     */
+    public abstract void putLongBE(long offset, long value);
+
+    /**
+     * Reverses byte order of each of {@code count} consecutive two-byte values in place,
+     * may be used to convert data between little endian and big endian formats
+     *
+     * @param offset memory area offset
+     * @param count number of two-byte values to convert
+     */
+    public abstract void reverseShorts(long offset, long count);
+
+    /**
+     * Reverses byte order of each of {@code count} consecutive four-byte values in place,
+     * may be used to convert data between little endian and big endian formats
+     *
+     * @param offset memory area offset
+     * @param count number of four-byte values to convert
+     */
+    public abstract void reverseInts(long offset, long count);
+
+    /**
+     * Reverses byte order of each of {@code count} consecutive eight-byte values in place,
+     * may be used to convert data between little endian and big endian formats
+     *
+     * @param offset memory area offset
+     * @param count number of eight-byte values to convert
+     */
+    public abstract void reverseLongs(long offset, long count);
+
+    /**
+     * Finds the first byte that differs between this instance's area and another instance's area,
+     * other instance must have the same implementation as this one and may be this instance itself
+     *
+     * @param offset this memory area offset
+     * @param other other memory area
+     * @param otherOffset other memory area offset
+     * @param bytes number of bytes to compare
+     * @return position of the first mismatching byte relative to range start, {@code -1} if ranges are equal
+     */
+    public abstract long mismatch(long offset, OffHeapMemory other, long otherOffset, long bytes);
+
+    /**
+     * Checks whether this instance's area and another instance's area have the same contents,
+     * other instance must have the same implementation as this one and may be this instance itself
+     *
+     * @param offset this memory area offset
+     * @param other other memory area
+     * @param otherOffset other memory area offset
+     * @param bytes number of bytes to compare
+     * @return whether ranges are equal
+     */
+    public boolean equals(long offset, OffHeapMemory other, long otherOffset, long bytes) {
+        return mismatch(offset, other, otherOffset, bytes) < 0;
+    }
+
+    /**
+     * Compares this instance's area and another instance's area lexicographically treating bytes as unsigned,
+     * other instance must have the same implementation as this one and may be this instance itself
+     *
+     * @param offset this memory area offset
+     * @param other other memory area
+     * @param otherOffset other memory area offset
+     * @param bytes number of bytes to compare
+     * @return a negative integer, zero, or a positive integer as this range
+     *         is less than, equal to, or greater than the other one
+     */
+    public int compareUnsigned(long offset, OffHeapMemory other, long otherOffset, long bytes) {
+        long pos = mismatch(offset, other, otherOffset, bytes);
+        if (pos < 0) return 0;
+        return getUnsignedByte(offset + pos) - other.getUnsignedByte(otherOffset + pos);
+    }
+
+    /**
+     * Computes xxHash64 of the memory area range with zero seed
+     *
+     * @param offset memory area offset
+     * @param bytes number of bytes to hash
+     * @return hash value
+     */
+    public long hash64(long offset, long bytes) {
+        return hash64(offset, bytes, 0);
+    }
+
+    /**
+     * Computes xxHash64 of the memory area range reading eight bytes at once, unsafe implementation
+     * reads words in native byte order, so hash values match reference xxHash64 implementation
+     * on little endian platforms
+     *
+     * @param offset memory area offset
+     * @param bytes number of bytes to hash
+     * @param seed hash seed
+     * @return hash value
+     */
+    public long hash64(long offset, long bytes, long seed) {
+        long pos = offset;
+        long end = offset + bytes;
+        long h;
+        if (bytes >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            for (long limit = end - 32; pos <= limit; pos += 32) {
+                v1 = xxRound(v1, getLong(pos));
+                v2 = xxRound(v2, getLong(pos + 8));
+                v3 = xxRound(v3, getLong(pos + 16));
+                v4 = xxRound(v4, getLong(pos + 24));
+            }
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = xxMergeRound(h, v1);
+            h = xxMergeRound(h, v2);
+            h = xxMergeRound(h, v3);
+            h = xxMergeRound(h, v4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        h += bytes;
+        for (; pos <= end - 8; pos += 8) {
+            h ^= xxRound(0, getLong(pos));
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+        }
+        if (pos <= end - 4) {
+            h ^= (getInt(pos) & 0xffffffffL) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+            pos += 4;
+        }
+        for (; pos < end; pos++) {
+            h ^= getUnsignedByte(pos) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+        }
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * Writes long value into memory area using LEB128 variable-length encoding,
+     * from one to ten bytes will be written
+     *
+     * @param offset memory area offset
+     * @param value long value
+     * @return number of bytes written
+     */
+    public abstract int putVarLong(long offset, long value);
+
+    /**
+     * Reads LEB128 encoded long value from cursor position, stores it into cursor
+     * and advances cursor position
+     *
+     * @param cursor reading position, will be updated with decoded value
+     * @return number of bytes consumed
+     * @throws IllegalArgumentException on value longer than ten bytes
+     */
+    public abstract int readVarLong(VarIntCursor cursor);
+
+    /**
+     * Writes long value into memory area using ZigZag transformation and LEB128 variable-length encoding
+     *
+     * @param offset memory area offset
+     * @param value long value
+     * @return number of bytes written
+     */
+    public int putZigZagLong(long offset, long value) {
+        return putVarLong(offset, ByteArrayTool.zigZagEncode(value));
+    }
+
+    /**
+     * Reads ZigZag and LEB128 encoded long value from cursor position, stores it into cursor
+     * and advances cursor position
+     *
+     * @param cursor reading position, will be updated with decoded value
+     * @return number of bytes consumed
+     * @throws IllegalArgumentException on value longer than ten bytes
+     */
+    public int readZigZagLong(VarIntCursor cursor) {
+        int len = readVarLong(cursor);
+        cursor.setValue(ByteArrayTool.zigZagDecode(cursor.value()));
+        return len;
+    }
+
+    /**
+     * Writes {@code count} long values into memory area one after another using LEB128 variable-length encoding
+     *
+     * @param offset memory area offset
+     * @param values source values
+     * @param valuesPos position in source values
+     * @param count number of values to write
+     * @return number of bytes written
+     */
+    public long putVarLongs(long offset, long[] values, int valuesPos, int count) {
+        long pos = offset;
+        for (int i = valuesPos, end = valuesPos + count; i < end; i++) {
+            pos += putVarLong(pos, values[i]);
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Reads {@code count} LEB128 encoded long values starting from cursor position,
+     * cursor will contain last decoded value
+     *
+     * @param cursor reading position
+     * @param values destination values
+     * @param valuesPos position in destination values
+     * @param count number of values to read
+     * @return number of bytes consumed
+     * @throws IllegalArgumentException on value longer than ten bytes
+     */
+    public long readVarLongs(VarIntCursor cursor, long[] values, int valuesPos, int count) {
+        long len = 0;
+        for (int i = valuesPos, end = valuesPos + count; i < end; i++) {
+            len += readVarLong(cursor);
+            values[i] = cursor.value();
+        }
+        return len;
+    }
+
+    /**
+     * Writes {@code count} long values into memory area one after another using ZigZag transformation
+     * and LEB128 variable-length encoding
+     *
+     * @param offset memory area offset
+     * @param values source values
+     * @param valuesPos position in source values
+     * @param count number of values to write
+     * @return number of bytes written
+     */
+    public long putZigZagLongs(long offset, long[] values, int valuesPos, int count) {
+        long pos = offset;
+        for (int i = valuesPos, end = valuesPos + count; i < end; i++) {
+            pos += putVarLong(pos, ByteArrayTool.zigZagEncode(values[i]));
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Reads {@code count} ZigZag and LEB128 encoded long values starting from cursor position,
+     * cursor will contain last decoded value
+     *
+     * @param cursor reading position
+     * @param values destination values
+     * @param valuesPos position in destination values
+     * @param count number of values to read
+     * @return number of bytes consumed
+     * @throws IllegalArgumentException on value longer than ten bytes
+     */
+    public long readZigZagLongs(VarIntCursor cursor, long[] values, int valuesPos, int count) {
+        long len = 0;
+        for (int i = valuesPos, end = valuesPos + count; i < end; i++) {
+            len += readZigZagLong(cursor);
+            values[i] = cursor.value();
+        }
+        return len;
+    }
+
     /**
      * Copies memory from this instance's area into another instance's area
      *
@@ -291,4 +661,15 @@ public abstract class OffHeapMemory {
      */
     @Override
     public abstract OffHeapMemory clone();
-}
\ No newline at end of file
+
+    private static long xxRound(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long xxMergeRound(long acc, long val) {
+        acc ^= xxRound(0, val);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+}
@@ -17,6 +17,7 @@
 package com.alexkasko.unsafe.offheap;
 
 import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import com.alexkasko.unsafe.bytearray.VarIntCursor;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -201,6 +202,18 @@ class OnHeapMemory extends OffHeapMemory {
         return bt.getLong(mem, (int) offset);
     }
 
+    /**
+     * Memory address is not exposed by this implementation, offset is returned as is
+     *
+     * @param offset memory area offset
+     * @param alignment alignment in bytes, ignored
+     * @return specified offset
+     */
+    @Override
+    public long alignOffset(long offset, int alignment) {
+        return offset;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -209,6 +222,103 @@ class OnHeapMemory extends OffHeapMemory {
         bt.putLong(mem, (int) offset, value);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShortBE(long offset) {
+        return bt.getShortBE(mem, (int) offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putShortBE(long offset, short value) {
+        bt.putShortBE(mem, (int) offset, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIntBE(long offset) {
+        return bt.getIntBE(mem, (int) offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putIntBE(long offset, int value) {
+        bt.putIntBE(mem, (int) offset, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongBE(long offset) {
+        return bt.getLongBE(mem, (int) offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putLongBE(long offset, long value) {
+        bt.putLongBE(mem, (int) offset, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseShorts(long offset, long count) {
+        bt.reverseShorts(mem, (int) offset, (int) count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseInts(long offset, long count) {
+        bt.reverseInts(mem, (int) offset, (int) count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseLongs(long offset, long count) {
+        bt.reverseLongs(mem, (int) offset, (int) count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long mismatch(long offset, OffHeapMemory other, long otherOffset, long bytes) {
+        OnHeapMemory oth = (OnHeapMemory) other;
+        return bt.mismatch(mem, (int) offset, oth.mem, (int) otherOffset, (int) bytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int putVarLong(long offset, long value) {
+        return bt.putVarLong(mem, (int) offset, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readVarLong(VarIntCursor cursor) {
+        return bt.readVarLong(mem, cursor);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -16,9 +16,12 @@
 
 package com.alexkasko.unsafe.offheap;
 
+import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import com.alexkasko.unsafe.bytearray.VarIntCursor;
 import sun.misc.Unsafe;
 
 import java.lang.reflect.Field;
+import java.nio.ByteOrder;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -31,6 +34,7 @@ class UnsafeOffHeapMemory extends OffHeapMemory {
 
     private static final Unsafe UNSAFE;
     private static final int BYTE_ARRAY_OFFSET;
+    private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
 
     static {
         try {
@@ -295,6 +299,16 @@ class UnsafeOffHeapMemory extends OffHeapMemory {
         return UNSAFE.getLong(address + offset);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long alignOffset(long offset, int alignment) {
+        assert offset >= 0 : offset;
+        assert alignment > 0 && 0 == (alignment & (alignment - 1)) : alignment;
+        return ((address + offset + alignment - 1) & -alignment) - address;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -306,6 +320,200 @@ class UnsafeOffHeapMemory extends OffHeapMemory {
         UNSAFE.putLong(address + offset, value);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShortBE(long offset) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert offset <= length - 2 : offset;
+        short value = UNSAFE.getShort(address + offset);
+        return BIG_ENDIAN ? value : Short.reverseBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putShortBE(long offset, short value) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert offset <= length - 2 : offset;
+        UNSAFE.putShort(address + offset, BIG_ENDIAN ? value : Short.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIntBE(long offset) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert offset <= length - 4 : offset;
+        int value = UNSAFE.getInt(address + offset);
+        return BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putIntBE(long offset, int value) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert offset <= length - 4 : offset;
+        UNSAFE.putInt(address + offset, BIG_ENDIAN ? value : Integer.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongBE(long offset) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert offset <= length - 8 : offset;
+        long value = UNSAFE.getLong(address + offset);
+        return BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putLongBE(long offset, long value) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert offset <= length - 8 : offset;
+        UNSAFE.putLong(address + offset, BIG_ENDIAN ? value : Long.reverseBytes(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseShorts(long offset, long count) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert count >= 0 : count;
+        assert offset <= length - count * 2 : offset;
+        long end = address + offset + count * 2;
+        for (long addr = address + offset; addr < end; addr += 2) {
+            UNSAFE.putShort(addr, Short.reverseBytes(UNSAFE.getShort(addr)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseInts(long offset, long count) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert count >= 0 : count;
+        assert offset <= length - count * 4 : offset;
+        long end = address + offset + count * 4;
+        for (long addr = address + offset; addr < end; addr += 4) {
+            UNSAFE.putInt(addr, Integer.reverseBytes(UNSAFE.getInt(addr)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reverseLongs(long offset, long count) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert count >= 0 : count;
+        assert offset <= length - count * 8 : offset;
+        long end = address + offset + count * 8;
+        for (long addr = address + offset; addr < end; addr += 8) {
+            UNSAFE.putLong(addr, Long.reverseBytes(UNSAFE.getLong(addr)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long mismatch(long offset, OffHeapMemory other, long otherOffset, long bytes) {
+        assert other instanceof UnsafeOffHeapMemory : other;
+        UnsafeOffHeapMemory oth = (UnsafeOffHeapMemory) other;
+        assert !disposed.get() : "disposed";
+        assert !oth.disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert offset <= length - bytes : offset;
+        assert otherOffset >= 0 : otherOffset;
+        assert otherOffset <= oth.length - bytes : otherOffset;
+        long addr = address + offset;
+        long oaddr = oth.address + otherOffset;
+        long i = 0;
+        for (; i <= bytes - 8; i += 8) {
+            long diff = UNSAFE.getLong(addr + i) ^ UNSAFE.getLong(oaddr + i);
+            if (0 != diff) {
+                return i + ((BIG_ENDIAN ? Long.numberOfLeadingZeros(diff) : Long.numberOfTrailingZeros(diff)) >>> 3);
+            }
+        }
+        for (; i < bytes; i++) {
+            if (UNSAFE.getByte(addr + i) != UNSAFE.getByte(oaddr + i)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int putVarLong(long offset, long value) {
+        assert !disposed.get() : "disposed";
+        assert offset >= 0 : offset;
+        assert offset <= length - ByteArrayTool.varLongLength(value) : offset;
+        long addr = address + offset;
+        while (0 != (value & ~0x7fL)) {
+            UNSAFE.putByte(addr++, (byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        UNSAFE.putByte(addr++, (byte) value);
+        return (int) (addr - address - offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readVarLong(VarIntCursor cursor) {
+        assert !disposed.get() : "disposed";
+        long pos = cursor.position();
+        assert pos >= 0 : pos;
+        assert pos < length : pos;
+        // read eight bytes at once and find terminal byte using bit mask,
+        // fall back to byte loop for long values and near the end of memory area
+        if (pos <= length - 8) {
+            long word = UNSAFE.getLong(address + pos);
+            if (BIG_ENDIAN) word = Long.reverseBytes(word);
+            long stops = ~word & 0x8080808080808080L;
+            if (0 != stops) {
+                int len = (Long.numberOfTrailingZeros(stops) + 1) >>> 3;
+                cursor.advance(compactVarLong(word & (-1L >>> (64 - (len << 3)))), len);
+                return len;
+            }
+        }
+        long value = 0;
+        long addr = address + pos;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 63) throw new IllegalArgumentException("Malformed varint, position: [" + pos + "]");
+            assert addr - address < length : pos;
+            byte b = UNSAFE.getByte(addr++);
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) break;
+        }
+        int len = (int) (addr - address - pos);
+        cursor.advance(value, len);
+        return len;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -346,4 +554,16 @@ class UnsafeOffHeapMemory extends OffHeapMemory {
         sb.append('}');
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    // gathers 7-bit groups of little endian word with continuation bits, unused bytes must be zeroed
+    private static long compactVarLong(long word) {
+        return (word & 0x7fL) |
+                ((word & 0x7f00L) >>> 1) |
+                ((word & 0x7f0000L) >>> 2) |
+                ((word & 0x7f000000L) >>> 3) |
+                ((word & 0x7f00000000L) >>> 4) |
+                ((word & 0x7f0000000000L) >>> 5) |
+                ((word & 0x7f000000000000L) >>> 6) |
+                ((word & 0x7f00000000000000L) >>> 7);
+    }
+}
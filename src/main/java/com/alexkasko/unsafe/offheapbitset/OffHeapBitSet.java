@@ -0,0 +1,258 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbitset;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+
+/**
+ * <p>Fixed-size bit set with long indices using {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * Bits are stored in 64-bit words, all bits are cleared on creation. Bulk operations
+ * ({@link #cardinality()}, {@link #nextSetBit(long)}, {@link #and(OffHeapBitSet)} etc.) process
+ * whole words at a time. Constant time rank and select queries (select searches only block counters
+ * between two sampled positions) are provided by {@link OffHeapBitSetRankIndex} built over the bit set.
+ *
+ * <p>Default implementation uses {@code sun.misc.Unsafe}, with all operations guarded with {@code assert} keyword.
+ * With assertions enabled in runtime ({@code -ea} java switch) {@link AssertionError}
+ * will be thrown on illegal index access. Without assertions illegal index will crash JVM.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapBitSet}
+ * will be garbage collected. Bit set is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapBitSet implements OffHeapDisposable {
+    private final OffHeapMemory ohm;
+    private final long size;
+
+    /**
+     * Constructor
+     *
+     * @param size number of bits
+     */
+    public OffHeapBitSet(long size) {
+        if (size < 0) throw new IllegalArgumentException("Illegal size: [" + size + "]");
+        this.size = size;
+        long words = (size + 63) >>> 6;
+        this.ohm = OffHeapMemory.allocateMemory(words << 3);
+        for (long i = 0; i < words; i++) {
+            ohm.putLong(i << 3, 0);
+        }
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return ohm.isUnsafe();
+    }
+
+    /**
+     * Returns value of the bit with specified index
+     *
+     * @param index bit index
+     * @return whether bit is set
+     */
+    public boolean get(long index) {
+        assert index >= 0 && index < size : index;
+        return 0 != (ohm.getLong((index >>> 6) << 3) & (1L << index));
+    }
+
+    /**
+     * Sets the bit with specified index
+     *
+     * @param index bit index
+     */
+    public void set(long index) {
+        assert index >= 0 && index < size : index;
+        long off = (index >>> 6) << 3;
+        ohm.putLong(off, ohm.getLong(off) | (1L << index));
+    }
+
+    /**
+     * Clears the bit with specified index
+     *
+     * @param index bit index
+     */
+    public void clear(long index) {
+        assert index >= 0 && index < size : index;
+        long off = (index >>> 6) << 3;
+        ohm.putLong(off, ohm.getLong(off) & ~(1L << index));
+    }
+
+    /**
+     * Sets the bit with specified index to specified value
+     *
+     * @param index bit index
+     * @param value bit value
+     */
+    public void set(long index, boolean value) {
+        if (value) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    /**
+     * Returns index of the first set bit that occurs on or after the specified index
+     *
+     * @param fromIndex index to start checking from, inclusive
+     * @return index of the next set bit or {@code -1} if there is no such bit
+     */
+    public long nextSetBit(long fromIndex) {
+        assert fromIndex >= 0 : fromIndex;
+        if (fromIndex >= size) return -1;
+        long wi = fromIndex >>> 6;
+        long word = ohm.getLong(wi << 3) & (-1L << fromIndex);
+        long words = wordsCount();
+        while (0 == word) {
+            wi += 1;
+            if (wi == words) return -1;
+            word = ohm.getLong(wi << 3);
+        }
+        return (wi << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns number of set bits
+     *
+     * @return number of set bits
+     */
+    public long cardinality() {
+        long res = 0;
+        for (long off = 0, end = wordsCount() << 3; off < end; off += 8) {
+            res += Long.bitCount(ohm.getLong(off));
+        }
+        return res;
+    }
+
+    /**
+     * Clears all bits
+     */
+    public void clear() {
+        for (long off = 0, end = wordsCount() << 3; off < end; off += 8) {
+            ohm.putLong(off, 0);
+        }
+    }
+
+    /**
+     * Performs logical AND of this bit set with the specified one, result is stored in this bit set
+     *
+     * @param other bit set with the same size
+     */
+    public void and(OffHeapBitSet other) {
+        checkSize(other);
+        for (long off = 0, end = wordsCount() << 3; off < end; off += 8) {
+            ohm.putLong(off, ohm.getLong(off) & other.ohm.getLong(off));
+        }
+    }
+
+    /**
+     * Performs logical OR of this bit set with the specified one, result is stored in this bit set
+     *
+     * @param other bit set with the same size
+     */
+    public void or(OffHeapBitSet other) {
+        checkSize(other);
+        for (long off = 0, end = wordsCount() << 3; off < end; off += 8) {
+            ohm.putLong(off, ohm.getLong(off) | other.ohm.getLong(off));
+        }
+    }
+
+    /**
+     * Performs logical XOR of this bit set with the specified one, result is stored in this bit set
+     *
+     * @param other bit set with the same size
+     */
+    public void xor(OffHeapBitSet other) {
+        checkSize(other);
+        for (long off = 0, end = wordsCount() << 3; off < end; off += 8) {
+            ohm.putLong(off, ohm.getLong(off) ^ other.ohm.getLong(off));
+        }
+    }
+
+    /**
+     * Clears all the bits of this bit set whose corresponding bits are set in the specified one
+     *
+     * @param other bit set with the same size
+     */
+    public void andNot(OffHeapBitSet other) {
+        checkSize(other);
+        for (long off = 0, end = wordsCount() << 3; off < end; off += 8) {
+            ohm.putLong(off, ohm.getLong(off) & ~other.ohm.getLong(off));
+        }
+    }
+
+    /**
+     * Returns number of bits in this bit set
+     *
+     * @return number of bits
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        ohm.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapBitSet");
+        sb.append("{size=").append(size);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Returns 64-bit word with specified index, bits beyond the size are always cleared
+     *
+     * @param wordIndex word index
+     * @return word value
+     */
+    long word(long wordIndex) {
+        return ohm.getLong(wordIndex << 3);
+    }
+
+    /**
+     * Returns number of 64-bit words used to store bits
+     *
+     * @return number of words
+     */
+    long wordsCount() {
+        return (size + 63) >>> 6;
+    }
+
+    private void checkSize(OffHeapBitSet other) {
+        if (other.size != size) throw new IllegalArgumentException(
+                "Illegal input, size: [" + size + "], other size: [" + other.size + "]");
+    }
+}
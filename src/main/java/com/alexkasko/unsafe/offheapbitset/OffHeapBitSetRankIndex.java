@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbitset;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+
+/**
+ * <p>Rank and select index over the {@link OffHeapBitSet}. Stores cumulative number of set bits
+ * before each 512-bit block (8 words, one cache line), so {@link #rank(long)} reads one counter
+ * and at most 8 words. Also stores the block of each 512th set bit (sampled select directory),
+ * so {@link #select(long)} reads two samples, searches only block counters between them
+ * and then scans words of the found block. Number of counters between two samples doesn't
+ * depend on the bit set size and is small for dense bit sets, for sparse bit sets it is bounded
+ * with binary search.
+ *
+ * <p>Index may be used to map indices of set bits (e.g. filtered collection elements) to dense
+ * positions and back. It doesn't track bit set modifications and must be rebuilt after them.
+ * Index uses at most 1/32 of the bit set memory (1/64 for block counters and at most 1/64
+ * for samples). Bit set is not freed by {@link #free()}.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapBitSetRankIndex implements OffHeapDisposable {
+    private static final int BLOCK_WORDS_SHIFT = 3;
+    private static final int BLOCK_WORDS = 1 << BLOCK_WORDS_SHIFT;
+    private static final int BLOCK_BITS_SHIFT = BLOCK_WORDS_SHIFT + 6;
+    private static final int SAMPLE_SHIFT = 9;
+
+    private final OffHeapBitSet bits;
+    private final OffHeapLongArray counts;
+    // block containing set bit with rank i * 512
+    private final OffHeapLongArray samples;
+
+    /**
+     * Constructor, builds index over the current bit set contents
+     *
+     * @param bits bit set to index
+     */
+    public OffHeapBitSetRankIndex(OffHeapBitSet bits) {
+        this.bits = bits;
+        long words = bits.wordsCount();
+        long blocks = (words + BLOCK_WORDS - 1) >>> BLOCK_WORDS_SHIFT;
+        this.counts = new OffHeapLongArray(blocks + 1);
+        long total = 0;
+        for (long wi = 0; wi < words; wi++) {
+            if (0 == (wi & (BLOCK_WORDS - 1))) counts.set(wi >>> BLOCK_WORDS_SHIFT, total);
+            total += Long.bitCount(bits.word(wi));
+        }
+        counts.set(blocks, total);
+        long samplesCount = (total + (1 << SAMPLE_SHIFT) - 1) >>> SAMPLE_SHIFT;
+        this.samples = new OffHeapLongArray(Math.max(samplesCount, 1));
+        long si = 0;
+        for (long bi = 0; bi < blocks && si < samplesCount; bi++) {
+            long next = counts.get(bi + 1);
+            while (si < samplesCount && (si << SAMPLE_SHIFT) < next) {
+                samples.set(si, bi);
+                si += 1;
+            }
+        }
+    }
+
+    /**
+     * Returns number of set bits before the specified index
+     *
+     * @param index bit index, may be equal to bit set size
+     * @return number of set bits in range {@code [0, index)}
+     */
+    public long rank(long index) {
+        assert index >= 0 && index <= bits.size() : index;
+        long wi = index >>> 6;
+        long res = counts.get(index >>> BLOCK_BITS_SHIFT);
+        for (long i = wi & ~(BLOCK_WORDS - 1); i < wi; i++) {
+            res += Long.bitCount(bits.word(i));
+        }
+        long tail = index & 63;
+        if (0 != tail) res += Long.bitCount(bits.word(wi) & ((1L << tail) - 1));
+        return res;
+    }
+
+    /**
+     * Returns index of the set bit with specified rank
+     *
+     * @param rank zero-based number of the set bit
+     * @return index of the set bit or {@code -1} if {@code rank >= cardinality()}
+     */
+    public long select(long rank) {
+        assert rank >= 0 : rank;
+        long blocks = counts.size() - 1;
+        if (rank >= counts.get(blocks)) return -1;
+        // last block with count not greater than rank, between two samples
+        long si = rank >>> SAMPLE_SHIFT;
+        long low = samples.get(si);
+        long high = si + 1 < samples.size() ? samples.get(si + 1) : blocks - 1;
+        while (low < high) {
+            long mid = (low + high + 1) >>> 1;
+            if (counts.get(mid) <= rank) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        long rem = rank - counts.get(low);
+        for (long wi = low << BLOCK_WORDS_SHIFT; ; wi++) {
+            long word = bits.word(wi);
+            int cnt = Long.bitCount(word);
+            if (rem < cnt) {
+                for (long i = 0; i < rem; i++) {
+                    word &= word - 1;
+                }
+                return (wi << 6) + Long.numberOfTrailingZeros(word);
+            }
+            rem -= cnt;
+        }
+    }
+
+    /**
+     * Returns number of set bits in the indexed bit set
+     *
+     * @return number of set bits
+     */
+    public long cardinality() {
+        return counts.get(counts.size() - 1);
+    }
+
+    /**
+     * Returns indexed bit set
+     *
+     * @return indexed bit set
+     */
+    public OffHeapBitSet bitSet() {
+        return bits;
+    }
+
+    /**
+     * Frees memory allocated for index, indexed bit set is not freed
+     */
+    @Override
+    public void free() {
+        counts.free();
+        samples.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapBitSetRankIndex");
+        sb.append("{size=").append(bits.size());
+        sb.append(", cardinality=").append(cardinality());
+        sb.append('}');
+        return sb.toString();
+    }
+}
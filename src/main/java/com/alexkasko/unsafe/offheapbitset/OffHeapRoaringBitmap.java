@@ -0,0 +1,870 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbitset;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongAddressable;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongCursor;
+
+import java.util.Arrays;
+
+/**
+ * <p>Compressed bitmap of non-negative long values in the spirit of
+ * <a href="http://roaringbitmap.org/">Roaring bitmaps</a>, stored entirely in {@link OffHeapMemory}.
+ * Values are split into chunks of {@code 65536} by high bits, each non-empty chunk is stored
+ * as one of three container types, whichever is the smallest:
+ * <ul>
+ *     <li>array: sorted 16-bit low parts, 2 bytes per value, used for at most {@code 4096} values</li>
+ *     <li>bitmap: {@code 65536} bits, 8192 bytes</li>
+ *     <li>run: sorted pairs of 16-bit run start and run length minus one, 4 bytes per run</li>
+ * </ul>
+ * Container directory (32 bytes per container) and container data are kept in two growing memory areas,
+ * no on-heap objects are created per container.
+ *
+ * <p>Values must be added in ascending order (duplicates of the last added value are ignored),
+ * that is the natural order of filtering results over off-heap collections. Bitmaps may be
+ * combined with {@link #and(OffHeapRoaringBitmap)} and {@link #or(OffHeapRoaringBitmap)} producing
+ * new bitmaps, and traversed in ascending order with {@link OffHeapLongCursor}.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapRoaringBitmap}
+ * will be garbage collected. Bitmap is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapRoaringBitmap implements OffHeapDisposable {
+    private static final int ARRAY = 0;
+    private static final int BITMAP = 1;
+    private static final int RUN = 2;
+    private static final int CHUNK_WORDS = 1024;
+    private static final int MAX_ARRAY_CARDINALITY = 4096;
+    private static final int BITMAP_BYTES = CHUNK_WORDS * 8;
+    // directory entry: key, data offset, cardinality, type, runs count
+    private static final int ENTRY_LENGTH = 32;
+    private static final int KEY = 0;
+    private static final int OFFSET = 8;
+    private static final int CARDINALITY = 16;
+    private static final int TYPE = 20;
+    private static final int RUNS = 24;
+    private static final int MIN_DIR_CAPACITY = 8;
+    private static final int MIN_DATA_CAPACITY = 256;
+
+    private OffHeapMemory dir;
+    private long dirCapacity;
+    private long containers;
+    private OffHeapMemory data;
+    private long dataCapacity;
+    private long dataLength;
+    private long cardinality;
+    private long last = -1;
+    // chunk being filled, not yet written into data
+    private final long[] chunk = new long[CHUNK_WORDS];
+    private long chunkKey = -1;
+    private int chunkCardinality;
+
+    /**
+     * Constructor
+     */
+    public OffHeapRoaringBitmap() {
+        this.dir = OffHeapMemory.allocateMemory(MIN_DIR_CAPACITY * ENTRY_LENGTH);
+        this.dirCapacity = MIN_DIR_CAPACITY;
+        this.data = OffHeapMemory.allocateMemory(MIN_DATA_CAPACITY);
+        this.dataCapacity = MIN_DATA_CAPACITY;
+    }
+
+    /**
+     * Creates bitmap from the sorted collection of values
+     *
+     * @param values non-negative values in ascending order
+     * @return bitmap
+     * @throws IllegalArgumentException if values are negative or are not sorted
+     */
+    public static OffHeapRoaringBitmap fromSorted(OffHeapLongAddressable values) {
+        OffHeapRoaringBitmap res = new OffHeapRoaringBitmap();
+        for (long i = 0, size = values.size(); i < size; i++) {
+            res.add(values.get(i));
+        }
+        return res;
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return data.isUnsafe();
+    }
+
+    /**
+     * Adds value to this bitmap
+     *
+     * @param value non-negative value, must not be less than the last added value
+     * @throws IllegalArgumentException if value is negative or less than the last added value
+     */
+    public void add(long value) {
+        if (value < 0) throw new IllegalArgumentException("Illegal value: [" + value + "]");
+        if (value <= last) {
+            if (value == last) return;
+            throw new IllegalArgumentException("Illegal value: [" + value + "], " +
+                    "values must be added in ascending order, last value: [" + last + "]");
+        }
+        long key = value >>> 16;
+        if (key != chunkKey) {
+            flush();
+            reopenLast(key);
+            chunkKey = key;
+        }
+        int low = (int) (value & 0xffff);
+        chunk[low >>> 6] |= 1L << low;
+        chunkCardinality += 1;
+        cardinality += 1;
+        last = value;
+    }
+
+    /**
+     * Checks whether bitmap contains specified value
+     *
+     * @param value value to look for
+     * @return whether value is present
+     */
+    public boolean contains(long value) {
+        if (value < 0 || value > last) return false;
+        long key = value >>> 16;
+        int low = (int) (value & 0xffff);
+        // chunk being filled is checked in place, without encoding it into container
+        if (key == chunkKey) return 0 != (chunk[low >>> 6] & (1L << low));
+        long ci = findContainer(key);
+        return ci >= 0 && containsLow(ci, low);
+    }
+
+    /**
+     * Returns intersection of this bitmap with the specified one.
+     * Array containers are merged or probed, bitmap containers are combined
+     * word by word in off-heap memory, only run containers are decoded into on-heap chunks.
+     *
+     * @param other bitmap
+     * @return new bitmap
+     */
+    public OffHeapRoaringBitmap and(OffHeapRoaringBitmap other) {
+        flush();
+        other.flush();
+        OffHeapRoaringBitmap res = new OffHeapRoaringBitmap();
+        long[] words1 = null;
+        long[] words2 = null;
+        long i = 0;
+        long j = 0;
+        while (i < containers && j < other.containers) {
+            long k1 = key(i);
+            long k2 = other.key(j);
+            if (k1 < k2) {
+                i += 1;
+            } else if (k1 > k2) {
+                j += 1;
+            } else {
+                int t1 = type(i);
+                int t2 = other.type(j);
+                if (ARRAY == t1 && ARRAY == t2) {
+                    res.andArrays(k1, this, i, other, j);
+                } else if (ARRAY == t1) {
+                    res.probeArray(k1, this, i, other, j);
+                } else if (ARRAY == t2) {
+                    res.probeArray(k1, other, j, this, i);
+                } else if (BITMAP == t1 && BITMAP == t2) {
+                    res.andBitmaps(k1, this, i, other, j);
+                } else {
+                    if (null == words1) {
+                        words1 = new long[CHUNK_WORDS];
+                        words2 = new long[CHUNK_WORDS];
+                    }
+                    decode(i, words1);
+                    other.decode(j, words2);
+                    for (int w = 0; w < CHUNK_WORDS; w++) {
+                        words1[w] &= words2[w];
+                    }
+                    res.appendChunk(k1, words1);
+                }
+                i += 1;
+                j += 1;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns union of this bitmap with the specified one.
+     * Containers present in only one bitmap are copied as is, array and bitmap containers
+     * are merged in off-heap memory, only run containers are decoded into on-heap chunks.
+     *
+     * @param other bitmap
+     * @return new bitmap
+     */
+    public OffHeapRoaringBitmap or(OffHeapRoaringBitmap other) {
+        flush();
+        other.flush();
+        OffHeapRoaringBitmap res = new OffHeapRoaringBitmap();
+        long[] words1 = null;
+        long[] words2 = null;
+        long i = 0;
+        long j = 0;
+        while (i < containers || j < other.containers) {
+            long k1 = i < containers ? key(i) : Long.MAX_VALUE;
+            long k2 = j < other.containers ? other.key(j) : Long.MAX_VALUE;
+            if (k1 < k2) {
+                res.copyContainer(k1, this, i);
+                i += 1;
+            } else if (k1 > k2) {
+                res.copyContainer(k2, other, j);
+                j += 1;
+            } else {
+                int t1 = type(i);
+                int t2 = other.type(j);
+                if (ARRAY == t1 && ARRAY == t2) {
+                    res.orArrays(k1, this, i, other, j);
+                } else if (BITMAP == t1 && ARRAY == t2) {
+                    res.orBitmapArray(k1, this, i, other, j);
+                } else if (ARRAY == t1 && BITMAP == t2) {
+                    res.orBitmapArray(k1, other, j, this, i);
+                } else if (BITMAP == t1 && BITMAP == t2) {
+                    res.orBitmaps(k1, this, i, other, j);
+                } else {
+                    if (null == words1) {
+                        words1 = new long[CHUNK_WORDS];
+                        words2 = new long[CHUNK_WORDS];
+                    }
+                    decode(i, words1);
+                    other.decode(j, words2);
+                    for (int w = 0; w < CHUNK_WORDS; w++) {
+                        words1[w] |= words2[w];
+                    }
+                    res.appendChunk(k1, words1);
+                }
+                i += 1;
+                j += 1;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns cursor over the values of this bitmap in ascending order.
+     * Bitmap must not be modified while cursor is used.
+     *
+     * @return cursor over the values
+     */
+    public OffHeapLongCursor cursor() {
+        flush();
+        return new Cursor();
+    }
+
+    /**
+     * Copies values of this bitmap in ascending order into new array
+     *
+     * @return array of values
+     */
+    public OffHeapLongArray toArray() {
+        OffHeapLongArray res = new OffHeapLongArray(cardinality);
+        OffHeapLongCursor cur = cursor();
+        for (long i = 0; cur.hasNext(); i++) {
+            res.set(i, cur.nextLong());
+        }
+        return res;
+    }
+
+    /**
+     * Returns number of values in this bitmap
+     *
+     * @return number of values
+     */
+    public long cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns number of containers (non-empty chunks of {@code 65536} values)
+     *
+     * @return number of containers
+     */
+    public long containersCount() {
+        flush();
+        return containers;
+    }
+
+    /**
+     * Returns number of bytes used by containers and directory
+     *
+     * @return number of bytes used
+     */
+    public long sizeInBytes() {
+        flush();
+        return dataLength + containers * ENTRY_LENGTH;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        dir.free();
+        data.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapRoaringBitmap");
+        sb.append("{cardinality=").append(cardinality);
+        sb.append(", containers=").append(containers);
+        sb.append(", dataLength=").append(dataLength);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private long key(long ci) {
+        return dir.getLong(ci * ENTRY_LENGTH + KEY);
+    }
+
+    private int type(long ci) {
+        return dir.getInt(ci * ENTRY_LENGTH + TYPE);
+    }
+
+    private boolean containsLow(long ci, int low) {
+        long en = ci * ENTRY_LENGTH;
+        long off = dir.getLong(en + OFFSET);
+        switch (dir.getInt(en + TYPE)) {
+            case ARRAY:
+                return searchArray(off, dir.getInt(en + CARDINALITY), low) >= 0;
+            case BITMAP:
+                return 0 != (data.getLong(off + ((low >>> 6) << 3)) & (1L << low));
+            default:
+                return containsInRuns(off, dir.getInt(en + RUNS), low);
+        }
+    }
+
+    // merges two array containers, result fits into array container
+    private void andArrays(long key, OffHeapRoaringBitmap a, long ai, OffHeapRoaringBitmap b, long bi) {
+        long o1 = a.dir.getLong(ai * ENTRY_LENGTH + OFFSET);
+        int c1 = a.dir.getInt(ai * ENTRY_LENGTH + CARDINALITY);
+        long o2 = b.dir.getLong(bi * ENTRY_LENGTH + OFFSET);
+        int c2 = b.dir.getInt(bi * ENTRY_LENGTH + CARDINALITY);
+        ensureData(Math.min(c1, c2) << 1);
+        int card = 0;
+        int p = 0;
+        int q = 0;
+        while (p < c1 && q < c2) {
+            int v1 = a.data.getUnsignedShort(o1 + (p << 1));
+            int v2 = b.data.getUnsignedShort(o2 + (q << 1));
+            if (v1 < v2) {
+                p += 1;
+            } else if (v1 > v2) {
+                q += 1;
+            } else {
+                data.putShort(dataLength + (card << 1), (short) v1);
+                card += 1;
+                p += 1;
+                q += 1;
+            }
+        }
+        addContainer(key, ARRAY, card, 0, card << 1);
+    }
+
+    // looks up values of array container in the other container of any type
+    private void probeArray(long key, OffHeapRoaringBitmap a, long ai, OffHeapRoaringBitmap b, long bi) {
+        long o1 = a.dir.getLong(ai * ENTRY_LENGTH + OFFSET);
+        int c1 = a.dir.getInt(ai * ENTRY_LENGTH + CARDINALITY);
+        ensureData(c1 << 1);
+        int card = 0;
+        for (int p = 0; p < c1; p++) {
+            int low = a.data.getUnsignedShort(o1 + (p << 1));
+            if (b.containsLow(bi, low)) {
+                data.putShort(dataLength + (card << 1), (short) low);
+                card += 1;
+            }
+        }
+        addContainer(key, ARRAY, card, 0, card << 1);
+    }
+
+    // counts intersection first to choose between array and bitmap result
+    private void andBitmaps(long key, OffHeapRoaringBitmap a, long ai, OffHeapRoaringBitmap b, long bi) {
+        long o1 = a.dir.getLong(ai * ENTRY_LENGTH + OFFSET);
+        long o2 = b.dir.getLong(bi * ENTRY_LENGTH + OFFSET);
+        int card = 0;
+        for (int w = 0; w < CHUNK_WORDS; w++) {
+            card += Long.bitCount(a.data.getLong(o1 + (w << 3)) & b.data.getLong(o2 + (w << 3)));
+        }
+        if (card > MAX_ARRAY_CARDINALITY) {
+            ensureData(BITMAP_BYTES);
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                data.putLong(dataLength + (w << 3), a.data.getLong(o1 + (w << 3)) & b.data.getLong(o2 + (w << 3)));
+            }
+            addContainer(key, BITMAP, card, 0, BITMAP_BYTES);
+        } else {
+            ensureData(card << 1);
+            long ao = dataLength;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                for (long x = a.data.getLong(o1 + (w << 3)) & b.data.getLong(o2 + (w << 3)); 0 != x; x &= x - 1) {
+                    data.putShort(ao, (short) ((w << 6) + Long.numberOfTrailingZeros(x)));
+                    ao += 2;
+                }
+            }
+            addContainer(key, ARRAY, card, 0, card << 1);
+        }
+    }
+
+    // merges two array containers into array or bitmap container
+    private void orArrays(long key, OffHeapRoaringBitmap a, long ai, OffHeapRoaringBitmap b, long bi) {
+        long o1 = a.dir.getLong(ai * ENTRY_LENGTH + OFFSET);
+        int c1 = a.dir.getInt(ai * ENTRY_LENGTH + CARDINALITY);
+        long o2 = b.dir.getLong(bi * ENTRY_LENGTH + OFFSET);
+        int c2 = b.dir.getInt(bi * ENTRY_LENGTH + CARDINALITY);
+        if (c1 + c2 > MAX_ARRAY_CARDINALITY) {
+            ensureData(BITMAP_BYTES);
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                data.putLong(dataLength + (w << 3), 0);
+            }
+            int card = setBits(a, o1, c1) + setBits(b, o2, c2);
+            if (card > MAX_ARRAY_CARDINALITY) {
+                addContainer(key, BITMAP, card, 0, BITMAP_BYTES);
+                return;
+            }
+        }
+        ensureData((c1 + c2) << 1);
+        int card = 0;
+        int p = 0;
+        int q = 0;
+        while (p < c1 || q < c2) {
+            int v1 = p < c1 ? a.data.getUnsignedShort(o1 + (p << 1)) : Integer.MAX_VALUE;
+            int v2 = q < c2 ? b.data.getUnsignedShort(o2 + (q << 1)) : Integer.MAX_VALUE;
+            int va;
+            if (v1 < v2) {
+                va = v1;
+                p += 1;
+            } else if (v1 > v2) {
+                va = v2;
+                q += 1;
+            } else {
+                va = v1;
+                p += 1;
+                q += 1;
+            }
+            data.putShort(dataLength + (card << 1), (short) va);
+            card += 1;
+        }
+        addContainer(key, ARRAY, card, 0, card << 1);
+    }
+
+    // copies bitmap container and sets the values of array container in it
+    private void orBitmapArray(long key, OffHeapRoaringBitmap a, long ai, OffHeapRoaringBitmap b, long bi) {
+        ensureData(BITMAP_BYTES);
+        a.data.copy(a.dir.getLong(ai * ENTRY_LENGTH + OFFSET), data, dataLength, BITMAP_BYTES);
+        int card = a.dir.getInt(ai * ENTRY_LENGTH + CARDINALITY) + setBits(b,
+                b.dir.getLong(bi * ENTRY_LENGTH + OFFSET), b.dir.getInt(bi * ENTRY_LENGTH + CARDINALITY));
+        addContainer(key, BITMAP, card, 0, BITMAP_BYTES);
+    }
+
+    private void orBitmaps(long key, OffHeapRoaringBitmap a, long ai, OffHeapRoaringBitmap b, long bi) {
+        long o1 = a.dir.getLong(ai * ENTRY_LENGTH + OFFSET);
+        long o2 = b.dir.getLong(bi * ENTRY_LENGTH + OFFSET);
+        ensureData(BITMAP_BYTES);
+        int card = 0;
+        for (int w = 0; w < CHUNK_WORDS; w++) {
+            long x = a.data.getLong(o1 + (w << 3)) | b.data.getLong(o2 + (w << 3));
+            data.putLong(dataLength + (w << 3), x);
+            card += Long.bitCount(x);
+        }
+        addContainer(key, BITMAP, card, 0, BITMAP_BYTES);
+    }
+
+    // sets values of array container in the bitmap at the end of data, returns number of newly set bits
+    private int setBits(OffHeapRoaringBitmap a, long off, int card) {
+        int added = 0;
+        for (int p = 0; p < card; p++) {
+            int low = a.data.getUnsignedShort(off + (p << 1));
+            long wo = dataLength + ((low >>> 6) << 3);
+            long w = data.getLong(wo);
+            long bit = 1L << low;
+            if (0 == (w & bit)) {
+                data.putLong(wo, w | bit);
+                added += 1;
+            }
+        }
+        return added;
+    }
+
+    private void copyContainer(long key, OffHeapRoaringBitmap a, long ai) {
+        long en = ai * ENTRY_LENGTH;
+        int type = a.dir.getInt(en + TYPE);
+        int card = a.dir.getInt(en + CARDINALITY);
+        int runs = a.dir.getInt(en + RUNS);
+        int bytes;
+        switch (type) {
+            case ARRAY: bytes = card << 1; break;
+            case BITMAP: bytes = BITMAP_BYTES; break;
+            default: bytes = runs << 2;
+        }
+        ensureData(bytes);
+        a.data.copy(a.dir.getLong(en + OFFSET), data, dataLength, bytes);
+        addContainer(key, type, card, runs, bytes);
+    }
+
+    // registers container already written at the end of data, produced by boolean operation
+    private void addContainer(long key, int type, int card, int runs, int bytes) {
+        if (0 == card) return;
+        long off = dataLength;
+        appendEntry(key, off, type, card, runs, bytes);
+        cardinality += card;
+        int lastLow;
+        switch (type) {
+            case ARRAY:
+                lastLow = data.getUnsignedShort(off + ((card - 1) << 1));
+                break;
+            case BITMAP:
+                int wi = CHUNK_WORDS - 1;
+                while (0 == data.getLong(off + (wi << 3))) wi -= 1;
+                lastLow = (wi << 6) + 63 - Long.numberOfLeadingZeros(data.getLong(off + (wi << 3)));
+                break;
+            default:
+                long ro = off + ((runs - 1) << 2);
+                lastLow = data.getUnsignedShort(ro) + data.getUnsignedShort(ro + 2);
+        }
+        last = (key << 16) + lastLow;
+    }
+
+    private long findContainer(long key) {
+        long low = 0;
+        long high = containers - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long k = key(mid);
+            if (k < key) {
+                low = mid + 1;
+            } else if (k > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int searchArray(long off, int card, int low) {
+        int lo = 0;
+        int hi = card - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int va = data.getUnsignedShort(off + (mid << 1));
+            if (va < low) {
+                lo = mid + 1;
+            } else if (va > low) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private boolean containsInRuns(long off, int runs, int low) {
+        // last run starting not after the value
+        int lo = 0;
+        int hi = runs - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (data.getUnsignedShort(off + (mid << 2)) <= low) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (found < 0) return false;
+        long ro = off + (found << 2);
+        return low <= data.getUnsignedShort(ro) + data.getUnsignedShort(ro + 2);
+    }
+
+    private void decode(long ci, long[] words) {
+        Arrays.fill(words, 0);
+        long en = ci * ENTRY_LENGTH;
+        long off = dir.getLong(en + OFFSET);
+        switch (dir.getInt(en + TYPE)) {
+            case ARRAY:
+                for (int i = 0, card = dir.getInt(en + CARDINALITY); i < card; i++) {
+                    int low = data.getUnsignedShort(off + (i << 1));
+                    words[low >>> 6] |= 1L << low;
+                }
+                break;
+            case BITMAP:
+                for (int i = 0; i < CHUNK_WORDS; i++) {
+                    words[i] = data.getLong(off + (i << 3));
+                }
+                break;
+            default:
+                for (int i = 0, runs = dir.getInt(en + RUNS); i < runs; i++) {
+                    long ro = off + (i << 2);
+                    int start = data.getUnsignedShort(ro);
+                    int end = start + data.getUnsignedShort(ro + 2);
+                    for (int low = start; low <= end; low++) {
+                        words[low >>> 6] |= 1L << low;
+                    }
+                }
+        }
+    }
+
+    // moves last container back into chunk if new value belongs to it
+    private void reopenLast(long key) {
+        if (0 == containers || key(containers - 1) != key) return;
+        long ci = containers - 1;
+        decode(ci, chunk);
+        chunkCardinality = dir.getInt(ci * ENTRY_LENGTH + CARDINALITY);
+        dataLength = dir.getLong(ci * ENTRY_LENGTH + OFFSET);
+        containers = ci;
+    }
+
+    private void flush() {
+        if (0 == chunkCardinality) return;
+        writeContainer(chunkKey, chunk, chunkCardinality);
+        Arrays.fill(chunk, 0);
+        chunkCardinality = 0;
+        chunkKey = -1;
+    }
+
+    // appends chunk computed by boolean operation
+    private void appendChunk(long key, long[] words) {
+        int card = 0;
+        int lastWord = -1;
+        for (int i = 0; i < CHUNK_WORDS; i++) {
+            long w = words[i];
+            if (0 != w) {
+                card += Long.bitCount(w);
+                lastWord = i;
+            }
+        }
+        if (0 == card) return;
+        writeContainer(key, words, card);
+        cardinality += card;
+        last = (key << 16) + (lastWord << 6) + 63 - Long.numberOfLeadingZeros(words[lastWord]);
+    }
+
+    private void writeContainer(long key, long[] words, int card) {
+        int runs = 0;
+        long carry = 0;
+        for (int i = 0; i < CHUNK_WORDS; i++) {
+            long w = words[i];
+            runs += Long.bitCount(w & ~((w << 1) | carry));
+            carry = w >>> 63;
+        }
+        int arrayBytes = card <= MAX_ARRAY_CARDINALITY ? card << 1 : Integer.MAX_VALUE;
+        int runBytes = runs << 2;
+        int type;
+        int bytes;
+        if (runBytes < Math.min(arrayBytes, BITMAP_BYTES)) {
+            type = RUN;
+            bytes = runBytes;
+        } else if (arrayBytes <= BITMAP_BYTES) {
+            type = ARRAY;
+            bytes = arrayBytes;
+        } else {
+            type = BITMAP;
+            bytes = BITMAP_BYTES;
+        }
+        ensureData(bytes);
+        long off = dataLength;
+        switch (type) {
+            case ARRAY:
+                long ao = off;
+                for (int i = 0; i < CHUNK_WORDS; i++) {
+                    for (long w = words[i]; 0 != w; w &= w - 1) {
+                        data.putShort(ao, (short) ((i << 6) + Long.numberOfTrailingZeros(w)));
+                        ao += 2;
+                    }
+                }
+                break;
+            case BITMAP:
+                for (int i = 0; i < CHUNK_WORDS; i++) {
+                    data.putLong(off + (i << 3), words[i]);
+                }
+                break;
+            default:
+                long ro = off;
+                int start = nextBit(words, 0, true);
+                while (start >= 0) {
+                    int end = nextBit(words, start, false);
+                    data.putShort(ro, (short) start);
+                    data.putShort(ro + 2, (short) (end - 1 - start));
+                    ro += 4;
+                    start = nextBit(words, end, true);
+                }
+        }
+        appendEntry(key, off, type, card, runs, bytes);
+    }
+
+    private void appendEntry(long key, long off, int type, int card, int runs, int bytes) {
+        dataLength += bytes;
+        ensureDir();
+        long en = containers * ENTRY_LENGTH;
+        dir.putLong(en + KEY, key);
+        dir.putLong(en + OFFSET, off);
+        dir.putInt(en + CARDINALITY, card);
+        dir.putInt(en + TYPE, type);
+        dir.putInt(en + RUNS, runs);
+        containers += 1;
+    }
+
+    // next set or clear bit in chunk, returns -1 (set) or chunk size (clear) if not found
+    private static int nextBit(long[] words, int from, boolean set) {
+        if (from >= CHUNK_WORDS << 6) return set ? -1 : CHUNK_WORDS << 6;
+        int wi = from >>> 6;
+        long w = (set ? words[wi] : ~words[wi]) & (-1L << from);
+        while (0 == w) {
+            wi += 1;
+            if (CHUNK_WORDS == wi) return set ? -1 : CHUNK_WORDS << 6;
+            w = set ? words[wi] : ~words[wi];
+        }
+        return (wi << 6) + Long.numberOfTrailingZeros(w);
+    }
+
+    private void ensureData(long bytes) {
+        long needed = dataLength + bytes;
+        if (needed <= dataCapacity) return;
+        long cap = Math.max(needed, dataCapacity + (dataCapacity >> 1));
+        OffHeapMemory newData = OffHeapMemory.allocateMemory(cap);
+        data.copy(0, newData, 0, dataLength);
+        data.free();
+        data = newData;
+        dataCapacity = cap;
+    }
+
+    private void ensureDir() {
+        if (containers < dirCapacity) return;
+        long cap = dirCapacity + (dirCapacity >> 1);
+        OffHeapMemory newDir = OffHeapMemory.allocateMemory(cap * ENTRY_LENGTH);
+        dir.copy(0, newDir, 0, containers * ENTRY_LENGTH);
+        dir.free();
+        dir = newDir;
+        dirCapacity = cap;
+    }
+
+    private class Cursor implements OffHeapLongCursor {
+        private long ci = -1;
+        private int type;
+        private long off;
+        private long base;
+        private int limit;
+        private int pos;
+        private long word;
+        private int runValue;
+        private int runEnd;
+        private long next = -1;
+
+        private Cursor() {
+            advance();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long nextLong() {
+            if (next < 0) throw new IllegalStateException(
+                    "Cursor is exhausted, bitmap cardinality: [" + cardinality + "]");
+            long res = next;
+            advance();
+            return res;
+        }
+
+        private void advance() {
+            while (ci < 0 || !advanceInContainer()) {
+                ci += 1;
+                if (ci >= containers) {
+                    next = -1;
+                    return;
+                }
+                open();
+            }
+        }
+
+        private void open() {
+            long en = ci * ENTRY_LENGTH;
+            type = dir.getInt(en + TYPE);
+            off = dir.getLong(en + OFFSET);
+            base = dir.getLong(en + KEY) << 16;
+            pos = 0;
+            switch (type) {
+                case ARRAY:
+                    limit = dir.getInt(en + CARDINALITY);
+                    break;
+                case BITMAP:
+                    word = data.getLong(off);
+                    break;
+                default:
+                    limit = dir.getInt(en + RUNS);
+                    loadRun();
+            }
+        }
+
+        private boolean advanceInContainer() {
+            switch (type) {
+                case ARRAY:
+                    if (pos >= limit) return false;
+                    next = base + data.getUnsignedShort(off + (pos << 1));
+                    pos += 1;
+                    return true;
+                case BITMAP:
+                    while (0 == word) {
+                        pos += 1;
+                        if (CHUNK_WORDS == pos) return false;
+                        word = data.getLong(off + (pos << 3));
+                    }
+                    next = base + (pos << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    return true;
+                default:
+                    if (pos >= limit) return false;
+                    next = base + runValue;
+                    if (runValue == runEnd) {
+                        pos += 1;
+                        if (pos < limit) loadRun();
+                    } else {
+                        runValue += 1;
+                    }
+                    return true;
+            }
+        }
+
+        private void loadRun() {
+            long ro = off + (pos << 2);
+            runValue = data.getUnsignedShort(ro);
+            runEnd = runValue + data.getUnsignedShort(ro + 2);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <h1>Off-heap bit sets</h1>
+ *
+ * <p>This package contains {@link com.alexkasko.unsafe.offheapbitset.OffHeapBitSet} - fixed-size bit set
+ * with long indices implemented on top of {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * It may be used to store filtering results over off-heap collections with more than
+ * {@code Integer.MAX_VALUE} elements. Supports word-parallel boolean operations between bit sets,
+ * {@code nextSetBit} traversal and cardinality.
+ *
+ * <p>{@link com.alexkasko.unsafe.offheapbitset.OffHeapBitSetRankIndex} - rank and select index over the bit set,
+ * maps indices of set bits to dense positions and back.
+ *
+ * <p>{@link com.alexkasko.unsafe.offheapbitset.OffHeapRoaringBitmap} - compressed bitmap with array, bitmap
+ * and run containers chosen per chunk of 65536 values, supports intersection, union and conversion
+ * from and to {@link com.alexkasko.unsafe.offheaplong.OffHeapLongArray}.
+ *
+ * <h2>Usage example in tests (github links)</h2>
+ * <ul>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapbitset/OffHeapBitSetTest.java">bit set</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapbitset/OffHeapBitSetRankIndexTest.java">rank index</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapbitset/OffHeapRoaringBitmapTest.java">compressed bitmap</a></li>
+ * </ul>
+ */
+
+package com.alexkasko.unsafe.offheapbitset;
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapblob;
+
+/**
+ * Interface to access single blob data without copying the whole blob into byte array.
+ * Used by {@link java.util.Comparator}'s in {@link OffHeapBlobSorter}.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public interface OffHeapBlobAccessor {
+
+    /**
+     * Returns length of the blob in bytes
+     *
+     * @return length of the blob in bytes
+     */
+    int length();
+
+    /**
+     * Copies blob into specified buffer
+     *
+     * @param buffer buffer with length not less than blob length
+     */
+    void get(byte[] buffer);
+
+    /**
+     * Copies part of the blob into specified buffer
+     *
+     * @param srcPos blob offset
+     * @param dest destination buffer
+     * @param destPos destination buffer offset
+     * @param length number of bytes to copy
+     */
+    void get(int srcPos, byte[] dest, int destPos, int length);
+
+    /**
+     * Gets byte from blob with specified offset
+     *
+     * @param offset blob offset
+     * @return byte
+     */
+    byte getByte(int offset);
+
+    /**
+     * Gets four bytes as int from blob with specified offset
+     *
+     * @param offset blob offset
+     * @return int value
+     */
+    int getInt(int offset);
+
+    /**
+     * Gets long from blob with specified offset
+     *
+     * @param offset blob offset
+     * @return long value
+     */
+    long getLong(int offset);
+}
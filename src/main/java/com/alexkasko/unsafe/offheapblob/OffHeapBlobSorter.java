@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapblob;
+
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongComparator;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongSorter;
+
+import java.util.Comparator;
+
+/**
+ * Sorts {@link OffHeapBlobStore} "by-reference" using additional {@link com.alexkasko.unsafe.offheaplong.OffHeapLongArray}
+ * of blob indices. Indices are sorted using data from the store, store itself stays unchanged.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapBlobSorter {
+
+    /**
+     * Returns indices of the blobs sorted lexicographically as unsigned bytes
+     *
+     * @param store blob store
+     * @return sorted indices, must be freed by caller
+     */
+    public static OffHeapLongArray sortedIndices(OffHeapBlobStore store) {
+        OffHeapLongArray indices = identity(store.size());
+        OffHeapLongSorter.sort(indices, new UnsignedComparator(store));
+        return indices;
+    }
+
+    /**
+     * Returns indices of the blobs sorted using specified comparator
+     *
+     * @param store blob store
+     * @param comparator blobs comparator
+     * @return sorted indices, must be freed by caller
+     */
+    public static OffHeapLongArray sortedIndices(OffHeapBlobStore store, Comparator<OffHeapBlobAccessor> comparator) {
+        if (null == comparator) throw new IllegalArgumentException("Provided comparator is null");
+        OffHeapLongArray indices = identity(store.size());
+        OffHeapLongSorter.sort(indices, new ReferenceComparator(store, comparator));
+        return indices;
+    }
+
+    private static OffHeapLongArray identity(long size) {
+        OffHeapLongArray indices = new OffHeapLongArray(size);
+        for (long i = 0; i < size; i++) {
+            indices.set(i, i);
+        }
+        return indices;
+    }
+
+    /**
+     * Comparator over blob indices using unsigned lexicographical order of blob bytes
+     */
+    private static class UnsignedComparator implements OffHeapLongComparator {
+        private final OffHeapBlobStore store;
+
+        /**
+         * Constructor
+         *
+         * @param store blob store
+         */
+        private UnsignedComparator(OffHeapBlobStore store) {
+            this.store = store;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compare(long l1, long l2) {
+            return store.compareUnsigned(l1, l2);
+        }
+    }
+
+    /**
+     * Comparator wrapper to use with references, not thread-safe
+     */
+    private static class ReferenceComparator implements OffHeapLongComparator {
+        private final Comparator<OffHeapBlobAccessor> comp;
+        private final OffHeapBlobStore.Accessor ac1;
+        private final OffHeapBlobStore.Accessor ac2;
+
+        /**
+         * Constructor
+         *
+         * @param store blob store
+         * @param comp user provided comparator
+         */
+        private ReferenceComparator(OffHeapBlobStore store, Comparator<OffHeapBlobAccessor> comp) {
+            this.comp = comp;
+            this.ac1 = store.new Accessor();
+            this.ac2 = store.new Accessor();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compare(long l1, long l2) {
+            ac1.setIndex(l1);
+            ac2.setIndex(l2);
+            return comp.compare(ac1, ac2);
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapblob;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArrayList;
+
+/**
+ * <p>Append-only store of variable-length byte arrays ("blobs") using {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * Blobs are stored back to back in one growing data area, start offsets of the blobs are stored
+ * in {@link com.alexkasko.unsafe.offheaplong.OffHeapLongArrayList}, so memory usage is proportional
+ * to the actual data size plus 8 bytes per blob.
+ *
+ * <p>Blobs may be copied into byte arrays or read in place using primitive accessors
+ * and {@link OffHeapBlobAccessor}. Store may be sorted by reference using {@link OffHeapBlobSorter}.
+ *
+ * <p>Default implementation uses {@code sun.misc.Unsafe}, with all operations guarded with {@code assert} keyword.
+ * With assertions enabled in runtime ({@code -ea} java switch) {@link AssertionError}
+ * will be thrown on illegal index access. Without assertions illegal index will crash JVM.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapBlobStore}
+ * will be garbage collected. Store is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapBlobStore implements OffHeapDisposable {
+    private static final int MIN_CAPACITY_INCREMENT = 256;
+
+    private final OffHeapLongArrayList offsets;
+    private OffHeapMemory data;
+    private long dataCapacity;
+    private long dataLength;
+
+    /**
+     * Constructor, {@code 256} is used as initial data capacity
+     */
+    public OffHeapBlobStore() {
+        this(MIN_CAPACITY_INCREMENT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param dataCapacity initial data capacity in bytes
+     */
+    public OffHeapBlobStore(long dataCapacity) {
+        if (dataCapacity < 0) throw new IllegalArgumentException("Illegal dataCapacity: [" + dataCapacity + "]");
+        this.offsets = new OffHeapLongArrayList();
+        this.data = OffHeapMemory.allocateMemory(dataCapacity);
+        this.dataCapacity = dataCapacity;
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return data.isUnsafe();
+    }
+
+    /**
+     * Appends blob to the end of this store
+     *
+     * @param blob blob to append
+     * @return index of appended blob
+     */
+    public long append(byte[] blob) {
+        return append(blob, 0, blob.length);
+    }
+
+    /**
+     * Appends part of the specified array as a blob to the end of this store
+     *
+     * @param buffer buffer containing the blob
+     * @param pos blob start position in buffer
+     * @param length blob length
+     * @return index of appended blob
+     */
+    public long append(byte[] buffer, int pos, int length) {
+        ensureCapacity(length);
+        if (length > 0) data.put(dataLength, buffer, pos, length);
+        offsets.add(dataLength);
+        dataLength += length;
+        return offsets.size() - 1;
+    }
+
+    /**
+     * Returns number of blobs in this store
+     *
+     * @return number of blobs
+     */
+    public long size() {
+        return offsets.size();
+    }
+
+    /**
+     * Returns length of the blob with specified index
+     *
+     * @param index blob index
+     * @return blob length in bytes
+     */
+    public int length(long index) {
+        return (int) (end(index) - offsets.get(index));
+    }
+
+    /**
+     * Copies blob with specified index into provided buffer
+     *
+     * @param index blob index
+     * @param buffer buffer with length not less than blob length
+     * @return blob length
+     */
+    public int get(long index, byte[] buffer) {
+        long start = offsets.get(index);
+        int len = (int) (end(index) - start);
+        if (len > 0) data.get(start, buffer, 0, len);
+        return len;
+    }
+
+    /**
+     * Copies part of the blob with specified index into provided buffer
+     *
+     * @param index blob index
+     * @param srcPos blob offset
+     * @param dest destination buffer
+     * @param destPos destination buffer offset
+     * @param length number of bytes to copy
+     */
+    public void get(long index, int srcPos, byte[] dest, int destPos, int length) {
+        assert srcPos >= 0 && srcPos <= length(index) - length : srcPos;
+        data.get(offsets.get(index) + srcPos, dest, destPos, length);
+    }
+
+    /**
+     * Gets byte from blob with specified index and offset
+     *
+     * @param index blob index
+     * @param offset blob offset
+     * @return byte value
+     */
+    public byte getByte(long index, int offset) {
+        assert offset >= 0 && offset < length(index) : offset;
+        return data.getByte(offsets.get(index) + offset);
+    }
+
+    /**
+     * Gets int from blob with specified index and offset
+     *
+     * @param index blob index
+     * @param offset blob offset
+     * @return int value
+     */
+    public int getInt(long index, int offset) {
+        assert offset >= 0 && offset <= length(index) - 4 : offset;
+        return data.getInt(offsets.get(index) + offset);
+    }
+
+    /**
+     * Gets long from blob with specified index and offset
+     *
+     * @param index blob index
+     * @param offset blob offset
+     * @return long value
+     */
+    public long getLong(long index, int offset) {
+        assert offset >= 0 && offset <= length(index) - 8 : offset;
+        return data.getLong(offsets.get(index) + offset);
+    }
+
+    /**
+     * Returns accessor to the blob with specified index, blob is not copied
+     *
+     * @param index blob index
+     * @return blob accessor
+     */
+    public OffHeapBlobAccessor accessor(long index) {
+        Accessor res = new Accessor();
+        res.setIndex(index);
+        return res;
+    }
+
+    /**
+     * Checks whether two blobs from this store have equal contents
+     *
+     * @param index1 first blob index
+     * @param index2 second blob index
+     * @return whether blobs are equal
+     */
+    public boolean equals(long index1, long index2) {
+        long len = length(index1);
+        return len == length(index2) && data.equals(offsets.get(index1), data, offsets.get(index2), len);
+    }
+
+    /**
+     * Checks whether blob with specified index has the same contents as the part of specified array
+     *
+     * @param index blob index
+     * @param buffer buffer to compare with
+     * @param pos start position in buffer
+     * @param length number of bytes in buffer to compare
+     * @return whether blob is equal to the buffer part
+     */
+    public boolean equals(long index, byte[] buffer, int pos, int length) {
+        if (length(index) != length) return false;
+        long start = offsets.get(index);
+        for (int i = 0; i < length; i++) {
+            if (data.getByte(start + i) != buffer[pos + i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compares two blobs from this store lexicographically as unsigned bytes,
+     * blob that is a prefix of another blob is less than it
+     *
+     * @param index1 first blob index
+     * @param index2 second blob index
+     * @return negative, zero or positive value if the first blob is less, equal or greater than the second one
+     */
+    public int compareUnsigned(long index1, long index2) {
+        int len1 = length(index1);
+        int len2 = length(index2);
+        int res = data.compareUnsigned(offsets.get(index1), data, offsets.get(index2), Math.min(len1, len2));
+        return 0 != res ? res : len1 - len2;
+    }
+
+    /**
+     * Computes xxHash64 of the blob with specified index
+     *
+     * @param index blob index
+     * @return hash value
+     */
+    public long hash64(long index) {
+        long start = offsets.get(index);
+        return data.hash64(start, end(index) - start);
+    }
+
+    /**
+     * Returns total length of all blobs in bytes
+     *
+     * @return total length of all blobs
+     */
+    public long dataLength() {
+        return dataLength;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        offsets.free();
+        data.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapBlobStore");
+        sb.append("{size=").append(size());
+        sb.append(", dataLength=").append(dataLength);
+        sb.append(", dataCapacity=").append(dataCapacity);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private long end(long index) {
+        return index + 1 < offsets.size() ? offsets.get(index + 1) : dataLength;
+    }
+
+    private void ensureCapacity(int length) {
+        long needed = dataLength + length;
+        if (needed <= dataCapacity) return;
+        long cap = Math.max(needed, dataCapacity + Math.max(MIN_CAPACITY_INCREMENT, dataCapacity >> 1));
+        OffHeapMemory newData = OffHeapMemory.allocateMemory(cap);
+        // maybe it's better to use Unsafe#reallocateMemory here
+        data.copy(0, newData, 0, dataLength);
+        data.free();
+        data = newData;
+        dataCapacity = cap;
+    }
+
+    /**
+     * Blob accessor implementation, may be moved between blobs of this store
+     */
+    class Accessor implements OffHeapBlobAccessor {
+        private long start;
+        private int length;
+
+        /**
+         * Moves accessor to the blob with specified index
+         *
+         * @param index blob index
+         */
+        void setIndex(long index) {
+            this.start = offsets.get(index);
+            this.length = (int) (end(index) - start);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int length() {
+            return length;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void get(byte[] buffer) {
+            if (length > 0) data.get(start, buffer, 0, length);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void get(int srcPos, byte[] dest, int destPos, int length) {
+            assert srcPos >= 0 && srcPos <= this.length - length : srcPos;
+            data.get(start + srcPos, dest, destPos, length);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public byte getByte(int offset) {
+            assert offset >= 0 && offset < length : offset;
+            return data.getByte(start + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getInt(int offset) {
+            assert offset >= 0 && offset <= length - 4 : offset;
+            return data.getInt(start + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getLong(int offset) {
+            assert offset >= 0 && offset <= length - 8 : offset;
+            return data.getLong(start + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("Accessor");
+            sb.append("{start=").append(start);
+            sb.append(", length=").append(length);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapblob;
+
+import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+
+import java.nio.charset.Charset;
+
+/**
+ * <p>Dictionary of strings that assigns dense int ids (starting from {@code 0} in insertion order)
+ * to distinct values. UTF-8 bytes of the values are stored contiguously in {@link OffHeapBlobStore},
+ * ids are looked up by value through open addressing hash table in {@link com.alexkasko.unsafe.offheap.OffHeapMemory}
+ * with 8-byte slots (id and 32 bits of value hash, so most mismatches are resolved without touching value bytes).
+ *
+ * <p>Values may be looked up by UTF-8 bytes and read back as bytes without materializing {@link String}s.
+ * Ids may be stored in struct collections as 4-byte int fields in place of strings.
+ * Ids order is the insertion order, values bytes order (that is also the code points order)
+ * is available through {@link #compareBytes(int, int)} and {@link #sortedIds()}.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapStringDictionary}
+ * will be garbage collected. Dictionary is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapStringDictionary implements OffHeapDisposable {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int MIN_CAPACITY = 16;
+    private static final int SLOT_LENGTH = 8;
+    private static final int EMPTY = -1;
+
+    private final ByteArrayTool bt = ByteArrayTool.get();
+    private final OffHeapBlobStore values;
+    private OffHeapMemory table;
+    private long capacity;
+    private long mask;
+
+    /**
+     * Constructor
+     */
+    public OffHeapStringDictionary() {
+        this.values = new OffHeapBlobStore();
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return table.isUnsafe();
+    }
+
+    /**
+     * Returns id of the specified value adding it to dictionary if necessary
+     *
+     * @param value string value
+     * @return value id
+     */
+    public int add(String value) {
+        byte[] bytes = value.getBytes(UTF8);
+        return add(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns id of the value with specified UTF-8 bytes adding it to dictionary if necessary
+     *
+     * @param buffer buffer with value bytes
+     * @param pos value start position in buffer
+     * @param length value length in bytes
+     * @return value id
+     */
+    public int add(byte[] buffer, int pos, int length) {
+        long hash = bt.hash64(buffer, pos, length);
+        long slot = find(buffer, pos, length, hash);
+        long off = slot * SLOT_LENGTH;
+        int id = table.getInt(off);
+        if (EMPTY != id) return id;
+        if (values.size() == Integer.MAX_VALUE) throw new IllegalStateException(
+                "Dictionary is full, size: [" + values.size() + "]");
+        id = (int) values.append(buffer, pos, length);
+        table.putInt(off, id);
+        table.putInt(off + 4, (int) (hash >>> 32));
+        // load factor 0.5
+        if (values.size() > capacity >>> 1) resize(capacity << 1);
+        return id;
+    }
+
+    /**
+     * Returns id of the specified value
+     *
+     * @param value string value
+     * @return value id or {@code -1} if value is not in dictionary
+     */
+    public int id(String value) {
+        byte[] bytes = value.getBytes(UTF8);
+        return id(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns id of the value with specified UTF-8 bytes
+     *
+     * @param buffer buffer with value bytes
+     * @param pos value start position in buffer
+     * @param length value length in bytes
+     * @return value id or {@code -1} if value is not in dictionary
+     */
+    public int id(byte[] buffer, int pos, int length) {
+        long slot = find(buffer, pos, length, bt.hash64(buffer, pos, length));
+        return table.getInt(slot * SLOT_LENGTH);
+    }
+
+    /**
+     * Returns value with specified id as string
+     *
+     * @param id value id
+     * @return string value
+     */
+    public String get(int id) {
+        byte[] bytes = new byte[values.length(id)];
+        values.get(id, bytes);
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * Copies UTF-8 bytes of the value with specified id into provided buffer
+     *
+     * @param id value id
+     * @param buffer buffer with length not less than value length
+     * @return value length in bytes
+     */
+    public int getBytes(int id, byte[] buffer) {
+        return values.get(id, buffer);
+    }
+
+    /**
+     * Returns length of UTF-8 bytes of the value with specified id
+     *
+     * @param id value id
+     * @return value length in bytes
+     */
+    public int length(int id) {
+        return values.length(id);
+    }
+
+    /**
+     * Compares values with specified ids using UTF-8 bytes, that is equal to code points order
+     *
+     * @param id1 first value id
+     * @param id2 second value id
+     * @return negative, zero or positive value if the first value is less, equal or greater than the second one
+     */
+    public int compareBytes(int id1, int id2) {
+        return values.compareUnsigned(id1, id2);
+    }
+
+    /**
+     * Returns all ids sorted by values bytes
+     *
+     * @return sorted ids, must be freed by caller
+     */
+    public OffHeapLongArray sortedIds() {
+        return OffHeapBlobSorter.sortedIndices(values);
+    }
+
+    /**
+     * Returns number of distinct values in this dictionary
+     *
+     * @return number of values
+     */
+    public int size() {
+        return (int) values.size();
+    }
+
+    /**
+     * Returns store with UTF-8 bytes of the values, blob index is equal to value id
+     *
+     * @return values store
+     */
+    public OffHeapBlobStore values() {
+        return values;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        values.free();
+        table.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapStringDictionary");
+        sb.append("{size=").append(values.size());
+        sb.append(", dataLength=").append(values.dataLength());
+        sb.append(", capacity=").append(capacity);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    // returns slot containing the value or the first empty slot in its probe sequence
+    private long find(byte[] buffer, int pos, int length, long hash) {
+        int tag = (int) (hash >>> 32);
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long off = slot * SLOT_LENGTH;
+            int id = table.getInt(off);
+            if (EMPTY == id) return slot;
+            if (table.getInt(off + 4) == tag && values.equals(id, buffer, pos, length)) return slot;
+        }
+    }
+
+    private void resize(long newCapacity) {
+        OffHeapMemory old = table;
+        long oldCapacity = capacity;
+        allocate(newCapacity);
+        for (long off = 0, end = oldCapacity * SLOT_LENGTH; off < end; off += SLOT_LENGTH) {
+            int id = old.getInt(off);
+            if (EMPTY == id) continue;
+            long slot = values.hash64(id) & mask;
+            while (EMPTY != table.getInt(slot * SLOT_LENGTH)) {
+                slot = (slot + 1) & mask;
+            }
+            table.putLong(slot * SLOT_LENGTH, old.getLong(off));
+        }
+        old.free();
+    }
+
+    private void allocate(long cap) {
+        this.table = OffHeapMemory.allocateMemory(cap * SLOT_LENGTH);
+        this.capacity = cap;
+        this.mask = cap - 1;
+        for (long off = 0, end = cap * SLOT_LENGTH; off < end; off += SLOT_LENGTH) {
+            table.putInt(off, EMPTY);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <h1>Off-heap storage for variable-length data</h1>
+ *
+ * <p>This package contains {@link com.alexkasko.unsafe.offheapblob.OffHeapBlobStore} - append-only store
+ * of variable-length byte arrays implemented on top of {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * Unlike struct collections it doesn't require fixed element length, memory usage is proportional to the actual data size.
+ *
+ * <h2>Operations</h2>
+ * <ul>
+ *     <li>reading primitives directly from off-heap memory without copying blobs into byte arrays,
+ *     also through {@link com.alexkasko.unsafe.offheapblob.OffHeapBlobAccessor}</li>
+ *     <li>comparing, checking equality and hashing blobs without copying</li>
+ *     <li>sorting store "by-reference" using {@link com.alexkasko.unsafe.offheapblob.OffHeapBlobSorter}:
+ *     additional {@link com.alexkasko.unsafe.offheaplong.OffHeapLongArray} of blob indices is sorted,
+ *     in unsigned bytes order or with user-provided {@link java.util.Comparator}'s</li>
+ * </ul>
+ *
+ * <h2>String dictionary</h2>
+ * <p>{@link com.alexkasko.unsafe.offheapblob.OffHeapStringDictionary} - assigns dense int ids to distinct strings,
+ * UTF-8 bytes of the values are kept in blob store, ids are looked up through off-heap hash table.
+ * Ids may be stored in struct collections in place of strings.
+ *
+ * <h2>Usage example in tests (github links)</h2>
+ * <ul>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapblob/OffHeapBlobStoreTest.java">blob store</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapblob/OffHeapStringDictionaryTest.java">string dictionary</a></li>
+ * </ul>
+ */
+
+package com.alexkasko.unsafe.offheapblob;
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbloom;
+
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+import com.alexkasko.unsafe.offheapbitset.OffHeapBitSet;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongAddressable;
+
+/**
+ * Bloom filter implementation that chooses one 512-bit (64 bytes, one cache line on most CPUs)
+ * block for the key and sets all key bits inside that block. Batch check loads the word holding
+ * the first bit of each key of a group before resolving any of them, so cache misses of the group
+ * are served in parallel and the rest of key bits are read from already cached blocks.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ * @see OffHeapLongBloomFilter#blocked(long, double)
+ */
+class OffHeapLongBlockedBloomFilter extends OffHeapLongBloomFilter {
+    static final int BLOCK_BITS = 512;
+    private static final int BLOCK_BYTES = BLOCK_BITS >>> 3;
+    private static final int BATCH_SIZE = 16;
+
+    private final long blocksCount;
+
+    /**
+     * Constructor
+     *
+     * @param bitsCount number of bits, must be multiple of 512
+     * @param hashesCount number of bits set for each key
+     */
+    OffHeapLongBlockedBloomFilter(long bitsCount, int hashesCount) {
+        super(bitsCount, hashesCount);
+        this.blocksCount = bitsCount / BLOCK_BITS;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param ohm memory with filter bits
+     * @param bitsCount number of bits, must be multiple of 512
+     * @param hashesCount number of bits set for each key
+     */
+    OffHeapLongBlockedBloomFilter(OffHeapMemory ohm, long bitsCount, int hashesCount) {
+        super(ohm, bitsCount, hashesCount);
+        this.blocksCount = bitsCount / BLOCK_BITS;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(long key) {
+        long h1 = mix(key);
+        long block = base + ((h1 & Long.MAX_VALUE) % blocksCount) * BLOCK_BYTES;
+        long h2 = mix(h1);
+        long h3 = mix(h2) | 1;
+        for (int i = 0; i < hashesCount; i++) {
+            // top 9 bits select bit inside the block
+            int bit = (int) (h2 >>> 55);
+            long off = block + ((bit >>> 6) << 3);
+            ohm.putLong(off, ohm.getLong(off) | (1L << bit));
+            h2 += h3;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long block = base + ((h1 & Long.MAX_VALUE) % blocksCount) * BLOCK_BYTES;
+        long h2 = mix(h1);
+        return checkBlock(block, h2, ohm.getLong(firstWord(block, h2)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long mightContainAll(OffHeapLongAddressable keys, OffHeapBitSet out) {
+        if (out.size() < keys.size()) throw new IllegalArgumentException(
+                "Illegal input, out size: [" + out.size() + "], keys size: [" + keys.size() + "]");
+        long[] hashes = new long[BATCH_SIZE];
+        long[] blocks = new long[BATCH_SIZE];
+        long[] firsts = new long[BATCH_SIZE];
+        long count = 0;
+        long len = keys.size();
+        for (long start = 0; start < len; start += BATCH_SIZE) {
+            int batch = (int) Math.min(BATCH_SIZE, len - start);
+            for (int i = 0; i < batch; i++) {
+                long h1 = mix(keys.get(start + i));
+                hashes[i] = mix(h1);
+                blocks[i] = base + ((h1 & Long.MAX_VALUE) % blocksCount) * BLOCK_BYTES;
+            }
+            // independent loads bring blocks into cache, CPU may overlap their misses
+            for (int i = 0; i < batch; i++) {
+                firsts[i] = ohm.getLong(firstWord(blocks[i], hashes[i]));
+            }
+            for (int i = 0; i < batch; i++) {
+                boolean found = checkBlock(blocks[i], hashes[i], firsts[i]);
+                out.set(start + i, found);
+                if (found) count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int type() {
+        return BLOCKED;
+    }
+
+    private static long firstWord(long block, long h2) {
+        return block + ((h2 >>> 61) << 3);
+    }
+
+    // first word is already loaded by the caller
+    private boolean checkBlock(long block, long h2, long first) {
+        if (0 == (first & (1L << (int) (h2 >>> 55)))) return false;
+        long h3 = mix(h2) | 1;
+        long h = h2 + h3;
+        for (int i = 1; i < hashesCount; i++) {
+            int bit = (int) (h >>> 55);
+            if (0 == (ohm.getLong(block + ((bit >>> 6) << 3)) & (1L << bit))) return false;
+            h += h3;
+        }
+        return true;
+    }
+}
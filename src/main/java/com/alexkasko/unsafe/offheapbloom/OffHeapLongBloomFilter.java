@@ -0,0 +1,343 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbloom;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+import com.alexkasko.unsafe.offheapbitset.OffHeapBitSet;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongAddressable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>Bloom filter for long keys using {@link com.alexkasko.unsafe.offheap.OffHeapMemory} to store bits.
+ * May answer that key was added when it wasn't (with configured false positive probability), never answers
+ * that key wasn't added when it was. Keys cannot be removed.
+ *
+ * <p>Two implementations are provided: {@link OffHeapLongClassicBloomFilter} spreads key bits
+ * over the whole bit array, {@link OffHeapLongBlockedBloomFilter} keeps all bits of the key inside
+ * one 64-byte block, so each operation touches single cache line at the cost of slightly higher
+ * false positive rate. Use {@link #classic(long, double)} and {@link #blocked(long, double)} to create filters.
+ *
+ * <p>Bits start at the 64-byte aligned address inside the allocated memory (when unsafe implementation
+ * is used), so blocks of {@link OffHeapLongBlockedBloomFilter} never straddle two cache lines.
+ *
+ * <p>Filter may be written into stream (file) and read back, bits are written in Big Endian byte order.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after filter will be garbage collected.
+ * Filter is NOT thread-safe for writing.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public abstract class OffHeapLongBloomFilter implements OffHeapDisposable {
+    private static final int MAGIC = 0x4f484246;
+    static final int CLASSIC = 0;
+    static final int BLOCKED = 1;
+    private static final int ALIGNMENT = 64;
+
+    final OffHeapMemory ohm;
+    // offset of the first bits word, aligned to cache line
+    final long base;
+    final long bitsCount;
+    final int hashesCount;
+
+    /**
+     * Constructor for subclasses, allocates memory for cleared bits
+     *
+     * @param bitsCount number of bits, must be multiple of 64
+     * @param hashesCount number of bits set for each key
+     */
+    OffHeapLongBloomFilter(long bitsCount, int hashesCount) {
+        this(allocateBits(bitsCount), bitsCount, hashesCount);
+        for (long off = base, end = base + (bitsCount >>> 3); off < end; off += 8) {
+            ohm.putLong(off, 0);
+        }
+    }
+
+    /**
+     * Constructor for subclasses
+     *
+     * @param ohm memory with filter bits and extra bytes for alignment
+     * @param bitsCount number of bits, must be multiple of 64
+     * @param hashesCount number of bits set for each key
+     */
+    OffHeapLongBloomFilter(OffHeapMemory ohm, long bitsCount, int hashesCount) {
+        this.ohm = ohm;
+        this.base = ohm.alignOffset(0, ALIGNMENT);
+        this.bitsCount = bitsCount;
+        this.hashesCount = hashesCount;
+    }
+
+    /**
+     * Creates filter that spreads key bits over the whole bit array
+     *
+     * @param expectedInsertions number of keys expected to be added
+     * @param fpp desired false positive probability, must be between {@code 0} and {@code 1} exclusive
+     * @return filter
+     */
+    public static OffHeapLongBloomFilter classic(long expectedInsertions, double fpp) {
+        checkParams(expectedInsertions, fpp);
+        long bits = optimalBits(expectedInsertions, fpp, 64);
+        return new OffHeapLongClassicBloomFilter(bits, optimalHashes(expectedInsertions, bits));
+    }
+
+    /**
+     * Creates filter that keeps all bits of the key inside one cache line
+     *
+     * @param expectedInsertions number of keys expected to be added
+     * @param fpp desired false positive probability, must be between {@code 0} and {@code 1} exclusive
+     * @return filter
+     */
+    public static OffHeapLongBloomFilter blocked(long expectedInsertions, double fpp) {
+        checkParams(expectedInsertions, fpp);
+        long bits = optimalBits(expectedInsertions, fpp, OffHeapLongBlockedBloomFilter.BLOCK_BITS);
+        return new OffHeapLongBlockedBloomFilter(bits, optimalHashes(expectedInsertions, bits));
+    }
+
+    /**
+     * Adds key to this filter
+     *
+     * @param key key
+     */
+    public abstract void add(long key);
+
+    /**
+     * Checks whether key might have been added to this filter
+     *
+     * @param key key
+     * @return {@code false} if key was definitely not added, {@code true} if key might have been added
+     */
+    public abstract boolean mightContain(long key);
+
+    /**
+     * Returns implementation type for serialization
+     *
+     * @return implementation type
+     */
+    abstract int type();
+
+    /**
+     * Adds all keys from the specified collection
+     *
+     * @param keys keys to add
+     */
+    public void addAll(OffHeapLongAddressable keys) {
+        for (long i = 0, size = keys.size(); i < size; i++) {
+            add(keys.get(i));
+        }
+    }
+
+    /**
+     * Checks each key of the input collection and stores results into bit set:
+     * bit {@code i} is set if {@code keys.get(i)} might have been added to this filter and cleared otherwise.
+     *
+     * @param keys keys to check
+     * @param out bit set for results, must have size not less than input size
+     * @return number of keys that might have been added
+     */
+    public long mightContainAll(OffHeapLongAddressable keys, OffHeapBitSet out) {
+        if (out.size() < keys.size()) throw new IllegalArgumentException(
+                "Illegal input, out size: [" + out.size() + "], keys size: [" + keys.size() + "]");
+        long count = 0;
+        for (long i = 0, size = keys.size(); i < size; i++) {
+            boolean found = mightContain(keys.get(i));
+            out.set(i, found);
+            if (found) count += 1;
+        }
+        return count;
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return ohm.isUnsafe();
+    }
+
+    /**
+     * Returns number of bits in this filter
+     *
+     * @return number of bits
+     */
+    public long bitsCount() {
+        return bitsCount;
+    }
+
+    /**
+     * Returns number of bits set for each key
+     *
+     * @return number of bits set for each key
+     */
+    public int hashesCount() {
+        return hashesCount;
+    }
+
+    /**
+     * Writes this filter into specified stream, stream is not closed
+     *
+     * @param out output stream
+     * @throws IOException on write error
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+        dos.writeInt(MAGIC);
+        dos.writeInt(type());
+        dos.writeLong(bitsCount);
+        dos.writeInt(hashesCount);
+        for (long off = base, end = base + (bitsCount >>> 3); off < end; off += 8) {
+            dos.writeLong(ohm.getLong(off));
+        }
+        dos.flush();
+    }
+
+    /**
+     * Writes this filter into specified file
+     *
+     * @param file output file
+     * @throws IOException on write error
+     */
+    public void writeTo(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads filter written with {@link #writeTo(java.io.OutputStream)} from specified stream, stream is not closed
+     *
+     * @param in input stream
+     * @return filter
+     * @throws IOException on read error or invalid stream contents
+     */
+    public static OffHeapLongBloomFilter readFrom(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+        int magic = dis.readInt();
+        if (MAGIC != magic) throw new IOException("Invalid bloom filter header: [" + Integer.toHexString(magic) + "]");
+        int type = dis.readInt();
+        long bits = dis.readLong();
+        int hashes = dis.readInt();
+        if (bits <= 0 || 0 != (bits & 63) || hashes <= 0) throw new IOException(
+                "Invalid bloom filter parameters, bitsCount: [" + bits + "], hashesCount: [" + hashes + "]");
+        if (BLOCKED == type && 0 != bits % OffHeapLongBlockedBloomFilter.BLOCK_BITS) throw new IOException(
+                "Invalid blocked bloom filter bitsCount: [" + bits + "], " +
+                "must be multiple of: [" + OffHeapLongBlockedBloomFilter.BLOCK_BITS + "]");
+        OffHeapMemory ohm = allocateBits(bits);
+        long base = ohm.alignOffset(0, ALIGNMENT);
+        try {
+            for (long off = base, end = base + (bits >>> 3); off < end; off += 8) {
+                ohm.putLong(off, dis.readLong());
+            }
+        } catch (IOException e) {
+            ohm.free();
+            throw e;
+        }
+        switch (type) {
+            case CLASSIC: return new OffHeapLongClassicBloomFilter(ohm, bits, hashes);
+            case BLOCKED: return new OffHeapLongBlockedBloomFilter(ohm, bits, hashes);
+            default:
+                ohm.free();
+                throw new IOException("Invalid bloom filter type: [" + type + "]");
+        }
+    }
+
+    /**
+     * Reads filter written with {@link #writeTo(java.io.File)} from specified file
+     *
+     * @param file input file
+     * @return filter
+     * @throws IOException on read error or invalid file contents
+     */
+    public static OffHeapLongBloomFilter readFrom(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return readFrom(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        ohm.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getSimpleName());
+        sb.append("{bitsCount=").append(bitsCount);
+        sb.append(", hashesCount=").append(hashesCount);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    // extra bytes allow to align bits to cache line
+    private static OffHeapMemory allocateBits(long bitsCount) {
+        return OffHeapMemory.allocateMemory((bitsCount >>> 3) + ALIGNMENT - 1);
+    }
+
+    // murmur3 finalizer
+    static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static void checkParams(long expectedInsertions, double fpp) {
+        if (expectedInsertions < 0) throw new IllegalArgumentException(
+                "Illegal expectedInsertions: [" + expectedInsertions + "]");
+        if (!(fpp > 0 && fpp < 1)) throw new IllegalArgumentException("Illegal fpp: [" + fpp + "]");
+    }
+
+    // m = -n * ln(p) / (ln(2) ^ 2), rounded up to the multiple of specified granularity
+    private static long optimalBits(long n, double p, int granularity) {
+        long bits = (long) Math.ceil(-Math.max(n, 1) * Math.log(p) / (Math.log(2) * Math.log(2)));
+        return Math.max(granularity, (bits + granularity - 1) / granularity * granularity);
+    }
+
+    // k = m / n * ln(2)
+    private static int optimalHashes(long n, long m) {
+        return Math.max(1, (int) Math.round((double) m / Math.max(n, 1) * Math.log(2)));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbloom;
+
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+
+/**
+ * Bloom filter implementation that spreads key bits over the whole bit array
+ * using double hashing: bit {@code i} of the key is {@code (h1 + i * h2) mod bitsCount}.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ * @see OffHeapLongBloomFilter#classic(long, double)
+ */
+class OffHeapLongClassicBloomFilter extends OffHeapLongBloomFilter {
+
+    /**
+     * Constructor
+     *
+     * @param bitsCount number of bits, must be multiple of 64
+     * @param hashesCount number of bits set for each key
+     */
+    OffHeapLongClassicBloomFilter(long bitsCount, int hashesCount) {
+        super(bitsCount, hashesCount);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param ohm memory with filter bits
+     * @param bitsCount number of bits, must be multiple of 64
+     * @param hashesCount number of bits set for each key
+     */
+    OffHeapLongClassicBloomFilter(OffHeapMemory ohm, long bitsCount, int hashesCount) {
+        super(ohm, bitsCount, hashesCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        long combined = h1;
+        for (int i = 0; i < hashesCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitsCount;
+            long off = base + ((bit >>> 6) << 3);
+            ohm.putLong(off, ohm.getLong(off) | (1L << bit));
+            combined += h2;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        long combined = h1;
+        for (int i = 0; i < hashesCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitsCount;
+            if (0 == (ohm.getLong(base + ((bit >>> 6) << 3)) & (1L << bit))) return false;
+            combined += h2;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int type() {
+        return CLASSIC;
+    }
+}
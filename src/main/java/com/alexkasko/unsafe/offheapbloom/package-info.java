@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <h1>Off-heap Bloom filters</h1>
+ *
+ * <p>This package contains {@link com.alexkasko.unsafe.offheapbloom.OffHeapLongBloomFilter} - Bloom filter
+ * for long keys implemented on top of {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * It may be used as a cheap negative check before searching large sorted off-heap collections.
+ *
+ * <h2>Implementations</h2>
+ * <ul>
+ *  <li>classic: key bits are spread over the whole bit array</li>
+ *  <li>blocked: all bits of the key are kept inside one 64-byte block, so each check costs
+ *  at most one cache miss, batch check overlaps cache misses of the group of keys</li>
+ * </ul>
+ *
+ * <p>Filters may be written into files and read back.
+ *
+ * <h2>Usage example in tests (github links)</h2>
+ * <ul>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapbloom/OffHeapLongBloomFilterTest.java">bloom filter</a></li>
+ * </ul>
+ */
+
+package com.alexkasko.unsafe.offheapbloom;
@@ -36,6 +36,7 @@ import com.alexkasko.unsafe.offheap.OffHeapMemory;
  *
  * <p>Note: while class implements Iterable, iterator will create new autoboxed Long object
  * <b>on every</b> {@code next()} call, this behaviour is inevitable with iterators in java 6/7.
+ * Use {@link #cursor()} or {@link #forEachInt(OffHeapIntProcedure)} to iterate without autoboxing.
  *
  * @author alexkasko
  *         Date: 3/1/13
@@ -147,6 +148,54 @@ public class OffHeapIntArrayList implements OffHeapIntAddressable, OffHeapDispos
         ohm.free();
     }
 
+    /**
+     * Returns cursor over all elements of this list, cursor doesn't box values
+     *
+     * @return cursor
+     */
+    public OffHeapIntCursor cursor() {
+        return new Cursor(0, size);
+    }
+
+    /**
+     * Returns cursor over the elements of this list in the specified range, cursor doesn't box values
+     *
+     * @param fromIndex start index, inclusive
+     * @param toIndex end index, exclusive
+     * @return cursor
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())}
+     */
+    public OffHeapIntCursor cursor(long fromIndex, long toIndex) {
+        checkRange(fromIndex, toIndex);
+        return new Cursor(fromIndex, toIndex);
+    }
+
+    /**
+     * Calls the specified procedure for each element of this list in index order
+     *
+     * @param procedure procedure to call
+     */
+    public void forEachInt(OffHeapIntProcedure procedure) {
+        forEachInt(0, size, procedure);
+    }
+
+    /**
+     * Calls the specified procedure for each element of this list in the specified range in index order.
+     * Procedure may add elements to this list, they are not visited.
+     *
+     * @param fromIndex start index, inclusive
+     * @param toIndex end index, exclusive
+     * @param procedure procedure to call
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())}
+     */
+    public void forEachInt(long fromIndex, long toIndex, OffHeapIntProcedure procedure) {
+        checkRange(fromIndex, toIndex);
+        // memory is re-read on each step, procedure may add elements and reallocate it
+        for (long off = fromIndex * ELEMENT_LENGTH, end = toIndex * ELEMENT_LENGTH; off < end; off += ELEMENT_LENGTH) {
+            procedure.apply(ohm.getInt(off));
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -176,4 +225,41 @@ public class OffHeapIntArrayList implements OffHeapIntAddressable, OffHeapDispos
         sb.append('}');
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    private void checkRange(long fromIndex, long toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + size + "], " +
+                    "fromIndex: [" + fromIndex + "], toIndex: [" + toIndex + "]");
+        }
+    }
+
+    private class Cursor implements OffHeapIntCursor {
+        private final long end;
+        private long offset;
+
+        private Cursor(long fromIndex, long toIndex) {
+            this.offset = fromIndex * ELEMENT_LENGTH;
+            this.end = toIndex * ELEMENT_LENGTH;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return offset < end;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int nextInt() {
+            if (offset >= end) throw new IllegalStateException(
+                    "Cursor is exhausted, end index: [" + end / ELEMENT_LENGTH + "]");
+            int res = ohm.getInt(offset);
+            offset += ELEMENT_LENGTH;
+            return res;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapint;
+
+/**
+ * Primitive forward-only cursor over int values, unlike {@link java.util.Iterator}
+ * returns values without autoboxing
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public interface OffHeapIntCursor {
+
+    /**
+     * Whether cursor has more values
+     *
+     * @return whether cursor has more values
+     */
+    boolean hasNext();
+
+    /**
+     * Returns next value and advances the cursor
+     *
+     * @return next value
+     * @throws IllegalStateException if cursor has no more values
+     */
+    int nextInt();
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapint;
+
+/**
+ * Primitive callback interface for iterating over int-to-int mappings without autoboxing
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ * @see OffHeapIntIntHashMap#forEach(OffHeapIntIntProcedure)
+ */
+public interface OffHeapIntIntProcedure {
+
+    /**
+     * Called once for each mapping
+     *
+     * @param key mapping key
+     * @param value mapping value
+     */
+    void apply(int key, int value);
+}
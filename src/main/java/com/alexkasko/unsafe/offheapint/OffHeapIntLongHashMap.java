@@ -0,0 +1,370 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapint;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+
+/**
+ * <p>Open addressing hash map with int keys and long values using {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * Entries are stored in a single memory area as 12-byte slots (key and value), collisions are resolved
+ * with linear probing, removal uses backward shift deletion so no tombstones are left in the table.
+ * Capacity is always a power of two and is not bounded by {@code Integer.MAX_VALUE}.
+ * Table is doubled when number of entries exceeds {@code capacity * loadFactor}.
+ *
+ * <p>One key value (by default {@code Integer.MIN_VALUE}) is reserved to mark empty slots
+ * and cannot be used as a key. Methods that may not find a key return configurable
+ * {@code noEntryValue} (by default {@code 0}).
+ *
+ * <p>Default implementation uses {@code sun.misc.Unsafe}, with all operations guarded with {@code assert} keyword.
+ * With assertions enabled in runtime ({@code -ea} java switch) {@link AssertionError}
+ * will be thrown on illegal memory access. Without assertions illegal access will crash JVM.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapIntLongHashMap}
+ * will be garbage collected. Map is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapIntLongHashMap implements OffHeapDisposable {
+    private static final int MIN_CAPACITY = 8;
+    private static final int SLOT_LENGTH = 12;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private final float loadFactor;
+    private final int emptyKey;
+    private final long noEntryValue;
+    private OffHeapMemory ohm;
+    private long capacity;
+    private long mask;
+    private long maxSize;
+    private long size;
+
+    /**
+     * Constructor, {@code 8} is used as initial capacity
+     */
+    public OffHeapIntLongHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Constructor, {@code Integer.MIN_VALUE} is used as empty key, {@code 0} is used as no entry value
+     *
+     * @param expectedSize number of entries map may contain without resizing
+     */
+    public OffHeapIntLongHashMap(long expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR, Integer.MIN_VALUE, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize number of entries map may contain without resizing
+     * @param loadFactor maximum ratio of entries number to capacity, must be between {@code 0} and {@code 1} exclusive
+     * @param emptyKey reserved key value to mark empty slots, cannot be used as key
+     * @param noEntryValue value to return from methods when key is not found
+     */
+    public OffHeapIntLongHashMap(long expectedSize, float loadFactor, int emptyKey, long noEntryValue) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Illegal expectedSize: [" + expectedSize + "]");
+        if (!(loadFactor > 0 && loadFactor < 1)) throw new IllegalArgumentException("Illegal loadFactor: [" + loadFactor + "]");
+        this.loadFactor = loadFactor;
+        this.emptyKey = emptyKey;
+        this.noEntryValue = noEntryValue;
+        allocate(capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return ohm.isUnsafe();
+    }
+
+    /**
+     * Returns value mapped to specified key
+     *
+     * @param key key to look for
+     * @return mapped value or {@code noEntryValue} if key is not found
+     */
+    public long get(int key) {
+        if (key == emptyKey) return noEntryValue;
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int k = ohm.getInt(slot * SLOT_LENGTH);
+            if (k == key) return ohm.getLong(slot * SLOT_LENGTH + 4);
+            if (k == emptyKey) return noEntryValue;
+        }
+    }
+
+    /**
+     * Checks whether map contains specified key
+     *
+     * @param key key to look for
+     * @return whether key is present
+     */
+    public boolean containsKey(int key) {
+        if (key == emptyKey) return false;
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int k = ohm.getInt(slot * SLOT_LENGTH);
+            if (k == key) return true;
+            if (k == emptyKey) return false;
+        }
+    }
+
+    /**
+     * Maps specified key to specified value replacing existing value
+     *
+     * @param key key, must not be equal to {@code emptyKey}
+     * @param value value
+     * @return previous value or {@code noEntryValue} if key was not present
+     * @throws IllegalArgumentException if key is equal to {@code emptyKey}
+     */
+    public long put(int key, long value) {
+        long slot = findSlot(key);
+        long off = slot * SLOT_LENGTH;
+        if (ohm.getInt(off) == key) {
+            long prev = ohm.getLong(off + 4);
+            ohm.putLong(off + 4, value);
+            return prev;
+        }
+        insert(off, key, value);
+        return noEntryValue;
+    }
+
+    /**
+     * Maps specified key to specified value only if key is not present in map
+     *
+     * @param key key, must not be equal to {@code emptyKey}
+     * @param value value
+     * @return existing value or {@code noEntryValue} if value was inserted
+     * @throws IllegalArgumentException if key is equal to {@code emptyKey}
+     */
+    public long putIfAbsent(int key, long value) {
+        long slot = findSlot(key);
+        long off = slot * SLOT_LENGTH;
+        if (ohm.getInt(off) == key) return ohm.getLong(off + 4);
+        insert(off, key, value);
+        return noEntryValue;
+    }
+
+    /**
+     * Adds {@code delta} to value mapped to specified key, maps key to {@code delta} if key is not present
+     *
+     * @param key key, must not be equal to {@code emptyKey}
+     * @param delta value to add
+     * @return new value
+     * @throws IllegalArgumentException if key is equal to {@code emptyKey}
+     */
+    public long addTo(int key, long delta) {
+        long slot = findSlot(key);
+        long off = slot * SLOT_LENGTH;
+        if (ohm.getInt(off) == key) {
+            long res = ohm.getLong(off + 4) + delta;
+            ohm.putLong(off + 4, res);
+            return res;
+        }
+        insert(off, key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes mapping for specified key
+     *
+     * @param key key to remove
+     * @return removed value or {@code noEntryValue} if key was not present
+     */
+    public long remove(int key) {
+        if (key == emptyKey) return noEntryValue;
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int k = ohm.getInt(slot * SLOT_LENGTH);
+            if (k == key) {
+                long res = ohm.getLong(slot * SLOT_LENGTH + 4);
+                shiftBack(slot);
+                size -= 1;
+                return res;
+            }
+            if (k == emptyKey) return noEntryValue;
+        }
+    }
+
+    /**
+     * Calls specified procedure for each mapping in this map, order of mappings is undefined.
+     * Map must not be modified from the procedure.
+     *
+     * @param procedure procedure to call
+     */
+    public void forEach(OffHeapIntLongProcedure procedure) {
+        for (long off = 0, end = capacity * SLOT_LENGTH; off < end; off += SLOT_LENGTH) {
+            int k = ohm.getInt(off);
+            if (k != emptyKey) procedure.apply(k, ohm.getLong(off + 4));
+        }
+    }
+
+    /**
+     * Removes all mappings, allocated memory is reused
+     */
+    public void clear() {
+        fillEmpty(ohm, capacity);
+        size = 0;
+    }
+
+    /**
+     * Returns number of mappings in this map
+     *
+     * @return number of mappings in this map
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns number of slots in the underlying table
+     *
+     * @return number of slots in the underlying table
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns reserved key value used to mark empty slots
+     *
+     * @return empty key
+     */
+    public int emptyKey() {
+        return emptyKey;
+    }
+
+    /**
+     * Returns value returned from methods when key is not found
+     *
+     * @return no entry value
+     */
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        ohm.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapIntLongHashMap");
+        sb.append("{size=").append(size);
+        sb.append(", capacity=").append(capacity);
+        sb.append(", loadFactor=").append(loadFactor);
+        sb.append(", emptyKey=").append(emptyKey);
+        sb.append(", noEntryValue=").append(noEntryValue);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    // returns slot containing the key or the first empty slot in its probe sequence
+    private long findSlot(int key) {
+        if (key == emptyKey) throw new IllegalArgumentException(
+                "Illegal key, equal to emptyKey: [" + key + "]");
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int k = ohm.getInt(slot * SLOT_LENGTH);
+            if (k == key || k == emptyKey) return slot;
+        }
+    }
+
+    private void insert(long off, int key, long value) {
+        ohm.putInt(off, key);
+        ohm.putLong(off + 4, value);
+        size += 1;
+        if (size > maxSize) resize(capacity << 1);
+    }
+
+    // backward shift deletion: moves following entries of the cluster into the freed slot
+    // if their ideal slot is not between the freed slot and their current position
+    private void shiftBack(long slot) {
+        long free = slot;
+        for (long next = (slot + 1) & mask; ; next = (next + 1) & mask) {
+            int k = ohm.getInt(next * SLOT_LENGTH);
+            if (k == emptyKey) break;
+            long ideal = hash(k) & mask;
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                ohm.putInt(free * SLOT_LENGTH, k);
+                ohm.putLong(free * SLOT_LENGTH + 4, ohm.getLong(next * SLOT_LENGTH + 4));
+                free = next;
+            }
+        }
+        ohm.putInt(free * SLOT_LENGTH, emptyKey);
+    }
+
+    private void resize(long newCapacity) {
+        OffHeapMemory old = ohm;
+        long oldCapacity = capacity;
+        allocate(newCapacity);
+        for (long off = 0, end = oldCapacity * SLOT_LENGTH; off < end; off += SLOT_LENGTH) {
+            int k = old.getInt(off);
+            if (k == emptyKey) continue;
+            long slot = hash(k) & mask;
+            while (ohm.getInt(slot * SLOT_LENGTH) != emptyKey) {
+                slot = (slot + 1) & mask;
+            }
+            ohm.putInt(slot * SLOT_LENGTH, k);
+            ohm.putLong(slot * SLOT_LENGTH + 4, old.getLong(off + 4));
+        }
+        old.free();
+    }
+
+    private void allocate(long cap) {
+        this.ohm = OffHeapMemory.allocateMemory(cap * SLOT_LENGTH);
+        this.capacity = cap;
+        this.mask = cap - 1;
+        this.maxSize = Math.min(cap - 1, (long) (cap * (double) loadFactor));
+        fillEmpty(ohm, cap);
+    }
+
+    private void fillEmpty(OffHeapMemory mem, long cap) {
+        for (long off = 0, end = cap * SLOT_LENGTH; off < end; off += SLOT_LENGTH) {
+            mem.putInt(off, emptyKey);
+        }
+    }
+
+    private static long capacityFor(long expectedSize, float loadFactor) {
+        long min = (long) Math.ceil(expectedSize / (double) loadFactor) + 1;
+        long cap = Long.highestOneBit(min);
+        if (cap < min) cap <<= 1;
+        return Math.max(MIN_CAPACITY, cap);
+    }
+
+    // murmur3 finalizer, spreads sequential keys over the table
+    private static long hash(int key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
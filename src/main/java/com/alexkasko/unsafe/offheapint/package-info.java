@@ -32,24 +32,37 @@
  * <h2>Iterators</h2>
  * <p>Both collections implements {@link java.util.Iterable}, but {@code foreach} must be used with caution, because
  * in java 6/7 iterators causes new autoboxed {@link java.lang.Integer} object creation for each call to
- * {@link java.util.Iterator#next()}.
+ * {@link java.util.Iterator#next()}. Primitive {@link com.alexkasko.unsafe.offheapint.OffHeapIntCursor} and internal iteration
+ * using {@code forEachInt} methods (not clashing with {@code Iterable.forEach} of java 8) with
+ * {@link com.alexkasko.unsafe.offheapint.OffHeapIntProcedure} (both also for index ranges) read values
+ * directly from off-heap memory without autoboxing.
  *
  * <h2>Operations</h2>
  * <ul>
  *     <li>sorting using {@link com.alexkasko.unsafe.offheaplong.OffHeapIntSorter}: implementation of Dual-Pivot quicksort algorithm
  *      adapted to off-heap collections</li>
  *     <li>sorting with order defined by {@code com.alexkasko.unsafe.offheapint.OffHeapIntComparator}</li>
+ *     <li>selection of the element with specified rank (median, percentiles) and partial sorting in linear time on average:
+ *     {@link com.alexkasko.unsafe.offheapint.OffHeapIntSorter#select(com.alexkasko.unsafe.offheapint.OffHeapIntAddressable, long)}</li>
  *     <li>binary search over sorted collections using {@link com.alexkasko.unsafe.offheapint.OffHeapIntBinarySearch}</li>
  *     <li>binary search returning ranges of equal values:
  *     {@link com.alexkasko.unsafe.offheapint.OffHeapIntBinarySearch#binarySearchRange(com.alexkasko.unsafe.offheap.OffHeapAddressable, int, com.alexkasko.unsafe.offheaplong.OffHeapIntBinarySearch.IndexRange)}</li>
  * </ul>
  *
+ * <h2>Hash maps</h2>
+ * <p>{@link com.alexkasko.unsafe.offheapint.OffHeapIntIntHashMap} and {@link com.alexkasko.unsafe.offheapint.OffHeapIntLongHashMap} -
+ * open addressing hash maps with int keys and linear probing that use 8 and 12 bytes per slot,
+ * iteration is done through primitive {@link com.alexkasko.unsafe.offheapint.OffHeapIntIntProcedure}
+ * and {@link com.alexkasko.unsafe.offheapint.OffHeapIntLongProcedure} without autoboxing
+ *
  * <h2>Usage example in tests (github links)</h2>
  * <ul>
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapint/OffHeapIntArrayTest.java">array</a></li>
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapint/OffHeapIntArrayListTest.java">array list</a></li>
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapint/OffHeapIntSorterTest.java">sorting</a></li>
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapint/OffHeapIntBinarySearchTest.java">binary search</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapint/OffHeapIntIntHashMapTest.java">int-to-int hash map</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapint/OffHeapIntLongHashMapTest.java">int-to-long hash map</a></li>
  * </ul>
  *
  */
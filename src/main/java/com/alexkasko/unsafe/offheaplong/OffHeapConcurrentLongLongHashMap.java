@@ -0,0 +1,371 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Thread-safe long-to-long hash map, split into power of two number of segments.
+ * Each segment is a separate {@link OffHeapLongLongHashMap} guarded by its own lock and version counter (seqlock).
+ * Segment is chosen using high bits of the key hash (segment tables use low bits), so
+ * threads working with different segments never block each other, and resize blocks only the segment being resized.
+ *
+ * <p>Writers take the segment lock and increment the segment version before and after modification.
+ * {@link #get(long)} and {@link #containsKey(long)} don't lock and don't write shared memory: they read
+ * the version, look the key up and retry if the version was odd or has changed. After a number of failed
+ * attempts reader falls back to the segment lock, so readers are never starved by writers.
+ * Segment tables replaced on resize are kept until {@link #free()} call, because optimistic readers
+ * may still read them, so memory usage may be up to two times larger than the size of the current tables.
+ * Optimistic reads require unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory},
+ * with other implementations reads take the segment lock.
+ *
+ * <p>Number of segments is chosen from the {@code concurrencyLevel} (expected number
+ * of simultaneously writing threads), by default {@code 16}.
+ *
+ * <p>{@link #size()}, {@link #forEach(OffHeapLongLongProcedure)} and {@link #clear()} lock segments
+ * one by one, so they don't provide a consistent snapshot under concurrent modifications.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapConcurrentLongLongHashMap}
+ * will be garbage collected. Map must not be used after {@link #free()} call.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapConcurrentLongLongHashMap implements OffHeapDisposable {
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int OPTIMISTIC_ATTEMPTS = 16;
+    // versions of different segments are placed on different cache lines
+    private static final int VERSION_STRIDE = 8;
+
+    private final OffHeapLongLongHashMap[] segments;
+    private final ReentrantLock[] locks;
+    private final AtomicLongArray versions;
+    private final boolean optimistic;
+    private final int segmentShift;
+    private final long emptyKey;
+    private final long noEntryValue;
+
+    /**
+     * Constructor, {@code 16} is used as concurrency level
+     */
+    public OffHeapConcurrentLongLongHashMap() {
+        this(DEFAULT_CONCURRENCY_LEVEL * 4, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Constructor, {@code Long.MIN_VALUE} is used as empty key, {@code 0} is used as no entry value
+     *
+     * @param expectedSize number of entries map may contain without resizing
+     * @param concurrencyLevel expected number of simultaneously writing threads
+     */
+    public OffHeapConcurrentLongLongHashMap(long expectedSize, int concurrencyLevel) {
+        this(expectedSize, concurrencyLevel, DEFAULT_LOAD_FACTOR, Long.MIN_VALUE, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize number of entries map may contain without resizing
+     * @param concurrencyLevel expected number of simultaneously writing threads
+     * @param loadFactor maximum ratio of entries number to capacity, must be between {@code 0} and {@code 1} exclusive
+     * @param emptyKey reserved key value to mark empty slots, cannot be used as key
+     * @param noEntryValue value to return from methods when key is not found
+     */
+    public OffHeapConcurrentLongLongHashMap(long expectedSize, int concurrencyLevel, float loadFactor,
+                                            long emptyKey, long noEntryValue) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Illegal expectedSize: [" + expectedSize + "]");
+        if (concurrencyLevel <= 0) throw new IllegalArgumentException("Illegal concurrencyLevel: [" + concurrencyLevel + "]");
+        int count = Integer.highestOneBit(Math.min(concurrencyLevel, MAX_SEGMENTS));
+        if (count < concurrencyLevel && count < MAX_SEGMENTS) count <<= 1;
+        this.segments = new OffHeapLongLongHashMap[count];
+        this.locks = new ReentrantLock[count];
+        this.versions = new AtomicLongArray(count * VERSION_STRIDE);
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+        this.emptyKey = emptyKey;
+        this.noEntryValue = noEntryValue;
+        long segmentSize = (expectedSize + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new OffHeapLongLongHashMap(segmentSize, loadFactor, emptyKey, noEntryValue);
+            segments[i].retainReplacedTables();
+            locks[i] = new ReentrantLock();
+        }
+        this.optimistic = segments[0].isOptimisticReadSupported();
+    }
+
+    /**
+     * Whether unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return segments[0].isUnsafe();
+    }
+
+    /**
+     * Returns value mapped to specified key, doesn't lock unless the segment is modified concurrently
+     *
+     * @param key key to look for
+     * @return mapped value or {@code noEntryValue} if key is not found
+     */
+    public long get(long key) {
+        int seg = segmentFor(key);
+        if (optimistic) {
+            int vi = seg * VERSION_STRIDE;
+            for (int i = 0; i < OPTIMISTIC_ATTEMPTS; i++) {
+                long version = versions.get(vi);
+                if (0 != (version & 1)) continue;
+                long res = segments[seg].getOptimistic(key);
+                if (versions.get(vi) == version) return res;
+            }
+        }
+        ReentrantLock lock = locks[seg];
+        lock.lock();
+        try {
+            return segments[seg].get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether map contains specified key, doesn't lock unless the segment is modified concurrently
+     *
+     * @param key key to look for
+     * @return whether key is present
+     */
+    public boolean containsKey(long key) {
+        int seg = segmentFor(key);
+        if (optimistic) {
+            int vi = seg * VERSION_STRIDE;
+            for (int i = 0; i < OPTIMISTIC_ATTEMPTS; i++) {
+                long version = versions.get(vi);
+                if (0 != (version & 1)) continue;
+                boolean res = segments[seg].containsKeyOptimistic(key);
+                if (versions.get(vi) == version) return res;
+            }
+        }
+        ReentrantLock lock = locks[seg];
+        lock.lock();
+        try {
+            return segments[seg].containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Maps specified key to specified value replacing existing value
+     *
+     * @param key key, must not be equal to {@code emptyKey}
+     * @param value value
+     * @return previous value or {@code noEntryValue} if key was not present
+     * @throws IllegalArgumentException if key is equal to {@code emptyKey}
+     */
+    public long put(long key, long value) {
+        int seg = segmentFor(key);
+        lockWrite(seg);
+        try {
+            return segments[seg].put(key, value);
+        } finally {
+            unlockWrite(seg);
+        }
+    }
+
+    /**
+     * Maps specified key to specified value only if key is not present in map
+     *
+     * @param key key, must not be equal to {@code emptyKey}
+     * @param value value
+     * @return existing value or {@code noEntryValue} if value was inserted
+     * @throws IllegalArgumentException if key is equal to {@code emptyKey}
+     */
+    public long putIfAbsent(long key, long value) {
+        int seg = segmentFor(key);
+        lockWrite(seg);
+        try {
+            return segments[seg].putIfAbsent(key, value);
+        } finally {
+            unlockWrite(seg);
+        }
+    }
+
+    /**
+     * Atomically adds {@code delta} to value mapped to specified key, maps key to {@code delta} if key is not present
+     *
+     * @param key key, must not be equal to {@code emptyKey}
+     * @param delta value to add
+     * @return new value
+     * @throws IllegalArgumentException if key is equal to {@code emptyKey}
+     */
+    public long addTo(long key, long delta) {
+        int seg = segmentFor(key);
+        lockWrite(seg);
+        try {
+            return segments[seg].addTo(key, delta);
+        } finally {
+            unlockWrite(seg);
+        }
+    }
+
+    /**
+     * Removes mapping for specified key
+     *
+     * @param key key to remove
+     * @return removed value or {@code noEntryValue} if key was not present
+     */
+    public long remove(long key) {
+        int seg = segmentFor(key);
+        lockWrite(seg);
+        try {
+            return segments[seg].remove(key);
+        } finally {
+            unlockWrite(seg);
+        }
+    }
+
+    /**
+     * Calls specified procedure for each mapping in this map, order of mappings is undefined.
+     * Segments are traversed one by one holding segment lock, map must not be modified from the procedure.
+     *
+     * @param procedure procedure to call
+     */
+    public void forEach(OffHeapLongLongProcedure procedure) {
+        for (int i = 0; i < segments.length; i++) {
+            ReentrantLock lock = locks[i];
+            lock.lock();
+            try {
+                segments[i].forEach(procedure);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes all mappings, allocated memory is reused
+     */
+    public void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            lockWrite(i);
+            try {
+                segments[i].clear();
+            } finally {
+                unlockWrite(i);
+            }
+        }
+    }
+
+    /**
+     * Returns number of mappings in this map
+     *
+     * @return number of mappings in this map
+     */
+    public long size() {
+        long res = 0;
+        for (int i = 0; i < segments.length; i++) {
+            ReentrantLock lock = locks[i];
+            lock.lock();
+            try {
+                res += segments[i].size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns number of segments
+     *
+     * @return number of segments
+     */
+    public int segmentsCount() {
+        return segments.length;
+    }
+
+    /**
+     * Returns reserved key value used to mark empty slots
+     *
+     * @return empty key
+     */
+    public long emptyKey() {
+        return emptyKey;
+    }
+
+    /**
+     * Returns value returned from methods when key is not found
+     *
+     * @return no entry value
+     */
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        for (OffHeapLongLongHashMap seg : segments) {
+            seg.free();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapConcurrentLongLongHashMap");
+        sb.append("{segmentsCount=").append(segments.length);
+        sb.append(", emptyKey=").append(emptyKey);
+        sb.append(", noEntryValue=").append(noEntryValue);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    // odd version marks segment being modified, atomic increment also orders it with the following table writes
+    private void lockWrite(int seg) {
+        locks[seg].lock();
+        versions.incrementAndGet(seg * VERSION_STRIDE);
+    }
+
+    private void unlockWrite(int seg) {
+        versions.incrementAndGet(seg * VERSION_STRIDE);
+        locks[seg].unlock();
+    }
+
+    // high bits of murmur3 finalizer, segment tables use low bits of the same function
+    private int segmentFor(long key) {
+        if (1 == segments.length) return 0;
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) (h >>> segmentShift);
+    }
+}
@@ -34,6 +34,7 @@ import com.alexkasko.unsafe.offheap.OffHeapMemory;
  *
  * <p>Note: while class implements Iterable, iterator will create new autoboxed Long object
  * <b>on every</b> {@code next()} call, this behaviour is inevitable with iterators in java 6/7.
+ * Use {@link #cursor()} or {@link #forEachLong(OffHeapLongProcedure)} to iterate without autoboxing.
  *
  * @author alexkasko
  * Date: 2/22/13
@@ -109,6 +110,53 @@ public class OffHeapLongArray implements OffHeapLongAddressable, OffHeapDisposab
         ohm.free();
     }
 
+    /**
+     * Returns cursor over all elements of this array, cursor doesn't box values
+     *
+     * @return cursor
+     */
+    public OffHeapLongCursor cursor() {
+        return new Cursor(0, size());
+    }
+
+    /**
+     * Returns cursor over the elements of this array in the specified range, cursor doesn't box values
+     *
+     * @param fromIndex start index, inclusive
+     * @param toIndex end index, exclusive
+     * @return cursor
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())}
+     */
+    public OffHeapLongCursor cursor(long fromIndex, long toIndex) {
+        checkRange(fromIndex, toIndex);
+        return new Cursor(fromIndex, toIndex);
+    }
+
+    /**
+     * Calls the specified procedure for each element of this array in index order
+     *
+     * @param procedure procedure to call
+     */
+    public void forEachLong(OffHeapLongProcedure procedure) {
+        forEachLong(0, size(), procedure);
+    }
+
+    /**
+     * Calls the specified procedure for each element of this array in the specified range in index order
+     *
+     * @param fromIndex start index, inclusive
+     * @param toIndex end index, exclusive
+     * @param procedure procedure to call
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())}
+     */
+    public void forEachLong(long fromIndex, long toIndex, OffHeapLongProcedure procedure) {
+        checkRange(fromIndex, toIndex);
+        OffHeapMemory mem = ohm;
+        for (long off = fromIndex * ELEMENT_LENGTH, end = toIndex * ELEMENT_LENGTH; off < end; off += ELEMENT_LENGTH) {
+            procedure.apply(mem.getLong(off));
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -138,4 +186,41 @@ public class OffHeapLongArray implements OffHeapLongAddressable, OffHeapDisposab
         sb.append('}');
         return sb.toString();
     }
+
+    private void checkRange(long fromIndex, long toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size()) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + size() + "], " +
+                    "fromIndex: [" + fromIndex + "], toIndex: [" + toIndex + "]");
+        }
+    }
+
+    private class Cursor implements OffHeapLongCursor {
+        private final long end;
+        private long offset;
+
+        private Cursor(long fromIndex, long toIndex) {
+            this.offset = fromIndex * ELEMENT_LENGTH;
+            this.end = toIndex * ELEMENT_LENGTH;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return offset < end;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long nextLong() {
+            if (offset >= end) throw new IllegalStateException(
+                    "Cursor is exhausted, end index: [" + end / ELEMENT_LENGTH + "]");
+            long res = ohm.getLong(offset);
+            offset += ELEMENT_LENGTH;
+            return res;
+        }
+    }
 }
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+import com.alexkasko.unsafe.offheapbitset.OffHeapBitSet;
+
+/**
+ * <p>Open addressing hash set of longs using {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * Values are stored in a single memory area as 8-byte slots, collisions are resolved
+ * with linear probing, removal uses backward shift deletion so no tombstones are left in the table.
+ * Capacity is always a power of two and is not bounded by {@code Integer.MAX_VALUE}.
+ * Table is doubled when number of values exceeds {@code capacity * loadFactor}.
+ *
+ * <p>One value (by default {@code Long.MIN_VALUE}) is reserved to mark empty slots
+ * and cannot be added to the set.
+ *
+ * <p>Set contents may be traversed with {@link OffHeapLongCursor} that doesn't box values.
+ * Batch membership check {@link #containsAll(OffHeapLongAddressable, com.alexkasko.unsafe.offheapbitset.OffHeapBitSet)}
+ * reads first probe slots for a group of values before resolving any of them, so cache misses
+ * of the group are served in parallel.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapLongHashSet}
+ * will be garbage collected. Set is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongHashSet implements OffHeapDisposable {
+    private static final int MIN_CAPACITY = 8;
+    private static final int SLOT_LENGTH = 8;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int BATCH_SIZE = 16;
+
+    private final float loadFactor;
+    private final long emptyValue;
+    private OffHeapMemory ohm;
+    private long capacity;
+    private long mask;
+    private long maxSize;
+    private long size;
+
+    /**
+     * Constructor, {@code 8} is used as initial capacity
+     */
+    public OffHeapLongHashSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Constructor, {@code Long.MIN_VALUE} is used as empty value
+     *
+     * @param expectedSize number of values set may contain without resizing
+     */
+    public OffHeapLongHashSet(long expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR, Long.MIN_VALUE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize number of values set may contain without resizing
+     * @param loadFactor maximum ratio of values number to capacity, must be between {@code 0} and {@code 1} exclusive
+     * @param emptyValue reserved value to mark empty slots, cannot be added to the set
+     */
+    public OffHeapLongHashSet(long expectedSize, float loadFactor, long emptyValue) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Illegal expectedSize: [" + expectedSize + "]");
+        if (!(loadFactor > 0 && loadFactor < 1)) throw new IllegalArgumentException("Illegal loadFactor: [" + loadFactor + "]");
+        this.loadFactor = loadFactor;
+        this.emptyValue = emptyValue;
+        allocate(capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return ohm.isUnsafe();
+    }
+
+    /**
+     * Adds value to this set
+     *
+     * @param value value, must not be equal to {@code emptyValue}
+     * @return {@code true} if value was added, {@code false} if it was already present
+     * @throws IllegalArgumentException if value is equal to {@code emptyValue}
+     */
+    public boolean add(long value) {
+        if (value == emptyValue) throw new IllegalArgumentException(
+                "Illegal value, equal to emptyValue: [" + value + "]");
+        for (long slot = hash(value) & mask; ; slot = (slot + 1) & mask) {
+            long va = ohm.getLong(slot * SLOT_LENGTH);
+            if (va == value) return false;
+            if (va == emptyValue) {
+                ohm.putLong(slot * SLOT_LENGTH, value);
+                size += 1;
+                if (size > maxSize) resize(capacity << 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Checks whether set contains specified value
+     *
+     * @param value value to look for
+     * @return whether value is present
+     */
+    public boolean contains(long value) {
+        if (value == emptyValue) return false;
+        return probe(value, hash(value) & mask);
+    }
+
+    /**
+     * Checks membership for each value of the input collection and stores results into
+     * bit set: bit {@code i} is set if {@code in.get(i)} is present in this set and cleared otherwise.
+     * Values are processed in groups, first probe slots of the whole group are read
+     * before resolving any of them.
+     *
+     * @param in values to check
+     * @param out bit set for results, must have size not less than input size
+     * @return number of values present in this set
+     */
+    public long containsAll(OffHeapLongAddressable in, OffHeapBitSet out) {
+        if (out.size() < in.size()) throw new IllegalArgumentException(
+                "Illegal input, out size: [" + out.size() + "], in size: [" + in.size() + "]");
+        long[] values = new long[BATCH_SIZE];
+        long[] slots = new long[BATCH_SIZE];
+        long[] firsts = new long[BATCH_SIZE];
+        long count = 0;
+        long len = in.size();
+        for (long start = 0; start < len; start += BATCH_SIZE) {
+            int batch = (int) Math.min(BATCH_SIZE, len - start);
+            for (int i = 0; i < batch; i++) {
+                long va = in.get(start + i);
+                values[i] = va;
+                slots[i] = hash(va) & mask;
+            }
+            // independent loads, CPU may overlap their cache misses
+            for (int i = 0; i < batch; i++) {
+                firsts[i] = ohm.getLong(slots[i] * SLOT_LENGTH);
+            }
+            for (int i = 0; i < batch; i++) {
+                long va = values[i];
+                long first = firsts[i];
+                boolean found;
+                if (va == emptyValue || first == emptyValue) {
+                    found = false;
+                } else if (first == va) {
+                    found = true;
+                } else {
+                    found = probe(va, (slots[i] + 1) & mask);
+                }
+                out.set(start + i, found);
+                if (found) count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes value from this set
+     *
+     * @param value value to remove
+     * @return {@code true} if value was removed, {@code false} if it was not present
+     */
+    public boolean remove(long value) {
+        if (value == emptyValue) return false;
+        for (long slot = hash(value) & mask; ; slot = (slot + 1) & mask) {
+            long va = ohm.getLong(slot * SLOT_LENGTH);
+            if (va == value) {
+                shiftBack(slot);
+                size -= 1;
+                return true;
+            }
+            if (va == emptyValue) return false;
+        }
+    }
+
+    /**
+     * Returns cursor over the values of this set, order of values is undefined.
+     * Set must not be modified while cursor is used.
+     *
+     * @return cursor over the values
+     */
+    public OffHeapLongCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Removes all values, allocated memory is reused
+     */
+    public void clear() {
+        fillEmpty(ohm, capacity);
+        size = 0;
+    }
+
+    /**
+     * Returns number of values in this set
+     *
+     * @return number of values in this set
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns number of slots in the underlying table
+     *
+     * @return number of slots in the underlying table
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns reserved value used to mark empty slots
+     *
+     * @return empty value
+     */
+    public long emptyValue() {
+        return emptyValue;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        ohm.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapLongHashSet");
+        sb.append("{size=").append(size);
+        sb.append(", capacity=").append(capacity);
+        sb.append(", loadFactor=").append(loadFactor);
+        sb.append(", emptyValue=").append(emptyValue);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private boolean probe(long value, long startSlot) {
+        for (long slot = startSlot; ; slot = (slot + 1) & mask) {
+            long va = ohm.getLong(slot * SLOT_LENGTH);
+            if (va == value) return true;
+            if (va == emptyValue) return false;
+        }
+    }
+
+    // backward shift deletion: moves following values of the cluster into the freed slot
+    // if their ideal slot is not between the freed slot and their current position
+    private void shiftBack(long slot) {
+        long free = slot;
+        for (long next = (slot + 1) & mask; ; next = (next + 1) & mask) {
+            long va = ohm.getLong(next * SLOT_LENGTH);
+            if (va == emptyValue) break;
+            long ideal = hash(va) & mask;
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                ohm.putLong(free * SLOT_LENGTH, va);
+                free = next;
+            }
+        }
+        ohm.putLong(free * SLOT_LENGTH, emptyValue);
+    }
+
+    private void resize(long newCapacity) {
+        OffHeapMemory old = ohm;
+        long oldCapacity = capacity;
+        allocate(newCapacity);
+        for (long off = 0, end = oldCapacity * SLOT_LENGTH; off < end; off += SLOT_LENGTH) {
+            long va = old.getLong(off);
+            if (va == emptyValue) continue;
+            long slot = hash(va) & mask;
+            while (ohm.getLong(slot * SLOT_LENGTH) != emptyValue) {
+                slot = (slot + 1) & mask;
+            }
+            ohm.putLong(slot * SLOT_LENGTH, va);
+        }
+        old.free();
+    }
+
+    private void allocate(long cap) {
+        this.ohm = OffHeapMemory.allocateMemory(cap * SLOT_LENGTH);
+        this.capacity = cap;
+        this.mask = cap - 1;
+        this.maxSize = Math.min(cap - 1, (long) (cap * (double) loadFactor));
+        fillEmpty(ohm, cap);
+    }
+
+    private void fillEmpty(OffHeapMemory mem, long cap) {
+        for (long off = 0, end = cap * SLOT_LENGTH; off < end; off += SLOT_LENGTH) {
+            mem.putLong(off, emptyValue);
+        }
+    }
+
+    private static long capacityFor(long expectedSize, float loadFactor) {
+        long min = (long) Math.ceil(expectedSize / (double) loadFactor) + 1;
+        long cap = Long.highestOneBit(min);
+        if (cap < min) cap <<= 1;
+        return Math.max(MIN_CAPACITY, cap);
+    }
+
+    // murmur3 finalizer, spreads sequential values over the table
+    private static long hash(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private class Cursor implements OffHeapLongCursor {
+        private long slot = -1;
+
+        private Cursor() {
+            advance();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return slot < capacity;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long nextLong() {
+            if (slot >= capacity) throw new IllegalStateException(
+                    "Cursor is exhausted, set size: [" + size + "]");
+            long res = ohm.getLong(slot * SLOT_LENGTH);
+            advance();
+            return res;
+        }
+
+        private void advance() {
+            slot += 1;
+            while (slot < capacity && ohm.getLong(slot * SLOT_LENGTH) == emptyValue) {
+                slot += 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Binary min-heap (priority queue) of longs using {@link OffHeapLongArrayList} as storage.
+ * Head of the heap is the smallest value in natural order or in order of provided {@link OffHeapLongComparator}.
+ *
+ * <p>Heap bounded to {@code k} elements with {@link #replaceTop(long)} is used by {@link #topK(OffHeapLongAddressable, long)}
+ * to select {@code k} largest values in single pass in {@code O(n log k)} without sorting the whole input.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapLongHeap}
+ * will be garbage collected. Heap is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongHeap implements OffHeapDisposable {
+    private final OffHeapLongArrayList data;
+    private final OffHeapLongComparator comparator;
+    private long size;
+
+    /**
+     * Constructor for heap in natural order
+     */
+    public OffHeapLongHeap() {
+        this(12, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity initial capacity
+     * @param comparator values comparator, natural order is used if {@code null}
+     */
+    public OffHeapLongHeap(long capacity, OffHeapLongComparator comparator) {
+        if (capacity < 0) throw new IllegalArgumentException("Illegal capacity: [" + capacity + "]");
+        this.data = new OffHeapLongArrayList(capacity);
+        this.comparator = comparator;
+    }
+
+    /**
+     * Selects {@code k} largest values from the input in natural order
+     *
+     * @param a input values
+     * @param k number of values to select
+     * @return selected values sorted in descending order, must be freed by caller
+     */
+    public static OffHeapLongArray topK(OffHeapLongAddressable a, long k) {
+        return topK(a, k, null);
+    }
+
+    /**
+     * Selects {@code k} largest values from the input in order of specified comparator
+     *
+     * @param a input values
+     * @param k number of values to select
+     * @param comparator values comparator, natural order is used if {@code null}
+     * @return selected values sorted in descending order, must be freed by caller
+     */
+    public static OffHeapLongArray topK(OffHeapLongAddressable a, long k, OffHeapLongComparator comparator) {
+        if (k < 0) throw new IllegalArgumentException("Illegal k: [" + k + "]");
+        long len = Math.min(k, a.size());
+        OffHeapLongHeap heap = new OffHeapLongHeap(len, comparator);
+        try {
+            for (long i = 0, size = a.size(); i < size; i++) {
+                long va = a.get(i);
+                if (heap.size < len) {
+                    heap.add(va);
+                } else if (len > 0 && heap.compare(va, heap.data.get(0)) > 0) {
+                    heap.replaceTop(va);
+                }
+            }
+            OffHeapLongArray res = new OffHeapLongArray(len);
+            for (long i = len - 1; i >= 0; i--) {
+                res.set(i, heap.poll());
+            }
+            return res;
+        } finally {
+            heap.free();
+        }
+    }
+
+    /**
+     * Whether unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return data.isUnsafe();
+    }
+
+    /**
+     * Adds value to the heap
+     *
+     * @param value value
+     */
+    public void add(long value) {
+        if (size == data.size()) {
+            data.add(value);
+        }
+        siftUp(size, value);
+        size += 1;
+    }
+
+    /**
+     * Returns the smallest value without removing it
+     *
+     * @return the smallest value
+     * @throws NoSuchElementException if heap is empty
+     */
+    public long peek() {
+        if (0 == size) throw new NoSuchElementException();
+        return data.get(0);
+    }
+
+    /**
+     * Removes the smallest value from the heap
+     *
+     * @return the smallest value
+     * @throws NoSuchElementException if heap is empty
+     */
+    public long poll() {
+        if (0 == size) throw new NoSuchElementException();
+        long res = data.get(0);
+        size -= 1;
+        if (size > 0) siftDown(0, data.get(size));
+        return res;
+    }
+
+    /**
+     * Replaces the smallest value with specified one, is more efficient than {@code poll} followed by {@code add}
+     *
+     * @param value value to add
+     * @return removed smallest value
+     * @throws NoSuchElementException if heap is empty
+     */
+    public long replaceTop(long value) {
+        if (0 == size) throw new NoSuchElementException();
+        long res = data.get(0);
+        siftDown(0, value);
+        return res;
+    }
+
+    /**
+     * Returns number of values in the heap
+     *
+     * @return number of values
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Whether heap is empty
+     *
+     * @return whether heap is empty
+     */
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    /**
+     * Removes all values from the heap, memory stays allocated
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        data.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapLongHeap");
+        sb.append("{size=").append(size);
+        sb.append(", comparator=").append(comparator);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private int compare(long l1, long l2) {
+        if (null != comparator) return comparator.compare(l1, l2);
+        return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+    }
+
+    // moves the hole at pos up until value may be put into it
+    private void siftUp(long pos, long value) {
+        while (pos > 0) {
+            long parent = (pos - 1) >>> 1;
+            long pv = data.get(parent);
+            if (compare(pv, value) <= 0) break;
+            data.set(pos, pv);
+            pos = parent;
+        }
+        data.set(pos, value);
+    }
+
+    // moves the hole at pos down until value may be put into it
+    private void siftDown(long pos, long value) {
+        long half = size >>> 1;
+        while (pos < half) {
+            long child = (pos << 1) + 1;
+            long cv = data.get(child);
+            long right = child + 1;
+            if (right < size) {
+                long rv = data.get(right);
+                if (compare(rv, cv) < 0) {
+                    child = right;
+                    cv = rv;
+                }
+            }
+            if (compare(value, cv) <= 0) break;
+            data.set(pos, cv);
+            pos = child;
+        }
+        data.set(pos, value);
+    }
+}
@@ -0,0 +1,599 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+
+/**
+ * <p>Sorted map with long keys and long values implemented as adaptive radix tree (ART)
+ * using {@link com.alexkasko.unsafe.offheap.OffHeapMemory}. Keys are split into 8 bytes, each tree level
+ * dispatches on one byte using the smallest of the four node layouts that fits its children:
+ * {@code Node4} and {@code Node16} with sorted key bytes, {@code Node48} with 256-byte index
+ * and {@code Node256} with direct children array. Paths without branches are compressed: each node stores
+ * the byte it dispatches on and the common key prefix of its subtree. Values are stored in the children
+ * slots of the nodes on the last level.
+ *
+ * <p>Lookup cost depends on the key length, not on the number of entries, and involves no key comparisons,
+ * so the tree is best suited for dense and clustered keys like timestamps or sequential ids, where nodes
+ * are mostly {@code Node256} and memory usage approaches 8 bytes per entry. Unlike hash map entries are ordered by key,
+ * range and prefix scans are done through primitive {@link OffHeapLongLongProcedure} without autoboxing.
+ * Values may be used as indices of the rows in struct collections.
+ *
+ * <p>Methods that may not find a key return configurable {@code noEntryValue} (by default {@code 0}).
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapLongLongRadixTree}
+ * will be garbage collected. Tree is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongLongRadixTree implements OffHeapDisposable {
+    private static final long NONE = -1;
+    private static final int MIN_CAPACITY_INCREMENT = 4096;
+    private static final int LAST_DEPTH = 7;
+    // node types
+    private static final int NODE4 = 0;
+    private static final int NODE16 = 1;
+    private static final int NODE48 = 2;
+    private static final int NODE256 = 3;
+    private static final int[] CAPACITIES = {4, 16, 48, 256};
+    private static final int[] LENGTHS = {56, 160, 656, 2096};
+    // header: type, depth, children count, key prefix
+    private static final int TYPE_OFFSET = 0;
+    private static final int DEPTH_OFFSET = 1;
+    private static final int COUNT_OFFSET = 2;
+    private static final int PREFIX_OFFSET = 8;
+    private static final int HEADER_LENGTH = 16;
+    // sorted key bytes followed by children for Node4 and Node16
+    private static final int[] CHILDREN_OFFSETS = {24, 32};
+    // 256-byte index of children slots plus one for Node48
+    private static final int NODE48_CHILDREN_OFFSET = HEADER_LENGTH + 256;
+    // 256-bit presence bitmap for Node256
+    private static final int NODE256_CHILDREN_OFFSET = HEADER_LENGTH + 32;
+    // shrink thresholds with hysteresis against grow/shrink on the same key
+    private static final int[] SHRINK_THRESHOLDS = {0, 3, 12, 40};
+
+    private final long noEntryValue;
+    // freed nodes lists, one for each type
+    private final long[] freeLists = {NONE, NONE, NONE, NONE};
+    // removal path, node references and key bytes
+    private final long[] pathRefs = new long[LAST_DEPTH + 1];
+    private final long[] pathNodes = new long[LAST_DEPTH + 1];
+    private OffHeapMemory ohm;
+    private long capacity;
+    private long used;
+    private long root = NONE;
+    private long size;
+
+    /**
+     * Constructor, {@code 0} is used as no entry value
+     */
+    public OffHeapLongLongRadixTree() {
+        this(0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param noEntryValue value to return from methods when key is not found
+     */
+    public OffHeapLongLongRadixTree(long noEntryValue) {
+        this.noEntryValue = noEntryValue;
+        this.ohm = OffHeapMemory.allocateMemory(MIN_CAPACITY_INCREMENT);
+        this.capacity = MIN_CAPACITY_INCREMENT;
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return ohm.isUnsafe();
+    }
+
+    /**
+     * Returns value for the specified key
+     *
+     * @param key key to look for
+     * @return mapped value or {@code noEntryValue} if key is not found
+     */
+    public long get(long key) {
+        long slot = findSlot(key);
+        return NONE != slot ? ohm.getLong(slot) : noEntryValue;
+    }
+
+    /**
+     * Checks whether tree contains the specified key
+     *
+     * @param key key to look for
+     * @return whether key is present
+     */
+    public boolean containsKey(long key) {
+        return NONE != findSlot(key);
+    }
+
+    /**
+     * Puts the specified value for the specified key
+     *
+     * @param key key
+     * @param value value
+     * @return previous value or {@code noEntryValue} if key was not present
+     */
+    public long put(long key, long value) {
+        long ukey = key ^ Long.MIN_VALUE;
+        if (NONE == root) {
+            root = newLeaf(ukey, value);
+            size += 1;
+            return noEntryValue;
+        }
+        long ref = NONE;
+        long node = root;
+        for (;;) {
+            int depth = depth(node);
+            long prefix = prefix(node);
+            long diff = (ukey ^ prefix) & prefixMask(depth);
+            if (0 != diff) {
+                // split compressed path on the first mismatching byte
+                int mismatch = Long.numberOfLeadingZeros(diff) >>> 3;
+                long leaf = newLeaf(ukey, value);
+                long inner = allocate(NODE4, mismatch, ukey);
+                addChild(NONE, inner, keyByte(prefix, mismatch), node);
+                addChild(NONE, inner, keyByte(ukey, mismatch), leaf);
+                setRef(ref, inner);
+                size += 1;
+                return noEntryValue;
+            }
+            int b = keyByte(ukey, depth);
+            long slot = findChild(node, b);
+            if (LAST_DEPTH == depth) {
+                if (NONE != slot) {
+                    long res = ohm.getLong(slot);
+                    ohm.putLong(slot, value);
+                    return res;
+                }
+                addChild(ref, node, b, value);
+                size += 1;
+                return noEntryValue;
+            }
+            if (NONE == slot) {
+                addChild(ref, node, b, newLeaf(ukey, value));
+                size += 1;
+                return noEntryValue;
+            }
+            ref = slot;
+            node = ohm.getLong(slot);
+        }
+    }
+
+    /**
+     * Removes mapping for the specified key
+     *
+     * @param key key to remove
+     * @return removed value or {@code noEntryValue} if key was not present
+     */
+    public long remove(long key) {
+        if (NONE == root) return noEntryValue;
+        long ukey = key ^ Long.MIN_VALUE;
+        long ref = NONE;
+        long node = root;
+        int level = 0;
+        for (;;) {
+            int depth = depth(node);
+            if (0 != ((ukey ^ prefix(node)) & prefixMask(depth))) return noEntryValue;
+            long slot = findChild(node, keyByte(ukey, depth));
+            if (NONE == slot) return noEntryValue;
+            pathRefs[level] = ref;
+            pathNodes[level] = node;
+            if (LAST_DEPTH == depth) break;
+            ref = slot;
+            node = ohm.getLong(slot);
+            level += 1;
+        }
+        long res = ohm.getLong(findChild(node, keyByte(ukey, LAST_DEPTH)));
+        size -= 1;
+        node = removeChild(ref, node, keyByte(ukey, LAST_DEPTH));
+        if (count(node) > 0) return res;
+        // remove empty leaf from its parent
+        release(node);
+        if (0 == level) {
+            root = NONE;
+            return res;
+        }
+        long parent = pathNodes[level - 1];
+        long parentRef = pathRefs[level - 1];
+        parent = removeChild(parentRef, parent, keyByte(ukey, depth(parent)));
+        if (1 == count(parent)) {
+            // inner node with single child is replaced with that child
+            long child = ohm.getLong(childSlot(parent, nextChildByte(parent, 0)));
+            setRef(parentRef, child);
+            release(parent);
+        }
+        return res;
+    }
+
+    /**
+     * Calls the specified procedure for each mapping in ascending keys order
+     *
+     * @param procedure procedure to call
+     */
+    public void forEach(OffHeapLongLongProcedure procedure) {
+        forEachInRange(Long.MIN_VALUE, Long.MAX_VALUE, procedure);
+    }
+
+    /**
+     * Calls the specified procedure for each mapping with the key in the specified range in ascending keys order,
+     * subtrees outside of the range are skipped
+     *
+     * @param fromKey lower bound of the range, inclusive
+     * @param toKey upper bound of the range, inclusive
+     * @param procedure procedure to call
+     */
+    public void forEachInRange(long fromKey, long toKey, OffHeapLongLongProcedure procedure) {
+        if (NONE == root || fromKey > toKey) return;
+        visit(root, fromKey ^ Long.MIN_VALUE, toKey ^ Long.MIN_VALUE, procedure);
+    }
+
+    /**
+     * Calls the specified procedure for each mapping with the key that has the same high bits
+     * as the specified prefix in ascending keys order
+     *
+     * @param prefix key prefix, low bits are ignored
+     * @param prefixBits number of high bits to match, from {@code 0} to {@code 64}
+     * @param procedure procedure to call
+     */
+    public void forEachWithPrefix(long prefix, int prefixBits, OffHeapLongLongProcedure procedure) {
+        if (prefixBits < 0 || prefixBits > 64) throw new IllegalArgumentException(
+                "Illegal prefixBits: [" + prefixBits + "]");
+        if (0 == prefixBits) {
+            forEach(procedure);
+            return;
+        }
+        // sign bit is fixed, so keys with the same high bits form contiguous range
+        long mask = -1L << (64 - prefixBits);
+        forEachInRange(prefix & mask, prefix | ~mask, procedure);
+    }
+
+    /**
+     * Removes all mappings from the tree, memory stays allocated
+     */
+    public void clear() {
+        root = NONE;
+        used = 0;
+        size = 0;
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = NONE;
+        }
+    }
+
+    /**
+     * Returns number of mappings in this tree
+     *
+     * @return number of mappings
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns number of bytes used by tree nodes, including freed nodes available for reuse
+     *
+     * @return number of bytes used by nodes
+     */
+    public long memoryUsed() {
+        return used;
+    }
+
+    /**
+     * Returns no entry value
+     *
+     * @return no entry value
+     */
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        ohm.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapLongLongRadixTree");
+        sb.append("{size=").append(size);
+        sb.append(", memoryUsed=").append(used);
+        sb.append(", capacity=").append(capacity);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    // slot with the value for the specified key or NONE
+    private long findSlot(long key) {
+        if (NONE == root) return NONE;
+        long ukey = key ^ Long.MIN_VALUE;
+        long node = root;
+        for (;;) {
+            int depth = depth(node);
+            if (0 != ((ukey ^ prefix(node)) & prefixMask(depth))) return NONE;
+            long slot = findChild(node, keyByte(ukey, depth));
+            if (NONE == slot || LAST_DEPTH == depth) return slot;
+            node = ohm.getLong(slot);
+        }
+    }
+
+    // keys are compared as unsigned within the tree
+    private void visit(long node, long from, long to, OffHeapLongLongProcedure procedure) {
+        int depth = depth(node);
+        long mask = prefixMask(depth);
+        long prefix = prefix(node) & mask;
+        if (lessUnsigned(prefix | ~mask, from) || lessUnsigned(to, prefix)) return;
+        int shift = (LAST_DEPTH - depth) << 3;
+        for (int b = nextChildByte(node, 0); b >= 0; b = nextChildByte(node, b + 1)) {
+            long slot = childSlot(node, b);
+            if (LAST_DEPTH == depth) {
+                long ukey = prefix | b;
+                if (lessUnsigned(ukey, from)) continue;
+                if (lessUnsigned(to, ukey)) return;
+                procedure.apply(ukey ^ Long.MIN_VALUE, ohm.getLong(slot));
+            } else {
+                long childMin = prefix | ((long) b << shift);
+                if (lessUnsigned(to, childMin)) return;
+                visit(ohm.getLong(slot), from, to, procedure);
+            }
+        }
+    }
+
+    private long newLeaf(long ukey, long value) {
+        long leaf = allocate(NODE4, LAST_DEPTH, ukey);
+        addChild(NONE, leaf, keyByte(ukey, LAST_DEPTH), value);
+        return leaf;
+    }
+
+    // adds child growing the node if necessary, grown node is written into ref
+    private void addChild(long ref, long node, int b, long child) {
+        int type = type(node);
+        int count = count(node);
+        if (count == CAPACITIES[type]) {
+            node = convert(node, type + 1);
+            setRef(ref, node);
+            type += 1;
+        }
+        switch (type) {
+            case NODE4:
+            case NODE16:
+                int pos = 0;
+                while (pos < count && ohm.getUnsignedByte(node + HEADER_LENGTH + pos) < b) pos += 1;
+                long keys = node + HEADER_LENGTH;
+                long children = node + CHILDREN_OFFSETS[type];
+                for (int i = count; i > pos; i--) {
+                    ohm.putByte(keys + i, ohm.getByte(keys + i - 1));
+                    ohm.putLong(children + i * 8, ohm.getLong(children + (i - 1) * 8));
+                }
+                ohm.putByte(keys + pos, (byte) b);
+                ohm.putLong(children + pos * 8, child);
+                break;
+            case NODE48:
+                ohm.putByte(node + HEADER_LENGTH + b, (byte) (count + 1));
+                ohm.putLong(node + NODE48_CHILDREN_OFFSET + count * 8, child);
+                break;
+            default:
+                long word = node + HEADER_LENGTH + (b >>> 6) * 8;
+                ohm.putLong(word, ohm.getLong(word) | (1L << b));
+                ohm.putLong(node + NODE256_CHILDREN_OFFSET + b * 8, child);
+        }
+        setCount(node, count + 1);
+    }
+
+    // removes child shrinking the node if necessary, shrunk node is written into ref and returned
+    private long removeChild(long ref, long node, int b) {
+        int type = type(node);
+        int count = count(node);
+        switch (type) {
+            case NODE4:
+            case NODE16:
+                long keys = node + HEADER_LENGTH;
+                long children = node + CHILDREN_OFFSETS[type];
+                int pos = 0;
+                while (ohm.getUnsignedByte(keys + pos) != b) pos += 1;
+                for (int i = pos + 1; i < count; i++) {
+                    ohm.putByte(keys + i - 1, ohm.getByte(keys + i));
+                    ohm.putLong(children + (i - 1) * 8, ohm.getLong(children + i * 8));
+                }
+                break;
+            case NODE48:
+                long index = node + HEADER_LENGTH;
+                int slot = ohm.getUnsignedByte(index + b) - 1;
+                int last = count - 1;
+                if (slot != last) {
+                    // keep children dense moving the last one into the hole
+                    ohm.putLong(node + NODE48_CHILDREN_OFFSET + slot * 8, ohm.getLong(node + NODE48_CHILDREN_OFFSET + last * 8));
+                    int moved = 0;
+                    while (ohm.getUnsignedByte(index + moved) != last + 1) moved += 1;
+                    ohm.putByte(index + moved, (byte) (slot + 1));
+                }
+                ohm.putByte(index + b, (byte) 0);
+                break;
+            default:
+                long word = node + HEADER_LENGTH + (b >>> 6) * 8;
+                ohm.putLong(word, ohm.getLong(word) & ~(1L << b));
+        }
+        setCount(node, count - 1);
+        if (count - 1 <= SHRINK_THRESHOLDS[type] && type > NODE4) {
+            node = convert(node, type - 1);
+            setRef(ref, node);
+        }
+        return node;
+    }
+
+    // copies node into the new node of specified type, old node is released
+    private long convert(long node, int type) {
+        long res = allocate(type, depth(node), prefix(node));
+        for (int b = nextChildByte(node, 0); b >= 0; b = nextChildByte(node, b + 1)) {
+            addChild(NONE, res, b, ohm.getLong(childSlot(node, b)));
+        }
+        release(node);
+        return res;
+    }
+
+    // slot of the child with specified key byte or NONE
+    private long findChild(long node, int b) {
+        int type = type(node);
+        switch (type) {
+            case NODE4:
+            case NODE16:
+                long keys = node + HEADER_LENGTH;
+                for (int i = 0, count = count(node); i < count; i++) {
+                    int kb = ohm.getUnsignedByte(keys + i);
+                    if (kb == b) return node + CHILDREN_OFFSETS[type] + i * 8;
+                    if (kb > b) return NONE;
+                }
+                return NONE;
+            case NODE48:
+                int slot = ohm.getUnsignedByte(node + HEADER_LENGTH + b);
+                return 0 != slot ? node + NODE48_CHILDREN_OFFSET + (slot - 1) * 8 : NONE;
+            default:
+                long word = ohm.getLong(node + HEADER_LENGTH + (b >>> 6) * 8);
+                return 0 != (word & (1L << b)) ? node + NODE256_CHILDREN_OFFSET + b * 8 : NONE;
+        }
+    }
+
+    // slot of the existing child
+    private long childSlot(long node, int b) {
+        long res = findChild(node, b);
+        assert NONE != res : b;
+        return res;
+    }
+
+    // the smallest key byte of existing child not less than specified one or -1
+    private int nextChildByte(long node, int from) {
+        switch (type(node)) {
+            case NODE4:
+            case NODE16:
+                long keys = node + HEADER_LENGTH;
+                for (int i = 0, count = count(node); i < count; i++) {
+                    int kb = ohm.getUnsignedByte(keys + i);
+                    if (kb >= from) return kb;
+                }
+                return -1;
+            case NODE48:
+                long index = node + HEADER_LENGTH;
+                for (int b = from; b < 256; b++) {
+                    if (0 != ohm.getByte(index + b)) return b;
+                }
+                return -1;
+            default:
+                for (int w = from >>> 6; w < 4; w++) {
+                    long word = ohm.getLong(node + HEADER_LENGTH + w * 8);
+                    if (w == from >>> 6) word &= -1L << (from & 63);
+                    if (0 != word) return (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+                return -1;
+        }
+    }
+
+    private long allocate(int type, int depth, long prefix) {
+        long node = freeLists[type];
+        if (NONE != node) {
+            freeLists[type] = ohm.getLong(node + PREFIX_OFFSET);
+        } else {
+            ensureCapacity(LENGTHS[type]);
+            node = used;
+            used += LENGTHS[type];
+        }
+        ohm.putByte(node + TYPE_OFFSET, (byte) type);
+        ohm.putByte(node + DEPTH_OFFSET, (byte) depth);
+        setCount(node, 0);
+        ohm.putLong(node + PREFIX_OFFSET, prefix);
+        if (NODE48 == type) {
+            for (int i = 0; i < 256; i += 8) {
+                ohm.putLong(node + HEADER_LENGTH + i, 0);
+            }
+        } else if (NODE256 == type) {
+            for (int i = 0; i < 32; i += 8) {
+                ohm.putLong(node + HEADER_LENGTH + i, 0);
+            }
+        }
+        return node;
+    }
+
+    private void release(long node) {
+        int type = type(node);
+        ohm.putLong(node + PREFIX_OFFSET, freeLists[type]);
+        freeLists[type] = node;
+    }
+
+    private void ensureCapacity(int length) {
+        long needed = used + length;
+        if (needed <= capacity) return;
+        long cap = Math.max(needed, capacity + Math.max(MIN_CAPACITY_INCREMENT, capacity >> 1));
+        OffHeapMemory newOhm = OffHeapMemory.allocateMemory(cap);
+        // maybe it's better to use Unsafe#reallocateMemory here
+        if (used > 0) ohm.copy(0, newOhm, 0, used);
+        ohm.free();
+        ohm = newOhm;
+        capacity = cap;
+    }
+
+    private void setRef(long ref, long node) {
+        if (NONE == ref) root = node;
+        else ohm.putLong(ref, node);
+    }
+
+    private int type(long node) {
+        return ohm.getByte(node + TYPE_OFFSET);
+    }
+
+    private int depth(long node) {
+        return ohm.getByte(node + DEPTH_OFFSET);
+    }
+
+    private int count(long node) {
+        return ohm.getUnsignedShort(node + COUNT_OFFSET);
+    }
+
+    private void setCount(long node, int count) {
+        ohm.putShort(node + COUNT_OFFSET, (short) count);
+    }
+
+    private long prefix(long node) {
+        return ohm.getLong(node + PREFIX_OFFSET);
+    }
+
+    // mask of the key bytes preceding the specified depth
+    private static long prefixMask(int depth) {
+        return 0 == depth ? 0 : -1L << ((8 - depth) << 3);
+    }
+
+    private static int keyByte(long ukey, int depth) {
+        return (int) (ukey >>> ((LAST_DEPTH - depth) << 3)) & 0xff;
+    }
+
+    private static boolean lessUnsigned(long a, long b) {
+        return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+    }
+}
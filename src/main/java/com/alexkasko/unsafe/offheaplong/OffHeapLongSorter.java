@@ -98,6 +98,120 @@ public class OffHeapLongSorter {
         doSortWithComparator(a, fromIndex, toIndex - 1, new LongComp(comp));
     }
 
+    /**
+     * Rearranges the off-heap collection so that the element on index {@code k} is the element that would be
+     * there if the collection were sorted, all preceding elements are less or equal to it and all following elements
+     * are greater or equal to it. Uses dual-pivot partitioning descending only into the part containing {@code k},
+     * falls back to sorting the remaining range if partitioning doesn't converge (introselect).
+     * Runs in linear time on average, may be used for medians and percentiles.
+     *
+     * @param a the off-heap collection
+     * @param k index of the element to select
+     * @return selected element
+     * @throws IllegalArgumentException {@code if (k < 0 || k >= a.size())}
+     */
+    public static long select(OffHeapLongAddressable a, long k) {
+        if (k < 0 || k >= a.size()) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + a.size() + "], k: [" + k + "]");
+        }
+        doSelect(a, 0, a.size() - 1, k);
+        return a.get(k);
+    }
+
+    /**
+     * Rearranges the off-heap collection so that the range extending from the index {@code fromIndex}, inclusive,
+     * of length {@code k} contains the elements that would be there if the collection were sorted, in ascending order.
+     * Elements before the range are less or equal and elements after the range are greater or equal
+     * to the elements of the range, but are not sorted.
+     *
+     * @param a the off-heap collection
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param k number of elements to be sorted
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || k < 0 || fromIndex + k > a.size())}
+     */
+    public static void partialSort(OffHeapLongAddressable a, long fromIndex, long k) {
+        if (fromIndex < 0 || k < 0 || fromIndex > a.size() - k) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + a.size() + "], " +
+                    "fromIndex: [" + fromIndex + "], k: [" + k + "]");
+        }
+        if (0 == k) return;
+        long right = a.size() - 1;
+        long last = fromIndex + k - 1;
+        if (fromIndex > 0) doSelect(a, 0, right, fromIndex);
+        doSelect(a, fromIndex, right, last);
+        doSort(a, fromIndex, last);
+    }
+
+    /**
+     * Selects {@code k}-th element in the specified range of the off-heap collection.
+     * The {@code right} index is inclusive, no range checking is done.
+     *
+     * @param a the off-heap collection
+     * @param left the index of the first element, inclusive
+     * @param right the index of the last element, inclusive
+     * @param k index of the element to select, must be within range
+     */
+    private static void doSelect(OffHeapLongAddressable a, long left, long right, long k) {
+        // introselect: limit partitioning steps, sort the rest on bad pivots
+        int depth = 2 * (64 - Long.numberOfLeadingZeros(right - left + 1));
+        while (right - left + 1 >= INSERTION_SORT_THRESHOLD && depth-- > 0) {
+            // Pivots are the second and fourth of the five evenly spaced elements, as in sort
+            long sixth = (right - left + 1) / 6;
+            long e3 = (left + right) >>> 1;
+            long ae1 = a.get(left + sixth), ae2 = a.get(e3 - sixth), ae3 = a.get(e3),
+                    ae4 = a.get(e3 + sixth), ae5 = a.get(right - sixth);
+
+            if (ae1 > ae2) { long t = ae1; ae1 = ae2; ae2 = t; }
+            if (ae4 > ae5) { long t = ae4; ae4 = ae5; ae5 = t; }
+            if (ae1 > ae3) { long t = ae1; ae1 = ae3; ae3 = t; }
+            if (ae2 > ae3) { long t = ae2; ae2 = ae3; ae3 = t; }
+            if (ae1 > ae4) { long t = ae1; ae1 = ae4; ae4 = t; }
+            if (ae3 > ae4) { long t = ae3; ae3 = ae4; ae4 = t; }
+            if (ae2 > ae5) { long t = ae2; ae2 = ae5; ae5 = t; }
+            if (ae2 > ae3) { long t = ae2; ae2 = ae3; ae3 = t; }
+            if (ae4 > ae5) { long t = ae4; ae4 = ae5; ae5 = t; }
+
+            long pivot1 = ae2;
+            long pivot2 = ae4;
+
+            /*
+             *   left part         center part                   right part
+             * +---------------------------------------------------------+
+             * | < pivot1  |  pivot1 <= && <= pivot2  |    ?   | > pivot2 |
+             * +---------------------------------------------------------+
+             *             ^                          ^      ^
+             *            less                        i    great
+             */
+            long less = left;
+            long great = right;
+            for (long i = left; i <= great; ) {
+                long ai = a.get(i);
+                if (ai < pivot1) {
+                    a.set(i++, a.get(less));
+                    a.set(less++, ai);
+                } else if (ai > pivot2) {
+                    a.set(i, a.get(great));
+                    a.set(great--, ai);
+                } else {
+                    i++;
+                }
+            }
+
+            if (k < less) {
+                right = less - 1;
+            } else if (k > great) {
+                left = great + 1;
+            } else if (pivot1 == pivot2) {
+                // center part consists of equal elements
+                return;
+            } else {
+                left = less;
+                right = great;
+            }
+        }
+        doSort(a, left, right);
+    }
+
     /**
      * Sorts the specified range of the off-heap collection into ascending order. This
      * method differs from the public {@code sort} method in that the
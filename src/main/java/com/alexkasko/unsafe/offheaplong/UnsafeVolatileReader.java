@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * Internal helper for volatile reads from unsafe implementation of {@link OffHeapMemory},
+ * used by optimistic (seqlock) readers of {@link OffHeapConcurrentLongLongHashMap}.
+ * Volatile access is intentionally not a part of {@link OffHeapMemory} API, because other implementations
+ * cannot support it.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+final class UnsafeVolatileReader {
+    private static final Unsafe UNSAFE;
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        Unsafe unsafe = null;
+        long addressOffset = -1;
+        try {
+            Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = (Unsafe) theUnsafe.get(null);
+            Class<?> memoryClass = Class.forName("com.alexkasko.unsafe.offheap.UnsafeOffHeapMemory");
+            addressOffset = unsafe.objectFieldOffset(memoryClass.getDeclaredField("address"));
+        } catch (Throwable e) {
+            // optimistic reads are disabled
+            unsafe = null;
+        }
+        UNSAFE = unsafe;
+        ADDRESS_OFFSET = addressOffset;
+    }
+
+    private UnsafeVolatileReader() {
+    }
+
+    /**
+     * Whether volatile reads are supported for the specified memory
+     *
+     * @param mem memory area
+     * @return whether volatile reads are supported
+     */
+    static boolean isSupported(OffHeapMemory mem) {
+        return null != UNSAFE && mem.isUnsafe();
+    }
+
+    /**
+     * Gets eight bytes from memory area as long with volatile read semantics,
+     * read is not reordered with subsequent memory reads
+     *
+     * @param mem unsafe memory area
+     * @param offset memory area offset, must be multiple of 8
+     * @return long value
+     */
+    static long getLongVolatile(OffHeapMemory mem, long offset) {
+        assert isSupported(mem) : mem;
+        assert offset >= 0 : offset;
+        assert offset <= mem.length() - 8 : offset;
+        long address = UNSAFE.getLong(mem, ADDRESS_OFFSET);
+        assert 0 == ((address + offset) & 7) : offset;
+        return UNSAFE.getLongVolatile(null, address + offset);
+    }
+}
@@ -32,18 +32,39 @@
  * <h2>Iterators</h2>
  * <p>Both collections implements {@link java.util.Iterable}, but {@code foreach} must be used with caution, because
  * in java 6/7 iterators causes new autoboxed {@link java.lang.Long} object creation for each call to
- * {@link java.util.Iterator#next()}.
+ * {@link java.util.Iterator#next()}. Primitive {@link com.alexkasko.unsafe.offheaplong.OffHeapLongCursor} and internal iteration
+ * using {@code forEachLong} methods (not clashing with {@code Iterable.forEach} of java 8) with
+ * {@link com.alexkasko.unsafe.offheaplong.OffHeapLongProcedure} (both also for index ranges) read values
+ * directly from off-heap memory without autoboxing.
  *
  * <h2>Operations</h2>
  * <ul>
  *     <li>sorting using {@link com.alexkasko.unsafe.offheaplong.OffHeapLongSorter}: implementation of Dual-Pivot quicksort algorithm
  *      adapted to off-heap collections</li>
  *     <li>sorting with order defined by {@code com.alexkasko.unsafe.offheaplong.OffHeapLongComparator}</li>
+ *     <li>selection of the element with specified rank (median, percentiles) and partial sorting in linear time on average:
+ *     {@link com.alexkasko.unsafe.offheaplong.OffHeapLongSorter#select(com.alexkasko.unsafe.offheaplong.OffHeapLongAddressable, long)}</li>
  *     <li>binary search over sorted collections using {@link com.alexkasko.unsafe.offheaplong.OffHeapLongBinarySearch}</li>
  *     <li>binary search returning ranges of equal values:
  *     {@link com.alexkasko.unsafe.offheaplong.OffHeapLongBinarySearch#binarySearchRange(com.alexkasko.unsafe.offheap.OffHeapAddressable, long, com.alexkasko.unsafe.offheaplong.OffHeapLongBinarySearch.IndexRange)}</li>
+ *     <li>priority queue {@link com.alexkasko.unsafe.offheaplong.OffHeapLongHeap} and selection of {@code k} largest values
+ *     in single pass without sorting: {@link com.alexkasko.unsafe.offheaplong.OffHeapLongHeap#topK(com.alexkasko.unsafe.offheaplong.OffHeapLongAddressable, long)}</li>
  * </ul>
  *
+ * <h2>Hash map and hash set</h2>
+ * <p>{@link com.alexkasko.unsafe.offheaplong.OffHeapLongLongHashMap} - open addressing long-to-long hash map with
+ * linear probing that uses 16 bytes per slot, iteration is done through primitive
+ * {@link com.alexkasko.unsafe.offheaplong.OffHeapLongLongProcedure} without autoboxing.
+ * {@link com.alexkasko.unsafe.offheaplong.OffHeapLongHashSet} - open addressing hash set of longs with
+ * batch membership check and primitive {@link com.alexkasko.unsafe.offheaplong.OffHeapLongCursor}.
+ * {@link com.alexkasko.unsafe.offheaplong.OffHeapConcurrentLongLongHashMap} - thread-safe long-to-long hash map
+ * split into segments with separate read-write locks
+ *
+ * <h2>Radix tree</h2>
+ * <p>{@link com.alexkasko.unsafe.offheaplong.OffHeapLongLongRadixTree} - adaptive radix tree mapping long keys
+ * to long values, lookups don't compare keys and are fast for dense and clustered keys (timestamps, sequential ids),
+ * entries are ordered by key and may be scanned by range or key prefix
+ *
  * <h2>Long packing</h2>
  * <p>{@link com.alexkasko.unsafe.offheaplong.LongPacker} - utility class for storing one int primitive and one long with bounded value into one long
  *
@@ -53,6 +74,11 @@
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheaplong/OffHeapLongArrayListTest.java">array list</a></li>
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheaplong/OffHeapLongSorterTest.java">sorting</a></li>
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheaplong/OffHeapLongBinarySearchTest.java">binary search</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheaplong/OffHeapLongLongHashMapTest.java">hash map</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheaplong/OffHeapLongHashSetTest.java">hash set</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheaplong/OffHeapConcurrentLongLongHashMapTest.java">concurrent hash map</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheaplong/OffHeapLongHeapTest.java">heap and top-K</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheaplong/OffHeapLongLongRadixTreeTest.java">radix tree</a></li>
  * </ul>
  *
  */
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapqueue;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+import com.alexkasko.unsafe.offheapstruct.OffHeapStructArrayList;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Bounded lock-free multi-producer multi-consumer queue of fixed-size records ("structs")
+ * using {@link com.alexkasko.unsafe.offheap.OffHeapMemory} as a ring of {@code capacity} slots.
+ * Each slot has a sequence number that tells whether it is ready for writing or for reading
+ * in the current lap. Producers and consumers claim positions with CAS on padded sequences and
+ * publish slots with ordered stores of slot sequence numbers, so any number of threads may
+ * offer and poll records concurrently.
+ *
+ * <p>Slot sequence numbers are kept in {@link AtomicLongArray} allocated once in constructor,
+ * records data is kept off-heap, offer and poll operations don't allocate.
+ * Consumers may drain ready records in batches claiming the whole batch with single CAS
+ * using {@link #drainTo(com.alexkasko.unsafe.offheapstruct.OffHeapStructArrayList, byte[], int)}.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapMpmcRingBuffer}
+ * will be garbage collected.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapMpmcRingBuffer implements OffHeapDisposable {
+    private final OffHeapMemory ohm;
+    private final int structLength;
+    private final long capacity;
+    private final int mask;
+    // slot i is ready for writing on lap when sequence == position, ready for reading when sequence == position + 1
+    private final AtomicLongArray sequences;
+    // next position to consume
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+    // next position to publish
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+
+    /**
+     * Constructor
+     *
+     * @param capacity number of slots, will be rounded up to the power of two
+     * @param structLength length of the record in bytes
+     */
+    public OffHeapMpmcRingBuffer(int capacity, int structLength) {
+        if (capacity <= 0 || capacity > 1 << 30) throw new IllegalArgumentException("Illegal capacity: [" + capacity + "]");
+        if (structLength <= 0) throw new IllegalArgumentException("Illegal structLength: [" + structLength + "]");
+        int cap = Integer.highestOneBit(capacity);
+        if (cap < capacity) cap <<= 1;
+        this.capacity = cap;
+        this.mask = cap - 1;
+        this.structLength = structLength;
+        this.sequences = new AtomicLongArray(cap);
+        for (int i = 0; i < cap; i++) {
+            sequences.set(i, i);
+        }
+        this.ohm = OffHeapMemory.allocateMemory(((long) cap) * structLength);
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return ohm.isUnsafe();
+    }
+
+    /**
+     * Copies record into the queue, may be called from any thread
+     *
+     * @param struct record with length not less than {@code structLength}
+     * @return {@code true} if record was added, {@code false} if queue is full
+     */
+    public boolean offer(byte[] struct) {
+        return offer(struct, 0);
+    }
+
+    /**
+     * Copies record from the specified buffer position into the queue, may be called from any thread
+     *
+     * @param buffer buffer containing the record
+     * @param pos record start position in buffer
+     * @return {@code true} if record was added, {@code false} if queue is full
+     */
+    public boolean offer(byte[] buffer, int pos) {
+        for (;;) {
+            long position = tail.get();
+            int idx = (int) position & mask;
+            long diff = sequences.get(idx) - position;
+            if (0 == diff) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    ohm.put(((long) idx) * structLength, buffer, pos, structLength);
+                    // ordered store, record is visible before the sequence
+                    sequences.lazySet(idx, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // slot is not consumed yet on the previous lap
+                return false;
+            }
+            // otherwise other producer took this position, retry
+        }
+    }
+
+    /**
+     * Copies next record from the queue into provided buffer, may be called from any thread
+     *
+     * @param buffer buffer with length not less than {@code structLength}
+     * @return {@code true} if record was read, {@code false} if queue is empty
+     */
+    public boolean poll(byte[] buffer) {
+        for (;;) {
+            long position = head.get();
+            int idx = (int) position & mask;
+            long diff = sequences.get(idx) - (position + 1);
+            if (0 == diff) {
+                if (head.compareAndSet(position, position + 1)) {
+                    ohm.get(((long) idx) * structLength, buffer, 0, structLength);
+                    sequences.lazySet(idx, position + capacity);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // slot is not published yet
+                return false;
+            }
+            // otherwise other consumer took this position, retry
+        }
+    }
+
+    /**
+     * Moves up to {@code maxCount} ready records from the queue into the end of specified list,
+     * the whole batch is claimed with single CAS. May be called from any thread.
+     *
+     * @param dest list to add records to, must have the same {@code structLength}
+     * @param buffer buffer with length not less than {@code structLength} used for copying
+     * @param maxCount maximum number of records to move
+     * @return number of records moved
+     */
+    public int drainTo(OffHeapStructArrayList dest, byte[] buffer, int maxCount) {
+        if (dest.structLength() != structLength) throw new IllegalArgumentException(
+                "Illegal input, dest structLength: [" + dest.structLength() + "], structLength: [" + structLength + "]");
+        for (;;) {
+            long position = head.get();
+            int count = 0;
+            while (count < maxCount && sequences.get((int) (position + count) & mask) == position + count + 1) {
+                count += 1;
+            }
+            if (0 == count) {
+                if (head.get() == position) return 0;
+                continue;
+            }
+            if (head.compareAndSet(position, position + count)) {
+                for (int i = 0; i < count; i++) {
+                    long pos = position + i;
+                    int idx = (int) pos & mask;
+                    ohm.get(((long) idx) * structLength, buffer, 0, structLength);
+                    sequences.lazySet(idx, pos + capacity);
+                    dest.add(buffer);
+                }
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Returns approximate number of records in the queue, may be called from any thread
+     *
+     * @return number of records
+     */
+    public long size() {
+        long res = tail.get() - head.get();
+        return Math.max(0, Math.min(res, capacity));
+    }
+
+    /**
+     * Returns number of slots
+     *
+     * @return number of slots
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns length of the record in bytes
+     *
+     * @return length of the record in bytes
+     */
+    public int structLength() {
+        return structLength;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        ohm.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapMpmcRingBuffer");
+        sb.append("{capacity=").append(capacity);
+        sb.append(", structLength=").append(structLength);
+        sb.append(", size=").append(size());
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapqueue;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+
+/**
+ * <p>Bounded lock-free single-producer single-consumer queue of fixed-size records ("structs")
+ * using {@link com.alexkasko.unsafe.offheap.OffHeapMemory} as a ring of {@code capacity} slots.
+ * Producer and consumer positions are published with ordered (lazy) stores into sequences
+ * padded against false sharing, so hand-off doesn't allocate and doesn't use locks. Cached positions
+ * owned by producer and consumer are also kept in separate padded groups of fields.
+ *
+ * <p>Records may be copied from and into byte arrays one by one or in batches. Producer may also
+ * write record in place: {@link #claim()} the slot, fill it using {@code put*} methods and {@link #commit()} it.
+ * Consumer may read record in place: {@link #peek()} the slot, read it using {@code get*} methods
+ * and {@link #release()} it. Longs may be passed as 8-byte records using {@link #putLong(long, int, long)}
+ * and {@link #getLong(long, int)}.
+ *
+ * <p>Methods {@code offer}, {@code claim}, {@code commit} and {@code put*} must be called from the single producer thread,
+ * methods {@code poll}, {@code peek}, {@code release} and {@code get*} - from the single consumer thread.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapSpscRingBuffer}
+ * will be garbage collected.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapSpscRingBuffer extends SpscConsumerPadding implements OffHeapDisposable {
+    private final OffHeapMemory ohm;
+    private final int structLength;
+    private final long capacity;
+    private final long mask;
+    // next sequence to consume, written by consumer
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+    // next sequence to publish, written by producer
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+
+    /**
+     * Constructor
+     *
+     * @param capacity number of slots, will be rounded up to the power of two
+     * @param structLength length of the record in bytes
+     */
+    public OffHeapSpscRingBuffer(long capacity, int structLength) {
+        if (capacity <= 0) throw new IllegalArgumentException("Illegal capacity: [" + capacity + "]");
+        if (structLength <= 0) throw new IllegalArgumentException("Illegal structLength: [" + structLength + "]");
+        long cap = Long.highestOneBit(capacity);
+        if (cap < capacity) cap <<= 1;
+        this.capacity = cap;
+        this.mask = cap - 1;
+        this.structLength = structLength;
+        this.ohm = OffHeapMemory.allocateMemory(cap * structLength);
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return ohm.isUnsafe();
+    }
+
+    /**
+     * Copies record into the queue, producer method
+     *
+     * @param struct record with length not less than {@code structLength}
+     * @return {@code true} if record was added, {@code false} if queue is full
+     */
+    public boolean offer(byte[] struct) {
+        long seq = claim();
+        if (seq < 0) return false;
+        ohm.put(offset(seq), struct, 0, structLength);
+        commit();
+        return true;
+    }
+
+    /**
+     * Copies records stored one after another in the buffer into the queue, producer method
+     *
+     * @param buffer buffer containing records
+     * @param count number of records in buffer
+     * @return number of records added, may be less than {@code count} if queue is full
+     */
+    public int offer(byte[] buffer, int count) {
+        assert count >= 0 && count <= buffer.length / structLength : count;
+        long free = capacity - (claimed - headCache);
+        if (free < count) {
+            headCache = head.get();
+            free = capacity - (claimed - headCache);
+        }
+        int res = (int) Math.min(count, free);
+        for (int i = 0; i < res; i++) {
+            ohm.put(offset(claimed + i), buffer, i * structLength, structLength);
+        }
+        claimed += res;
+        if (res > 0) commit();
+        return res;
+    }
+
+    /**
+     * Claims next slot for in place writing, producer method. Claimed slots become visible
+     * to consumer only after {@link #commit()} call.
+     *
+     * @return slot sequence or {@code -1} if queue is full
+     */
+    public long claim() {
+        long seq = claimed;
+        if (seq - headCache >= capacity) {
+            headCache = head.get();
+            if (seq - headCache >= capacity) return -1;
+        }
+        claimed = seq + 1;
+        return seq;
+    }
+
+    /**
+     * Publishes all claimed slots to consumer, producer method
+     */
+    public void commit() {
+        // ordered store, slot writes are visible before the sequence
+        tail.lazySet(claimed);
+    }
+
+    /**
+     * Copies record into the claimed slot
+     *
+     * @param sequence claimed slot sequence
+     * @param struct record with length not less than {@code structLength}
+     */
+    public void put(long sequence, byte[] struct) {
+        ohm.put(offset(sequence), struct, 0, structLength);
+    }
+
+    /**
+     * Writes int into the claimed slot with specified offset
+     *
+     * @param sequence claimed slot sequence
+     * @param offset field offset within record bounds
+     * @param value field value
+     */
+    public void putInt(long sequence, int offset, int value) {
+        assert offset >= 0 && offset <= structLength - 4 : offset;
+        ohm.putInt(offset(sequence) + offset, value);
+    }
+
+    /**
+     * Writes long into the claimed slot with specified offset
+     *
+     * @param sequence claimed slot sequence
+     * @param offset field offset within record bounds
+     * @param value field value
+     */
+    public void putLong(long sequence, int offset, long value) {
+        assert offset >= 0 && offset <= structLength - 8 : offset;
+        ohm.putLong(offset(sequence) + offset, value);
+    }
+
+    /**
+     * Copies next record from the queue into provided buffer, consumer method
+     *
+     * @param buffer buffer with length not less than {@code structLength}
+     * @return {@code true} if record was read, {@code false} if queue is empty
+     */
+    public boolean poll(byte[] buffer) {
+        long seq = peek();
+        if (seq < 0) return false;
+        ohm.get(offset(seq), buffer, 0, structLength);
+        release();
+        return true;
+    }
+
+    /**
+     * Copies available records from the queue one after another into provided buffer, consumer method
+     *
+     * @param buffer buffer for records
+     * @param maxCount maximum number of records to read
+     * @return number of records read
+     */
+    public int poll(byte[] buffer, int maxCount) {
+        assert maxCount >= 0 && maxCount <= buffer.length / structLength : maxCount;
+        long available = tailCache - consumed;
+        if (available < maxCount) {
+            tailCache = tail.get();
+            available = tailCache - consumed;
+        }
+        int res = (int) Math.min(maxCount, available);
+        for (int i = 0; i < res; i++) {
+            ohm.get(offset(consumed + i), buffer, i * structLength, structLength);
+        }
+        if (res > 0) {
+            consumed += res;
+            head.lazySet(consumed);
+        }
+        return res;
+    }
+
+    /**
+     * Returns sequence of the next available record for in place reading, consumer method.
+     * Slot remains in the queue until {@link #release()} call.
+     *
+     * @return slot sequence or {@code -1} if queue is empty
+     */
+    public long peek() {
+        long seq = consumed;
+        if (seq >= tailCache) {
+            tailCache = tail.get();
+            if (seq >= tailCache) return -1;
+        }
+        return seq;
+    }
+
+    /**
+     * Returns the record obtained with {@link #peek()} to producer, consumer method
+     */
+    public void release() {
+        assert consumed < tailCache : consumed;
+        consumed += 1;
+        head.lazySet(consumed);
+    }
+
+    /**
+     * Copies record from the peeked slot into provided buffer
+     *
+     * @param sequence peeked slot sequence
+     * @param buffer buffer with length not less than {@code structLength}
+     */
+    public void get(long sequence, byte[] buffer) {
+        ohm.get(offset(sequence), buffer, 0, structLength);
+    }
+
+    /**
+     * Reads int from the peeked slot with specified offset
+     *
+     * @param sequence peeked slot sequence
+     * @param offset field offset within record bounds
+     * @return field value
+     */
+    public int getInt(long sequence, int offset) {
+        assert offset >= 0 && offset <= structLength - 4 : offset;
+        return ohm.getInt(offset(sequence) + offset);
+    }
+
+    /**
+     * Reads long from the peeked slot with specified offset
+     *
+     * @param sequence peeked slot sequence
+     * @param offset field offset within record bounds
+     * @return field value
+     */
+    public long getLong(long sequence, int offset) {
+        assert offset >= 0 && offset <= structLength - 8 : offset;
+        return ohm.getLong(offset(sequence) + offset);
+    }
+
+    /**
+     * Returns approximate number of records in the queue, may be called from any thread
+     *
+     * @return number of records
+     */
+    public long size() {
+        return tail.get() - head.get();
+    }
+
+    /**
+     * Returns number of slots
+     *
+     * @return number of slots
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns length of the record in bytes
+     *
+     * @return length of the record in bytes
+     */
+    public int structLength() {
+        return structLength;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        ohm.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapSpscRingBuffer");
+        sb.append("{capacity=").append(capacity);
+        sb.append(", structLength=").append(structLength);
+        sb.append(", size=").append(size());
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private long offset(long sequence) {
+        return (sequence & mask) * structLength;
+    }
+}
+
+/**
+ * Padding before producer state
+ */
+abstract class SpscHeadPadding {
+    // is not used
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+/**
+ * Producer state, written only by producer thread
+ */
+abstract class SpscProducerFields extends SpscHeadPadding {
+    long claimed;
+    long headCache;
+}
+
+/**
+ * Padding between producer and consumer state
+ */
+abstract class SpscProducerPadding extends SpscProducerFields {
+    // is not used
+    long p11, p12, p13, p14, p15, p16, p17;
+}
+
+/**
+ * Consumer state, written only by consumer thread
+ */
+abstract class SpscConsumerFields extends SpscProducerPadding {
+    long consumed;
+    long tailCache;
+}
+
+/**
+ * Padding after consumer state, separates it from read-only fields of the queue
+ */
+abstract class SpscConsumerPadding extends SpscConsumerFields {
+    // is not used
+    long p21, p22, p23, p24, p25, p26, p27;
+}
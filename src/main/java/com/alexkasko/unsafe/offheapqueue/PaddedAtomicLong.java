@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapqueue;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Atomic long sequence padded with unused fields before and after the value, so sequences updated
+ * by different threads don't share the same cache line with each other or with neighbour objects (false sharing).
+ * Superclass fields are laid out before subclass fields, so padding is split between the class hierarchy.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+class PaddedAtomicLong extends PaddedAtomicLongValue {
+    private static final AtomicLongFieldUpdater<PaddedAtomicLongValue> UPDATER =
+            AtomicLongFieldUpdater.newUpdater(PaddedAtomicLongValue.class, "value");
+
+    // padding after the value, is not used
+    long p11, p12, p13, p14, p15, p16, p17;
+
+    /**
+     * Constructor
+     *
+     * @param initialValue initial value
+     */
+    PaddedAtomicLong(long initialValue) {
+        this.value = initialValue;
+    }
+
+    /**
+     * Returns current value
+     *
+     * @return current value
+     */
+    long get() {
+        return value;
+    }
+
+    /**
+     * Sets value with volatile store
+     *
+     * @param newValue new value
+     */
+    void set(long newValue) {
+        this.value = newValue;
+    }
+
+    /**
+     * Sets value with ordered store, that is not immediately visible to other threads,
+     * but is never reordered with preceding stores
+     *
+     * @param newValue new value
+     */
+    void lazySet(long newValue) {
+        UPDATER.lazySet(this, newValue);
+    }
+
+    /**
+     * Atomically sets the value if the current value is equal to the expected one
+     *
+     * @param expect expected value
+     * @param update new value
+     * @return {@code true} if value was set
+     */
+    boolean compareAndSet(long expect, long update) {
+        return UPDATER.compareAndSet(this, expect, update);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
+
+/**
+ * Padding before the value
+ */
+abstract class PaddedAtomicLongPadding {
+    // is not used
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+/**
+ * Sequence value placed between paddings
+ */
+abstract class PaddedAtomicLongValue extends PaddedAtomicLongPadding {
+    volatile long value;
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <h1>Off-heap queues for passing data between threads</h1>
+ *
+ * <p>This package contains bounded queues of fixed-size records ("structs") implemented on top
+ * of {@link com.alexkasko.unsafe.offheap.OffHeapMemory}. Records are copied into preallocated
+ * ring of slots, so passing data between threads doesn't allocate and doesn't create work for GC.
+ *
+ * <h2>Single producer, single consumer</h2>
+ * <p>{@link com.alexkasko.unsafe.offheapqueue.OffHeapSpscRingBuffer} - lock-free ring buffer,
+ * producer and consumer sequences are published with ordered stores and padded against false sharing.
+ * Supports batch offer and poll, and in place writing and reading through claim/commit and peek/release.
+ *
+ * <h2>Multiple producers and consumers</h2>
+ * <p>{@link com.alexkasko.unsafe.offheapqueue.OffHeapMpmcRingBuffer} - lock-free ring buffer with per-slot
+ * sequence numbers, positions are claimed with CAS, so it may be used with any number of producers
+ * and consumers (e.g. several ingestion threads feeding single aggregator). Ready records may be drained
+ * in batches into {@link com.alexkasko.unsafe.offheapstruct.OffHeapStructArrayList}.
+ *
+ * <h2>Usage example in tests (github links)</h2>
+ * <ul>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapqueue/OffHeapSpscRingBufferTest.java">SPSC ring buffer</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapqueue/OffHeapMpmcRingBufferTest.java">MPMC ring buffer</a></li>
+ * </ul>
+ */
+
+package com.alexkasko.unsafe.offheapqueue;
@@ -0,0 +1,878 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+
+/**
+ * <p>Sorted map with long keys and fixed-size struct values implemented as B+tree
+ * on top of {@link com.alexkasko.unsafe.offheap.OffHeapMemory}. Nodes are pages with lengths
+ * aligned to {@code 64} bytes (cache line): inner pages of {@code 512} bytes hold up to {@code 41} keys
+ * with {@code 42} child page ids, leaf pages of about {@code 1024} bytes hold keys and values of the entries
+ * and are linked into the list in keys order. Insert, remove and lookup cost {@code O(log n)}, so data
+ * arriving continuously may stay queryable by key range without re-sorting.
+ *
+ * <p>Entries are read in keys order using {@link Cursor} that is positioned with {@code seekFloor},
+ * {@code seekCeiling}, {@code seekFirst} or {@code seekLast} and moved with {@code next} and {@code prev}.
+ * Cursor may be reused for any number of scans and provides in place access to the values
+ * as {@link OffHeapStructAccessor}, so range scans don't allocate. Tree may be bulk loaded
+ * from the collection sorted by long key with {@link #fromSorted(OffHeapStructCollection, int)}.
+ *
+ * <p>Removal doesn't merge underfilled nodes, only empty nodes are removed from the tree
+ * and their pages are reused by subsequent inserts.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapLongStructBTree}
+ * will be garbage collected. Tree is NOT thread-safe, cursors become invalid after tree modifications.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongStructBTree implements OffHeapDisposable {
+    private static final int CACHE_LINE = 64;
+    private static final int MAX_HEIGHT = 32;
+    private static final int NONE = -1;
+    // inner page: count, next free page, keys, children
+    private static final int INNER_PAGE_LENGTH = 512;
+    private static final int INNER_KEYS = 41;
+    private static final int INNER_KEYS_OFFSET = 8;
+    private static final int INNER_CHILDREN_OFFSET = INNER_KEYS_OFFSET + INNER_KEYS * 8;
+    private static final int INNER_FILL = 32;
+    // leaf page: count, next, prev, padding, keys, values
+    private static final int LEAF_TARGET_LENGTH = 1024;
+    private static final int LEAF_HEADER_LENGTH = 16;
+
+    private final int structLength;
+    private final int leafCapacity;
+    private final int leafPageLength;
+    private final int valuesOffset;
+    // shared by all operations, tree is not thread-safe
+    private final int[] pathPages = new int[MAX_HEIGHT];
+    private final int[] pathIndices = new int[MAX_HEIGHT];
+    private final byte[] scratch;
+
+    private OffHeapMemory inner;
+    private int innerCapacity;
+    private int innerCount;
+    private int innerFree = NONE;
+    private OffHeapMemory leaves;
+    private int leavesCapacity;
+    private int leavesCount;
+    private int leavesFree = NONE;
+    private int root;
+    private int height;
+    private long size;
+
+    /**
+     * Constructor
+     *
+     * @param structLength length of value struct in bytes
+     */
+    public OffHeapLongStructBTree(int structLength) {
+        if (structLength <= 0) throw new IllegalArgumentException("Illegal structLength: [" + structLength + "]");
+        this.structLength = structLength;
+        this.leafCapacity = Math.max(4, (LEAF_TARGET_LENGTH - LEAF_HEADER_LENGTH) / (8 + structLength));
+        this.valuesOffset = LEAF_HEADER_LENGTH + leafCapacity * 8;
+        int len = valuesOffset + leafCapacity * structLength;
+        this.leafPageLength = (len + CACHE_LINE - 1) / CACHE_LINE * CACHE_LINE;
+        this.scratch = new byte[Math.max(INNER_PAGE_LENGTH, leafCapacity * Math.max(8, structLength))];
+        this.inner = OffHeapMemory.allocateMemory(0);
+        this.leaves = OffHeapMemory.allocateMemory(0);
+        this.root = allocateLeaf();
+    }
+
+    /**
+     * Builds tree from the collection sorted by long key, struct values are the structs of the collection.
+     * Leaf pages are filled to {@code 3/4} of capacity leaving room for subsequent inserts.
+     *
+     * @param col collection sorted by long key field, keys must be unique
+     * @param keyOffset long key field offset within struct bounds
+     * @return tree
+     * @throws IllegalArgumentException if keys are not in strictly ascending order
+     */
+    public static OffHeapLongStructBTree fromSorted(OffHeapStructCollection col, int keyOffset) {
+        OffHeapLongStructBTree tree = new OffHeapLongStructBTree(col.structLength());
+        try {
+            tree.load(col, keyOffset);
+            return tree;
+        } catch (RuntimeException e) {
+            tree.free();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return leaves.isUnsafe();
+    }
+
+    /**
+     * Copies value for specified key into provided buffer
+     *
+     * @param key key
+     * @param buffer buffer with length not less than {@code structLength}
+     * @return {@code true} if key was found, {@code false} otherwise
+     */
+    public boolean get(long key, byte[] buffer) {
+        int leaf = descend(key);
+        int idx = lowerBound(leaf, key);
+        if (idx == leafCount(leaf) || leafKey(leaf, idx) != key) return false;
+        leaves.get(valueOffset(leaf, idx), buffer, 0, structLength);
+        return true;
+    }
+
+    /**
+     * Checks whether tree contains specified key
+     *
+     * @param key key
+     * @return {@code true} if key was found, {@code false} otherwise
+     */
+    public boolean containsKey(long key) {
+        int leaf = descend(key);
+        int idx = lowerBound(leaf, key);
+        return idx < leafCount(leaf) && leafKey(leaf, idx) == key;
+    }
+
+    /**
+     * Puts the specified value for the specified key replacing existing value
+     *
+     * @param key key
+     * @param value value struct with length not less than {@code structLength}
+     * @return {@code true} if key wasn't in tree before, {@code false} if value was replaced
+     */
+    public boolean put(long key, byte[] value) {
+        int leaf = descend(key);
+        int count = leafCount(leaf);
+        int idx = lowerBound(leaf, key);
+        if (idx < count && leafKey(leaf, idx) == key) {
+            leaves.put(valueOffset(leaf, idx), value, 0, structLength);
+            return false;
+        }
+        size += 1;
+        if (count < leafCapacity) {
+            insertIntoLeaf(leaf, idx, key, value);
+            return true;
+        }
+        // split full leaf moving upper half into the new right sibling
+        int right = allocateLeaf();
+        int mid = leafCapacity / 2;
+        moveLeafEntries(leaf, mid, right, 0, count - mid);
+        setLeafCount(right, count - mid);
+        setLeafCount(leaf, mid);
+        if (idx <= mid) {
+            insertIntoLeaf(leaf, idx, key, value);
+        } else {
+            insertIntoLeaf(right, idx - mid, key, value);
+        }
+        int next = leafNext(leaf);
+        setLeafNext(right, next);
+        setLeafPrev(right, leaf);
+        setLeafNext(leaf, right);
+        if (NONE != next) setLeafPrev(next, right);
+        insertIntoParent(height - 1, leafKey(right, 0), right);
+        return true;
+    }
+
+    /**
+     * Removes specified key and its value from the tree
+     *
+     * @param key key
+     * @return {@code true} if key was removed, {@code false} if key wasn't in tree
+     */
+    public boolean remove(long key) {
+        int leaf = descend(key);
+        int count = leafCount(leaf);
+        int idx = lowerBound(leaf, key);
+        if (idx == count || leafKey(leaf, idx) != key) return false;
+        size -= 1;
+        int tail = count - idx - 1;
+        shift(leaves, keyOffset(leaf, idx + 1), keyOffset(leaf, idx), tail * 8);
+        shift(leaves, valueOffset(leaf, idx + 1), valueOffset(leaf, idx), tail * structLength);
+        setLeafCount(leaf, count - 1);
+        if (count > 1 || 0 == height) return true;
+        // remove empty leaf
+        int prev = leafPrev(leaf);
+        int next = leafNext(leaf);
+        if (NONE != prev) setLeafNext(prev, next);
+        if (NONE != next) setLeafPrev(next, prev);
+        freeLeaf(leaf);
+        removeFromParent(height - 1);
+        return true;
+    }
+
+    /**
+     * Creates new cursor over this tree, cursor is not positioned
+     *
+     * @return cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns number of entries in this tree
+     *
+     * @return number of entries
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns number of inner levels of this tree, {@code 0} if the root page is a leaf
+     *
+     * @return number of inner levels
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns length of value struct in bytes
+     *
+     * @return length of value struct in bytes
+     */
+    public int structLength() {
+        return structLength;
+    }
+
+    /**
+     * Returns max number of entries in the leaf page
+     *
+     * @return max number of entries in the leaf page
+     */
+    public int leafCapacity() {
+        return leafCapacity;
+    }
+
+    /**
+     * Removes all entries from the tree, memory stays allocated
+     */
+    public void clear() {
+        innerCount = 0;
+        innerFree = NONE;
+        leavesCount = 0;
+        leavesFree = NONE;
+        height = 0;
+        size = 0;
+        root = allocateLeaf();
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        inner.free();
+        leaves.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapLongStructBTree");
+        sb.append("{size=").append(size);
+        sb.append(", structLength=").append(structLength);
+        sb.append(", height=").append(height);
+        sb.append(", leafCapacity=").append(leafCapacity);
+        sb.append(", innerPages=").append(innerCount);
+        sb.append(", leafPages=").append(leavesCount);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    // descends to the leaf that may contain the key, remembers path
+    private int descend(long key) {
+        int page = root;
+        for (int level = 0; level < height; level++) {
+            int idx = route(page, key);
+            pathPages[level] = page;
+            pathIndices[level] = idx;
+            page = innerChild(page, idx);
+        }
+        return page;
+    }
+
+    // index of the first key greater than specified one
+    private int route(int page, long key) {
+        int low = 0;
+        int high = innerCount(page);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (innerKey(page, mid) <= key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // index of the first key greater or equal to specified one
+    private int lowerBound(int leaf, long key) {
+        int low = 0;
+        int high = leafCount(leaf);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (leafKey(leaf, mid) < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private void insertIntoLeaf(int leaf, int idx, long key, byte[] value) {
+        int count = leafCount(leaf);
+        int tail = count - idx;
+        shift(leaves, keyOffset(leaf, idx), keyOffset(leaf, idx + 1), tail * 8);
+        shift(leaves, valueOffset(leaf, idx), valueOffset(leaf, idx + 1), tail * structLength);
+        leaves.putLong(keyOffset(leaf, idx), key);
+        leaves.put(valueOffset(leaf, idx), value, 0, structLength);
+        setLeafCount(leaf, count + 1);
+    }
+
+    private void moveLeafEntries(int src, int srcIdx, int dest, int destIdx, int count) {
+        shift(leaves, keyOffset(src, srcIdx), keyOffset(dest, destIdx), count * 8);
+        shift(leaves, valueOffset(src, srcIdx), valueOffset(dest, destIdx), count * structLength);
+    }
+
+    // inserts separator and its right child into the inner page on specified path level, splits pages up to root
+    private void insertIntoParent(int level, long separator, int child) {
+        for (;;) {
+            if (level < 0) {
+                if (height == MAX_HEIGHT) throw new IllegalStateException("Max tree height exceeded: [" + MAX_HEIGHT + "]");
+                int page = allocateInner();
+                setInnerCount(page, 1);
+                setInnerKey(page, 0, separator);
+                setInnerChild(page, 0, root);
+                setInnerChild(page, 1, child);
+                root = page;
+                height += 1;
+                return;
+            }
+            int page = pathPages[level];
+            int idx = pathIndices[level];
+            int count = innerCount(page);
+            if (count < INNER_KEYS) {
+                insertIntoInner(page, idx, separator, child);
+                return;
+            }
+            // split full inner page promoting the middle key
+            int right = allocateInner();
+            int mid = INNER_KEYS / 2;
+            long promoted = innerKey(page, mid);
+            int rightKeys = count - mid - 1;
+            shift(inner, innerKeyOffset(page, mid + 1), innerKeyOffset(right, 0), rightKeys * 8);
+            shift(inner, innerChildOffset(page, mid + 1), innerChildOffset(right, 0), (rightKeys + 1) * 4);
+            setInnerCount(right, rightKeys);
+            setInnerCount(page, mid);
+            if (idx <= mid) {
+                insertIntoInner(page, idx, separator, child);
+            } else {
+                insertIntoInner(right, idx - mid - 1, separator, child);
+            }
+            separator = promoted;
+            child = right;
+            level -= 1;
+        }
+    }
+
+    private void insertIntoInner(int page, int idx, long separator, int child) {
+        int count = innerCount(page);
+        shift(inner, innerKeyOffset(page, idx), innerKeyOffset(page, idx + 1), (count - idx) * 8);
+        shift(inner, innerChildOffset(page, idx + 1), innerChildOffset(page, idx + 2), (count - idx) * 4);
+        setInnerKey(page, idx, separator);
+        setInnerChild(page, idx + 1, child);
+        setInnerCount(page, count + 1);
+    }
+
+    // removes the child on the path from the inner page on specified level, removes emptied pages up to root
+    private void removeFromParent(int level) {
+        for (;;) {
+            int page = pathPages[level];
+            int idx = pathIndices[level];
+            int count = innerCount(page);
+            if (count > 0) {
+                int keyIdx = idx > 0 ? idx - 1 : 0;
+                shift(inner, innerKeyOffset(page, keyIdx + 1), innerKeyOffset(page, keyIdx), (count - keyIdx - 1) * 8);
+                shift(inner, innerChildOffset(page, idx + 1), innerChildOffset(page, idx), (count - idx) * 4);
+                setInnerCount(page, count - 1);
+                break;
+            }
+            // page had single child
+            freeInner(page);
+            if (0 == level) {
+                clear();
+                return;
+            }
+            level -= 1;
+        }
+        // collapse root with single child
+        while (height > 0 && 0 == innerCount(root)) {
+            int page = root;
+            root = innerChild(page, 0);
+            freeInner(page);
+            height -= 1;
+        }
+    }
+
+    private void load(OffHeapStructCollection col, int keyOffset) {
+        long len = col.size();
+        if (0 == len) return;
+        if (len > (long) Integer.MAX_VALUE * (leafCapacity * 3 / 4)) throw new IllegalArgumentException(
+                "Illegal input, collection is too large: [" + len + "]");
+        // fresh tree, pages are allocated sequentially
+        leavesCount = 0;
+        int fill = Math.max(1, leafCapacity * 3 / 4);
+        byte[] buf = new byte[structLength];
+        int leaf = NONE;
+        long prevKey = 0;
+        for (long i = 0; i < len; i++) {
+            long key = col.getLong(i, keyOffset);
+            if (i > 0 && key <= prevKey) throw new IllegalArgumentException(
+                    "Illegal input, keys must be strictly ascending, index: [" + i + "], key: [" + key + "]");
+            prevKey = key;
+            if (0 == i % fill) {
+                int next = allocateLeaf();
+                if (NONE != leaf) {
+                    setLeafNext(leaf, next);
+                    setLeafPrev(next, leaf);
+                }
+                leaf = next;
+            }
+            int idx = leafCount(leaf);
+            col.get(i, buf);
+            leaves.putLong(keyOffset(leaf, idx), key);
+            leaves.put(valueOffset(leaf, idx), buf, 0, structLength);
+            setLeafCount(leaf, idx + 1);
+        }
+        size = len;
+        // build inner levels bottom up, pages of each level have sequential ids
+        int levelStart = 0;
+        int levelEnd = leavesCount;
+        while (levelEnd - levelStart > 1) {
+            int nextStart = innerCount;
+            for (int i = levelStart; i < levelEnd; i += INNER_FILL) {
+                int page = allocateInner();
+                int children = Math.min(INNER_FILL, levelEnd - i);
+                setInnerChild(page, 0, i);
+                for (int j = 1; j < children; j++) {
+                    setInnerKey(page, j - 1, minKey(i + j, height));
+                    setInnerChild(page, j, i + j);
+                }
+                setInnerCount(page, children - 1);
+            }
+            levelStart = nextStart;
+            levelEnd = innerCount;
+            height += 1;
+        }
+        root = levelStart;
+    }
+
+    // the smallest key in the subtree with specified number of inner levels
+    private long minKey(int page, int levels) {
+        for (int i = 0; i < levels; i++) {
+            page = innerChild(page, 0);
+        }
+        return leafKey(page, 0);
+    }
+
+    // copies possibly overlapping regions through the scratch buffer
+    private void shift(OffHeapMemory mem, long from, long to, int bytes) {
+        if (bytes <= 0) return;
+        mem.get(from, scratch, 0, bytes);
+        mem.put(to, scratch, 0, bytes);
+    }
+
+    private int allocateInner() {
+        int page;
+        if (NONE != innerFree) {
+            page = innerFree;
+            innerFree = inner.getInt(innerBase(page) + 4);
+        } else {
+            if (innerCount == innerCapacity) {
+                int cap = innerCapacity + (innerCapacity < 8 ? 8 : innerCapacity >> 1);
+                inner = grow(inner, (long) innerCount * INNER_PAGE_LENGTH, (long) cap * INNER_PAGE_LENGTH);
+                innerCapacity = cap;
+            }
+            page = innerCount++;
+        }
+        inner.putInt(innerBase(page), 0);
+        return page;
+    }
+
+    private void freeInner(int page) {
+        inner.putInt(innerBase(page) + 4, innerFree);
+        innerFree = page;
+    }
+
+    private int allocateLeaf() {
+        int page;
+        if (NONE != leavesFree) {
+            page = leavesFree;
+            leavesFree = leafNext(page);
+        } else {
+            if (leavesCount == leavesCapacity) {
+                int cap = leavesCapacity + (leavesCapacity < 8 ? 8 : leavesCapacity >> 1);
+                leaves = grow(leaves, (long) leavesCount * leafPageLength, (long) cap * leafPageLength);
+                leavesCapacity = cap;
+            }
+            page = leavesCount++;
+        }
+        setLeafCount(page, 0);
+        setLeafNext(page, NONE);
+        setLeafPrev(page, NONE);
+        return page;
+    }
+
+    private void freeLeaf(int page) {
+        setLeafNext(page, leavesFree);
+        leavesFree = page;
+    }
+
+    private static OffHeapMemory grow(OffHeapMemory mem, long used, long capacity) {
+        OffHeapMemory res = OffHeapMemory.allocateMemory(capacity);
+        // maybe it's better to use Unsafe#reallocateMemory here
+        if (used > 0) mem.copy(0, res, 0, used);
+        mem.free();
+        return res;
+    }
+
+    private long innerBase(int page) {
+        return (long) page * INNER_PAGE_LENGTH;
+    }
+
+    private int innerCount(int page) {
+        return inner.getInt(innerBase(page));
+    }
+
+    private void setInnerCount(int page, int count) {
+        inner.putInt(innerBase(page), count);
+    }
+
+    private long innerKeyOffset(int page, int idx) {
+        return innerBase(page) + INNER_KEYS_OFFSET + idx * 8;
+    }
+
+    private long innerKey(int page, int idx) {
+        return inner.getLong(innerKeyOffset(page, idx));
+    }
+
+    private void setInnerKey(int page, int idx, long key) {
+        inner.putLong(innerKeyOffset(page, idx), key);
+    }
+
+    private long innerChildOffset(int page, int idx) {
+        return innerBase(page) + INNER_CHILDREN_OFFSET + idx * 4;
+    }
+
+    private int innerChild(int page, int idx) {
+        return inner.getInt(innerChildOffset(page, idx));
+    }
+
+    private void setInnerChild(int page, int idx, int child) {
+        inner.putInt(innerChildOffset(page, idx), child);
+    }
+
+    private long leafBase(int page) {
+        return (long) page * leafPageLength;
+    }
+
+    private int leafCount(int page) {
+        return leaves.getInt(leafBase(page));
+    }
+
+    private void setLeafCount(int page, int count) {
+        leaves.putInt(leafBase(page), count);
+    }
+
+    private int leafNext(int page) {
+        return leaves.getInt(leafBase(page) + 4);
+    }
+
+    private void setLeafNext(int page, int next) {
+        leaves.putInt(leafBase(page) + 4, next);
+    }
+
+    private int leafPrev(int page) {
+        return leaves.getInt(leafBase(page) + 8);
+    }
+
+    private void setLeafPrev(int page, int prev) {
+        leaves.putInt(leafBase(page) + 8, prev);
+    }
+
+    private long keyOffset(int page, int idx) {
+        return leafBase(page) + LEAF_HEADER_LENGTH + idx * 8;
+    }
+
+    private long leafKey(int page, int idx) {
+        return leaves.getLong(keyOffset(page, idx));
+    }
+
+    private long valueOffset(int page, int idx) {
+        return leafBase(page) + valuesOffset + (long) idx * structLength;
+    }
+
+    /**
+     * Cursor over tree entries in keys order, provides in place access to the value of current entry.
+     * Cursor may be repositioned any number of times, it becomes invalid after tree modification.
+     */
+    public class Cursor implements OffHeapStructAccessor {
+        private int leaf = NONE;
+        private int idx;
+
+        /**
+         * Positions cursor on the entry with the smallest key
+         *
+         * @return {@code false} if tree is empty
+         */
+        public boolean seekFirst() {
+            int page = root;
+            for (int i = 0; i < height; i++) {
+                page = innerChild(page, 0);
+            }
+            return position(page, 0);
+        }
+
+        /**
+         * Positions cursor on the entry with the largest key
+         *
+         * @return {@code false} if tree is empty
+         */
+        public boolean seekLast() {
+            int page = root;
+            for (int i = 0; i < height; i++) {
+                page = innerChild(page, innerCount(page));
+            }
+            return position(page, leafCount(page) - 1);
+        }
+
+        /**
+         * Positions cursor on the entry with the smallest key greater or equal to specified one
+         *
+         * @param key key
+         * @return {@code false} if there is no such entry
+         */
+        public boolean seekCeiling(long key) {
+            int page = descend(key);
+            int pos = lowerBound(page, key);
+            if (pos < leafCount(page)) return position(page, pos);
+            return position(leafNext(page), 0);
+        }
+
+        /**
+         * Positions cursor on the entry with the largest key less or equal to specified one
+         *
+         * @param key key
+         * @return {@code false} if there is no such entry
+         */
+        public boolean seekFloor(long key) {
+            int page = descend(key);
+            int pos = lowerBound(page, key);
+            if (pos < leafCount(page) && leafKey(page, pos) == key) return position(page, pos);
+            if (pos > 0) return position(page, pos - 1);
+            int prev = leafPrev(page);
+            return NONE != prev ? position(prev, leafCount(prev) - 1) : position(NONE, 0);
+        }
+
+        /**
+         * Moves cursor to the entry with the next key
+         *
+         * @return {@code false} if there is no next entry, cursor becomes invalid
+         */
+        public boolean next() {
+            assert isValid() : "invalid cursor";
+            if (idx + 1 < leafCount(leaf)) {
+                idx += 1;
+                return true;
+            }
+            return position(leafNext(leaf), 0);
+        }
+
+        /**
+         * Moves cursor to the entry with the previous key
+         *
+         * @return {@code false} if there is no previous entry, cursor becomes invalid
+         */
+        public boolean prev() {
+            assert isValid() : "invalid cursor";
+            if (idx > 0) {
+                idx -= 1;
+                return true;
+            }
+            int prev = leafPrev(leaf);
+            return NONE != prev ? position(prev, leafCount(prev) - 1) : position(NONE, 0);
+        }
+
+        /**
+         * Whether cursor is positioned on the entry
+         *
+         * @return whether cursor is positioned on the entry
+         */
+        public boolean isValid() {
+            return NONE != leaf;
+        }
+
+        /**
+         * Returns key of the current entry
+         *
+         * @return key
+         */
+        public long key() {
+            assert isValid() : "invalid cursor";
+            return leafKey(leaf, idx);
+        }
+
+        private boolean position(int page, int pos) {
+            if (NONE == page || pos < 0 || pos >= leafCount(page)) {
+                this.leaf = NONE;
+                return false;
+            }
+            this.leaf = page;
+            this.idx = pos;
+            return true;
+        }
+
+        private long offset() {
+            assert isValid() : "invalid cursor";
+            return valueOffset(leaf, idx);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int structLength() {
+            return structLength;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void get(byte[] buffer) {
+            leaves.get(offset(), buffer, 0, structLength);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void get(int srcPos, byte[] dest, int destPos, int length) {
+            assert srcPos >= 0 && srcPos <= structLength - length : srcPos;
+            leaves.get(offset() + srcPos, dest, destPos, length);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public byte getByte(int offset) {
+            assert offset >= 0 && offset < structLength : offset;
+            return leaves.getByte(offset() + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public short getUnsignedByte(int offset) {
+            assert offset >= 0 && offset < structLength : offset;
+            return leaves.getUnsignedByte(offset() + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public short getShort(int offset) {
+            assert offset >= 0 && offset <= structLength - 2 : offset;
+            return leaves.getShort(offset() + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getUnsignedShort(int offset) {
+            assert offset >= 0 && offset <= structLength - 2 : offset;
+            return leaves.getUnsignedShort(offset() + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getInt(int offset) {
+            assert offset >= 0 && offset <= structLength - 4 : offset;
+            return leaves.getInt(offset() + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getUnsignedInt(int offset) {
+            assert offset >= 0 && offset <= structLength - 4 : offset;
+            return leaves.getUnsignedInt(offset() + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getLong(int offset) {
+            assert offset >= 0 && offset <= structLength - 8 : offset;
+            return leaves.getLong(offset() + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public float getFloat(int offset) {
+            return Float.intBitsToFloat(getInt(offset));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double getDouble(int offset) {
+            return Double.longBitsToDouble(getLong(offset));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("Cursor");
+            sb.append("{leaf=").append(leaf);
+            sb.append(", idx=").append(idx);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
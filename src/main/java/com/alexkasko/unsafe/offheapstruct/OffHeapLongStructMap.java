@@ -0,0 +1,488 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+
+/**
+ * <p>Open addressing hash map with long keys and fixed-size struct values using {@link com.alexkasko.unsafe.offheap.OffHeapMemory}.
+ * Each slot stores 8-byte key followed by {@code structLength} bytes of value inline, so lookup
+ * touches only one memory location. Collisions are resolved with linear probing, removal uses
+ * backward shift deletion so no tombstones are left in the table. Capacity is always a power of two
+ * and is not bounded by {@code Integer.MAX_VALUE}. Table is doubled when number of entries
+ * exceeds {@code capacity * loadFactor}.
+ *
+ * <p>One key value (by default {@code Long.MIN_VALUE}) is reserved to mark empty slots
+ * and cannot be used as a key.
+ *
+ * <p>Values may be copied into byte arrays, read in place through the {@link OffHeapStructAccessor}
+ * returned from {@link #getAccessor(long)} or updated in place field by field.
+ *
+ * <p>Default implementation uses {@code sun.misc.Unsafe}, with all operations guarded with {@code assert} keyword.
+ * With assertions enabled in runtime ({@code -ea} java switch) {@link AssertionError}
+ * will be thrown on illegal memory access. Without assertions illegal access will crash JVM.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapLongStructMap}
+ * will be garbage collected. Map is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongStructMap implements OffHeapDisposable {
+    private static final int MIN_CAPACITY = 8;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int KEY_LENGTH = 8;
+
+    private final int structLength;
+    private final int slotLength;
+    private final float loadFactor;
+    private final long emptyKey;
+    private final SlotAccessor accessor = new SlotAccessor();
+    private OffHeapMemory ohm;
+    private long capacity;
+    private long mask;
+    private long maxSize;
+    private long size;
+
+    /**
+     * Constructor, {@code 8} is used as initial capacity
+     *
+     * @param structLength length of value struct in bytes
+     */
+    public OffHeapLongStructMap(int structLength) {
+        this(MIN_CAPACITY / 2, structLength);
+    }
+
+    /**
+     * Constructor, {@code Long.MIN_VALUE} is used as empty key
+     *
+     * @param expectedSize number of entries map may contain without resizing
+     * @param structLength length of value struct in bytes
+     */
+    public OffHeapLongStructMap(long expectedSize, int structLength) {
+        this(expectedSize, structLength, DEFAULT_LOAD_FACTOR, Long.MIN_VALUE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize number of entries map may contain without resizing
+     * @param structLength length of value struct in bytes
+     * @param loadFactor maximum ratio of entries number to capacity, must be between {@code 0} and {@code 1} exclusive
+     * @param emptyKey reserved key value to mark empty slots, cannot be used as key
+     */
+    public OffHeapLongStructMap(long expectedSize, int structLength, float loadFactor, long emptyKey) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Illegal expectedSize: [" + expectedSize + "]");
+        if (structLength <= 0) throw new IllegalArgumentException("Illegal structLength: [" + structLength + "]");
+        if (!(loadFactor > 0 && loadFactor < 1)) throw new IllegalArgumentException("Illegal loadFactor: [" + loadFactor + "]");
+        this.structLength = structLength;
+        this.slotLength = KEY_LENGTH + structLength;
+        this.loadFactor = loadFactor;
+        this.emptyKey = emptyKey;
+        allocate(capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * Whether unsafe implementation of {@link OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return ohm.isUnsafe();
+    }
+
+    /**
+     * Copies value mapped to specified key into provided buffer
+     *
+     * @param key key to look for
+     * @param buffer buffer with length not less than {@code structLength}
+     * @return {@code true} if key was found, {@code false} otherwise (buffer is not changed)
+     */
+    public boolean get(long key, byte[] buffer) {
+        long slot = lookup(key);
+        if (slot < 0) return false;
+        ohm.get(slot * slotLength + KEY_LENGTH, buffer, 0, structLength);
+        return true;
+    }
+
+    /**
+     * Returns accessor to the value mapped to specified key, value is not copied.
+     * Returned accessor is shared between calls and is valid only until the next call
+     * of this method or until the next map modification.
+     *
+     * @param key key to look for
+     * @return accessor to the value or {@code null} if key is not found
+     */
+    public OffHeapStructAccessor getAccessor(long key) {
+        long slot = lookup(key);
+        if (slot < 0) return null;
+        accessor.offset = slot * slotLength + KEY_LENGTH;
+        return accessor;
+    }
+
+    /**
+     * Checks whether map contains specified key
+     *
+     * @param key key to look for
+     * @return whether key is present
+     */
+    public boolean containsKey(long key) {
+        return lookup(key) >= 0;
+    }
+
+    /**
+     * Maps specified key to specified value replacing existing value
+     *
+     * @param key key, must not be equal to {@code emptyKey}
+     * @param struct value with length not less than {@code structLength}
+     * @return {@code true} if new entry was added, {@code false} if existing value was replaced
+     * @throws IllegalArgumentException if key is equal to {@code emptyKey}
+     */
+    public boolean put(long key, byte[] struct) {
+        if (key == emptyKey) throw new IllegalArgumentException(
+                "Illegal key, equal to emptyKey: [" + key + "]");
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long off = slot * slotLength;
+            long k = ohm.getLong(off);
+            if (k == key) {
+                ohm.put(off + KEY_LENGTH, struct, 0, structLength);
+                return false;
+            }
+            if (k == emptyKey) {
+                ohm.putLong(off, key);
+                ohm.put(off + KEY_LENGTH, struct, 0, structLength);
+                size += 1;
+                if (size > maxSize) resize(capacity << 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Updates int field of the value mapped to specified key in place
+     *
+     * @param key key to look for
+     * @param offset field offset within struct bounds
+     * @param value new field value
+     * @return {@code true} if key was found, {@code false} otherwise
+     */
+    public boolean putInt(long key, int offset, int value) {
+        assert offset >= 0 && offset <= structLength - 4 : offset;
+        long slot = lookup(key);
+        if (slot < 0) return false;
+        ohm.putInt(slot * slotLength + KEY_LENGTH + offset, value);
+        return true;
+    }
+
+    /**
+     * Updates long field of the value mapped to specified key in place
+     *
+     * @param key key to look for
+     * @param offset field offset within struct bounds
+     * @param value new field value
+     * @return {@code true} if key was found, {@code false} otherwise
+     */
+    public boolean putLong(long key, int offset, long value) {
+        assert offset >= 0 && offset <= structLength - 8 : offset;
+        long slot = lookup(key);
+        if (slot < 0) return false;
+        ohm.putLong(slot * slotLength + KEY_LENGTH + offset, value);
+        return true;
+    }
+
+    /**
+     * Removes mapping for specified key
+     *
+     * @param key key to remove
+     * @return {@code true} if key was removed, {@code false} if it was not present
+     */
+    public boolean remove(long key) {
+        long slot = lookup(key);
+        if (slot < 0) return false;
+        shiftBack(slot);
+        size -= 1;
+        return true;
+    }
+
+    /**
+     * Removes all mappings, allocated memory is reused
+     */
+    public void clear() {
+        fillEmpty(ohm, capacity);
+        size = 0;
+    }
+
+    /**
+     * Returns number of mappings in this map
+     *
+     * @return number of mappings in this map
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns number of slots in the underlying table
+     *
+     * @return number of slots in the underlying table
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns length of value struct in bytes
+     *
+     * @return length of value struct in bytes
+     */
+    public int structLength() {
+        return structLength;
+    }
+
+    /**
+     * Returns reserved key value used to mark empty slots
+     *
+     * @return empty key
+     */
+    public long emptyKey() {
+        return emptyKey;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        ohm.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapLongStructMap");
+        sb.append("{size=").append(size);
+        sb.append(", capacity=").append(capacity);
+        sb.append(", structLength=").append(structLength);
+        sb.append(", loadFactor=").append(loadFactor);
+        sb.append(", emptyKey=").append(emptyKey);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    // returns slot containing the key or -1 if key is not found
+    private long lookup(long key) {
+        if (key == emptyKey) return -1;
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long k = ohm.getLong(slot * slotLength);
+            if (k == key) return slot;
+            if (k == emptyKey) return -1;
+        }
+    }
+
+    // backward shift deletion: moves following entries of the cluster into the freed slot
+    // if their ideal slot is not between the freed slot and their current position
+    private void shiftBack(long slot) {
+        long free = slot;
+        for (long next = (slot + 1) & mask; ; next = (next + 1) & mask) {
+            long k = ohm.getLong(next * slotLength);
+            if (k == emptyKey) break;
+            long ideal = hash(k) & mask;
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                ohm.copy(next * slotLength, ohm, free * slotLength, slotLength);
+                free = next;
+            }
+        }
+        ohm.putLong(free * slotLength, emptyKey);
+    }
+
+    private void resize(long newCapacity) {
+        OffHeapMemory old = ohm;
+        long oldCapacity = capacity;
+        allocate(newCapacity);
+        for (long off = 0, end = oldCapacity * slotLength; off < end; off += slotLength) {
+            long k = old.getLong(off);
+            if (k == emptyKey) continue;
+            long slot = hash(k) & mask;
+            while (ohm.getLong(slot * slotLength) != emptyKey) {
+                slot = (slot + 1) & mask;
+            }
+            old.copy(off, ohm, slot * slotLength, slotLength);
+        }
+        old.free();
+    }
+
+    private void allocate(long cap) {
+        this.ohm = OffHeapMemory.allocateMemory(cap * slotLength);
+        this.capacity = cap;
+        this.mask = cap - 1;
+        this.maxSize = Math.min(cap - 1, (long) (cap * (double) loadFactor));
+        fillEmpty(ohm, cap);
+    }
+
+    private void fillEmpty(OffHeapMemory mem, long cap) {
+        for (long off = 0, end = cap * slotLength; off < end; off += slotLength) {
+            mem.putLong(off, emptyKey);
+        }
+    }
+
+    private static long capacityFor(long expectedSize, float loadFactor) {
+        long min = (long) Math.ceil(expectedSize / (double) loadFactor) + 1;
+        long cap = Long.highestOneBit(min);
+        if (cap < min) cap <<= 1;
+        return Math.max(MIN_CAPACITY, cap);
+    }
+
+    // murmur3 finalizer, spreads sequential keys over the table
+    private static long hash(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Struct's accessor implementation for values stored in the table
+     */
+    private class SlotAccessor implements OffHeapStructAccessor {
+        private long offset;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int structLength() {
+            return structLength;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void get(byte[] buffer) {
+            ohm.get(offset, buffer, 0, structLength);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void get(int srcPos, byte[] dest, int destPos, int length) {
+            assert srcPos >= 0 && srcPos <= structLength - length : srcPos;
+            ohm.get(offset + srcPos, dest, destPos, length);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public byte getByte(int offset) {
+            assert offset >= 0 && offset < structLength : offset;
+            return ohm.getByte(this.offset + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public short getUnsignedByte(int offset) {
+            assert offset >= 0 && offset < structLength : offset;
+            return ohm.getUnsignedByte(this.offset + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public short getShort(int offset) {
+            assert offset >= 0 && offset <= structLength - 2 : offset;
+            return ohm.getShort(this.offset + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getUnsignedShort(int offset) {
+            assert offset >= 0 && offset <= structLength - 2 : offset;
+            return ohm.getUnsignedShort(this.offset + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getInt(int offset) {
+            assert offset >= 0 && offset <= structLength - 4 : offset;
+            return ohm.getInt(this.offset + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getUnsignedInt(int offset) {
+            assert offset >= 0 && offset <= structLength - 4 : offset;
+            return ohm.getUnsignedInt(this.offset + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getLong(int offset) {
+            assert offset >= 0 && offset <= structLength - 8 : offset;
+            return ohm.getLong(this.offset + offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public float getFloat(int offset) {
+            return Float.intBitsToFloat(getInt(offset));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double getDouble(int offset) {
+            return Double.longBitsToDouble(getLong(offset));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("SlotAccessor");
+            sb.append("{offset=").append(offset);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheap.OffHeapMemory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * <p>{@link OffHeapStructArray} stored in memory-mapped file, so several processes on the same host
+ * may share single copy of the data (e.g. file under {@code /dev/shm}) instead of holding private copies.
+ *
+ * <p>File starts with {@code 64}-byte header (magic, structLength, size and version stamp, Big Endian),
+ * structs follow the header. One process writes the data and others map it read-only:
+ * <ul>
+ *     <li>writer calls {@link #create(java.io.File, long, int)}, that maps temporary file {@code <file>.tmp},
+ *     fills {@link #array()} and calls {@link #publish()}, that flushes the data, writes the header with
+ *     incremented version stamp and atomically renames temporary file to the target one</li>
+ *     <li>readers call {@link #open(java.io.File)} to map the last published version read-only,
+ *     check {@link #isStale()} and reopen the file to pick up new version</li>
+ * </ul>
+ * Readers never see partially written data, already opened readers keep using their version
+ * until they free it. Published array must not be modified by writer.
+ *
+ * <p>Mapped memory uses {@link java.nio.MappedByteBuffer} and is limited to {@code Integer.MAX_VALUE} bytes.
+ * Memory is unmapped on {@link #free()} (thread-safe and may be called multiple times) or after
+ * {@link OffHeapSharedStructArray} will be garbage collected, file is not deleted.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapSharedStructArray implements OffHeapDisposable {
+    private static final int MAGIC = 0x4f485341;
+    private static final int HEADER_LENGTH = 64;
+
+    private final File file;
+    private final boolean writable;
+    private final OffHeapStructArray array;
+    private long version;
+    private boolean published;
+
+    private OffHeapSharedStructArray(File file, boolean writable, OffHeapStructArray array, long version) {
+        this.file = file;
+        this.writable = writable;
+        this.array = array;
+        this.version = version;
+    }
+
+    /**
+     * Creates new version of shared array, array is mapped from temporary file and is not visible
+     * to readers until {@link #publish()}
+     *
+     * @param file target file
+     * @param size array size
+     * @param structLength length of struct in bytes, must be >= {@code 8}
+     * @return writable shared array
+     * @throws IOException on file error
+     */
+    public static OffHeapSharedStructArray create(File file, long size, int structLength) throws IOException {
+        if (structLength < 8) throw new IllegalArgumentException(
+                "structLength must be greater or equal to 8, but was: [" + structLength + "]");
+        if (size < 0) throw new IllegalArgumentException("Illegal size: [" + size + "]");
+        long prev = file.exists() ? readHeader(file)[2] : 0;
+        File tmp = tmpFile(file);
+        if (tmp.exists() && !tmp.delete()) throw new IOException("Cannot delete temporary file: [" + tmp + "]");
+        OffHeapMemory ohm = OffHeapMemory.mapFile(tmp, HEADER_LENGTH, size * structLength, false);
+        return new OffHeapSharedStructArray(file, true, new OffHeapStructArray(ohm, structLength), prev + 1);
+    }
+
+    /**
+     * Maps last published version of shared array read-only
+     *
+     * @param file published file
+     * @return read-only shared array
+     * @throws IOException on file error or invalid header
+     */
+    public static OffHeapSharedStructArray open(File file) throws IOException {
+        // file may be replaced between reading header and mapping, so lengths are taken from the same descriptor
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long[] header = readHeader(raf, file);
+            int structLength = (int) header[0];
+            long size = header[1];
+            OffHeapMemory ohm = OffHeapMemory.mapFile(raf.getChannel(), HEADER_LENGTH, size * structLength, true);
+            return new OffHeapSharedStructArray(file, false, new OffHeapStructArray(ohm, structLength), header[2]);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Flushes the data to the file, writes header and atomically replaces target file with the written one,
+     * may be called only once on writable array
+     *
+     * @return published version stamp
+     * @throws IOException on file error
+     */
+    public long publish() throws IOException {
+        if (!writable) throw new IllegalStateException("Array is opened read-only, file: [" + file + "]");
+        if (published) throw new IllegalStateException("Array is already published, file: [" + file + "]");
+        File tmp = tmpFile(file);
+        RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+        try {
+            raf.writeInt(MAGIC);
+            raf.writeInt(array.structLength());
+            raf.writeLong(array.size());
+            raf.writeLong(version);
+            // mapped pages are shared through page cache, sync makes the file durable as well
+            raf.getFD().sync();
+        } finally {
+            raf.close();
+        }
+        // rename is atomic on POSIX file systems
+        if (!tmp.renameTo(file)) throw new IOException("Cannot rename file: [" + tmp + "] to: [" + file + "]");
+        published = true;
+        return version;
+    }
+
+    /**
+     * Checks whether newer version was published after this one
+     *
+     * @return {@code true} if target file has different version stamp
+     * @throws IOException on file error
+     */
+    public boolean isStale() throws IOException {
+        return readHeader(file)[2] != version;
+    }
+
+    /**
+     * Returns array backed by mapped memory, writes to read-only array
+     * throw {@link java.nio.ReadOnlyBufferException}
+     *
+     * @return mapped array
+     */
+    public OffHeapStructArray array() {
+        return array;
+    }
+
+    /**
+     * Returns version stamp of this array
+     *
+     * @return version stamp
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns target file
+     *
+     * @return target file
+     */
+    public File file() {
+        return file;
+    }
+
+    /**
+     * Whether this array was created for writing
+     *
+     * @return whether this array was created for writing
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Unmaps memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        array.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapSharedStructArray");
+        sb.append("{file=").append(file);
+        sb.append(", writable=").append(writable);
+        sb.append(", version=").append(version);
+        sb.append(", size=").append(array.size());
+        sb.append(", structLength=").append(array.structLength());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static File tmpFile(File file) {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    private static long[] readHeader(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return readHeader(raf, file);
+        } finally {
+            raf.close();
+        }
+    }
+
+    // returns structLength, size and version
+    private static long[] readHeader(RandomAccessFile raf, File file) throws IOException {
+        if (raf.length() < HEADER_LENGTH) throw new IOException("Invalid shared array file: [" + file + "]");
+        int magic = raf.readInt();
+        if (MAGIC != magic) throw new IOException("Invalid shared array header: [" + Integer.toHexString(magic) + "], " +
+                "file: [" + file + "]");
+        long structLength = raf.readInt();
+        long size = raf.readLong();
+        long version = raf.readLong();
+        if (structLength < 8 || size < 0 || raf.length() < HEADER_LENGTH + size * structLength) throw new IOException(
+                "Invalid shared array parameters, structLength: [" + structLength + "], size: [" + size + "], " +
+                "file: [" + file + "]");
+        return new long[]{structLength, size, version};
+    }
+}
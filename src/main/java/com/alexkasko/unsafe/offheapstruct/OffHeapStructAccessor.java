@@ -106,4 +106,20 @@ public interface OffHeapStructAccessor {
      * @return long value
      */
     long getLong(int offset);
+
+    /**
+     * Gets float from struct with specified offset
+     *
+     * @param offset byte array offset
+     * @return float value
+     */
+    float getFloat(int offset);
+
+    /**
+     * Gets double from struct with specified offset
+     *
+     * @param offset byte array offset
+     * @return double value
+     */
+    double getDouble(int offset);
 }
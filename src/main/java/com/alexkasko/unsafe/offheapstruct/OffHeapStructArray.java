@@ -70,12 +70,12 @@ public class OffHeapStructArray implements OffHeapStructCollection, OffHeapDispo
     }
 
     /**
-     * Private constructor for {@link #clone()} support
+     * Constructor for {@link #clone()} and shared memory support
      *
-     * @param ohm cloned memory
+     * @param ohm memory with structs
      * @param structLength struct length
      */
-    private OffHeapStructArray(OffHeapMemory ohm, int structLength) {
+    OffHeapStructArray(OffHeapMemory ohm, int structLength) {
         this.ohm = ohm;
         this.structLength = structLength;
     }
@@ -108,6 +108,28 @@ public class OffHeapStructArray implements OffHeapStructCollection, OffHeapDispo
         ohm.free();
     }
 
+    /**
+     * Returns flyweight cursor over all structs of this array in ascending order, structs are not copied
+     *
+     * @return cursor
+     */
+    public OffHeapStructCursor cursor() {
+        return new OffHeapStructCursor(this);
+    }
+
+    /**
+     * Returns flyweight cursor over the structs of this array in the specified range, structs are not copied
+     *
+     * @param fromIndex start index, inclusive
+     * @param toIndex end index, exclusive
+     * @param reverse whether to traverse the range in descending order
+     * @return cursor
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())}
+     */
+    public OffHeapStructCursor cursor(long fromIndex, long toIndex, boolean reverse) {
+        return new OffHeapStructCursor(this, fromIndex, toIndex, reverse);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -371,6 +393,188 @@ public class OffHeapStructArray implements OffHeapStructCollection, OffHeapDispo
         ohm.putLong(index * structLength + offset, value);
     }
 
+    /**
+     * Gets four bytes as float from struct on specified index with specified offset
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @return float value
+     */
+    @Override
+    public float getFloat(long index, int offset) {
+        assert offset <= structLength - 4 : offset;
+        return Float.intBitsToFloat(ohm.getInt(index * structLength + offset));
+    }
+
+    /**
+     * Puts float into struct onto specified index with specified offset as four bytes
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @param value  float value
+     */
+    @Override
+    public void putFloat(long index, int offset, float value) {
+        assert offset <= structLength - 4 : offset;
+        ohm.putInt(index * structLength + offset, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Gets eight bytes as double from struct on specified index with specified offset
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @return double value
+     */
+    @Override
+    public double getDouble(long index, int offset) {
+        assert offset <= structLength - 8 : offset;
+        return Double.longBitsToDouble(ohm.getLong(index * structLength + offset));
+    }
+
+    /**
+     * Puts double into struct onto specified index with specified offset as eight bytes
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @param value  double value
+     */
+    @Override
+    public void putDouble(long index, int offset, double value) {
+        assert offset <= structLength - 8 : offset;
+        ohm.putLong(index * structLength + offset, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Gets two bytes stored in big endian byte order as short from struct on specified index with specified offset
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @return short value
+     */
+    @Override
+    public short getShortBE(long index, int offset) {
+        assert offset <= structLength - 2 : offset;
+        return ohm.getShortBE(index * structLength + offset);
+    }
+
+    /**
+     * Puts short into struct onto specified index with specified offset as two bytes in big endian byte order
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @param value  short value
+     */
+    @Override
+    public void putShortBE(long index, int offset, short value) {
+        assert offset <= structLength - 2 : offset;
+        ohm.putShortBE(index * structLength + offset, value);
+    }
+
+    /**
+     * Gets four bytes stored in big endian byte order as int from struct on specified index with specified offset
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @return int value
+     */
+    @Override
+    public int getIntBE(long index, int offset) {
+        assert offset <= structLength - 4 : offset;
+        return ohm.getIntBE(index * structLength + offset);
+    }
+
+    /**
+     * Puts int into struct onto specified index with specified offset as four bytes in big endian byte order
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @param value  int value
+     */
+    @Override
+    public void putIntBE(long index, int offset, int value) {
+        assert offset <= structLength - 4 : offset;
+        ohm.putIntBE(index * structLength + offset, value);
+    }
+
+    /**
+     * Gets eight bytes stored in big endian byte order as long from struct on specified index with specified offset
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @return long value
+     */
+    @Override
+    public long getLongBE(long index, int offset) {
+        assert offset <= structLength - 8 : offset;
+        return ohm.getLongBE(index * structLength + offset);
+    }
+
+    /**
+     * Puts long into struct onto specified index with specified offset as eight bytes in big endian byte order
+     *
+     * @param index  array index
+     * @param offset struct offset
+     * @param value  long value
+     */
+    @Override
+    public void putLongBE(long index, int offset, long value) {
+        assert offset <= structLength - 8 : offset;
+        ohm.putLongBE(index * structLength + offset, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int mismatch(long index1, long index2, int offset, int length) {
+        assert offset <= structLength - length : offset;
+        return (int) ohm.mismatch(index1 * structLength + offset, ohm, index2 * structLength + offset, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(long index1, long index2, int offset, int length) {
+        assert offset <= structLength - length : offset;
+        return ohm.equals(index1 * structLength + offset, ohm, index2 * structLength + offset, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareUnsigned(long index1, long index2, int offset, int length) {
+        assert offset <= structLength - length : offset;
+        return ohm.compareUnsigned(index1 * structLength + offset, ohm, index2 * structLength + offset, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long hash64(long index) {
+        return ohm.hash64(index * structLength, structLength, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long hash64(long index, int offset, int length) {
+        return hash64(index, offset, length, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long hash64(long index, int offset, int length, long seed) {
+        assert offset <= structLength - length : offset;
+        return ohm.hash64(index * structLength + offset, length, seed);
+    }
+
     /**
      * {@inheritDoc}
      */
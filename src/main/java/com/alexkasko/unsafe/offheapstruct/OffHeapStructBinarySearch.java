@@ -235,6 +235,233 @@ public class OffHeapStructBinarySearch {
         out.set(from, to);
     }
 
+    // double key part
+
+    /**
+     * Performs a binary search for {@code value} in the ascending sorted off-heap struct collection using double struct key.
+     * Keys are compared in IEEE 754 total order, see {@link OffHeapStructSorter#sortByDoubleKey(OffHeapStructCollection, int)}.
+     * Searching in an unsorted collection has an undefined result. It's also undefined which element
+     * is found if there are multiple occurrences of the same element.
+     *
+     * @param collection the sorted array to search.
+     * @param value the element to find.
+     * @param keyOffset double key field offset within stuct bounds
+     * @return the non-negative index of the element, or a negative index which
+     *         is {@code -index - 1} where the element would be inserted.
+     */
+    public static long binarySearchByDoubleKey(OffHeapStructCollection collection, double value, int keyOffset) {
+        return binarySearchByDoubleKey(collection, 0, collection.size(), value, keyOffset);
+    }
+
+    /**
+     * Performs a binary search for {@code value} in the ascending sorted off-heap struct collection using double struct key.
+     * in the range specified by fromIndex (inclusive) and toIndex (exclusive).
+     * Keys are compared in IEEE 754 total order, see {@link OffHeapStructSorter#sortByDoubleKey(OffHeapStructCollection, int)}.
+     * Searching in an unsorted collection has an undefined result. It's also undefined which element
+     * is found if there are multiple occurrences of the same element.
+     *
+     * @param collection      the sorted collection to search.
+     * @param startIndex the inclusive start index.
+     * @param endIndex   the exclusive end index.
+     * @param value      the element to find.
+     * @param keyOffset  double key field offset within stuct bounds
+     * @return the non-negative index of the element, or a negative index which
+     *         is {@code -index - 1} where the element would be inserted.
+     * @throws IllegalArgumentException {@code if (startIndex < 0 || startIndex > endIndex || endIndex > collection.size()}
+     */
+    public static long binarySearchByDoubleKey(OffHeapStructCollection collection, long startIndex, long endIndex, double value, int keyOffset) {
+        if (startIndex < 0 || startIndex > endIndex || endIndex > collection.size()) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + collection.size() + "], " +
+                    "startIndex: [" + startIndex + "], endIndex: [" + endIndex + "]");
+        }
+        long key = doubleKey(Double.doubleToRawLongBits(value));
+        long lo = startIndex;
+        long hi = endIndex - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long midVal = doubleKey(collection.getLong(mid, keyOffset));
+
+            if (midVal < key) {
+                lo = mid + 1;
+            } else if (midVal > key) {
+                hi = mid - 1;
+            } else {
+                return mid;  // value found
+            }
+        }
+        return ~lo;  // value not present
+    }
+
+    /**
+     * Performs a binary search for {@code value} in the ascending sorted off-heap struct collection using double struct key.
+     * Returns range of indices having given value or empty range.
+     * Keys are compared in IEEE 754 total order, see {@link OffHeapStructSorter#sortByDoubleKey(OffHeapStructCollection, int)}.
+     * Searching in an unsorted collection has an undefined result. It's also undefined which element
+     * is found if there are multiple occurrences of the same element.
+     *
+     * @param collection the sorted array to search.
+     * @param value the element to find.
+     * @param keyOffset  double key field offset within stuct bounds
+     * @param out range instance, will be set with start/end indices having given value or with empty value
+     */
+    public static void binarySearchRangeByDoubleKey(OffHeapStructCollection collection, double value, int keyOffset, IndexRange out) {
+        binarySearchRangeByDoubleKey(collection, 0, collection.size(), value, keyOffset, out);
+    }
+
+    /**
+     * Performs a binary search for {@code value} in the ascending sorted off-heap struct collection using double struct key.
+     * Returns range of indices having given value or empty range.
+     * Keys are compared in IEEE 754 total order, see {@link OffHeapStructSorter#sortByDoubleKey(OffHeapStructCollection, int)}.
+     * Searching in an unsorted collection has an undefined result. It's also undefined which element
+     * is found if there are multiple occurrences of the same element.
+     *
+     * @param collection the sorted array to search.
+     * @param startIndex the inclusive start index.
+     * @param endIndex   the exclusive end index.
+     * @param value the element to find.
+     * @param keyOffset  double key field offset within stuct bounds
+     * @param out range instance, will be set with start/end indices having given value or with empty value
+     */
+    public static void binarySearchRangeByDoubleKey(OffHeapStructCollection collection, long startIndex, long endIndex,
+                                               double value, int keyOffset, IndexRange out) {
+        long ind = binarySearchByDoubleKey(collection, startIndex, endIndex, value, keyOffset);
+        if(ind < 0) {
+            out.setEmpty(ind);
+            return;
+        }
+        long key = doubleKey(collection.getLong(ind, keyOffset));
+        long from = ind;
+        while (from >= startIndex && key == doubleKey(collection.getLong(from, keyOffset))) {
+            from -= 1;
+        }
+        from += 1;
+        long to = ind;
+        while (to < endIndex && key == doubleKey(collection.getLong(to, keyOffset))) {
+            to += 1;
+        }
+        to -= 1;
+        out.set(from, to);
+    }
+
+
+    // float key part
+
+    /**
+     * Performs a binary search for {@code value} in the ascending sorted off-heap struct collection using float struct key.
+     * Keys are compared in IEEE 754 total order, see {@link OffHeapStructSorter#sortByFloatKey(OffHeapStructCollection, int)}.
+     * Searching in an unsorted collection has an undefined result. It's also undefined which element
+     * is found if there are multiple occurrences of the same element.
+     *
+     * @param collection the sorted array to search.
+     * @param value the element to find.
+     * @param keyOffset float key field offset within stuct bounds
+     * @return the non-negative index of the element, or a negative index which
+     *         is {@code -index - 1} where the element would be inserted.
+     */
+    public static long binarySearchByFloatKey(OffHeapStructCollection collection, float value, int keyOffset) {
+        return binarySearchByFloatKey(collection, 0, collection.size(), value, keyOffset);
+    }
+
+    /**
+     * Performs a binary search for {@code value} in the ascending sorted off-heap struct collection using float struct key.
+     * in the range specified by fromIndex (inclusive) and toIndex (exclusive).
+     * Keys are compared in IEEE 754 total order, see {@link OffHeapStructSorter#sortByFloatKey(OffHeapStructCollection, int)}.
+     * Searching in an unsorted collection has an undefined result. It's also undefined which element
+     * is found if there are multiple occurrences of the same element.
+     *
+     * @param collection      the sorted collection to search.
+     * @param startIndex the inclusive start index.
+     * @param endIndex   the exclusive end index.
+     * @param value      the element to find.
+     * @param keyOffset  float key field offset within stuct bounds
+     * @return the non-negative index of the element, or a negative index which
+     *         is {@code -index - 1} where the element would be inserted.
+     * @throws IllegalArgumentException {@code if (startIndex < 0 || startIndex > endIndex || endIndex > collection.size()}
+     */
+    public static long binarySearchByFloatKey(OffHeapStructCollection collection, long startIndex, long endIndex, float value, int keyOffset) {
+        if (startIndex < 0 || startIndex > endIndex || endIndex > collection.size()) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + collection.size() + "], " +
+                    "startIndex: [" + startIndex + "], endIndex: [" + endIndex + "]");
+        }
+        long key = floatKey(Float.floatToRawIntBits(value));
+        long lo = startIndex;
+        long hi = endIndex - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long midVal = floatKey(collection.getInt(mid, keyOffset));
+
+            if (midVal < key) {
+                lo = mid + 1;
+            } else if (midVal > key) {
+                hi = mid - 1;
+            } else {
+                return mid;  // value found
+            }
+        }
+        return ~lo;  // value not present
+    }
+
+    /**
+     * Performs a binary search for {@code value} in the ascending sorted off-heap struct collection using float struct key.
+     * Returns range of indices having given value or empty range.
+     * Keys are compared in IEEE 754 total order, see {@link OffHeapStructSorter#sortByFloatKey(OffHeapStructCollection, int)}.
+     * Searching in an unsorted collection has an undefined result. It's also undefined which element
+     * is found if there are multiple occurrences of the same element.
+     *
+     * @param collection the sorted array to search.
+     * @param value the element to find.
+     * @param keyOffset  float key field offset within stuct bounds
+     * @param out range instance, will be set with start/end indices having given value or with empty value
+     */
+    public static void binarySearchRangeByFloatKey(OffHeapStructCollection collection, float value, int keyOffset, IndexRange out) {
+        binarySearchRangeByFloatKey(collection, 0, collection.size(), value, keyOffset, out);
+    }
+
+    /**
+     * Performs a binary search for {@code value} in the ascending sorted off-heap struct collection using float struct key.
+     * Returns range of indices having given value or empty range.
+     * Keys are compared in IEEE 754 total order, see {@link OffHeapStructSorter#sortByFloatKey(OffHeapStructCollection, int)}.
+     * Searching in an unsorted collection has an undefined result. It's also undefined which element
+     * is found if there are multiple occurrences of the same element.
+     *
+     * @param collection the sorted array to search.
+     * @param startIndex the inclusive start index.
+     * @param endIndex   the exclusive end index.
+     * @param value the element to find.
+     * @param keyOffset  float key field offset within stuct bounds
+     * @param out range instance, will be set with start/end indices having given value or with empty value
+     */
+    public static void binarySearchRangeByFloatKey(OffHeapStructCollection collection, long startIndex, long endIndex,
+                                               float value, int keyOffset, IndexRange out) {
+        long ind = binarySearchByFloatKey(collection, startIndex, endIndex, value, keyOffset);
+        if(ind < 0) {
+            out.setEmpty(ind);
+            return;
+        }
+        long key = floatKey(collection.getInt(ind, keyOffset));
+        long from = ind;
+        while (from >= startIndex && key == floatKey(collection.getInt(from, keyOffset))) {
+            from -= 1;
+        }
+        from += 1;
+        long to = ind;
+        while (to < endIndex && key == floatKey(collection.getInt(to, keyOffset))) {
+            to += 1;
+        }
+        to -= 1;
+        out.set(from, to);
+    }
+
+
+    // flips all bits except sign for negative values, so signed comparison of the result gives total order
+    private static long doubleKey(long bits) {
+        return bits ^ ((bits >> 63) >>> 1);
+    }
+
+    private static long floatKey(int bits) {
+        return bits ^ ((bits >> 31) >>> 1);
+    }
+
     /**
      * {@link OffHeapStructCollection} index range representation.
      * Was made mutable to prevent new object instantiation for each search.
@@ -198,4 +198,157 @@ public interface OffHeapStructCollection extends OffHeapDisposableIterable<byte[
      * @param value long value
      */
     void putLong(long index, int offset, long value);
+
+    /**
+     * Gets four bytes as float from struct on specified index with specified offset
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @return float value
+     */
+    float getFloat(long index, int offset);
+
+    /**
+     * Puts float into struct onto specified index with specified offset as four bytes
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @param value float value
+     */
+    void putFloat(long index, int offset, float value);
+
+    /**
+     * Gets eight bytes as double from struct on specified index with specified offset
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @return double value
+     */
+    double getDouble(long index, int offset);
+
+    /**
+     * Puts double into struct onto specified index with specified offset as eight bytes
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @param value double value
+     */
+    void putDouble(long index, int offset, double value);
+
+    /**
+     * Gets two bytes stored in big endian byte order as short from struct on specified index with specified offset
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @return short value
+     */
+    short getShortBE(long index, int offset);
+
+    /**
+     * Puts short into struct onto specified index with specified offset as two bytes in big endian byte order
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @param value short value
+     */
+    void putShortBE(long index, int offset, short value);
+
+    /**
+     * Gets four bytes stored in big endian byte order as int from struct on specified index with specified offset
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @return int value
+     */
+    int getIntBE(long index, int offset);
+
+    /**
+     * Puts int into struct onto specified index with specified offset as four bytes in big endian byte order
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @param value int value
+     */
+    void putIntBE(long index, int offset, int value);
+
+    /**
+     * Gets eight bytes stored in big endian byte order as long from struct on specified index with specified offset
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @return long value
+     */
+    long getLongBE(long index, int offset);
+
+    /**
+     * Puts long into struct onto specified index with specified offset as eight bytes in big endian byte order
+     *
+     * @param index array index
+     * @param offset byte array offset
+     * @param value long value
+     */
+    void putLongBE(long index, int offset, long value);
+
+    /**
+     * Finds the first byte that differs between parts of two structs
+     *
+     * @param index1 first struct index
+     * @param index2 second struct index
+     * @param offset struct offset of the compared part
+     * @param length number of bytes to compare
+     * @return position of the first mismatching byte relative to {@code offset}, {@code -1} if parts are equal
+     */
+    int mismatch(long index1, long index2, int offset, int length);
+
+    /**
+     * Checks whether parts of two structs have the same contents
+     *
+     * @param index1 first struct index
+     * @param index2 second struct index
+     * @param offset struct offset of the compared part
+     * @param length number of bytes to compare
+     * @return whether parts are equal
+     */
+    boolean equals(long index1, long index2, int offset, int length);
+
+    /**
+     * Compares parts of two structs lexicographically treating bytes as unsigned
+     *
+     * @param index1 first struct index
+     * @param index2 second struct index
+     * @param offset struct offset of the compared part
+     * @param length number of bytes to compare
+     * @return a negative integer, zero, or a positive integer as the first struct part
+     *         is less than, equal to, or greater than the second one
+     */
+    int compareUnsigned(long index1, long index2, int offset, int length);
+
+    /**
+     * Computes xxHash64 of the struct on specified index
+     *
+     * @param index struct index
+     * @return hash value
+     */
+    long hash64(long index);
+
+    /**
+     * Computes xxHash64 of the struct part on specified index
+     *
+     * @param index struct index
+     * @param offset struct offset of the hashed part
+     * @param length number of bytes to hash
+     * @return hash value
+     */
+    long hash64(long index, int offset, int length);
+
+    /**
+     * Computes xxHash64 of the struct part on specified index using specified seed
+     *
+     * @param index struct index
+     * @param offset struct offset of the hashed part
+     * @param length number of bytes to hash
+     * @param seed hash seed
+     * @return hash value
+     */
+    long hash64(long index, int offset, int length, long seed);
 }
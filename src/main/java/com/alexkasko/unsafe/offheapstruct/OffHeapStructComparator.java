@@ -271,6 +271,22 @@ class OffHeapStructComparator {
             return bt.getLong(struct, offset);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public float getFloat(int offset) {
+            return Float.intBitsToFloat(bt.getInt(struct, offset));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double getDouble(int offset) {
+            return Double.longBitsToDouble(bt.getLong(struct, offset));
+        }
+
         /**
          * Returns previously setted struct
          *
@@ -403,6 +419,22 @@ class OffHeapStructComparator {
             return col.getLong(index, offset);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public float getFloat(int offset) {
+            return Float.intBitsToFloat(col.getInt(index, offset));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double getDouble(int offset) {
+            return Double.longBitsToDouble(col.getLong(index, offset));
+        }
+
         /**
          * Sets index value
          *
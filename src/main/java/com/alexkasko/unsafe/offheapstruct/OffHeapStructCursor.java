@@ -0,0 +1,217 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+/**
+ * <p>Flyweight cursor over the range of structs of {@link OffHeapStructCollection}.
+ * Cursor is positioned on each struct in turn and provides in place access to it as {@link OffHeapStructAccessor},
+ * field reads go directly to the collection memory, so scan reading few fields of the large struct
+ * doesn't copy the rest of its bytes (unlike {@link OffHeapStructCollection#iterator()} that copies each struct
+ * into byte array). Structs may be traversed in ascending or descending index order.
+ *
+ * <p>Usage: {@code while (cur.next()) { sum += cur.getLong(8); }}. Cursor may be repositioned
+ * with {@link #reset(long, long, boolean)} and reused for any number of scans.
+ *
+ * <p>Cursor is NOT thread-safe, collection must not be freed while cursor is in use.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapStructCursor implements OffHeapStructAccessor {
+    private final OffHeapStructCollection col;
+    private final int structLength;
+    private long index;
+    private long end;
+    private boolean reverse;
+
+    /**
+     * Constructor, cursor will traverse the whole collection in ascending order
+     *
+     * @param col struct collection
+     */
+    public OffHeapStructCursor(OffHeapStructCollection col) {
+        this(col, 0, col.size(), false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param col struct collection
+     * @param fromIndex start index, inclusive
+     * @param toIndex end index, exclusive
+     * @param reverse whether to traverse the range in descending order
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > col.size())}
+     */
+    public OffHeapStructCursor(OffHeapStructCollection col, long fromIndex, long toIndex, boolean reverse) {
+        this.col = col;
+        this.structLength = col.structLength();
+        reset(fromIndex, toIndex, reverse);
+    }
+
+    /**
+     * Repositions this cursor before the first struct of the specified range
+     *
+     * @param fromIndex start index, inclusive
+     * @param toIndex end index, exclusive
+     * @param reverse whether to traverse the range in descending order
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > col.size())}
+     */
+    public void reset(long fromIndex, long toIndex, boolean reverse) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > col.size()) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + col.size() + "], " +
+                    "fromIndex: [" + fromIndex + "], toIndex: [" + toIndex + "]");
+        }
+        this.reverse = reverse;
+        if (reverse) {
+            this.index = toIndex;
+            this.end = fromIndex - 1;
+        } else {
+            this.index = fromIndex - 1;
+            this.end = toIndex;
+        }
+    }
+
+    /**
+     * Moves cursor to the next struct of the range, must be called before accessing the first struct
+     *
+     * @return {@code true} if cursor is positioned on the struct, {@code false} if range is exhausted
+     */
+    public boolean next() {
+        if (index == end) return false;
+        index += reverse ? -1 : 1;
+        return index != end;
+    }
+
+    /**
+     * Returns collection index of the current struct
+     *
+     * @return collection index of the current struct
+     */
+    public long index() {
+        return index;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int structLength() {
+        return structLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void get(byte[] buffer) {
+        col.get(index, buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void get(int srcPos, byte[] dest, int destPos, int length) {
+        col.get(index, srcPos, dest, destPos, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte getByte(int offset) {
+        return col.getByte(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getUnsignedByte(int offset) {
+        return col.getUnsignedByte(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShort(int offset) {
+        return col.getShort(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getUnsignedShort(int offset) {
+        return col.getUnsignedShort(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getInt(int offset) {
+        return col.getInt(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getUnsignedInt(int offset) {
+        return col.getUnsignedInt(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLong(int offset) {
+        return col.getLong(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getFloat(int offset) {
+        return col.getFloat(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getDouble(int offset) {
+        return col.getDouble(index, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapStructCursor");
+        sb.append("{index=").append(index);
+        sb.append(", end=").append(end);
+        sb.append(", reverse=").append(reverse);
+        sb.append('}');
+        return sb.toString();
+    }
+}
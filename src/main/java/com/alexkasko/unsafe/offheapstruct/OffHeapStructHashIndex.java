@@ -0,0 +1,487 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Hash index over the long or int field of {@link OffHeapStructCollection}, maps key values
+ * to indices of the structs containing them. Collection itself stays unchanged.
+ *
+ * <p>Index consists of two {@link com.alexkasko.unsafe.offheaplong.OffHeapLongArray}s: bucket heads
+ * (power of two number of buckets, not less than collection size) and chain links (one per struct).
+ * All structs of one bucket are chained in ascending index order, so structs with equal keys are returned
+ * in the order they appear in the collection.
+ *
+ * <p>Index is built in one pass over the collection. Parallel build computes bucket numbers
+ * for the parts of the collection in parallel counting rows for each range of buckets, groups struct indices
+ * by bucket ranges using prefix sums of these counts and then links chains in parallel, each worker
+ * reading only the structs of its own range of buckets. Index must be rebuilt after collection modification.
+ *
+ * <p>Usage example:
+ * <pre>{@code
+ * OffHeapStructHashIndex index = OffHeapStructHashIndex.byLongKey(collection, 0);
+ * for (long i = index.first(42); i >= 0; i = index.next(i)) {
+ *     // process struct with index i
+ * }
+ * }</pre>
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapStructHashIndex}
+ * will be garbage collected. Index is thread-safe for reading.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapStructHashIndex implements OffHeapDisposable {
+    private static final int MIN_CAPACITY = 8;
+
+    private final OffHeapStructCollection collection;
+    private final int keyOffset;
+    private final boolean longKey;
+    private final OffHeapLongArray heads;
+    private final OffHeapLongArray links;
+    private final long mask;
+
+    /**
+     * Private constructor, use static factory methods
+     *
+     * @param collection indexed collection
+     * @param keyOffset key field offset
+     * @param longKey whether key field is long or int
+     */
+    private OffHeapStructHashIndex(OffHeapStructCollection collection, int keyOffset, boolean longKey) {
+        int keyLength = longKey ? 8 : 4;
+        if (keyOffset < 0 || keyOffset > collection.structLength() - keyLength) throw new IllegalArgumentException(
+                "Illegal input, keyOffset: [" + keyOffset + "], structLength: [" + collection.structLength() + "]");
+        this.collection = collection;
+        this.keyOffset = keyOffset;
+        this.longKey = longKey;
+        long capacity = capacityFor(collection.size());
+        this.heads = new OffHeapLongArray(capacity);
+        this.links = new OffHeapLongArray(collection.size());
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Builds index over the long field of the collection
+     *
+     * @param collection collection to index
+     * @param keyOffset long key field offset within struct bounds
+     * @return index
+     */
+    public static OffHeapStructHashIndex byLongKey(OffHeapStructCollection collection, int keyOffset) {
+        OffHeapStructHashIndex index = new OffHeapStructHashIndex(collection, keyOffset, true);
+        index.build();
+        return index;
+    }
+
+    /**
+     * Builds index over the long field of the collection in parallel
+     *
+     * @param executor executor for parallel build
+     * @param threads number of worker threads to use
+     * @param collection collection to index
+     * @param keyOffset long key field offset within struct bounds
+     * @return index
+     * @throws RuntimeException on worker thread error
+     */
+    public static OffHeapStructHashIndex byLongKey(Executor executor, int threads, OffHeapStructCollection collection,
+                                                   int keyOffset) {
+        OffHeapStructHashIndex index = new OffHeapStructHashIndex(collection, keyOffset, true);
+        index.buildParallel(executor, threads);
+        return index;
+    }
+
+    /**
+     * Builds index over the int field of the collection
+     *
+     * @param collection collection to index
+     * @param keyOffset int key field offset within struct bounds
+     * @return index
+     */
+    public static OffHeapStructHashIndex byIntKey(OffHeapStructCollection collection, int keyOffset) {
+        OffHeapStructHashIndex index = new OffHeapStructHashIndex(collection, keyOffset, false);
+        index.build();
+        return index;
+    }
+
+    /**
+     * Builds index over the int field of the collection in parallel
+     *
+     * @param executor executor for parallel build
+     * @param threads number of worker threads to use
+     * @param collection collection to index
+     * @param keyOffset int key field offset within struct bounds
+     * @return index
+     * @throws RuntimeException on worker thread error
+     */
+    public static OffHeapStructHashIndex byIntKey(Executor executor, int threads, OffHeapStructCollection collection,
+                                                  int keyOffset) {
+        OffHeapStructHashIndex index = new OffHeapStructHashIndex(collection, keyOffset, false);
+        index.buildParallel(executor, threads);
+        return index;
+    }
+
+    /**
+     * Whether unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return heads.isUnsafe();
+    }
+
+    /**
+     * Returns index of the first struct containing specified key
+     *
+     * @param key key to look for, int keys are compared after widening to long
+     * @return index of the first struct with this key or {@code -1} if key is not found
+     */
+    public long first(long key) {
+        return find(heads.get(hash(key) & mask), key);
+    }
+
+    /**
+     * Returns index of the next struct containing the same key as the struct with specified index
+     *
+     * @param index index of the struct returned by {@link #first(long)} or by previous {@link #next(long)} call
+     * @return index of the next struct with the same key or {@code -1} if there are no more such structs
+     */
+    public long next(long index) {
+        return find(links.get(index), key(index));
+    }
+
+    /**
+     * Checks whether collection contains specified key
+     *
+     * @param key key to look for
+     * @return whether key is present
+     */
+    public boolean contains(long key) {
+        return first(key) >= 0;
+    }
+
+    /**
+     * Returns number of structs containing specified key
+     *
+     * @param key key to look for
+     * @return number of structs with this key
+     */
+    public long count(long key) {
+        long res = 0;
+        for (long i = first(key); i >= 0; i = find(links.get(i), key)) {
+            res += 1;
+        }
+        return res;
+    }
+
+    /**
+     * Returns indexed collection
+     *
+     * @return indexed collection
+     */
+    public OffHeapStructCollection collection() {
+        return collection;
+    }
+
+    /**
+     * Returns key field offset
+     *
+     * @return key field offset
+     */
+    public int keyOffset() {
+        return keyOffset;
+    }
+
+    /**
+     * Returns number of buckets
+     *
+     * @return number of buckets
+     */
+    public long capacity() {
+        return heads.size();
+    }
+
+    /**
+     * Frees memory allocated for index, indexed collection is not freed
+     */
+    @Override
+    public void free() {
+        heads.free();
+        links.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapStructHashIndex");
+        sb.append("{size=").append(links.size());
+        sb.append(", capacity=").append(heads.size());
+        sb.append(", keyOffset=").append(keyOffset);
+        sb.append(", longKey=").append(longKey);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    // walks the chain starting from specified struct up to the first struct with specified key
+    private long find(long start, long key) {
+        for (long i = start; i >= 0; i = links.get(i)) {
+            if (key(i) == key) return i;
+        }
+        return -1;
+    }
+
+    private long key(long index) {
+        return longKey ? collection.getLong(index, keyOffset) : collection.getInt(index, keyOffset);
+    }
+
+    private void build() {
+        for (long i = 0, cap = heads.size(); i < cap; i++) {
+            heads.set(i, -1);
+        }
+        // descending pass keeps chains in ascending order
+        for (long i = links.size() - 1; i >= 0; i--) {
+            long bucket = hash(key(i)) & mask;
+            links.set(i, heads.get(bucket));
+            heads.set(bucket, i);
+        }
+    }
+
+    private void buildParallel(Executor executor, int threads) {
+        if (threads <= 1 || links.size() < threads) {
+            build();
+            return;
+        }
+        long size = links.size();
+        long step = (size + threads - 1) / threads;
+        int chunks = (int) ((size + step - 1) / step);
+        long cap = heads.size();
+        long capStep = (cap + threads - 1) / threads;
+        int parts = (int) ((cap + capStep - 1) / capStep);
+        // rows counts for each rows chunk and buckets partition
+        long[][] counts = new long[chunks][parts];
+        OffHeapLongArray buckets = new OffHeapLongArray(size);
+        OffHeapLongArray order = null;
+        try {
+            LimitedInvoker invoker = new LimitedInvoker(executor, threads);
+            List<BucketWorker> bucketWorkers = new ArrayList<BucketWorker>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                long from = c * step;
+                bucketWorkers.add(new BucketWorker(this, buckets, from, Math.min(from + step, size), capStep, counts[c]));
+            }
+            invoker.invokeAll(bucketWorkers);
+            // prefix sums, rows of each partition are grouped together in ascending rows order
+            long[] partStarts = new long[parts + 1];
+            long pos = 0;
+            for (int p = 0; p < parts; p++) {
+                partStarts[p] = pos;
+                for (int c = 0; c < chunks; c++) {
+                    long count = counts[c][p];
+                    counts[c][p] = pos;
+                    pos += count;
+                }
+            }
+            partStarts[parts] = pos;
+            order = new OffHeapLongArray(size);
+            List<ScatterWorker> scatterWorkers = new ArrayList<ScatterWorker>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                long from = c * step;
+                scatterWorkers.add(new ScatterWorker(buckets, order, from, Math.min(from + step, size), capStep, counts[c]));
+            }
+            invoker.invokeAll(scatterWorkers);
+            List<LinkWorker> linkWorkers = new ArrayList<LinkWorker>(parts);
+            for (int p = 0; p < parts; p++) {
+                long from = p * capStep;
+                linkWorkers.add(new LinkWorker(this, buckets, order, from, Math.min(from + capStep, cap),
+                        partStarts[p], partStarts[p + 1]));
+            }
+            invoker.invokeAll(linkWorkers);
+        } finally {
+            buckets.free();
+            if (null != order) order.free();
+        }
+    }
+
+    private static long capacityFor(long size) {
+        long cap = Long.highestOneBit(Math.max(size, 1));
+        if (cap < size) cap <<= 1;
+        return Math.max(MIN_CAPACITY, cap);
+    }
+
+    // murmur3 finalizer, spreads sequential keys over the buckets
+    private static long hash(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Computes bucket numbers for the part of the collection and counts its rows for each buckets partition
+     */
+    private static class BucketWorker implements Runnable {
+        private final OffHeapStructHashIndex index;
+        private final OffHeapLongArray buckets;
+        private final long from;
+        private final long to;
+        private final long partLength;
+        private final long[] counts;
+
+        /**
+         * Private constructor
+         *
+         * @param index index being built
+         * @param buckets array for bucket numbers
+         * @param from start struct index, inclusive
+         * @param to end struct index, exclusive
+         * @param partLength number of buckets in partition
+         * @param counts rows counts for each partition, owned by this worker
+         */
+        private BucketWorker(OffHeapStructHashIndex index, OffHeapLongArray buckets, long from, long to,
+                             long partLength, long[] counts) {
+            this.index = index;
+            this.buckets = buckets;
+            this.from = from;
+            this.to = to;
+            this.partLength = partLength;
+            this.counts = counts;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            for (long i = from; i < to; i++) {
+                long bucket = hash(index.key(i)) & index.mask;
+                buckets.set(i, bucket);
+                counts[(int) (bucket / partLength)] += 1;
+            }
+        }
+    }
+
+    /**
+     * Writes indices of the part of the collection into the positions of their buckets partitions
+     */
+    private static class ScatterWorker implements Runnable {
+        private final OffHeapLongArray buckets;
+        private final OffHeapLongArray order;
+        private final long from;
+        private final long to;
+        private final long partLength;
+        private final long[] positions;
+
+        /**
+         * Private constructor
+         *
+         * @param buckets computed bucket numbers
+         * @param order array for struct indices grouped by partitions
+         * @param from start struct index, inclusive
+         * @param to end struct index, exclusive
+         * @param partLength number of buckets in partition
+         * @param positions start positions in order array for each partition, owned by this worker
+         */
+        private ScatterWorker(OffHeapLongArray buckets, OffHeapLongArray order, long from, long to,
+                              long partLength, long[] positions) {
+            this.buckets = buckets;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.partLength = partLength;
+            this.positions = positions;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            for (long i = from; i < to; i++) {
+                int part = (int) (buckets.get(i) / partLength);
+                order.set(positions[part]++, i);
+            }
+        }
+    }
+
+    /**
+     * Links chains for the range of buckets reading only the structs of this range,
+     * chain links of different workers never overlap
+     */
+    private static class LinkWorker implements Runnable {
+        private final OffHeapStructHashIndex index;
+        private final OffHeapLongArray buckets;
+        private final OffHeapLongArray order;
+        private final long from;
+        private final long to;
+        private final long orderFrom;
+        private final long orderTo;
+
+        /**
+         * Private constructor
+         *
+         * @param index index being built
+         * @param buckets computed bucket numbers
+         * @param order struct indices grouped by partitions
+         * @param from start bucket, inclusive
+         * @param to end bucket, exclusive
+         * @param orderFrom start position of partition structs in order array, inclusive
+         * @param orderTo end position of partition structs in order array, exclusive
+         */
+        private LinkWorker(OffHeapStructHashIndex index, OffHeapLongArray buckets, OffHeapLongArray order,
+                           long from, long to, long orderFrom, long orderTo) {
+            this.index = index;
+            this.buckets = buckets;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.orderFrom = orderFrom;
+            this.orderTo = orderTo;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            OffHeapLongArray heads = index.heads;
+            OffHeapLongArray links = index.links;
+            for (long i = from; i < to; i++) {
+                heads.set(i, -1);
+            }
+            // descending pass keeps chains in ascending order
+            for (long j = orderTo - 1; j >= orderFrom; j--) {
+                long i = order.get(j);
+                long bucket = buckets.get(i);
+                links.set(i, heads.get(bucket));
+                heads.set(bucket, i);
+            }
+        }
+    }
+}
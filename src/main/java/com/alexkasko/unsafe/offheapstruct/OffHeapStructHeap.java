@@ -0,0 +1,375 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import com.alexkasko.unsafe.offheap.OffHeapDisposable;
+
+import java.util.Comparator;
+
+/**
+ * <p>Binary min-heap (priority queue) of structs using {@link OffHeapStructArrayList} as storage.
+ * Structs are ordered by long or int field with specified offset or using provided {@link java.util.Comparator},
+ * head of the heap is the smallest struct. Structs are copied into the heap.
+ *
+ * <p>Heap bounded to {@code k} elements with {@link #replaceTop(byte[])} is used by {@code topK} methods
+ * to select {@code k} largest structs from the collection in single pass in {@code O(n log k)}
+ * without sorting the whole collection. Key fields are compared in place, only selected structs are copied
+ * through one preallocated buffer.
+ *
+ * <p>Allocated memory may be freed manually using {@link #free()} (thread-safe
+ * and may be called multiple times) or it will be freed after {@link OffHeapStructHeap}
+ * will be garbage collected. Heap is NOT thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapStructHeap implements OffHeapDisposable {
+    private static final int LONG_KEY = 0;
+    private static final int INT_KEY = 1;
+    private static final int COMPARATOR = 2;
+
+    private final ByteArrayTool bt = ByteArrayTool.get();
+    private final OffHeapStructArrayList data;
+    private final int keyType;
+    private final int keyOffset;
+    private final OffHeapStructComparator comparator;
+    private final byte[] hole;
+    private final byte[] tmp;
+    private long size;
+
+    private OffHeapStructHeap(long capacity, int structLength, int keyType, int keyOffset,
+                              Comparator<OffHeapStructAccessor> comparator) {
+        if (capacity < 0) throw new IllegalArgumentException("Illegal capacity: [" + capacity + "]");
+        if (structLength <= 0) throw new IllegalArgumentException("Illegal structLength: [" + structLength + "]");
+        int keyLength = LONG_KEY == keyType ? 8 : 4;
+        if (COMPARATOR != keyType && (keyOffset < 0 || keyOffset > structLength - keyLength)) throw new IllegalArgumentException(
+                "Illegal input, keyOffset: [" + keyOffset + "], structLength: [" + structLength + "]");
+        this.data = new OffHeapStructArrayList(capacity, structLength);
+        this.keyType = keyType;
+        this.keyOffset = keyOffset;
+        this.comparator = null != comparator ? new OffHeapStructComparator(data, comparator) : null;
+        this.hole = new byte[structLength];
+        this.tmp = new byte[structLength];
+    }
+
+    /**
+     * Creates heap ordered by long field
+     *
+     * @param structLength length of struct in bytes
+     * @param keyOffset long key field offset within struct bounds
+     * @return heap
+     */
+    public static OffHeapStructHeap byLongKey(int structLength, int keyOffset) {
+        return new OffHeapStructHeap(12, structLength, LONG_KEY, keyOffset, null);
+    }
+
+    /**
+     * Creates heap ordered by int field
+     *
+     * @param structLength length of struct in bytes
+     * @param keyOffset int key field offset within struct bounds
+     * @return heap
+     */
+    public static OffHeapStructHeap byIntKey(int structLength, int keyOffset) {
+        return new OffHeapStructHeap(12, structLength, INT_KEY, keyOffset, null);
+    }
+
+    /**
+     * Creates heap ordered using specified comparator
+     *
+     * @param structLength length of struct in bytes
+     * @param comparator structs comparator
+     * @return heap
+     */
+    public static OffHeapStructHeap withComparator(int structLength, Comparator<OffHeapStructAccessor> comparator) {
+        if (null == comparator) throw new IllegalArgumentException("Provided comparator is null");
+        return new OffHeapStructHeap(12, structLength, COMPARATOR, 0, comparator);
+    }
+
+    /**
+     * Selects {@code k} structs with the largest long key field from the collection
+     *
+     * @param col input collection
+     * @param k number of structs to select
+     * @param keyOffset long key field offset within struct bounds
+     * @return selected structs sorted by key in descending order, must be freed by caller
+     */
+    public static OffHeapStructArray topK(OffHeapStructCollection col, long k, int keyOffset) {
+        OffHeapStructHeap heap = new OffHeapStructHeap(topKLength(col, k), col.structLength(), LONG_KEY, keyOffset, null);
+        try {
+            long len = topKLength(col, k);
+            byte[] buf = new byte[col.structLength()];
+            for (long i = 0, size = col.size(); i < size; i++) {
+                if (heap.size < len) {
+                    col.get(i, buf);
+                    heap.add(buf);
+                } else if (len > 0 && col.getLong(i, keyOffset) > heap.data.getLong(0, keyOffset)) {
+                    col.get(i, buf);
+                    heap.replaceTop(buf);
+                }
+            }
+            return heap.drainDescending(buf);
+        } finally {
+            heap.free();
+        }
+    }
+
+    /**
+     * Selects {@code k} structs with the largest int key field from the collection
+     *
+     * @param col input collection
+     * @param k number of structs to select
+     * @param keyOffset int key field offset within struct bounds
+     * @return selected structs sorted by key in descending order, must be freed by caller
+     */
+    public static OffHeapStructArray topKByIntKey(OffHeapStructCollection col, long k, int keyOffset) {
+        OffHeapStructHeap heap = new OffHeapStructHeap(topKLength(col, k), col.structLength(), INT_KEY, keyOffset, null);
+        try {
+            long len = topKLength(col, k);
+            byte[] buf = new byte[col.structLength()];
+            for (long i = 0, size = col.size(); i < size; i++) {
+                if (heap.size < len) {
+                    col.get(i, buf);
+                    heap.add(buf);
+                } else if (len > 0 && col.getInt(i, keyOffset) > heap.data.getInt(0, keyOffset)) {
+                    col.get(i, buf);
+                    heap.replaceTop(buf);
+                }
+            }
+            return heap.drainDescending(buf);
+        } finally {
+            heap.free();
+        }
+    }
+
+    /**
+     * Selects {@code k} largest structs from the collection in order of specified comparator
+     *
+     * @param col input collection
+     * @param k number of structs to select
+     * @param comparator structs comparator
+     * @return selected structs sorted in descending order, must be freed by caller
+     */
+    public static OffHeapStructArray topK(OffHeapStructCollection col, long k, Comparator<OffHeapStructAccessor> comparator) {
+        if (null == comparator) throw new IllegalArgumentException("Provided comparator is null");
+        OffHeapStructHeap heap = new OffHeapStructHeap(topKLength(col, k), col.structLength(), COMPARATOR, 0, comparator);
+        try {
+            long len = topKLength(col, k);
+            byte[] buf = new byte[col.structLength()];
+            for (long i = 0, size = col.size(); i < size; i++) {
+                col.get(i, buf);
+                if (heap.size < len) {
+                    heap.add(buf);
+                } else if (len > 0 && heap.comparator.compare(0, buf) < 0) {
+                    heap.replaceTop(buf);
+                }
+            }
+            return heap.drainDescending(buf);
+        } finally {
+            heap.free();
+        }
+    }
+
+    /**
+     * Whether unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory} is used
+     *
+     * @return whether unsafe implementation of {@link com.alexkasko.unsafe.offheap.OffHeapMemory} is used
+     */
+    public boolean isUnsafe() {
+        return data.isUnsafe();
+    }
+
+    /**
+     * Copies struct into the heap
+     *
+     * @param struct struct to add
+     */
+    public void add(byte[] struct) {
+        if (size == data.size()) {
+            data.add(struct);
+        }
+        siftUp(size, struct);
+        size += 1;
+    }
+
+    /**
+     * Copies the smallest struct into provided buffer without removing it
+     *
+     * @param buffer buffer with length not less than {@code structLength}
+     * @return {@code false} if heap is empty
+     */
+    public boolean peek(byte[] buffer) {
+        if (0 == size) return false;
+        data.get(0, buffer);
+        return true;
+    }
+
+    /**
+     * Removes the smallest struct from the heap copying it into provided buffer
+     *
+     * @param buffer buffer with length not less than {@code structLength}
+     * @return {@code false} if heap is empty
+     */
+    public boolean poll(byte[] buffer) {
+        if (0 == size) return false;
+        data.get(0, buffer);
+        size -= 1;
+        if (size > 0) {
+            data.get(size, hole);
+            siftDown(0, hole);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the smallest struct with specified one, is more efficient than {@code poll} followed by {@code add}
+     *
+     * @param struct struct to add
+     * @return {@code false} if heap is empty and nothing was replaced
+     */
+    public boolean replaceTop(byte[] struct) {
+        if (0 == size) return false;
+        siftDown(0, struct);
+        return true;
+    }
+
+    /**
+     * Returns number of structs in the heap
+     *
+     * @return number of structs
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Whether heap is empty
+     *
+     * @return whether heap is empty
+     */
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    /**
+     * Returns length of the single struct in bytes
+     *
+     * @return length of the single struct in bytes
+     */
+    public int structLength() {
+        return data.structLength();
+    }
+
+    /**
+     * Removes all structs from the heap, memory stays allocated
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Frees allocated memory, may be called multiple times from any thread
+     */
+    @Override
+    public void free() {
+        data.free();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("OffHeapStructHeap");
+        sb.append("{size=").append(size);
+        sb.append(", structLength=").append(data.structLength());
+        sb.append(", keyType=").append(keyType);
+        sb.append(", keyOffset=").append(keyOffset);
+        sb.append(", unsafe=").append(isUnsafe());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static long topKLength(OffHeapStructCollection col, long k) {
+        if (k < 0) throw new IllegalArgumentException("Illegal k: [" + k + "]");
+        return Math.min(k, col.size());
+    }
+
+    // buffer must not be one of the internal buffers used by sift operations
+    private OffHeapStructArray drainDescending(byte[] buffer) {
+        OffHeapStructArray res = new OffHeapStructArray(size, data.structLength());
+        for (long i = size - 1; i >= 0; i--) {
+            poll(buffer);
+            res.set(i, buffer);
+        }
+        return res;
+    }
+
+    // compares struct in heap slot with struct in buffer
+    private int compare(long index, byte[] struct) {
+        switch (keyType) {
+            case LONG_KEY: return compareLongs(data.getLong(index, keyOffset), bt.getLong(struct, keyOffset));
+            case INT_KEY: return compareLongs(data.getInt(index, keyOffset), bt.getInt(struct, keyOffset));
+            default: return comparator.compare(index, struct);
+        }
+    }
+
+    // compares structs in heap slots
+    private boolean less(long index1, long index2) {
+        switch (keyType) {
+            case LONG_KEY: return data.getLong(index1, keyOffset) < data.getLong(index2, keyOffset);
+            case INT_KEY: return data.getInt(index1, keyOffset) < data.getInt(index2, keyOffset);
+            default: return comparator.gt(index2, index1);
+        }
+    }
+
+    private static int compareLongs(long l1, long l2) {
+        return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+    }
+
+    private void move(long from, long to) {
+        data.get(from, tmp);
+        data.set(to, tmp);
+    }
+
+    // moves the hole at pos up until struct may be put into it
+    private void siftUp(long pos, byte[] struct) {
+        while (pos > 0) {
+            long parent = (pos - 1) >>> 1;
+            if (compare(parent, struct) <= 0) break;
+            move(parent, pos);
+            pos = parent;
+        }
+        data.set(pos, struct);
+    }
+
+    // moves the hole at pos down until struct may be put into it
+    private void siftDown(long pos, byte[] struct) {
+        long half = size >>> 1;
+        while (pos < half) {
+            long child = (pos << 1) + 1;
+            long right = child + 1;
+            if (right < size && less(right, child)) child = right;
+            if (compare(child, struct) >= 0) break;
+            move(child, pos);
+            pos = child;
+        }
+        data.set(pos, struct);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import static com.alexkasko.unsafe.offheapstruct.OffHeapStructSorter.INSERTION_SORT_THRESHOLD;
+
+/**
+ * Selection ("nth element") and partial sorting of struct collections by long or int key field.
+ * Uses dual-pivot partitioning with pivots chosen the same way as in sorters, descends only into
+ * the part containing the requested index and falls back to sorting the remaining range
+ * if partitioning doesn't converge (introselect).
+ *
+ * @author alexkasko
+ * Date: 10/19/14
+ */
+class OffHeapStructSelector {
+
+    /**
+     * Selects element on index {@code k} using long or int key
+     *
+     * @param a the off-heap struct collection
+     * @param k index of the element to select
+     * @param keyOffset key field offset within struct bounds
+     * @param longKey whether key is long or int
+     * @throws IllegalArgumentException {@code if (k < 0 || k >= a.size())}
+     */
+    static void select(OffHeapStructCollection a, long k, int keyOffset, boolean longKey) {
+        if (k < 0 || k >= a.size()) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + a.size() + "], k: [" + k + "]");
+        }
+        int len = a.structLength();
+        doSelect(a, 0, a.size() - 1, k, keyOffset, longKey, new byte[len], new byte[len]);
+    }
+
+    /**
+     * Partially sorts collection so that range of length {@code k} starting from {@code fromIndex}
+     * contains elements that would be there if collection were sorted
+     *
+     * @param a the off-heap struct collection
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param k number of elements to be sorted
+     * @param keyOffset key field offset within struct bounds
+     * @param longKey whether key is long or int
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || k < 0 || fromIndex + k > a.size())}
+     */
+    static void partialSort(OffHeapStructCollection a, long fromIndex, long k, int keyOffset, boolean longKey) {
+        if (fromIndex < 0 || k < 0 || fromIndex > a.size() - k) {
+            throw new IllegalArgumentException("Illegal input, collection size: [" + a.size() + "], " +
+                    "fromIndex: [" + fromIndex + "], k: [" + k + "]");
+        }
+        if (0 == k) return;
+        int len = a.structLength();
+        byte[] b1 = new byte[len];
+        byte[] b2 = new byte[len];
+        long right = a.size() - 1;
+        long last = fromIndex + k - 1;
+        if (fromIndex > 0) doSelect(a, 0, right, fromIndex, keyOffset, longKey, b1, b2);
+        doSelect(a, fromIndex, right, last, keyOffset, longKey, b1, b2);
+        sort(a, fromIndex, last, keyOffset, longKey);
+    }
+
+    private static void doSelect(OffHeapStructCollection a, long left, long right, long k, int keyOffset,
+                                 boolean longKey, byte[] b1, byte[] b2) {
+        // introselect: limit partitioning steps, sort the rest on bad pivots
+        int depth = 2 * (64 - Long.numberOfLeadingZeros(right - left + 1));
+        while (right - left + 1 >= INSERTION_SORT_THRESHOLD && depth-- > 0) {
+            // Pivots are the second and fourth of the five evenly spaced elements, as in sorters
+            long sixth = (right - left + 1) / 6;
+            long e3 = (left + right) >>> 1;
+            long ae1 = key(a, left + sixth, keyOffset, longKey), ae2 = key(a, e3 - sixth, keyOffset, longKey),
+                    ae3 = key(a, e3, keyOffset, longKey), ae4 = key(a, e3 + sixth, keyOffset, longKey),
+                    ae5 = key(a, right - sixth, keyOffset, longKey);
+
+            if (ae1 > ae2) { long t = ae1; ae1 = ae2; ae2 = t; }
+            if (ae4 > ae5) { long t = ae4; ae4 = ae5; ae5 = t; }
+            if (ae1 > ae3) { long t = ae1; ae1 = ae3; ae3 = t; }
+            if (ae2 > ae3) { long t = ae2; ae2 = ae3; ae3 = t; }
+            if (ae1 > ae4) { long t = ae1; ae1 = ae4; ae4 = t; }
+            if (ae3 > ae4) { long t = ae3; ae3 = ae4; ae4 = t; }
+            if (ae2 > ae5) { long t = ae2; ae2 = ae5; ae5 = t; }
+            if (ae2 > ae3) { long t = ae2; ae2 = ae3; ae3 = t; }
+            if (ae4 > ae5) { long t = ae4; ae4 = ae5; ae5 = t; }
+
+            long pivot1 = ae2;
+            long pivot2 = ae4;
+
+            // [left, less) < pivot1, [less, i) in [pivot1, pivot2], (great, right] > pivot2
+            long less = left;
+            long great = right;
+            for (long i = left; i <= great; ) {
+                long ai = key(a, i, keyOffset, longKey);
+                if (ai < pivot1) {
+                    swap(a, i++, less++, b1, b2);
+                } else if (ai > pivot2) {
+                    swap(a, i, great--, b1, b2);
+                } else {
+                    i++;
+                }
+            }
+
+            if (k < less) {
+                right = less - 1;
+            } else if (k > great) {
+                left = great + 1;
+            } else if (pivot1 == pivot2) {
+                // center part consists of equal keys
+                return;
+            } else {
+                left = less;
+                right = great;
+            }
+        }
+        sort(a, left, right, keyOffset, longKey);
+    }
+
+    private static long key(OffHeapStructCollection a, long index, int keyOffset, boolean longKey) {
+        return longKey ? a.getLong(index, keyOffset) : a.getInt(index, keyOffset);
+    }
+
+    private static void swap(OffHeapStructCollection a, long i, long j, byte[] b1, byte[] b2) {
+        if (i == j) return;
+        a.get(i, b1);
+        a.get(j, b2);
+        a.set(i, b2);
+        a.set(j, b1);
+    }
+
+    // right is inclusive
+    private static void sort(OffHeapStructCollection a, long left, long right, int keyOffset, boolean longKey) {
+        if (left >= right) return;
+        if (longKey) {
+            OffHeapStructSorterLong.sort(a, left, right + 1, keyOffset);
+        } else {
+            OffHeapStructSorterInt.sort(a, left, right + 1, keyOffset);
+        }
+    }
+}
@@ -268,6 +268,65 @@ public class OffHeapStructSorter {
         OffHeapStructSorterInt.sort(a, fromIndex, toIndex, keyOffset);
     }
 
+    /**
+     * Rearranges the off-heap struct collection so that the struct on index {@code k} is the struct that would be
+     * there if the collection were sorted using long struct key, all preceding structs have less or equal keys
+     * and all following structs have greater or equal keys. Runs in linear time on average,
+     * may be used for medians and percentiles.
+     *
+     * @param a the off-heap struct collection
+     * @param k index of the struct to select
+     * @param keyOffset long key field offset within stuct bounds
+     * @throws IllegalArgumentException {@code if (k < 0 || k >= a.size())}
+     */
+    public static void selectByLongKey(OffHeapStructCollection a, long k, int keyOffset) {
+        OffHeapStructSelector.select(a, k, keyOffset, true);
+    }
+
+    /**
+     * Rearranges the off-heap struct collection so that the range extending from the index {@code fromIndex}, inclusive,
+     * of length {@code k} contains the structs that would be there if the collection were sorted using long struct key,
+     * in ascending order. Structs outside the range are not sorted.
+     *
+     * @param a the off-heap struct collection
+     * @param fromIndex the index of the first struct, inclusive, to be sorted
+     * @param k number of structs to be sorted
+     * @param keyOffset long key field offset within stuct bounds
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || k < 0 || fromIndex + k > a.size())}
+     */
+    public static void partialSortByLongKey(OffHeapStructCollection a, long fromIndex, long k, int keyOffset) {
+        OffHeapStructSelector.partialSort(a, fromIndex, k, keyOffset, true);
+    }
+
+    /**
+     * Rearranges the off-heap struct collection so that the struct on index {@code k} is the struct that would be
+     * there if the collection were sorted using int struct key, all preceding structs have less or equal keys
+     * and all following structs have greater or equal keys. Runs in linear time on average.
+     *
+     * @param a the off-heap struct collection
+     * @param k index of the struct to select
+     * @param keyOffset int key field offset within stuct bounds
+     * @throws IllegalArgumentException {@code if (k < 0 || k >= a.size())}
+     */
+    public static void selectByIntKey(OffHeapStructCollection a, long k, int keyOffset) {
+        OffHeapStructSelector.select(a, k, keyOffset, false);
+    }
+
+    /**
+     * Rearranges the off-heap struct collection so that the range extending from the index {@code fromIndex}, inclusive,
+     * of length {@code k} contains the structs that would be there if the collection were sorted using int struct key,
+     * in ascending order. Structs outside the range are not sorted.
+     *
+     * @param a the off-heap struct collection
+     * @param fromIndex the index of the first struct, inclusive, to be sorted
+     * @param k number of structs to be sorted
+     * @param keyOffset int key field offset within stuct bounds
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || k < 0 || fromIndex + k > a.size())}
+     */
+    public static void partialSortByIntKey(OffHeapStructCollection a, long fromIndex, long k, int keyOffset) {
+        OffHeapStructSelector.partialSort(a, fromIndex, k, keyOffset, false);
+    }
+
     /**
      * Sorts the specified off-heap struct collection into ascending order using unsigned int struct key.
      *
@@ -294,6 +353,64 @@ public class OffHeapStructSorter {
         OffHeapStructSorterUnsignedInt.sort(a, fromIndex, toIndex, keyOffset);
     }
 
+    /**
+     * Sorts the specified off-heap struct collection into ascending order using double struct key.
+     * Keys are compared in IEEE 754 total order: -0.0 is placed before 0.0, NaN with positive sign
+     * is placed after positive infinity.
+     *
+     * @param a the off-heap struct collection to be sorted
+     * @param keyOffset double key field offset within stuct bounds
+     */
+    public static void sortByDoubleKey(OffHeapStructCollection a, int keyOffset) {
+        OffHeapStructSorterDouble.sort(a, keyOffset);
+    }
+
+    /**
+     * Sorts the specified range of the off-heap struct collection into ascending order using double struct key.
+     * Keys are compared in IEEE 754 total order. The range
+     * to be sorted extends from the index {@code fromIndex}, inclusive, to
+     * the index {@code toIndex}, exclusive. If {@code fromIndex == toIndex},
+     * the range to be sorted is empty (and the call is a no-op).
+     *
+     * @param a the off-heap struct collection to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     * @param keyOffset double sort key field offset within stuct bounds
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.size())}
+     */
+    public static void sortByDoubleKey(OffHeapStructCollection a, long fromIndex, long toIndex, int keyOffset) {
+        OffHeapStructSorterDouble.sort(a, fromIndex, toIndex, keyOffset);
+    }
+
+    /**
+     * Sorts the specified off-heap struct collection into ascending order using float struct key.
+     * Keys are compared in IEEE 754 total order: -0.0 is placed before 0.0, NaN with positive sign
+     * is placed after positive infinity.
+     *
+     * @param a the off-heap struct collection to be sorted
+     * @param keyOffset float key field offset within stuct bounds
+     */
+    public static void sortByFloatKey(OffHeapStructCollection a, int keyOffset) {
+        OffHeapStructSorterFloat.sort(a, keyOffset);
+    }
+
+    /**
+     * Sorts the specified range of the off-heap struct collection into ascending order using float struct key.
+     * Keys are compared in IEEE 754 total order. The range
+     * to be sorted extends from the index {@code fromIndex}, inclusive, to
+     * the index {@code toIndex}, exclusive. If {@code fromIndex == toIndex},
+     * the range to be sorted is empty (and the call is a no-op).
+     *
+     * @param a the off-heap struct collection to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     * @param keyOffset float sort key field offset within stuct bounds
+     * @throws IllegalArgumentException {@code if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.size())}
+     */
+    public static void sortByFloatKey(OffHeapStructCollection a, long fromIndex, long toIndex, int keyOffset) {
+        OffHeapStructSorterFloat.sort(a, fromIndex, toIndex, keyOffset);
+    }
+
     /**
      * Sorts collection using additional {@link com.alexkasko.unsafe.offheaplong.OffHeapLongArray} with the same size
      * as collection itself as an array of references (indices) of the collection
@@ -218,6 +218,22 @@ public class OffHeapStructSorterByReference {
             return col.getLong(index, offset);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public float getFloat(int offset) {
+            return Float.intBitsToFloat(col.getInt(index, offset));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double getDouble(int offset) {
+            return Double.longBitsToDouble(col.getLong(index, offset));
+        }
+
         /**
          * Sets index value
          *
@@ -35,22 +35,42 @@
  *  will free allocated memory when it's instance will be garbage collected)</li>
  * </ul>
  *
+ * <h2>Shared memory</h2>
+ * <p>{@link com.alexkasko.unsafe.offheapstruct.OffHeapSharedStructArray} - array of structs stored in memory-mapped file
+ * (e.g. under {@code /dev/shm}), one process writes and atomically publishes new versions, other processes
+ * map published version read-only sharing the same physical memory.
+ *
  * <h2>Iterators</h2>
  * <p>Both collections implements {@link java.util.Iterable} returning elements copying it into one predefined byte array.
+ * Flyweight {@link com.alexkasko.unsafe.offheapstruct.OffHeapStructCursor} may be used instead to read fields
+ * of each struct in place without copying, also for index ranges and in descending order.
  *
  * <h2>Operations</h2>
  * <ul>
  *     <li>reading/writing primitives directly from/into off-heap memory without copying full structs into byte arrays</li>
  *     <li>sorting using {@link com.alexkasko.unsafe.offheapstruct.OffHeapStructSorter}: implementation of Dual-Pivot quicksort algorithm
- *      adapted to off-heap collections. May use long or int fields from struct as sort keys with signed or unsigned comparison.
+ *      adapted to off-heap collections. May use long or int fields from struct as sort keys with signed or unsigned comparison,
+ *      or double and float fields compared in IEEE 754 total order.
  *      May also use user-provided {@link java.util.Comparator}'s for structs.</li>
+ *     <li>selection of the struct with specified rank by long or int field and partial sorting in linear time on average:
+ *     {@link com.alexkasko.unsafe.offheapstruct.OffHeapStructSorter#selectByLongKey(com.alexkasko.unsafe.offheapstruct.OffHeapStructCollection, long, int)}</li>
  *     <li>sorting struct collection "by-reference" using additional {@link com.alexkasko.unsafe.offheaplong.OffHeapLongArray}
  *     to hold collection indices. Indices are sorted using data from the collection, collection itself stays
  *     unchanged. This sorter returns {@link com.alexkasko.unsafe.offheap.OffHeapDisposableIterable} over the data.</li>
  *     <li>binary search over sorted collections using {@link com.alexkasko.unsafe.offheapstruct.OffHeapStructBinarySearch}.
- *      May use long or int field from struct to search on it. May also use user-provided {@link java.util.Comparator}'s for structs.</li>
+ *      May use long, int, double or float field from struct to search on it. May also use user-provided {@link java.util.Comparator}'s for structs.</li>
  *     <li>binary search returning ranges of equal values:
  *     {@link com.alexkasko.unsafe.offheapstruct.OffHeapStructBinarySearch#binarySearchRangeByLongKey(com.alexkasko.unsafe.offheapstruct.OffHeapStructCollection, long, int, com.alexkasko.unsafe.offheapstruct.OffHeapStructBinarySearch.IndexRange)}</li>
+ *     <li>point lookups by long or int field without reordering the collection using
+ *     {@link com.alexkasko.unsafe.offheapstruct.OffHeapStructHashIndex}, index may be built in parallel</li>
+ *     <li>hash map with long keys and struct values stored inline in table slots:
+ *     {@link com.alexkasko.unsafe.offheapstruct.OffHeapLongStructMap}</li>
+ *     <li>priority queue of structs ordered by long or int field or with comparator:
+ *     {@link com.alexkasko.unsafe.offheapstruct.OffHeapStructHeap}, also used to select {@code k} largest structs
+ *     from the collection in single pass without sorting it</li>
+ *     <li>sorted map with long keys and struct values implemented as B+tree with cache line aligned pages:
+ *     {@link com.alexkasko.unsafe.offheapstruct.OffHeapLongStructBTree}, supports floor/ceiling lookups,
+ *     allocation-free range scans with reusable cursor and bulk loading from sorted collection</li>
  * </ul>
  *
  * <h2>Usage example in tests (github links)</h2>
@@ -59,6 +79,12 @@
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapStructArrayListTest.java">array list</a></li>
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapStructSorterTest.java">sorting</a></li>
  *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapStructBinarySearchTest.java">binary search</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapStructHashIndexTest.java">hash index</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapLongStructMapTest.java">long to struct hash map</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapSharedStructArrayTest.java">shared memory array</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapStructHeapTest.java">heap and top-K</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapLongStructBTreeTest.java">B+tree sorted map</a></li>
+ *  <li><a href="https://github.com/alexkasko/unsafe-tools/blob/master/src/test/java/com/alexkasko/unsafe/offheapstruct/OffHeapStructCursorTest.java">flyweight cursor</a></li>
  * </ul>
  *
  */
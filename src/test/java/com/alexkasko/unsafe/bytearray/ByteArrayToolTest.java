@@ -18,7 +18,11 @@ package com.alexkasko.unsafe.bytearray;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 
 /**
  * User: alexkasko
@@ -45,6 +49,11 @@ public class ByteArrayToolTest {
         testReadLong(standard);
         testWriteLong(standard);
         testCopy(standard);
+        testBigEndian(standard);
+        testReverse(standard);
+        testVarLong(standard);
+        testMismatch(standard);
+        testHash64(standard);
         // unsafe
         ByteArrayTool unsafe = ByteArrayTool.unsafe();
         testReadByte(unsafe);
@@ -62,6 +71,18 @@ public class ByteArrayToolTest {
         testReadLong(unsafe);
         testWriteLong(unsafe);
         testCopy(unsafe);
+        testBigEndian(unsafe);
+        testReverse(unsafe);
+        testVarLong(unsafe);
+        testMismatch(unsafe);
+        testHash64(unsafe);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testVarLongMalformed() throws Exception {
+        byte[] buf = new byte[16];
+        Arrays.fill(buf, (byte) 0x80);
+        ByteArrayTool.unsafe().readVarLong(buf, new VarIntCursor());
     }
 
     @Test(expected = AssertionError.class)
@@ -265,4 +286,128 @@ public class ByteArrayToolTest {
         assertEquals((byte) 0x36, to[48]);
         assertEquals((byte) 0x4d, to[49]);
     }
+
+    private static void testBigEndian(ByteArrayTool baa) {
+        byte[] b = new byte[128];
+        baa.putShortBE(b, 43, (short) 0x82d6);
+        assertEquals((byte) 0x82, b[43]);
+        assertEquals((byte) 0xd6, b[44]);
+        assertEquals((short) 0x82d6, baa.getShortBE(b, 43));
+        baa.putIntBE(b, 45, 0x80067932);
+        assertEquals((byte) 0x80, b[45]);
+        assertEquals((byte) 0x06, b[46]);
+        assertEquals((byte) 0x79, b[47]);
+        assertEquals((byte) 0x32, b[48]);
+        assertEquals(0x80067932, baa.getIntBE(b, 45));
+        baa.putLongBE(b, 49, 0x800f12765df4c9b2L);
+        assertEquals((byte) 0x80, b[49]);
+        assertEquals((byte) 0x0f, b[50]);
+        assertEquals((byte) 0x12, b[51]);
+        assertEquals((byte) 0x76, b[52]);
+        assertEquals((byte) 0x5d, b[53]);
+        assertEquals((byte) 0xf4, b[54]);
+        assertEquals((byte) 0xc9, b[55]);
+        assertEquals((byte) 0xb2, b[56]);
+        assertEquals(0x800f12765df4c9b2L, baa.getLongBE(b, 49));
+    }
+
+    private static void testReverse(ByteArrayTool baa) {
+        byte[] b = new byte[128];
+        baa.putLongBE(b, 3, 0x7ff0ed89a20b364dL);
+        baa.putLongBE(b, 11, 0x800f12765df4c9b2L);
+        baa.reverseLongs(b, 3, 2);
+        assertEquals(0x7ff0ed89a20b364dL, baa.getLong(b, 3));
+        assertEquals(0x800f12765df4c9b2L, baa.getLong(b, 11));
+        baa.putIntBE(b, 21, 0x7ff986cd);
+        baa.putIntBE(b, 25, 0x80067932);
+        baa.reverseInts(b, 21, 2);
+        assertEquals(0x7ff986cd, baa.getInt(b, 21));
+        assertEquals(0x80067932, baa.getInt(b, 25));
+        baa.putShortBE(b, 31, (short) 0x7d2a);
+        baa.putShortBE(b, 33, (short) 0x82d6);
+        baa.reverseShorts(b, 31, 2);
+        assertEquals((short) 0x7d2a, baa.getShort(b, 31));
+        assertEquals((short) 0x82d6, baa.getShort(b, 33));
+    }
+
+    private static void testVarLong(ByteArrayTool baa) {
+        byte[] b = new byte[256];
+        assertEquals(2, baa.putVarLong(b, 1, 300));
+        assertEquals((byte) 0xac, b[1]);
+        assertEquals((byte) 0x02, b[2]);
+        long[] values = {0, 1, 127, 128, 300, 16383, 16384, (1L << 56) - 1, 1L << 56,
+                Long.MAX_VALUE, -1, Long.MIN_VALUE, -300};
+        int pos = 3;
+        for (long va : values) {
+            int len = baa.putVarLong(b, pos, va);
+            assertEquals(ByteArrayTool.varLongLength(va), len);
+            pos += len;
+        }
+        VarIntCursor cur = new VarIntCursor(3);
+        for (long va : values) {
+            int len = baa.readVarLong(b, cur);
+            assertEquals(ByteArrayTool.varLongLength(va), len);
+            assertEquals(va, cur.value());
+        }
+        assertEquals(pos, cur.position());
+        // zigzag
+        assertEquals(1, baa.putZigZagLong(b, 0, -1));
+        cur.setPosition(0);
+        assertEquals(1, baa.readZigZagLong(b, cur));
+        assertEquals(-1, cur.value());
+        // bulk
+        int written = baa.putZigZagLongs(b, 100, values, 0, values.length);
+        long[] decoded = new long[values.length + 1];
+        cur.setPosition(100);
+        assertEquals(written, baa.readZigZagLongs(b, cur, decoded, 1, values.length));
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], decoded[i + 1]);
+        }
+        written = baa.putVarLongs(b, 100, values, 2, 3);
+        cur.setPosition(100);
+        assertEquals(written, baa.readVarLongs(b, cur, decoded, 0, 3));
+        assertEquals(127, decoded[0]);
+        assertEquals(300, decoded[2]);
+        // tail of the array
+        assertEquals(3, baa.putVarLong(b, b.length - 3, 16384));
+        cur.setPosition(b.length - 3);
+        assertEquals(3, baa.readVarLong(b, cur));
+        assertEquals(16384, cur.value());
+    }
+
+    private static void testMismatch(ByteArrayTool baa) {
+        byte[] a = new byte[64];
+        byte[] b = new byte[64];
+        for (int i = 0; i < 40; i++) {
+            a[i] = (byte) (i * 7);
+            b[i + 3] = (byte) (i * 7);
+        }
+        assertEquals(-1, baa.mismatch(a, 0, b, 3, 40));
+        assertTrue(baa.equals(a, 0, b, 3, 40));
+        assertEquals(0, baa.compareUnsigned(a, 0, b, 3, 40));
+        // difference in word part
+        b[3 + 13] = (byte) 0xff;
+        assertEquals(13, baa.mismatch(a, 0, b, 3, 40));
+        assertFalse(baa.equals(a, 0, b, 3, 40));
+        assertTrue(baa.compareUnsigned(a, 0, b, 3, 40) < 0);
+        assertTrue(baa.compareUnsigned(b, 3, a, 0, 40) > 0);
+        assertEquals(-1, baa.mismatch(a, 0, b, 3, 13));
+        // difference in tail part
+        b[3 + 13] = a[13];
+        b[3 + 38] = 0;
+        assertEquals(38, baa.mismatch(a, 0, b, 3, 40));
+        assertTrue(baa.compareUnsigned(a, 0, b, 3, 40) > 0);
+        assertEquals(0, baa.compareUnsigned(a, 0, b, 3, 0));
+    }
+
+    private static void testHash64(ByteArrayTool baa) throws Exception {
+        // reference values on little endian platform
+        byte[] spam = "xNobody inspects the spammish repetition".getBytes("ASCII");
+        assertEquals(0xEF46DB3751D8E999L, baa.hash64(spam, 0, 0));
+        assertEquals(0xFBCEA83C8A378BF1L, baa.hash64(spam, 1, spam.length - 1));
+        byte[] abc = "abc".getBytes("ASCII");
+        assertEquals(0x44BC2CF5AD770999L, baa.hash64(abc, 0, 3));
+        assertEquals(0xD24EC4F1A98C6E5BL, baa.hash64(abc, 0, 1));
+        assertFalse(baa.hash64(abc, 0, 3) == baa.hash64(abc, 0, 3, 1));
+    }
 }
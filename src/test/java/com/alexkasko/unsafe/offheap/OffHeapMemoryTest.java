@@ -17,12 +17,15 @@
 package com.alexkasko.unsafe.offheap;
 
 import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import com.alexkasko.unsafe.bytearray.VarIntCursor;
 import org.junit.Test;
 
 import static com.alexkasko.unsafe.offheap.OffHeapMemory.allocateMemoryDirect;
 import static com.alexkasko.unsafe.offheap.OffHeapMemory.allocateMemoryOnHeap;
 import static com.alexkasko.unsafe.offheap.OffHeapMemory.allocateMemoryUnsafe;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 
 /**
  * User: alexkasko
@@ -48,6 +51,11 @@ public class OffHeapMemoryTest {
         testWriteLong(allocateMemoryUnsafe(128));
         testCopy(allocateMemoryUnsafe(128), allocateMemoryUnsafe(128));
         testClone(allocateMemoryUnsafe(128));
+        testBigEndian(allocateMemoryUnsafe(128));
+        testReverse(allocateMemoryUnsafe(128));
+        testVarLong(allocateMemoryUnsafe(128));
+        testMismatch(allocateMemoryUnsafe(128), allocateMemoryUnsafe(128));
+        testHash64(allocateMemoryUnsafe(128));
 
         testReadByte(allocateMemoryDirect(128));
         testWriteByte(allocateMemoryDirect(128));
@@ -65,6 +73,11 @@ public class OffHeapMemoryTest {
         testWriteLong(allocateMemoryDirect(128));
         testCopy(allocateMemoryDirect(128), allocateMemoryDirect(128));
         testClone(allocateMemoryDirect(128));
+        testBigEndian(allocateMemoryDirect(128));
+        testReverse(allocateMemoryDirect(128));
+        testVarLong(allocateMemoryDirect(128));
+        testMismatch(allocateMemoryDirect(128), allocateMemoryDirect(128));
+        testHash64(allocateMemoryDirect(128));
 
         ByteArrayTool bt = ByteArrayTool.get();
         testReadByte(allocateMemoryOnHeap(bt, 128));
@@ -83,6 +96,11 @@ public class OffHeapMemoryTest {
         testWriteLong(allocateMemoryOnHeap(bt, 128));
         testCopy(allocateMemoryOnHeap(bt, 128), allocateMemoryOnHeap(bt, 128));
         testClone(allocateMemoryOnHeap(bt, 128));
+        testBigEndian(allocateMemoryOnHeap(bt, 128));
+        testReverse(allocateMemoryOnHeap(bt, 128));
+        testVarLong(allocateMemoryOnHeap(bt, 128));
+        testMismatch(allocateMemoryOnHeap(bt, 128), allocateMemoryOnHeap(bt, 128));
+        testHash64(allocateMemoryOnHeap(bt, 128));
     }
 
     private static void testReadByte(OffHeapMemory ma) {
@@ -342,4 +360,112 @@ public class OffHeapMemoryTest {
         ma1.free();
         ma2.free();
     }
+
+    private static void testBigEndian(OffHeapMemory ma) {
+        byte[] b = new byte[14];
+        ma.putShortBE(43, (short) 0x82d6);
+        ma.putIntBE(45, 0x80067932);
+        ma.putLongBE(49, 0x800f12765df4c9b2L);
+        ma.get(43, b);
+        assertEquals((byte) 0x82, b[0]);
+        assertEquals((byte) 0xd6, b[1]);
+        assertEquals((byte) 0x80, b[2]);
+        assertEquals((byte) 0x06, b[3]);
+        assertEquals((byte) 0x79, b[4]);
+        assertEquals((byte) 0x32, b[5]);
+        assertEquals((byte) 0x80, b[6]);
+        assertEquals((byte) 0x0f, b[7]);
+        assertEquals((byte) 0x12, b[8]);
+        assertEquals((byte) 0x76, b[9]);
+        assertEquals((byte) 0x5d, b[10]);
+        assertEquals((byte) 0xf4, b[11]);
+        assertEquals((byte) 0xc9, b[12]);
+        assertEquals((byte) 0xb2, b[13]);
+        assertEquals((short) 0x82d6, ma.getShortBE(43));
+        assertEquals(0x80067932, ma.getIntBE(45));
+        assertEquals(0x800f12765df4c9b2L, ma.getLongBE(49));
+        ma.free();
+    }
+
+    private static void testReverse(OffHeapMemory ma) {
+        ma.putLongBE(3, 0x7ff0ed89a20b364dL);
+        ma.putLongBE(11, 0x800f12765df4c9b2L);
+        ma.reverseLongs(3, 2);
+        assertEquals(0x7ff0ed89a20b364dL, ma.getLong(3));
+        assertEquals(0x800f12765df4c9b2L, ma.getLong(11));
+        ma.putIntBE(21, 0x7ff986cd);
+        ma.putIntBE(25, 0x80067932);
+        ma.reverseInts(21, 2);
+        assertEquals(0x7ff986cd, ma.getInt(21));
+        assertEquals(0x80067932, ma.getInt(25));
+        ma.putShortBE(31, (short) 0x7d2a);
+        ma.putShortBE(33, (short) 0x82d6);
+        ma.reverseShorts(31, 2);
+        assertEquals((short) 0x7d2a, ma.getShort(31));
+        assertEquals((short) 0x82d6, ma.getShort(33));
+        ma.free();
+    }
+
+    private static void testVarLong(OffHeapMemory ma) {
+        long[] values = {0, 1, 127, 128, 300, 16383, 16384, (1L << 56) - 1, 1L << 56,
+                Long.MAX_VALUE, -1, Long.MIN_VALUE, -300};
+        long pos = 3;
+        for (long va : values) {
+            pos += ma.putVarLong(pos, va);
+        }
+        VarIntCursor cur = new VarIntCursor(3);
+        for (long va : values) {
+            int len = ma.readVarLong(cur);
+            assertEquals(ByteArrayTool.varLongLength(va), len);
+            assertEquals(va, cur.value());
+        }
+        assertEquals(pos, cur.position());
+        long written = ma.putZigZagLongs(0, values, 0, values.length);
+        long[] decoded = new long[values.length];
+        cur.setPosition(0);
+        assertEquals(written, ma.readZigZagLongs(cur, decoded, 0, values.length));
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], decoded[i]);
+        }
+        assertEquals(2, ma.putZigZagLong(ma.length() - 2, -65));
+        cur.setPosition(ma.length() - 2);
+        assertEquals(2, ma.readZigZagLong(cur));
+        assertEquals(-65, cur.value());
+        ma.free();
+    }
+
+    private static void testMismatch(OffHeapMemory ma1, OffHeapMemory ma2) {
+        for (int i = 0; i < 40; i++) {
+            ma1.putByte(i, (byte) (i * 7));
+            ma2.putByte(i + 3, (byte) (i * 7));
+        }
+        assertEquals(-1, ma1.mismatch(0, ma2, 3, 40));
+        assertTrue(ma1.equals(0, ma2, 3, 40));
+        assertEquals(0, ma1.compareUnsigned(0, ma2, 3, 40));
+        ma2.putByte(3 + 13, (byte) 0xff);
+        assertEquals(13, ma1.mismatch(0, ma2, 3, 40));
+        assertFalse(ma1.equals(0, ma2, 3, 40));
+        assertTrue(ma1.compareUnsigned(0, ma2, 3, 40) < 0);
+        assertTrue(ma2.compareUnsigned(3, ma1, 0, 40) > 0);
+        ma2.putByte(3 + 13, ma1.getByte(13));
+        ma2.putByte(3 + 38, (byte) 0);
+        assertEquals(38, ma1.mismatch(0, ma2, 3, 40));
+        assertTrue(ma1.compareUnsigned(0, ma2, 3, 40) > 0);
+        // same instance
+        ma1.put(64, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        ma1.put(96, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 10});
+        assertEquals(8, ma1.mismatch(64, ma1, 96, 9));
+        ma1.free();
+        ma2.free();
+    }
+
+    private static void testHash64(OffHeapMemory ma) throws Exception {
+        // reference values on little endian platform
+        ma.put(3, "Nobody inspects the spammish repetition".getBytes("ASCII"));
+        assertEquals(0xEF46DB3751D8E999L, ma.hash64(3, 0));
+        assertEquals(0xFBCEA83C8A378BF1L, ma.hash64(3, 39));
+        ma.put(100, "abc".getBytes("ASCII"));
+        assertEquals(0x44BC2CF5AD770999L, ma.hash64(100, 3));
+        ma.free();
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbitset;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapBitSetRankIndexTest {
+
+    @Test
+    public void test() {
+        OffHeapBitSet bs = null;
+        OffHeapBitSetRankIndex index = null;
+        try {
+            int size = 5000;
+            bs = new OffHeapBitSet(size);
+            Random random = new Random(42);
+            for (int i = 0; i < 1000; i++) {
+                bs.set(random.nextInt(size));
+            }
+            bs.set(size - 1);
+            index = new OffHeapBitSetRankIndex(bs);
+            assertEquals(bs.cardinality(), index.cardinality());
+            long rank = 0;
+            for (long i = 0; i < size; i++) {
+                assertEquals(rank, index.rank(i));
+                if (bs.get(i)) {
+                    assertEquals(i, index.select(rank));
+                    rank += 1;
+                }
+            }
+            assertEquals(rank, index.rank(size));
+            assertEquals(-1, index.select(rank));
+        } finally {
+            free(index);
+            free(bs);
+        }
+    }
+
+    @Test
+    public void testSelectSamples() {
+        OffHeapBitSet bs = null;
+        OffHeapBitSetRankIndex index = null;
+        try {
+            int size = 1 << 20;
+            bs = new OffHeapBitSet(size);
+            Random random = new Random(42);
+            // dense and sparse regions, many set bits per sample and many blocks per sample
+            for (int i = 0; i < size; i++) {
+                boolean dense = 0 == (i >>> 17) % 2;
+                if (dense ? random.nextInt(10) > 0 : 0 == random.nextInt(5000)) bs.set(i);
+            }
+            index = new OffHeapBitSetRankIndex(bs);
+            long rank = 0;
+            for (long i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
+                assertEquals(i, index.select(rank));
+                rank += 1;
+            }
+            assertEquals(index.cardinality(), rank);
+            assertEquals(-1, index.select(rank));
+        } finally {
+            free(index);
+            free(bs);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        OffHeapBitSet bs = null;
+        OffHeapBitSetRankIndex index = null;
+        try {
+            bs = new OffHeapBitSet(0);
+            index = new OffHeapBitSetRankIndex(bs);
+            assertEquals(0, index.rank(0));
+            assertEquals(-1, index.select(0));
+        } finally {
+            free(index);
+            free(bs);
+        }
+    }
+}
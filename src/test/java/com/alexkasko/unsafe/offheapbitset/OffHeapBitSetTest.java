@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbitset;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapBitSetTest {
+
+    @Test
+    public void test() {
+        OffHeapBitSet bs = null;
+        try {
+            bs = new OffHeapBitSet(130);
+            for (long i = 0; i < 130; i++) {
+                assertFalse(bs.get(i));
+            }
+            bs.set(0);
+            bs.set(63);
+            bs.set(64);
+            bs.set(129);
+            assertTrue(bs.get(0));
+            assertTrue(bs.get(63));
+            assertTrue(bs.get(64));
+            assertTrue(bs.get(129));
+            assertFalse(bs.get(1));
+            assertFalse(bs.get(128));
+            bs.clear(63);
+            assertFalse(bs.get(63));
+            assertTrue(bs.get(64));
+            bs.set(63, true);
+            bs.set(64, false);
+            assertTrue(bs.get(63));
+            assertFalse(bs.get(64));
+        } finally {
+            free(bs);
+        }
+    }
+
+    @Test
+    public void testBulk() {
+        OffHeapBitSet bs1 = null;
+        OffHeapBitSet bs2 = null;
+        try {
+            int size = 1000;
+            bs1 = new OffHeapBitSet(size);
+            bs2 = new OffHeapBitSet(size);
+            BitSet heap1 = new BitSet(size);
+            BitSet heap2 = new BitSet(size);
+            Random random = new Random(42);
+            for (int i = 0; i < 300; i++) {
+                int i1 = random.nextInt(size);
+                bs1.set(i1);
+                heap1.set(i1);
+                int i2 = random.nextInt(size);
+                bs2.set(i2);
+                heap2.set(i2);
+            }
+            assertEquals(heap1.cardinality(), bs1.cardinality());
+            assertEqualBits(heap1, bs1);
+            bs1.and(bs2);
+            heap1.and(heap2);
+            assertEqualBits(heap1, bs1);
+            bs1.or(bs2);
+            heap1.or(heap2);
+            assertEqualBits(heap1, bs1);
+            bs1.set(999);
+            heap1.set(999);
+            bs1.xor(bs2);
+            heap1.xor(heap2);
+            assertEqualBits(heap1, bs1);
+            bs2.set(999);
+            heap2.set(999);
+            bs2.andNot(bs1);
+            heap2.andNot(heap1);
+            assertEqualBits(heap2, bs2);
+            bs2.clear();
+            assertEquals(0, bs2.cardinality());
+            assertEquals(-1, bs2.nextSetBit(0));
+        } finally {
+            free(bs1);
+            free(bs2);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeMismatch() {
+        OffHeapBitSet bs1 = new OffHeapBitSet(64);
+        OffHeapBitSet bs2 = new OffHeapBitSet(65);
+        try {
+            bs1.or(bs2);
+        } finally {
+            free(bs1);
+            free(bs2);
+        }
+    }
+
+    private static void assertEqualBits(BitSet expected, OffHeapBitSet actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        long j = actual.nextSetBit(0);
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+            assertEquals(i, j);
+            j = actual.nextSetBit(j + 1);
+        }
+        assertEquals(-1, j);
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbitset;
+
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongCursor;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapRoaringBitmapTest {
+
+    @Test
+    public void test() {
+        OffHeapRoaringBitmap bm = null;
+        try {
+            bm = new OffHeapRoaringBitmap();
+            bm.add(1);
+            bm.add(1);
+            bm.add(42);
+            assertTrue(bm.contains(42));
+            assertFalse(bm.contains(43));
+            // added after read into the same chunk
+            bm.add(43);
+            bm.add(1L << 40);
+            assertEquals(4, bm.cardinality());
+            assertEquals(2, bm.containersCount());
+            assertTrue(bm.contains(43));
+            assertTrue(bm.contains(1L << 40));
+            assertFalse(bm.contains(-1));
+            OffHeapLongCursor cur = bm.cursor();
+            assertEquals(1, cur.nextLong());
+            assertEquals(42, cur.nextLong());
+            assertEquals(43, cur.nextLong());
+            assertEquals(1L << 40, cur.nextLong());
+            assertFalse(cur.hasNext());
+        } finally {
+            free(bm);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() {
+        OffHeapRoaringBitmap bm = new OffHeapRoaringBitmap();
+        try {
+            bm.add(42);
+            bm.add(41);
+        } finally {
+            free(bm);
+        }
+    }
+
+    @Test
+    public void testContainers() {
+        OffHeapRoaringBitmap sparse = null;
+        OffHeapRoaringBitmap dense = null;
+        OffHeapRoaringBitmap runs = null;
+        try {
+            Random random = new Random(42);
+            sparse = new OffHeapRoaringBitmap();
+            dense = new OffHeapRoaringBitmap();
+            runs = new OffHeapRoaringBitmap();
+            for (int i = 0; i < 65536; i++) {
+                if (0 == i % 100) sparse.add(i);
+                if (random.nextBoolean()) dense.add(i);
+                runs.add(i);
+            }
+            // array, bitmap and single run containers
+            assertEquals(1, sparse.containersCount());
+            assertEquals(656 * 2 + 32, sparse.sizeInBytes());
+            assertEquals(8192 + 32, dense.sizeInBytes());
+            assertEquals(4 + 32, runs.sizeInBytes());
+            assertEquals(65536, runs.cardinality());
+        } finally {
+            free(sparse);
+            free(dense);
+            free(runs);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        OffHeapRoaringBitmap bm1 = null;
+        OffHeapRoaringBitmap bm2 = null;
+        OffHeapRoaringBitmap and = null;
+        OffHeapRoaringBitmap or = null;
+        OffHeapLongArray arr = null;
+        OffHeapRoaringBitmap copy = null;
+        try {
+            int size = 1 << 20;
+            BitSet heap1 = new BitSet(size);
+            BitSet heap2 = new BitSet(size);
+            Random random = new Random(42);
+            bm1 = fill(heap1, size, random, 0);
+            bm2 = fill(heap2, size, random, 0);
+            assertEqualBits(heap1, bm1);
+            assertEqualBits(heap2, bm2);
+            for (int i = 0; i < 10000; i++) {
+                int va = random.nextInt(size);
+                assertEquals(heap1.get(va), bm1.contains(va));
+            }
+            and = bm1.and(bm2);
+            BitSet heapAnd = (BitSet) heap1.clone();
+            heapAnd.and(heap2);
+            assertEqualBits(heapAnd, and);
+            or = bm1.or(bm2);
+            BitSet heapOr = (BitSet) heap1.clone();
+            heapOr.or(heap2);
+            assertEqualBits(heapOr, or);
+            arr = bm1.toArray();
+            copy = OffHeapRoaringBitmap.fromSorted(arr);
+            assertEqualBits(heap1, copy);
+        } finally {
+            free(bm1);
+            free(bm2);
+            free(and);
+            free(or);
+            free(arr);
+            free(copy);
+        }
+    }
+
+    @Test
+    public void testMixedContainers() {
+        OffHeapRoaringBitmap bm1 = null;
+        OffHeapRoaringBitmap bm2 = null;
+        OffHeapRoaringBitmap and = null;
+        OffHeapRoaringBitmap or = null;
+        try {
+            int size = 1 << 20;
+            BitSet heap1 = new BitSet(size);
+            BitSet heap2 = new BitSet(size);
+            Random random = new Random(43);
+            // every pair of container types meets in the same chunk
+            bm1 = fill(heap1, size, random, 0);
+            bm2 = fill(heap2, size, random, 5);
+            and = bm1.and(bm2);
+            BitSet heapAnd = (BitSet) heap1.clone();
+            heapAnd.and(heap2);
+            assertEqualBits(heapAnd, and);
+            assertTrue(and.contains(heapAnd.length() - 1));
+            or = bm1.or(bm2);
+            BitSet heapOr = (BitSet) heap1.clone();
+            heapOr.or(heap2);
+            assertEqualBits(heapOr, or);
+            assertTrue(or.contains(heapOr.length() - 1));
+            for (int i = 0; i < 10000; i++) {
+                int va = random.nextInt(size);
+                assertEquals(heapAnd.get(va), and.contains(va));
+                assertEquals(heapOr.get(va), or.contains(va));
+            }
+        } finally {
+            free(bm1);
+            free(bm2);
+            free(and);
+            free(or);
+        }
+    }
+
+    @Test
+    public void testContainerConversions() {
+        OffHeapRoaringBitmap even = null;
+        OffHeapRoaringBitmap odd = null;
+        OffHeapRoaringBitmap evenDense = null;
+        OffHeapRoaringBitmap oddDense = null;
+        OffHeapRoaringBitmap or = null;
+        OffHeapRoaringBitmap and = null;
+        try {
+            even = new OffHeapRoaringBitmap();
+            odd = new OffHeapRoaringBitmap();
+            evenDense = new OffHeapRoaringBitmap();
+            oddDense = new OffHeapRoaringBitmap();
+            for (int i = 0; i < 65536; i++) {
+                if (i < 6000 && 0 == i % 2) even.add(i);
+                if (i < 6000 && 1 == i % 2) odd.add(i);
+                if (0 == i % 2 || 0 == i % 1001) evenDense.add(i);
+                if (1 == i % 2 || 0 == i % 1001) oddDense.add(i);
+            }
+            // two arrays into bitmap
+            or = even.or(odd);
+            assertEquals(6000, or.cardinality());
+            assertEquals(8192 + 32, or.sizeInBytes());
+            assertTrue(or.contains(5999));
+            assertFalse(or.contains(6000));
+            // two bitmaps into array
+            and = evenDense.and(oddDense);
+            assertEquals(66, and.cardinality());
+            assertEquals(66 * 2 + 32, and.sizeInBytes());
+            assertTrue(and.contains(1001));
+            assertTrue(and.contains(65065));
+            assertFalse(and.contains(1002));
+        } finally {
+            free(even);
+            free(odd);
+            free(evenDense);
+            free(oddDense);
+            free(or);
+            free(and);
+        }
+    }
+
+    // chunks with different densities and runs
+    private static OffHeapRoaringBitmap fill(BitSet heap, int size, Random random, int shift) {
+        OffHeapRoaringBitmap res = new OffHeapRoaringBitmap();
+        for (int i = 0; i < size; i++) {
+            int chunk = (i >>> 16) + shift * ((i >>> 18) + 1);
+            boolean set;
+            switch (chunk % 4) {
+                case 0: set = 0 == random.nextInt(200); break;
+                case 1: set = random.nextBoolean(); break;
+                case 2: set = 0 == (i >>> 10) % 3; break;
+                default: set = false;
+            }
+            if (set) {
+                heap.set(i);
+                res.add(i);
+            }
+        }
+        return res;
+    }
+
+    private static void assertEqualBits(BitSet expected, OffHeapRoaringBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        OffHeapLongCursor cur = actual.cursor();
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+            assertTrue(cur.hasNext());
+            assertEquals(i, cur.nextLong());
+        }
+        assertFalse(cur.hasNext());
+    }
+}
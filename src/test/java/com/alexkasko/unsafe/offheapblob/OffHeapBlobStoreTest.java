@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapblob;
+
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapBlobStoreTest {
+
+    @Test
+    public void test() throws Exception {
+        OffHeapBlobStore store = null;
+        try {
+            store = new OffHeapBlobStore(4);
+            assertEquals(0, store.append("foo".getBytes("UTF-8")));
+            assertEquals(1, store.append(new byte[0]));
+            assertEquals(2, store.append("foobar42".getBytes("UTF-8")));
+            assertEquals(3, store.append("foo".getBytes("UTF-8")));
+            assertEquals(4, store.size());
+            assertEquals(14, store.dataLength());
+            assertEquals(3, store.length(0));
+            assertEquals(0, store.length(1));
+            assertEquals(8, store.length(2));
+            byte[] buf = new byte[8];
+            assertEquals(8, store.get(2, buf));
+            assertEquals("foobar42", new String(buf, "UTF-8"));
+            assertEquals('b', store.getByte(2, 3));
+            OffHeapBlobAccessor ac = store.accessor(2);
+            assertEquals(8, ac.length());
+            assertEquals(store.getLong(2, 0), ac.getLong(0));
+            assertEquals(store.getInt(2, 4), ac.getInt(4));
+            assertTrue(store.equals(0, 3));
+            assertFalse(store.equals(0, 2));
+            assertEquals(store.hash64(0), store.hash64(3));
+            assertTrue(store.compareUnsigned(0, 2) < 0);
+            assertTrue(store.compareUnsigned(1, 0) < 0);
+            assertEquals(0, store.compareUnsigned(0, 3));
+        } finally {
+            free(store);
+        }
+    }
+
+    @Test
+    public void testSort() {
+        OffHeapBlobStore store = null;
+        OffHeapLongArray sorted = null;
+        OffHeapLongArray byLength = null;
+        try {
+            store = new OffHeapBlobStore();
+            Random random = new Random(42);
+            List<String> heap = new ArrayList<String>();
+            for (int i = 0; i < 1000; i++) {
+                // ascii strings so that byte order is equal to string order
+                StringBuilder sb = new StringBuilder();
+                for (int j = 0, len = random.nextInt(20); j < len; j++) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+                heap.add(sb.toString());
+                store.append(sb.toString().getBytes());
+            }
+            sorted = OffHeapBlobSorter.sortedIndices(store);
+            Collections.sort(heap);
+            byte[] buf = new byte[20];
+            for (int i = 0; i < heap.size(); i++) {
+                int len = store.get(sorted.get(i), buf);
+                assertEquals(heap.get(i), new String(buf, 0, len));
+            }
+            byLength = OffHeapBlobSorter.sortedIndices(store, new Comparator<OffHeapBlobAccessor>() {
+                @Override
+                public int compare(OffHeapBlobAccessor o1, OffHeapBlobAccessor o2) {
+                    return o1.length() - o2.length();
+                }
+            });
+            for (int i = 1; i < heap.size(); i++) {
+                assertTrue(store.length(byLength.get(i - 1)) <= store.length(byLength.get(i)));
+            }
+        } finally {
+            free(store);
+            free(sorted);
+            free(byLength);
+        }
+    }
+}
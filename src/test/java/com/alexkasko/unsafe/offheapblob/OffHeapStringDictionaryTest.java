@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapblob;
+
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapStringDictionaryTest {
+
+    @Test
+    public void test() throws Exception {
+        OffHeapStringDictionary dict = null;
+        try {
+            dict = new OffHeapStringDictionary();
+            assertEquals(0, dict.add("foo"));
+            assertEquals(1, dict.add(""));
+            assertEquals(2, dict.add("фу"));
+            assertEquals(0, dict.add("foo"));
+            assertEquals(1, dict.add(""));
+            assertEquals(3, dict.size());
+            assertEquals(2, dict.id("фу"));
+            assertEquals(-1, dict.id("bar"));
+            byte[] bytes = "foo".getBytes("UTF-8");
+            assertEquals(0, dict.id(bytes, 0, bytes.length));
+            assertEquals("фу", dict.get(2));
+            assertEquals(4, dict.length(2));
+            byte[] buf = new byte[4];
+            assertEquals(3, dict.getBytes(0, buf));
+            assertEquals('f', buf[0]);
+            assertTrue(dict.compareBytes(1, 0) < 0);
+            assertTrue(dict.compareBytes(2, 0) > 0);
+        } finally {
+            free(dict);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        OffHeapStringDictionary dict = null;
+        OffHeapLongArray sorted = null;
+        try {
+            dict = new OffHeapStringDictionary();
+            Map<String, Integer> heap = new HashMap<String, Integer>();
+            List<String> byId = new ArrayList<String>();
+            Random random = new Random(42);
+            for (int i = 0; i < 50000; i++) {
+                String va = Integer.toString(random.nextInt(20000), 36);
+                Integer existed = heap.get(va);
+                int id = dict.add(va);
+                if (null == existed) {
+                    assertEquals(byId.size(), id);
+                    heap.put(va, id);
+                    byId.add(va);
+                } else {
+                    assertEquals((int) existed, id);
+                }
+            }
+            assertEquals(heap.size(), dict.size());
+            for (int i = 0; i < byId.size(); i++) {
+                assertEquals(byId.get(i), dict.get(i));
+                assertEquals(i, dict.id(byId.get(i)));
+            }
+            sorted = dict.sortedIds();
+            List<String> expected = new ArrayList<String>(new TreeSet<String>(byId));
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), dict.get((int) sorted.get(i)));
+            }
+        } finally {
+            free(dict);
+            free(sorted);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapbloom;
+
+import com.alexkasko.unsafe.offheapbitset.OffHeapBitSet;
+import com.alexkasko.unsafe.offheaplong.OffHeapLongArray;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongBloomFilterTest {
+
+    @Test
+    public void testClassic() {
+        OffHeapLongBloomFilter bf = OffHeapLongBloomFilter.classic(10000, 0.01);
+        try {
+            check(bf, 0.02);
+        } finally {
+            free(bf);
+        }
+    }
+
+    @Test
+    public void testBlocked() {
+        OffHeapLongBloomFilter bf = OffHeapLongBloomFilter.blocked(10000, 0.01);
+        try {
+            assertEquals(0, bf.bitsCount() % 512);
+            check(bf, 0.03);
+        } finally {
+            free(bf);
+        }
+    }
+
+    @Test
+    public void testSerialization() throws IOException {
+        OffHeapLongBloomFilter bf = null;
+        OffHeapLongBloomFilter read = null;
+        File file = File.createTempFile("OffHeapLongBloomFilterTest", ".bin");
+        try {
+            bf = OffHeapLongBloomFilter.blocked(1000, 0.01);
+            for (long i = 0; i < 1000; i++) {
+                bf.add(i * 7);
+            }
+            bf.writeTo(file);
+            read = OffHeapLongBloomFilter.readFrom(file);
+            assertEquals(bf.bitsCount(), read.bitsCount());
+            assertEquals(bf.hashesCount(), read.hashesCount());
+            for (long i = 0; i < 10000; i++) {
+                assertEquals(bf.mightContain(i), read.mightContain(i));
+            }
+        } finally {
+            free(bf);
+            free(read);
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadBlockedInvalidBits() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OffHeapLongBloomFilter bf = OffHeapLongBloomFilter.classic(100, 0.01);
+        try {
+            // classic filter bits count is multiple of 64 only
+            assertTrue(0 != bf.bitsCount() % 512);
+            bf.writeTo(baos);
+        } finally {
+            free(bf);
+        }
+        byte[] bytes = baos.toByteArray();
+        // switch type to blocked
+        bytes[7] = OffHeapLongBloomFilter.BLOCKED;
+        free(OffHeapLongBloomFilter.readFrom(new ByteArrayInputStream(bytes)));
+    }
+
+    private static void check(OffHeapLongBloomFilter bf, double maxFpp) {
+        OffHeapLongArray keys = null;
+        OffHeapBitSet out = null;
+        try {
+            int count = 10000;
+            keys = new OffHeapLongArray(count);
+            for (int i = 0; i < count; i++) {
+                keys.set(i, i * 31L);
+            }
+            bf.addAll(keys);
+            for (int i = 0; i < count; i++) {
+                assertTrue(bf.mightContain(i * 31L));
+            }
+            out = new OffHeapBitSet(count);
+            assertEquals(count, bf.mightContainAll(keys, out));
+            assertEquals(count, out.cardinality());
+            // negative keys were not added
+            for (int i = 0; i < count; i++) {
+                keys.set(i, -1 - i * 31L);
+            }
+            long positives = bf.mightContainAll(keys, out);
+            assertEquals(positives, out.cardinality());
+            for (int i = 0; i < count; i++) {
+                assertEquals(bf.mightContain(keys.get(i)), out.get(i));
+            }
+            assertTrue("fpp: " + positives / (double) count, positives < count * maxFpp);
+        } finally {
+            free(keys);
+            free(out);
+        }
+    }
+}
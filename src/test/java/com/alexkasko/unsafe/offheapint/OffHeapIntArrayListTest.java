@@ -20,6 +20,7 @@ import org.junit.Test;
 
 import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
 /**
@@ -47,4 +48,80 @@ public class OffHeapIntArrayListTest {
             free(list);
         }
     }
+
+    @Test
+    public void testCursor() {
+        OffHeapIntArrayList coll = null;
+        try {
+            coll = new OffHeapIntArrayList();
+            for (int i = 0; i < 1000; i++) {
+                coll.add(i * 3);
+            }
+            OffHeapIntCursor cur = coll.cursor();
+            long count = 0;
+            while (cur.hasNext()) {
+                assertEquals(count * 3, cur.nextInt());
+                count += 1;
+            }
+            assertEquals(1000, count);
+            cur = coll.cursor(10, 13);
+            assertEquals(30, cur.nextInt());
+            assertEquals(33, cur.nextInt());
+            assertEquals(36, cur.nextInt());
+            assertFalse(cur.hasNext());
+            assertFalse(coll.cursor(5, 5).hasNext());
+            final long[] sum = new long[1];
+            coll.forEachInt(new OffHeapIntProcedure() {
+                @Override
+                public void apply(int value) {
+                    sum[0] += value;
+                }
+            });
+            assertEquals(3 * 999 * 1000 / 2, sum[0]);
+            sum[0] = 0;
+            coll.forEachInt(998, 1000, new OffHeapIntProcedure() {
+                @Override
+                public void apply(int value) {
+                    sum[0] += value;
+                }
+            });
+            assertEquals(998 * 3 + 999 * 3, sum[0]);
+        } finally {
+            free(coll);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorRange() {
+        OffHeapIntArrayList coll = new OffHeapIntArrayList();
+        try {
+            coll.cursor(0, 1001);
+        } finally {
+            free(coll);
+        }
+    }
+
+    @Test
+    public void testForEachGrowing() {
+        final OffHeapIntArrayList coll = new OffHeapIntArrayList();
+        try {
+            coll.add(1);
+            coll.add(2);
+            final long[] sum = new long[1];
+            // each add reallocates list memory
+            coll.forEachInt(new OffHeapIntProcedure() {
+                @Override
+                public void apply(int value) {
+                    sum[0] += value;
+                    for (int i = 0; i < 100; i++) {
+                        coll.add(42);
+                    }
+                }
+            });
+            assertEquals(3, sum[0]);
+            assertEquals(202, coll.size());
+        } finally {
+            free(coll);
+        }
+    }
 }
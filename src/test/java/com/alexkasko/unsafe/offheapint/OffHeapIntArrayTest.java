@@ -20,6 +20,7 @@ import org.junit.Test;
 
 import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 
 /**
  * User: alexkasko
@@ -47,4 +48,56 @@ public class OffHeapIntArrayTest {
             free(arr);
         }
     }
+
+    @Test
+    public void testCursor() {
+        OffHeapIntArray coll = null;
+        try {
+            coll = new OffHeapIntArray(1000);
+            for (int i = 0; i < 1000; i++) {
+                coll.set(i, i * 3);
+            }
+            OffHeapIntCursor cur = coll.cursor();
+            long count = 0;
+            while (cur.hasNext()) {
+                assertEquals(count * 3, cur.nextInt());
+                count += 1;
+            }
+            assertEquals(1000, count);
+            cur = coll.cursor(10, 13);
+            assertEquals(30, cur.nextInt());
+            assertEquals(33, cur.nextInt());
+            assertEquals(36, cur.nextInt());
+            assertFalse(cur.hasNext());
+            assertFalse(coll.cursor(5, 5).hasNext());
+            final long[] sum = new long[1];
+            coll.forEachInt(new OffHeapIntProcedure() {
+                @Override
+                public void apply(int value) {
+                    sum[0] += value;
+                }
+            });
+            assertEquals(3 * 999 * 1000 / 2, sum[0]);
+            sum[0] = 0;
+            coll.forEachInt(998, 1000, new OffHeapIntProcedure() {
+                @Override
+                public void apply(int value) {
+                    sum[0] += value;
+                }
+            });
+            assertEquals(998 * 3 + 999 * 3, sum[0]);
+        } finally {
+            free(coll);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorRange() {
+        OffHeapIntArray coll = new OffHeapIntArray(1000);
+        try {
+            coll.cursor(0, 1001);
+        } finally {
+            free(coll);
+        }
+    }
 }
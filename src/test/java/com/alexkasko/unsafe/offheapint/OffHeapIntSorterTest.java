@@ -24,6 +24,8 @@ import java.util.Random;
 
 import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
 * User: alexkasko
@@ -87,6 +89,57 @@ public class OffHeapIntSorterTest {
         }
     }
 
+    @Test
+    public void testSelect() throws Exception {
+        OffHeapIntArray la = null;
+        try {
+            int[] heap = gendata();
+            // many duplicates
+            for (int i = 0; i < heap.length; i += 2) {
+                heap[i] = heap[i] % 100;
+            }
+            la = new OffHeapIntArray(THRESHOLD);
+            int[] sorted = heap.clone();
+            Arrays.sort(sorted);
+            for (int k : new int[]{0, 1, THRESHOLD / 2, THRESHOLD * 9 / 10, THRESHOLD - 1}) {
+                for (int i = 0; i < THRESHOLD; i++) {
+                    la.set(i, heap[i]);
+                }
+                assertEquals(sorted[k], OffHeapIntSorter.select(la, k));
+                for (int i = 0; i < k; i++) {
+                    assertTrue(la.get(i) <= sorted[k]);
+                }
+                for (int i = k + 1; i < THRESHOLD; i++) {
+                    assertTrue(la.get(i) >= sorted[k]);
+                }
+            }
+        } finally {
+            free(la);
+        }
+    }
+
+    @Test
+    public void testPartialSort() throws Exception {
+        OffHeapIntArray la = null;
+        try {
+            int[] heap = gendata();
+            int[] sorted = heap.clone();
+            Arrays.sort(sorted);
+            la = new OffHeapIntArray(THRESHOLD);
+            for (int from : new int[]{0, 1000, THRESHOLD - 100}) {
+                for (int i = 0; i < THRESHOLD; i++) {
+                    la.set(i, heap[i]);
+                }
+                OffHeapIntSorter.partialSort(la, from, 100);
+                for (int i = from; i < from + 100; i++) {
+                    assertEquals(sorted[i], la.get(i));
+                }
+            }
+        } finally {
+            free(la);
+        }
+    }
+
     private static int[] gendata() throws Exception {
         Random random = new Random(42);
         int[] res = new int[THRESHOLD];
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapConcurrentLongLongHashMapTest {
+
+    @Test
+    public void test() {
+        OffHeapConcurrentLongLongHashMap map = null;
+        try {
+            map = new OffHeapConcurrentLongLongHashMap(0, 3);
+            assertEquals(4, map.segmentsCount());
+            assertEquals(0, map.put(42, 43));
+            assertEquals(43, map.put(42, 44));
+            assertEquals(44, map.get(42));
+            assertTrue(map.containsKey(42));
+            assertFalse(map.containsKey(41));
+            assertEquals(44, map.putIfAbsent(42, 45));
+            assertEquals(1, map.addTo(41, 1));
+            assertEquals(2, map.size());
+            assertEquals(1, map.remove(41));
+            assertEquals(1, map.size());
+            map.clear();
+            assertEquals(0, map.size());
+        } finally {
+            free(map);
+        }
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final int threads = 8;
+        final int perThread = 50000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        OffHeapConcurrentLongLongHashMap map = null;
+        try {
+            final OffHeapConcurrentLongLongHashMap fmap = new OffHeapConcurrentLongLongHashMap();
+            map = fmap;
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < perThread; i++) {
+                            // own keys and shared counters
+                            fmap.put(thread * (long) perThread + i, i);
+                            fmap.addTo(-1 - (i % 100), 1);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> fu : futures) {
+                fu.get();
+            }
+            assertEquals(threads * (long) perThread + 100, map.size());
+            for (long i = 0; i < threads * (long) perThread; i++) {
+                assertEquals(i % perThread, map.get(i));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(threads * perThread / 100, map.get(-1 - i));
+            }
+            final long[] sum = new long[1];
+            map.forEach(new OffHeapLongLongProcedure() {
+                @Override
+                public void apply(long key, long value) {
+                    if (key < 0) sum[0] += value;
+                }
+            });
+            assertEquals(threads * (long) perThread, sum[0]);
+        } finally {
+            executor.shutdown();
+            free(map);
+        }
+    }
+
+    @Test
+    public void testReadsDuringResize() throws Exception {
+        final int writers = 2;
+        final int readers = 4;
+        final int perWriter = 200000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+        OffHeapConcurrentLongLongHashMap map = null;
+        try {
+            // small segments are resized many times while being read
+            final OffHeapConcurrentLongLongHashMap fmap = new OffHeapConcurrentLongLongHashMap(0, 4);
+            map = fmap;
+            // optimistic reads are used with unsafe memory
+            OffHeapLongLongHashMap segment = new OffHeapLongLongHashMap();
+            try {
+                assertEquals(segment.isUnsafe(), segment.isOptimisticReadSupported());
+            } finally {
+                free(segment);
+            }
+            final AtomicBoolean done = new AtomicBoolean(false);
+            List<Future<Long>> readFutures = new ArrayList<Future<Long>>();
+            for (int t = 0; t < readers; t++) {
+                readFutures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        long found = 0;
+                        long key = 0;
+                        while (!done.get()) {
+                            long val = fmap.get(key);
+                            // value is either absent or written by writer
+                            if (0 != val && key + 1 != val) return -1L;
+                            if (0 != val) found += 1;
+                            fmap.containsKey(key);
+                            key = (key + 7919) % (writers * (long) perWriter);
+                        }
+                        return found;
+                    }
+                }));
+            }
+            List<Future<Void>> writeFutures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < writers; t++) {
+                final int thread = t;
+                writeFutures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (long i = 0; i < perWriter; i++) {
+                            long key = thread * (long) perWriter + i;
+                            fmap.put(key, key + 1);
+                            if (0 == i % 10) fmap.remove(key);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> fu : writeFutures) {
+                fu.get();
+            }
+            done.set(true);
+            for (Future<Long> fu : readFutures) {
+                assertTrue(fu.get() >= 0);
+            }
+            assertEquals(writers * (long) perWriter * 9 / 10, map.size());
+            for (long key = 0; key < writers * (long) perWriter; key++) {
+                assertEquals(0 == key % perWriter % 10 ? 0 : key + 1, map.get(key));
+                assertEquals(0 != key % perWriter % 10, map.containsKey(key));
+            }
+        } finally {
+            executor.shutdown();
+            free(map);
+        }
+    }
+}
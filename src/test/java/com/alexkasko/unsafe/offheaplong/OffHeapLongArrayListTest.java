@@ -20,6 +20,7 @@ import org.junit.Test;
 
 import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
 /**
@@ -45,4 +46,80 @@ public class OffHeapLongArrayListTest {
             free(list);
         }
     }
+
+    @Test
+    public void testCursor() {
+        OffHeapLongArrayList coll = null;
+        try {
+            coll = new OffHeapLongArrayList();
+            for (int i = 0; i < 1000; i++) {
+                coll.add(i * 3);
+            }
+            OffHeapLongCursor cur = coll.cursor();
+            long count = 0;
+            while (cur.hasNext()) {
+                assertEquals(count * 3, cur.nextLong());
+                count += 1;
+            }
+            assertEquals(1000, count);
+            cur = coll.cursor(10, 13);
+            assertEquals(30, cur.nextLong());
+            assertEquals(33, cur.nextLong());
+            assertEquals(36, cur.nextLong());
+            assertFalse(cur.hasNext());
+            assertFalse(coll.cursor(5, 5).hasNext());
+            final long[] sum = new long[1];
+            coll.forEachLong(new OffHeapLongProcedure() {
+                @Override
+                public void apply(long value) {
+                    sum[0] += value;
+                }
+            });
+            assertEquals(3 * 999 * 1000 / 2, sum[0]);
+            sum[0] = 0;
+            coll.forEachLong(998, 1000, new OffHeapLongProcedure() {
+                @Override
+                public void apply(long value) {
+                    sum[0] += value;
+                }
+            });
+            assertEquals(998 * 3 + 999 * 3, sum[0]);
+        } finally {
+            free(coll);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorRange() {
+        OffHeapLongArrayList coll = new OffHeapLongArrayList();
+        try {
+            coll.cursor(0, 1001);
+        } finally {
+            free(coll);
+        }
+    }
+
+    @Test
+    public void testForEachGrowing() {
+        final OffHeapLongArrayList coll = new OffHeapLongArrayList();
+        try {
+            coll.add(1);
+            coll.add(2);
+            final long[] sum = new long[1];
+            // each add reallocates list memory
+            coll.forEachLong(new OffHeapLongProcedure() {
+                @Override
+                public void apply(long value) {
+                    sum[0] += value;
+                    for (int i = 0; i < 100; i++) {
+                        coll.add(42);
+                    }
+                }
+            });
+            assertEquals(3, sum[0]);
+            assertEquals(202, coll.size());
+        } finally {
+            free(coll);
+        }
+    }
 }
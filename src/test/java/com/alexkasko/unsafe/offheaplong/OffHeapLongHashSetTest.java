@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import com.alexkasko.unsafe.offheapbitset.OffHeapBitSet;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongHashSetTest {
+
+    @Test
+    public void test() {
+        OffHeapLongHashSet set = null;
+        try {
+            set = new OffHeapLongHashSet();
+            Set<Long> heap = new HashSet<Long>();
+            Random random = new Random(42);
+            for (int i = 0; i < 100000; i++) {
+                long va = random.nextInt(20000);
+                if (random.nextBoolean()) {
+                    assertEquals(heap.add(va), set.add(va));
+                } else if (random.nextBoolean()) {
+                    assertEquals(heap.remove(va), set.remove(va));
+                } else {
+                    assertEquals(heap.contains(va), set.contains(va));
+                }
+            }
+            assertEquals(heap.size(), set.size());
+            Set<Long> traversed = new HashSet<Long>();
+            for (OffHeapLongCursor cur = set.cursor(); cur.hasNext(); ) {
+                assertTrue(traversed.add(cur.nextLong()));
+            }
+            assertEquals(heap, traversed);
+            set.clear();
+            assertEquals(0, set.size());
+            assertFalse(set.cursor().hasNext());
+        } finally {
+            free(set);
+        }
+    }
+
+    @Test
+    public void testContainsAll() {
+        OffHeapLongHashSet set = null;
+        OffHeapLongArray in = null;
+        OffHeapBitSet out = null;
+        try {
+            set = new OffHeapLongHashSet(1000);
+            for (long i = 0; i < 1000; i += 2) {
+                set.add(i);
+            }
+            in = new OffHeapLongArray(1001);
+            for (long i = 0; i < 1001; i++) {
+                in.set(i, 1000 - i);
+            }
+            out = new OffHeapBitSet(1001);
+            assertEquals(500, set.containsAll(in, out));
+            for (long i = 0; i < 1001; i++) {
+                long va = 1000 - i;
+                assertEquals(va < 1000 && 0 == va % 2, out.get(i));
+            }
+        } finally {
+            free(set);
+            free(in);
+            free(out);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyValue() {
+        OffHeapLongHashSet set = new OffHeapLongHashSet();
+        try {
+            set.add(Long.MIN_VALUE);
+        } finally {
+            free(set);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongHeapTest {
+
+    @Test
+    public void test() {
+        OffHeapLongHeap heap = null;
+        try {
+            heap = new OffHeapLongHeap();
+            Random random = new Random(42);
+            long[] heapArr = new long[1000];
+            for (int i = 0; i < heapArr.length; i++) {
+                heapArr[i] = random.nextLong();
+                heap.add(heapArr[i]);
+            }
+            assertEquals(1000, heap.size());
+            Arrays.sort(heapArr);
+            assertEquals(heapArr[0], heap.peek());
+            assertEquals(heapArr[0], heap.replaceTop(Long.MAX_VALUE));
+            for (int i = 1; i < heapArr.length; i++) {
+                assertEquals(heapArr[i], heap.poll());
+            }
+            assertEquals(Long.MAX_VALUE, heap.poll());
+            assertTrue(heap.isEmpty());
+        } finally {
+            free(heap);
+        }
+    }
+
+    @Test
+    public void testComparator() {
+        OffHeapLongHeap heap = null;
+        try {
+            heap = new OffHeapLongHeap(0, new OffHeapLongComparator() {
+                @Override
+                public int compare(long l1, long l2) {
+                    return l1 > l2 ? -1 : (l1 == l2 ? 0 : 1);
+                }
+            });
+            for (int i = 0; i < 100; i++) {
+                heap.add(i);
+            }
+            for (int i = 99; i >= 0; i--) {
+                assertEquals(i, heap.poll());
+            }
+        } finally {
+            free(heap);
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        OffHeapLongArray arr = null;
+        OffHeapLongArray top = null;
+        OffHeapLongArray all = null;
+        try {
+            Random random = new Random(42);
+            long[] heapArr = new long[100000];
+            arr = new OffHeapLongArray(heapArr.length);
+            for (int i = 0; i < heapArr.length; i++) {
+                heapArr[i] = random.nextInt(1000000);
+                arr.set(i, heapArr[i]);
+            }
+            Arrays.sort(heapArr);
+            top = OffHeapLongHeap.topK(arr, 1000);
+            assertEquals(1000, top.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(heapArr[heapArr.length - 1 - i], top.get(i));
+            }
+            all = OffHeapLongHeap.topK(top, 2000);
+            assertEquals(1000, all.size());
+            assertEquals(top.get(999), all.get(999));
+        } finally {
+            free(arr);
+            free(top);
+            free(all);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongLongHashMapTest {
+
+    @Test
+    public void test() {
+        OffHeapLongLongHashMap map = null;
+        try {
+            map = new OffHeapLongLongHashMap();
+            assertEquals(0, map.put(42, 43));
+            assertEquals(43, map.put(42, 44));
+            assertEquals(44, map.get(42));
+            assertEquals(0, map.get(41));
+            assertTrue(map.containsKey(42));
+            assertFalse(map.containsKey(41));
+            assertEquals(44, map.putIfAbsent(42, 45));
+            assertEquals(0, map.putIfAbsent(41, 45));
+            assertEquals(45, map.get(41));
+            assertEquals(46, map.addTo(41, 1));
+            assertEquals(-1, map.addTo(40, -1));
+            assertEquals(3, map.size());
+            assertEquals(46, map.remove(41));
+            assertEquals(0, map.remove(41));
+            assertEquals(2, map.size());
+            map.clear();
+            assertEquals(0, map.size());
+            assertFalse(map.containsKey(42));
+        } finally {
+            free(map);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        OffHeapLongLongHashMap map = null;
+        try {
+            map = new OffHeapLongLongHashMap(16, 0.75f, -1, -42);
+            Map<Long, Long> heap = new HashMap<Long, Long>();
+            Random random = new Random(42);
+            for (int i = 0; i < 100000; i++) {
+                // small key range to get many collisions, updates and removals
+                long key = random.nextInt(20000);
+                long value = random.nextLong();
+                switch (random.nextInt(4)) {
+                    case 0:
+                    case 1:
+                        Long prev = heap.put(key, value);
+                        assertEquals(null != prev ? prev : -42, map.put(key, value));
+                        break;
+                    case 2:
+                        Long removed = heap.remove(key);
+                        assertEquals(null != removed ? removed : -42, map.remove(key));
+                        break;
+                    default:
+                        Long existed = heap.get(key);
+                        assertEquals(null != existed ? existed : -42, map.get(key));
+                }
+            }
+            assertEquals(heap.size(), map.size());
+            for (Map.Entry<Long, Long> en : heap.entrySet()) {
+                assertEquals((long) en.getValue(), map.get(en.getKey()));
+            }
+            final long[] sums = new long[2];
+            map.forEach(new OffHeapLongLongProcedure() {
+                @Override
+                public void apply(long key, long value) {
+                    sums[0] += key;
+                    sums[1] += value;
+                }
+            });
+            long keySum = 0;
+            long valueSum = 0;
+            for (Map.Entry<Long, Long> en : heap.entrySet()) {
+                keySum += en.getKey();
+                valueSum += en.getValue();
+            }
+            assertEquals(keySum, sums[0]);
+            assertEquals(valueSum, sums[1]);
+            assertTrue(map.capacity() * 0.75 >= map.size());
+        } finally {
+            free(map);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyKey() {
+        OffHeapLongLongHashMap map = new OffHeapLongLongHashMap();
+        try {
+            map.put(Long.MIN_VALUE, 42);
+        } finally {
+            free(map);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheaplong;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongLongRadixTreeTest {
+
+    @Test
+    public void test() {
+        OffHeapLongLongRadixTree tree = null;
+        try {
+            tree = new OffHeapLongLongRadixTree(-1);
+            assertEquals(-1, tree.get(42));
+            assertEquals(-1, tree.put(42, 1));
+            assertEquals(1, tree.put(42, 2));
+            assertEquals(-1, tree.put(-42, 3));
+            assertEquals(-1, tree.put(Long.MIN_VALUE, 4));
+            assertEquals(-1, tree.put(Long.MAX_VALUE, 5));
+            assertEquals(4, tree.size());
+            assertEquals(2, tree.get(42));
+            assertEquals(3, tree.get(-42));
+            assertTrue(tree.containsKey(Long.MIN_VALUE));
+            assertFalse(tree.containsKey(43));
+            Collector col = new Collector();
+            tree.forEach(col);
+            assertEquals(Long.MIN_VALUE, (long) col.keys.get(0));
+            assertEquals(-42, (long) col.keys.get(1));
+            assertEquals(42, (long) col.keys.get(2));
+            assertEquals(Long.MAX_VALUE, (long) col.keys.get(3));
+            assertEquals(2, tree.remove(42));
+            assertEquals(-1, tree.remove(42));
+            assertEquals(3, tree.size());
+            tree.remove(-42);
+            tree.remove(Long.MIN_VALUE);
+            tree.remove(Long.MAX_VALUE);
+            assertEquals(0, tree.size());
+            assertFalse(tree.containsKey(Long.MAX_VALUE));
+        } finally {
+            free(tree);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(42);
+        OffHeapLongLongRadixTree tree = null;
+        try {
+            tree = new OffHeapLongLongRadixTree();
+            for (int round = 0; round < 4; round++) {
+                TreeMap<Long, Long> expected = new TreeMap<Long, Long>();
+                for (int i = 0; i < 200000; i++) {
+                    // dense, clustered and sparse keys
+                    long key;
+                    switch (round) {
+                        case 0: key = random.nextInt(100000); break;
+                        case 1: key = 1413676800000L + random.nextInt(1 << 20) * 1000L; break;
+                        case 2: key = random.nextLong() >> random.nextInt(64); break;
+                        default: key = random.nextInt(3000) - 1500;
+                    }
+                    long val = random.nextLong();
+                    if (random.nextInt(4) > 0) {
+                        Long prev = expected.put(key, val);
+                        assertEquals(null != prev ? prev : 0, tree.put(key, val));
+                    } else {
+                        Long prev = expected.remove(key);
+                        assertEquals(null != prev ? prev : 0, tree.remove(key));
+                    }
+                }
+                assertEquals(expected.size(), tree.size());
+                for (Map.Entry<Long, Long> en : expected.entrySet()) {
+                    assertEquals((long) en.getValue(), tree.get(en.getKey()));
+                }
+                Collector col = new Collector();
+                tree.forEach(col);
+                assertEquals(new ArrayList<Long>(expected.keySet()), col.keys);
+                assertEquals(new ArrayList<Long>(expected.values()), col.values);
+                for (int i = 0; i < 100; i++) {
+                    long from = expected.isEmpty() ? 0 : expected.firstKey() + random.nextInt(10000);
+                    long to = from + random.nextInt(100000);
+                    col = new Collector();
+                    tree.forEachInRange(from, to, col);
+                    assertEquals(new ArrayList<Long>(expected.subMap(from, true, to, true).keySet()), col.keys);
+                }
+                // remove all
+                for (Long key : expected.keySet()) {
+                    assertEquals((long) expected.get(key), tree.remove(key));
+                }
+                assertEquals(0, tree.size());
+                col = new Collector();
+                tree.forEach(col);
+                assertTrue(col.keys.isEmpty());
+            }
+        } finally {
+            free(tree);
+        }
+    }
+
+    @Test
+    public void testPrefix() {
+        OffHeapLongLongRadixTree tree = null;
+        try {
+            tree = new OffHeapLongLongRadixTree();
+            for (long i = 0; i < 100000; i++) {
+                tree.put(i, i * 2);
+                tree.put(-i - 1, i * 3);
+            }
+            Collector col = new Collector();
+            tree.forEachWithPrefix(0x1234, 52, col);
+            assertEquals(4096, col.keys.size());
+            assertEquals(0x1000, (long) col.keys.get(0));
+            assertEquals(0x1fff, (long) col.keys.get(4095));
+            assertEquals(0x2000, (long) col.values.get(0));
+            col = new Collector();
+            tree.forEachWithPrefix(Long.MIN_VALUE, 1, col);
+            assertEquals(100000, col.keys.size());
+            assertEquals(-100000, (long) col.keys.get(0));
+            assertEquals(-1, (long) col.keys.get(99999));
+            col = new Collector();
+            tree.forEachWithPrefix(42, 64, col);
+            assertEquals(1, col.keys.size());
+            col = new Collector();
+            tree.forEachWithPrefix(0, 0, col);
+            assertEquals(200000, col.keys.size());
+        } finally {
+            free(tree);
+        }
+    }
+
+    private static class Collector implements OffHeapLongLongProcedure {
+        private final List<Long> keys = new ArrayList<Long>();
+        private final List<Long> values = new ArrayList<Long>();
+
+        @Override
+        public void apply(long key, long value) {
+            keys.add(key);
+            values.add(value);
+        }
+    }
+}
@@ -24,6 +24,8 @@ import java.util.Random;
 
 import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
 * User: alexkasko
@@ -87,6 +89,57 @@ public class OffHeapLongSorterTest {
         }
     }
 
+    @Test
+    public void testSelect() throws Exception {
+        OffHeapLongArray la = null;
+        try {
+            long[] heap = gendata();
+            // many duplicates
+            for (int i = 0; i < heap.length; i += 2) {
+                heap[i] = heap[i] % 100;
+            }
+            la = new OffHeapLongArray(THRESHOLD);
+            long[] sorted = heap.clone();
+            Arrays.sort(sorted);
+            for (int k : new int[]{0, 1, THRESHOLD / 2, THRESHOLD * 9 / 10, THRESHOLD - 1}) {
+                for (int i = 0; i < THRESHOLD; i++) {
+                    la.set(i, heap[i]);
+                }
+                assertEquals(sorted[k], OffHeapLongSorter.select(la, k));
+                for (int i = 0; i < k; i++) {
+                    assertTrue(la.get(i) <= sorted[k]);
+                }
+                for (int i = k + 1; i < THRESHOLD; i++) {
+                    assertTrue(la.get(i) >= sorted[k]);
+                }
+            }
+        } finally {
+            free(la);
+        }
+    }
+
+    @Test
+    public void testPartialSort() throws Exception {
+        OffHeapLongArray la = null;
+        try {
+            long[] heap = gendata();
+            long[] sorted = heap.clone();
+            Arrays.sort(sorted);
+            la = new OffHeapLongArray(THRESHOLD);
+            for (int from : new int[]{0, 1000, THRESHOLD - 100}) {
+                for (int i = 0; i < THRESHOLD; i++) {
+                    la.set(i, heap[i]);
+                }
+                OffHeapLongSorter.partialSort(la, from, 100);
+                for (int i = from; i < from + 100; i++) {
+                    assertEquals(sorted[i], la.get(i));
+                }
+            }
+        } finally {
+            free(la);
+        }
+    }
+
     private static long[] gendata() throws Exception {
         Random random = new Random(42);
         long[] res = new long[THRESHOLD];
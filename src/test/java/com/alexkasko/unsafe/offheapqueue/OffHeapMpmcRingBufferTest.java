@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapqueue;
+
+import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import com.alexkasko.unsafe.offheapstruct.OffHeapStructArrayList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapMpmcRingBufferTest {
+
+    @Test
+    public void test() {
+        OffHeapMpmcRingBuffer rb = null;
+        OffHeapStructArrayList list = null;
+        try {
+            rb = new OffHeapMpmcRingBuffer(3, 8);
+            list = new OffHeapStructArrayList(8);
+            assertEquals(4, rb.capacity());
+            byte[] buf = new byte[8];
+            assertFalse(rb.poll(buf));
+            for (int i = 0; i < 4; i++) {
+                buf[0] = (byte) i;
+                assertTrue(rb.offer(buf));
+            }
+            assertFalse(rb.offer(buf));
+            assertEquals(4, rb.size());
+            assertTrue(rb.poll(buf));
+            assertEquals(0, buf[0]);
+            buf[0] = 4;
+            assertTrue(rb.offer(buf));
+            assertEquals(3, rb.drainTo(list, buf, 3));
+            assertEquals(1, rb.drainTo(list, buf, 3));
+            assertEquals(0, rb.drainTo(list, buf, 3));
+            assertEquals(4, list.size());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(i + 1, list.getByte(i, 0));
+            }
+            assertEquals(0, rb.size());
+        } finally {
+            free(rb);
+            free(list);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDrainStructLength() {
+        OffHeapMpmcRingBuffer rb = new OffHeapMpmcRingBuffer(4, 8);
+        OffHeapStructArrayList list = new OffHeapStructArrayList(16);
+        try {
+            rb.drainTo(list, new byte[16], 1);
+        } finally {
+            free(rb);
+            free(list);
+        }
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        final int producers = 4;
+        final int consumers = 3;
+        final int count = 100000;
+        final OffHeapMpmcRingBuffer rb = new OffHeapMpmcRingBuffer(256, 16);
+        final AtomicLongArray sums = new AtomicLongArray(producers);
+        final AtomicLong received = new AtomicLong();
+        try {
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int p = 0; p < producers; p++) {
+                final int id = p;
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        ByteArrayTool bt = ByteArrayTool.get();
+                        byte[] buf = new byte[16];
+                        for (int i = 0; i < count; ) {
+                            bt.putLong(buf, 0, id);
+                            bt.putLong(buf, 8, i);
+                            if (rb.offer(buf)) {
+                                i += 1;
+                            } else {
+                                Thread.yield();
+                            }
+                        }
+                    }
+                }));
+            }
+            for (int c = 0; c < consumers; c++) {
+                final boolean batch = 0 == c % 2;
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        ByteArrayTool bt = ByteArrayTool.get();
+                        byte[] buf = new byte[16];
+                        OffHeapStructArrayList list = new OffHeapStructArrayList(16);
+                        try {
+                            while (received.get() < (long) producers * count) {
+                                if (batch) {
+                                    list.reset();
+                                    int read = rb.drainTo(list, buf, 64);
+                                    for (int i = 0; i < read; i++) {
+                                        sums.addAndGet((int) list.getLong(i, 0), list.getLong(i, 8));
+                                    }
+                                    received.addAndGet(read);
+                                    if (0 == read) Thread.yield();
+                                } else if (rb.poll(buf)) {
+                                    sums.addAndGet((int) bt.getLong(buf, 0), bt.getLong(buf, 8));
+                                    received.incrementAndGet();
+                                } else {
+                                    Thread.yield();
+                                }
+                            }
+                        } finally {
+                            list.free();
+                        }
+                    }
+                }));
+            }
+            for (Thread th : threads) th.start();
+            for (Thread th : threads) th.join();
+            assertEquals((long) producers * count, received.get());
+            long expected = ((long) count) * (count - 1) / 2;
+            for (int p = 0; p < producers; p++) {
+                assertEquals(expected, sums.get(p));
+            }
+            assertEquals(0, rb.size());
+        } finally {
+            free(rb);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapqueue;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapSpscRingBufferTest {
+
+    @Test
+    public void test() {
+        OffHeapSpscRingBuffer rb = null;
+        try {
+            rb = new OffHeapSpscRingBuffer(3, 8);
+            assertEquals(4, rb.capacity());
+            byte[] buf = new byte[8];
+            assertFalse(rb.poll(buf));
+            for (int i = 0; i < 4; i++) {
+                buf[0] = (byte) i;
+                assertTrue(rb.offer(buf));
+            }
+            assertFalse(rb.offer(buf));
+            assertEquals(4, rb.size());
+            assertTrue(rb.poll(buf));
+            assertEquals(0, buf[0]);
+            // in place
+            long seq = rb.claim();
+            assertEquals(4, seq);
+            rb.putLong(seq, 0, 42);
+            assertEquals(-1, rb.claim());
+            rb.commit();
+            for (int i = 1; i < 4; i++) {
+                assertTrue(rb.poll(buf));
+                assertEquals(i, buf[0]);
+            }
+            seq = rb.peek();
+            assertEquals(42, rb.getLong(seq, 0));
+            rb.release();
+            assertEquals(-1, rb.peek());
+            assertEquals(0, rb.size());
+        } finally {
+            free(rb);
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        OffHeapSpscRingBuffer rb = null;
+        try {
+            rb = new OffHeapSpscRingBuffer(8, 4);
+            byte[] buf = new byte[4 * 10];
+            for (int i = 0; i < 10; i++) {
+                buf[i * 4] = (byte) i;
+            }
+            assertEquals(8, rb.offer(buf, 10));
+            byte[] out = new byte[4 * 5];
+            assertEquals(5, rb.poll(out, 5));
+            assertEquals(4, out[4 * 4]);
+            assertEquals(3, rb.poll(out, 5));
+            assertEquals(7, out[2 * 4]);
+            assertEquals(0, rb.poll(out, 5));
+        } finally {
+            free(rb);
+        }
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        final OffHeapSpscRingBuffer rb = new OffHeapSpscRingBuffer(1024, 16);
+        try {
+            final long count = 1000000;
+            final AtomicReference<String> error = new AtomicReference<String>();
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long expected = 0;
+                    while (expected < count) {
+                        long seq = rb.peek();
+                        if (seq < 0) {
+                            Thread.yield();
+                            continue;
+                        }
+                        long val = rb.getLong(seq, 0);
+                        long check = rb.getLong(seq, 8);
+                        rb.release();
+                        if (val != expected || check != ~expected) {
+                            error.set("Expected: [" + expected + "], actual: [" + val + "]");
+                            return;
+                        }
+                        expected += 1;
+                    }
+                }
+            });
+            consumer.start();
+            for (long i = 0; i < count; ) {
+                long seq = rb.claim();
+                if (seq < 0) {
+                    Thread.yield();
+                    continue;
+                }
+                rb.putLong(seq, 0, i);
+                rb.putLong(seq, 8, ~i);
+                rb.commit();
+                i += 1;
+            }
+            consumer.join();
+            assertNull(error.get());
+            assertEquals(0, rb.size());
+        } finally {
+            free(rb);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongStructBTreeTest {
+
+    @Test
+    public void test() {
+        ByteArrayTool bt = ByteArrayTool.get();
+        OffHeapLongStructBTree tree = null;
+        try {
+            tree = new OffHeapLongStructBTree(12);
+            byte[] buf = new byte[12];
+            assertFalse(tree.get(42, buf));
+            bt.putLong(buf, 0, 42);
+            bt.putInt(buf, 8, 1);
+            assertTrue(tree.put(42, buf));
+            bt.putInt(buf, 8, 2);
+            assertFalse(tree.put(42, buf));
+            assertEquals(1, tree.size());
+            byte[] res = new byte[12];
+            assertTrue(tree.get(42, res));
+            assertEquals(2, bt.getInt(res, 8));
+            assertTrue(tree.containsKey(42));
+            assertFalse(tree.containsKey(43));
+            assertTrue(tree.remove(42));
+            assertFalse(tree.remove(42));
+            assertEquals(0, tree.size());
+            assertFalse(tree.cursor().seekFirst());
+        } finally {
+            free(tree);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        ByteArrayTool bt = ByteArrayTool.get();
+        Random random = new Random(42);
+        TreeMap<Long, Integer> expected = new TreeMap<Long, Integer>();
+        OffHeapLongStructBTree tree = null;
+        try {
+            tree = new OffHeapLongStructBTree(4);
+            byte[] buf = new byte[4];
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 100000; i++) {
+                    long key = random.nextInt(50000);
+                    int val = random.nextInt();
+                    bt.putInt(buf, 0, val);
+                    if (random.nextInt(3) > 0) {
+                        assertEquals(null == expected.put(key, val), tree.put(key, buf));
+                    } else {
+                        assertEquals(null != expected.remove(key), tree.remove(key));
+                    }
+                }
+                assertEquals(expected.size(), tree.size());
+                OffHeapLongStructBTree.Cursor cur = tree.cursor();
+                boolean valid = cur.seekFirst();
+                for (Map.Entry<Long, Integer> en : expected.entrySet()) {
+                    assertTrue(valid);
+                    assertEquals((long) en.getKey(), cur.key());
+                    assertEquals((int) en.getValue(), cur.getInt(0));
+                    valid = cur.next();
+                }
+                assertFalse(valid);
+                for (int i = 0; i < 1000; i++) {
+                    long key = random.nextInt(50000);
+                    assertEquals(expected.containsKey(key), tree.get(key, buf));
+                    Long ceil = expected.ceilingKey(key);
+                    assertEquals(null != ceil, cur.seekCeiling(key));
+                    if (null != ceil) assertEquals((long) ceil, cur.key());
+                    Long floor = expected.floorKey(key);
+                    assertEquals(null != floor, cur.seekFloor(key));
+                    if (null != floor) assertEquals((long) floor, cur.key());
+                }
+            }
+            // remove everything in reverse order
+            OffHeapLongStructBTree.Cursor cur = tree.cursor();
+            for (Long key : expected.descendingKeySet()) {
+                assertTrue(cur.seekLast());
+                assertEquals((long) key, cur.key());
+                assertTrue(tree.remove(key));
+            }
+            assertEquals(0, tree.size());
+            assertEquals(0, tree.height());
+            assertFalse(cur.seekLast());
+        } finally {
+            free(tree);
+        }
+    }
+
+    @Test
+    public void testRangeScan() {
+        OffHeapLongStructBTree tree = null;
+        try {
+            tree = new OffHeapLongStructBTree(8);
+            byte[] buf = new byte[8];
+            for (long i = 0; i < 10000; i++) {
+                ByteArrayTool.get().putLong(buf, 0, i * 10);
+                tree.put(i * 10, buf);
+            }
+            assertTrue(tree.height() > 0);
+            OffHeapLongStructBTree.Cursor cur = tree.cursor();
+            // keys in [1005, 2005)
+            int count = 0;
+            for (boolean valid = cur.seekCeiling(1005); valid && cur.key() < 2005; valid = cur.next()) {
+                assertEquals(1010 + count * 10, cur.getLong(0));
+                count += 1;
+            }
+            assertEquals(100, count);
+            // backwards from 2005
+            assertTrue(cur.seekFloor(2005));
+            assertEquals(2000, cur.key());
+            assertTrue(cur.prev());
+            assertEquals(1990, cur.key());
+            assertFalse(cur.seekFloor(-1));
+            assertFalse(cur.seekCeiling(99991));
+            assertTrue(cur.seekLast());
+            assertEquals(99990, cur.key());
+            assertFalse(cur.next());
+            assertFalse(cur.isValid());
+        } finally {
+            free(tree);
+        }
+    }
+
+    @Test
+    public void testFromSorted() {
+        ByteArrayTool bt = ByteArrayTool.get();
+        OffHeapStructArray arr = null;
+        OffHeapLongStructBTree tree = null;
+        try {
+            arr = new OffHeapStructArray(100000, 16);
+            byte[] buf = new byte[16];
+            for (int i = 0; i < arr.size(); i++) {
+                bt.putLong(buf, 0, i * 2);
+                bt.putLong(buf, 8, -i);
+                arr.set(i, buf);
+            }
+            tree = OffHeapLongStructBTree.fromSorted(arr, 0);
+            assertEquals(100000, tree.size());
+            for (int i = 0; i < arr.size(); i++) {
+                assertTrue(tree.get(i * 2, buf));
+                assertEquals(-i, bt.getLong(buf, 8));
+                assertFalse(tree.containsKey(i * 2 + 1));
+            }
+            OffHeapLongStructBTree.Cursor cur = tree.cursor();
+            assertTrue(cur.seekCeiling(777));
+            assertEquals(778, cur.key());
+            assertEquals(-389, cur.getLong(8));
+            // tree stays modifiable
+            for (int i = 0; i < arr.size(); i++) {
+                bt.putLong(buf, 8, i);
+                assertTrue(tree.put(i * 2 + 1, buf));
+            }
+            assertEquals(200000, tree.size());
+            long expected = 0;
+            for (boolean valid = cur.seekFirst(); valid; valid = cur.next()) {
+                assertEquals(expected++, cur.key());
+            }
+            assertEquals(200000, expected);
+        } finally {
+            free(arr);
+            free(tree);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromUnsorted() {
+        OffHeapStructArray arr = new OffHeapStructArray(3, 8);
+        try {
+            arr.set(0, new byte[8]);
+            arr.set(1, new byte[8]);
+            arr.set(2, new byte[8]);
+            OffHeapLongStructBTree.fromSorted(arr, 0);
+        } finally {
+            free(arr);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapLongStructMapTest {
+
+    @Test
+    public void test() {
+        OffHeapLongStructMap map = null;
+        try {
+            map = new OffHeapLongStructMap(12);
+            byte[] buf = new byte[12];
+            assertTrue(map.put(42, buf));
+            assertTrue(map.putLong(42, 0, 43));
+            assertTrue(map.putInt(42, 8, 44));
+            assertFalse(map.putLong(41, 0, 43));
+            OffHeapStructAccessor ac = map.getAccessor(42);
+            assertEquals(12, ac.structLength());
+            assertEquals(43, ac.getLong(0));
+            assertEquals(44, ac.getInt(8));
+            assertNull(map.getAccessor(41));
+            byte[] copy = new byte[12];
+            assertTrue(map.get(42, copy));
+            assertFalse(map.get(41, copy));
+            assertFalse(map.put(42, copy));
+            assertEquals(1, map.size());
+            assertTrue(map.containsKey(42));
+            assertTrue(map.remove(42));
+            assertFalse(map.remove(42));
+            assertFalse(map.containsKey(42));
+            assertEquals(0, map.size());
+        } finally {
+            free(map);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        OffHeapLongStructMap map = null;
+        try {
+            map = new OffHeapLongStructMap(16, 16, 0.75f, -1);
+            Map<Long, Long> heap = new HashMap<Long, Long>();
+            Random random = new Random(42);
+            byte[] buf = new byte[16];
+            for (int i = 0; i < 100000; i++) {
+                // small key range to get many collisions, updates and removals
+                long key = random.nextInt(20000);
+                long value = random.nextLong();
+                switch (random.nextInt(4)) {
+                    case 0:
+                    case 1:
+                        boolean added = null == heap.put(key, value);
+                        assertEquals(added, map.put(key, buf));
+                        map.putLong(key, 0, value);
+                        map.putLong(key, 8, key);
+                        break;
+                    case 2:
+                        boolean removed = null != heap.remove(key);
+                        assertEquals(removed, map.remove(key));
+                        break;
+                    default:
+                        Long existed = heap.get(key);
+                        OffHeapStructAccessor ac = map.getAccessor(key);
+                        if (null == existed) {
+                            assertNull(ac);
+                        } else {
+                            assertEquals((long) existed, ac.getLong(0));
+                            assertEquals(key, ac.getLong(8));
+                        }
+                }
+            }
+            assertEquals(heap.size(), map.size());
+            for (Map.Entry<Long, Long> en : heap.entrySet()) {
+                assertTrue(map.get(en.getKey(), buf));
+                assertEquals((long) en.getValue(), map.getAccessor(en.getKey()).getLong(0));
+            }
+        } finally {
+            free(map);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyKey() {
+        OffHeapLongStructMap map = new OffHeapLongStructMap(8);
+        try {
+            map.put(Long.MIN_VALUE, new byte[8]);
+        } finally {
+            free(map);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ReadOnlyBufferException;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapSharedStructArrayTest {
+
+    @Test
+    public void test() throws Exception {
+        File file = File.createTempFile("OffHeapSharedStructArrayTest", ".bin");
+        OffHeapSharedStructArray writer1 = null;
+        OffHeapSharedStructArray reader1 = null;
+        OffHeapSharedStructArray writer2 = null;
+        OffHeapSharedStructArray reader2 = null;
+        try {
+            assertTrue(file.delete());
+            writer1 = OffHeapSharedStructArray.create(file, 1000, 16);
+            assertFalse(file.exists());
+            for (int i = 0; i < 1000; i++) {
+                writer1.array().putLong(i, 0, i);
+                writer1.array().putLong(i, 8, -i);
+            }
+            assertEquals(1, writer1.publish());
+            reader1 = OffHeapSharedStructArray.open(file);
+            assertEquals(1, reader1.version());
+            assertEquals(1000, reader1.array().size());
+            assertEquals(16, reader1.array().structLength());
+            assertEquals(42, reader1.array().getLong(42, 0));
+            assertEquals(-999, reader1.array().getLong(999, 8));
+            assertFalse(reader1.isStale());
+            try {
+                reader1.array().putLong(0, 0, 1);
+                fail();
+            } catch (ReadOnlyBufferException e) {
+                // expected
+            }
+            // new version
+            writer2 = OffHeapSharedStructArray.create(file, 10, 8);
+            for (int i = 0; i < 10; i++) {
+                writer2.array().putLong(i, 0, i * 2);
+            }
+            assertFalse(reader1.isStale());
+            assertEquals(2, writer2.publish());
+            assertTrue(reader1.isStale());
+            reader2 = OffHeapSharedStructArray.open(file);
+            assertEquals(2, reader2.version());
+            assertEquals(10, reader2.array().size());
+            assertEquals(18, reader2.array().getLong(9, 0));
+            // old version is still readable
+            assertEquals(42, reader1.array().getLong(42, 0));
+        } finally {
+            free(writer1);
+            free(reader1);
+            free(writer2);
+            free(reader2);
+            file.delete();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPublishReadOnly() throws Exception {
+        File file = File.createTempFile("OffHeapSharedStructArrayTest", ".bin");
+        OffHeapSharedStructArray writer = null;
+        OffHeapSharedStructArray reader = null;
+        try {
+            assertTrue(file.delete());
+            writer = OffHeapSharedStructArray.create(file, 0, 8);
+            writer.publish();
+            reader = OffHeapSharedStructArray.open(file);
+            assertEquals(0, reader.array().size());
+            reader.publish();
+        } finally {
+            free(writer);
+            free(reader);
+            file.delete();
+        }
+    }
+}
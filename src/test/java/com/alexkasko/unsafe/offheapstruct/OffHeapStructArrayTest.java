@@ -21,6 +21,8 @@ import com.alexkasko.unsafe.offheap.OffHeapUtils;
 import org.junit.Test;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 import static org.junit.Assert.assertArrayEquals;
 
 /**
@@ -339,4 +341,68 @@ public class OffHeapStructArrayTest {
             OffHeapUtils.free(arr);
         }
     }
+
+    @Test
+    public void testBigEndian() {
+        OffHeapStructArray arr = null;
+        try {
+            arr = new OffHeapStructArray(2, 16);
+            arr.putLongBE(1, 0, 0x800f12765df4c9b2L);
+            arr.putIntBE(1, 8, 0x80067932);
+            arr.putShortBE(1, 12, (short) 0x82d6);
+            assertEquals((byte) 0x80, arr.getByte(1, 0));
+            assertEquals((byte) 0xb2, arr.getByte(1, 7));
+            assertEquals((byte) 0x80, arr.getByte(1, 8));
+            assertEquals((byte) 0x32, arr.getByte(1, 11));
+            assertEquals((byte) 0x82, arr.getByte(1, 12));
+            assertEquals((byte) 0xd6, arr.getByte(1, 13));
+            assertEquals(0x800f12765df4c9b2L, arr.getLongBE(1, 0));
+            assertEquals(0x80067932, arr.getIntBE(1, 8));
+            assertEquals((short) 0x82d6, arr.getShortBE(1, 12));
+        } finally {
+            OffHeapUtils.free(arr);
+        }
+    }
+
+    @Test
+    public void testCompareRows() {
+        OffHeapStructArray arr = null;
+        try {
+            arr = new OffHeapStructArray(3, 24);
+            for (int i = 0; i < 3; i++) {
+                arr.putLong(i, 0, 42);
+                arr.putLongBE(i, 8, 0x800f12765df4c9b2L);
+                arr.putLong(i, 16, 42);
+            }
+            arr.putByte(2, 17, (byte) 1);
+            assertEquals(-1, arr.mismatch(0, 1, 0, 24));
+            assertTrue(arr.equals(0, 1, 0, 24));
+            assertEquals(0, arr.compareUnsigned(0, 1, 0, 24));
+            assertEquals(17, arr.mismatch(0, 2, 0, 24));
+            assertEquals(9, arr.mismatch(0, 2, 8, 16));
+            assertFalse(arr.equals(1, 2, 0, 24));
+            assertTrue(arr.equals(1, 2, 0, 16));
+            assertTrue(arr.compareUnsigned(1, 2, 8, 16) < 0);
+            arr.putLongBE(2, 8, 0x000f12765df4c9b2L);
+            assertTrue(arr.compareUnsigned(1, 2, 8, 16) > 0);
+        } finally {
+            OffHeapUtils.free(arr);
+        }
+    }
+
+    @Test
+    public void testHash64() throws Exception {
+        OffHeapStructArray arr = null;
+        try {
+            arr = new OffHeapStructArray(2, 8);
+            arr.set(0, "xxabcxxx".getBytes("ASCII"));
+            arr.set(1, "yyabcyyy".getBytes("ASCII"));
+            assertEquals(0x44BC2CF5AD770999L, arr.hash64(0, 2, 3));
+            assertEquals(arr.hash64(0, 2, 3), arr.hash64(1, 2, 3));
+            assertFalse(arr.hash64(0) == arr.hash64(1));
+            assertFalse(arr.hash64(0, 2, 3) == arr.hash64(0, 2, 3, 42));
+        } finally {
+            OffHeapUtils.free(arr);
+        }
+    }
 }
@@ -187,4 +187,50 @@ public class OffHeapStructBinarySearchTest {
             OffHeapUtils.free(oha);
         }
     }
+
+    @Test
+    public void testDouble() {
+        OffHeapStructArray oha = null;
+        try {
+            oha = new OffHeapStructArray(LENGTH, 8);
+            Random random = new Random(42);
+            double[] arr = new double[LENGTH];
+            for (int i = 0; i < LENGTH; i++) {
+                double ra = random.nextGaussian() * 1000;
+                arr[i] = ra;
+                oha.putDouble(i, 0, ra);
+            }
+            double val4242 = arr[4242];
+            Arrays.sort(arr);
+            OffHeapStructSorter.sortByDoubleKey(oha, 0);
+            assertEquals(Arrays.binarySearch(arr, val4242), OffHeapStructBinarySearch.binarySearchByDoubleKey(oha, val4242, 0));
+            assertEquals(Arrays.binarySearch(arr, -2000.5), OffHeapStructBinarySearch.binarySearchByDoubleKey(oha, -2000.5, 0));
+        } finally {
+            OffHeapUtils.free(oha);
+        }
+    }
+
+    @Test
+    public void testFloatRange() {
+        OffHeapStructArray oha = null;
+        try {
+            oha = new OffHeapStructArray(8, 8);
+            float[] vals = {-1.5f, -0.0f, 0.0f, 0.0f, 0.0f, 2.5f, 2.5f, Float.POSITIVE_INFINITY};
+            for (int i = 0; i < vals.length; i++) {
+                oha.putFloat(i, 0, vals[vals.length - 1 - i]);
+            }
+            OffHeapStructSorter.sortByFloatKey(oha, 0);
+            OffHeapStructBinarySearch.IndexRange range = new OffHeapStructBinarySearch.IndexRange();
+            OffHeapStructBinarySearch.binarySearchRangeByFloatKey(oha, 0.0f, 0, range);
+            assertEquals(2, range.getFromIndex());
+            assertEquals(4, range.getToIndex());
+            OffHeapStructBinarySearch.binarySearchRangeByFloatKey(oha, -0.0f, 0, range);
+            assertEquals(1, range.getFromIndex());
+            assertEquals(1, range.getToIndex());
+            OffHeapStructBinarySearch.binarySearchRangeByFloatKey(oha, 1.0f, 0, range);
+            assertTrue(range.isEmpty());
+        } finally {
+            OffHeapUtils.free(oha);
+        }
+    }
 }
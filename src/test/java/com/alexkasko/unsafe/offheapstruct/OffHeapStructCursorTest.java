@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import org.junit.Test;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapStructCursorTest {
+
+    @Test
+    public void test() {
+        ByteArrayTool bt = ByteArrayTool.get();
+        OffHeapStructArrayList list = null;
+        try {
+            list = new OffHeapStructArrayList(200);
+            byte[] buf = new byte[200];
+            for (int i = 0; i < 100; i++) {
+                bt.putLong(buf, 8, i);
+                bt.putInt(buf, 196, -i);
+                list.add(buf);
+            }
+            OffHeapStructCursor cur = list.cursor();
+            assertEquals(200, cur.structLength());
+            long sum = 0;
+            int count = 0;
+            while (cur.next()) {
+                assertEquals(count, cur.index());
+                assertEquals(-count, cur.getInt(196));
+                sum += cur.getLong(8);
+                count += 1;
+            }
+            assertEquals(100, count);
+            assertEquals(4950, sum);
+            assertFalse(cur.next());
+            // reverse range
+            cur = list.cursor(10, 13, true);
+            assertTrue(cur.next());
+            assertEquals(12, cur.getLong(8));
+            assertTrue(cur.next());
+            assertEquals(11, cur.index());
+            cur.get(buf);
+            assertEquals(11, bt.getLong(buf, 8));
+            assertTrue(cur.next());
+            assertEquals(10, cur.getLong(8));
+            assertFalse(cur.next());
+            // reuse
+            cur.reset(98, 100, false);
+            assertTrue(cur.next());
+            assertEquals(98, cur.getLong(8));
+            assertTrue(cur.next());
+            assertFalse(cur.next());
+            cur.reset(0, 0, true);
+            assertFalse(cur.next());
+        } finally {
+            free(list);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRange() {
+        OffHeapStructArray arr = new OffHeapStructArray(10, 8);
+        try {
+            arr.cursor(5, 11, false);
+        } finally {
+            free(arr);
+        }
+    }
+}
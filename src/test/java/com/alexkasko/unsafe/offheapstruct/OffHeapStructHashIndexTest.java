@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapStructHashIndexTest {
+
+    @Test
+    public void testLongKey() {
+        OffHeapStructArray arr = null;
+        OffHeapStructHashIndex index = null;
+        try {
+            arr = new OffHeapStructArray(5, 12);
+            long[] keys = {42, 43, 42, -1, 42};
+            for (int i = 0; i < keys.length; i++) {
+                arr.putLong(i, 4, keys[i]);
+                arr.putInt(i, 0, i);
+            }
+            index = OffHeapStructHashIndex.byLongKey(arr, 4);
+            assertEquals(0, index.first(42));
+            assertEquals(2, index.next(0));
+            assertEquals(4, index.next(2));
+            assertEquals(-1, index.next(4));
+            assertEquals(3, index.count(42));
+            assertEquals(3, index.first(-1));
+            assertTrue(index.contains(43));
+            assertFalse(index.contains(44));
+            assertEquals(-1, index.first(44));
+        } finally {
+            free(index);
+            free(arr);
+        }
+    }
+
+    @Test
+    public void testIntKey() {
+        OffHeapStructArray arr = null;
+        OffHeapStructHashIndex index = null;
+        try {
+            arr = new OffHeapStructArray(3, 8);
+            arr.putInt(0, 4, -42);
+            arr.putInt(1, 4, 42);
+            arr.putInt(2, 4, -42);
+            index = OffHeapStructHashIndex.byIntKey(arr, 4);
+            assertEquals(0, index.first(-42));
+            assertEquals(2, index.next(0));
+            assertEquals(1, index.first(42));
+            assertEquals(1, index.count(42));
+            assertEquals(0, index.count(43));
+        } finally {
+            free(index);
+            free(arr);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        OffHeapStructArray arr = null;
+        OffHeapStructHashIndex index = null;
+        try {
+            arr = new OffHeapStructArray(0, 8);
+            index = OffHeapStructHashIndex.byLongKey(arr, 0);
+            assertEquals(-1, index.first(0));
+        } finally {
+            free(index);
+            free(arr);
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        OffHeapStructArrayList list = null;
+        OffHeapStructHashIndex seq = null;
+        OffHeapStructHashIndex par = null;
+        OffHeapStructHashIndex uneven = null;
+        try {
+            list = new OffHeapStructArrayList(16);
+            Random random = new Random(42);
+            Map<Long, List<Long>> heap = new HashMap<Long, List<Long>>();
+            byte[] buf = new byte[16];
+            for (long i = 0; i < 100000; i++) {
+                list.add(buf);
+                long key = random.nextInt(10000);
+                list.putLong(i, 8, key);
+                List<Long> rows = heap.get(key);
+                if (null == rows) {
+                    rows = new ArrayList<Long>();
+                    heap.put(key, rows);
+                }
+                rows.add(i);
+            }
+            seq = OffHeapStructHashIndex.byLongKey(list, 8);
+            par = OffHeapStructHashIndex.byLongKey(executor, 4, list, 8);
+            uneven = OffHeapStructHashIndex.byLongKey(executor, 7, list, 8);
+            for (long key = -1; key <= 10000; key++) {
+                List<Long> expected = heap.get(key);
+                if (null == expected) expected = new ArrayList<Long>();
+                assertEquals(expected, collect(seq, key));
+                assertEquals(expected, collect(par, key));
+                assertEquals(expected, collect(uneven, key));
+            }
+        } finally {
+            executor.shutdown();
+            free(seq);
+            free(par);
+            free(uneven);
+            free(list);
+        }
+    }
+
+    private static List<Long> collect(OffHeapStructHashIndex index, long key) {
+        List<Long> res = new ArrayList<Long>();
+        for (long i = index.first(key); i >= 0; i = index.next(i)) {
+            res.add(i);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Alex Kasko (alexkasko.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alexkasko.unsafe.offheapstruct;
+
+import com.alexkasko.unsafe.bytearray.ByteArrayTool;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static com.alexkasko.unsafe.offheap.OffHeapUtils.free;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/19/14
+ */
+public class OffHeapStructHeapTest {
+
+    @Test
+    public void test() {
+        ByteArrayTool bt = ByteArrayTool.get();
+        OffHeapStructHeap heap = null;
+        try {
+            heap = OffHeapStructHeap.byLongKey(16, 8);
+            Random random = new Random(42);
+            long[] keys = new long[1000];
+            byte[] buf = new byte[16];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+                bt.putLong(buf, 0, ~keys[i]);
+                bt.putLong(buf, 8, keys[i]);
+                heap.add(buf);
+            }
+            Arrays.sort(keys);
+            assertTrue(heap.peek(buf));
+            assertEquals(keys[0], bt.getLong(buf, 8));
+            for (long key : keys) {
+                assertTrue(heap.poll(buf));
+                assertEquals(key, bt.getLong(buf, 8));
+                assertEquals(~key, bt.getLong(buf, 0));
+            }
+            assertFalse(heap.poll(buf));
+            assertFalse(heap.replaceTop(buf));
+        } finally {
+            free(heap);
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        OffHeapStructArray arr = null;
+        OffHeapStructArray byLong = null;
+        OffHeapStructArray byInt = null;
+        OffHeapStructArray byComp = null;
+        try {
+            Random random = new Random(42);
+            int[] keys = new int[100000];
+            arr = new OffHeapStructArray(keys.length, 12);
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextInt();
+                arr.putLong(i, 0, keys[i]);
+                arr.putInt(i, 8, keys[i]);
+            }
+            Arrays.sort(keys);
+            byLong = OffHeapStructHeap.topK(arr, 1000, 0);
+            byInt = OffHeapStructHeap.topKByIntKey(arr, 1000, 8);
+            byComp = OffHeapStructHeap.topK(arr, 1000, new Comparator<OffHeapStructAccessor>() {
+                @Override
+                public int compare(OffHeapStructAccessor o1, OffHeapStructAccessor o2) {
+                    int i1 = o1.getInt(8);
+                    int i2 = o2.getInt(8);
+                    return i1 < i2 ? -1 : (i1 == i2 ? 0 : 1);
+                }
+            });
+            assertEquals(1000, byLong.size());
+            for (int i = 0; i < 1000; i++) {
+                int expected = keys[keys.length - 1 - i];
+                assertEquals(expected, byLong.getLong(i, 0));
+                assertEquals(expected, byLong.getInt(i, 8));
+                assertEquals(expected, byInt.getInt(i, 8));
+                assertEquals(expected, byComp.getLong(i, 0));
+            }
+        } finally {
+            free(arr);
+            free(byLong);
+            free(byInt);
+            free(byComp);
+        }
+    }
+}
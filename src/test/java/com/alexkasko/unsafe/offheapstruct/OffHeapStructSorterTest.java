@@ -164,6 +164,60 @@ public class OffHeapStructSorterTest {
         }
     }
 
+    @Test
+    public void testDoubleKey() {
+        OffHeapStructArray arr = null;
+        try {
+            Random random = new Random(42);
+            double[] heap = new double[LENGTH];
+            arr = new OffHeapStructArray(LENGTH, 16);
+            for (int i = 0; i < LENGTH; i++) {
+                double va = (random.nextDouble() - 0.5) * random.nextInt(1000);
+                if (0 == i % 1000) va = -0.0;
+                if (1 == i % 1000) va = Double.NEGATIVE_INFINITY;
+                if (2 == i % 1000) va = Double.NaN;
+                heap[i] = va;
+                arr.putDouble(i, 0, va);
+                arr.putLong(i, 8, Double.doubleToRawLongBits(va));
+            }
+            Arrays.sort(heap);
+            OffHeapStructSorter.sortByDoubleKey(arr, 0);
+            for (int i = 0; i < LENGTH; i++) {
+                assertEquals(Double.doubleToRawLongBits(heap[i]), Double.doubleToRawLongBits(arr.getDouble(i, 0)));
+                assertEquals(Double.doubleToRawLongBits(heap[i]), arr.getLong(i, 8));
+            }
+        } finally {
+            free(arr);
+        }
+    }
+
+    @Test
+    public void testFloatKey() {
+        OffHeapStructArray arr = null;
+        try {
+            Random random = new Random(42);
+            float[] heap = new float[LENGTH];
+            arr = new OffHeapStructArray(LENGTH, 8);
+            for (int i = 0; i < LENGTH; i++) {
+                float va = (random.nextFloat() - 0.5f) * random.nextInt(1000);
+                if (0 == i % 1000) va = -0.0f;
+                if (1 == i % 1000) va = Float.POSITIVE_INFINITY;
+                if (2 == i % 1000) va = Float.NaN;
+                heap[i] = va;
+                arr.putFloat(i, 0, va);
+                arr.putInt(i, 4, Float.floatToRawIntBits(va));
+            }
+            Arrays.sort(heap);
+            OffHeapStructSorter.sortByFloatKey(arr, 0);
+            for (int i = 0; i < LENGTH; i++) {
+                assertEquals(Float.floatToRawIntBits(heap[i]), Float.floatToRawIntBits(arr.getFloat(i, 0)));
+                assertEquals(Float.floatToRawIntBits(heap[i]), arr.getInt(i, 4));
+            }
+        } finally {
+            free(arr);
+        }
+    }
+
     @Test
     public void testIntKey() {
 //          for(int j=0; j< 100000; j++) {
@@ -521,4 +575,42 @@ public class OffHeapStructSorterTest {
             return 0;
         }
     }
+
+    @Test
+    public void testSelect() {
+        OffHeapStructArray arr = null;
+        try {
+            Random random = new Random(42);
+            long[] keys = new long[LENGTH];
+            arr = new OffHeapStructArray(LENGTH, 16);
+            for (int i = 0; i < LENGTH; i++) {
+                keys[i] = random.nextInt(1000);
+                arr.putLong(i, 0, keys[i]);
+                arr.putInt(i, 8, (int) keys[i]);
+                arr.putInt(i, 12, (int) ~keys[i]);
+            }
+            Arrays.sort(keys);
+            int median = LENGTH / 2;
+            OffHeapStructSorter.selectByLongKey(arr, median, 0);
+            assertEquals(keys[median], arr.getLong(median, 0));
+            for (int i = 0; i < LENGTH; i++) {
+                long key = arr.getLong(i, 0);
+                assertEquals(~key, arr.getInt(i, 12));
+                assertTrue(i < median ? key <= keys[median] : key >= keys[median]);
+            }
+            OffHeapStructSorter.selectByIntKey(arr, 7, 8);
+            assertEquals(keys[7], arr.getInt(7, 8));
+            OffHeapStructSorter.partialSortByIntKey(arr, 0, 50, 8);
+            for (int i = 0; i < 50; i++) {
+                assertEquals(keys[i], arr.getInt(i, 8));
+            }
+            OffHeapStructSorter.partialSortByLongKey(arr, LENGTH - 50, 50, 0);
+            for (int i = LENGTH - 50; i < LENGTH; i++) {
+                assertEquals(keys[i], arr.getLong(i, 0));
+                assertEquals(~keys[i], arr.getInt(i, 12));
+            }
+        } finally {
+            free(arr);
+        }
+    }
 }